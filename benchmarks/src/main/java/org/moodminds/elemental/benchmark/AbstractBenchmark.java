@@ -0,0 +1,87 @@
+package org.moodminds.elemental.benchmark;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A template benchmark state, holding the elements generated according
+ * to the {@link #size} and {@link #distribution} parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public abstract class AbstractBenchmark {
+
+    /**
+     * The number of lookup probes, a power of two.
+     */
+    protected static final int PROBES = 1024;
+
+    /**
+     * The number of elements parameter.
+     */
+    @Param({"100", "10000", "1000000"})
+    protected int size;
+
+    /**
+     * The duplicate ratio of elements parameter.
+     */
+    @Param
+    protected Distribution distribution;
+
+    /**
+     * The generated elements holder field.
+     */
+    protected Integer[] elements;
+
+    /**
+     * The generated lookup probes holder field, half present, half absent.
+     */
+    protected Integer[] probes;
+
+    /**
+     * The current lookup probe index holder field.
+     */
+    private int probe;
+
+    /**
+     * Generate the elements and probes, then {@link #prepare()} the benchmark.
+     */
+    @Setup
+    public void setup() throws Exception {
+        Random random = new Random(42);
+        elements = distribution.elements(size, random);
+        probes = Distribution.probes(elements, PROBES, random);
+        prepare();
+    }
+
+    /**
+     * Prepare the benchmark specific state after the elements generated.
+     *
+     * @throws Exception if anything goes wrong
+     */
+    protected void prepare() throws Exception {}
+
+    /**
+     * Return the next lookup probe, cycling over the {@link #probes}.
+     *
+     * @return the next lookup probe
+     */
+    protected Integer probe() {
+        return probes[probe++ & (PROBES - 1)];
+    }
+}
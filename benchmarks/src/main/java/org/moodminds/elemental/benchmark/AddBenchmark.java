@@ -0,0 +1,21 @@
+package org.moodminds.elemental.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Filling of an empty mutable subject element by element.
+ */
+public class AddBenchmark extends AbstractBenchmark {
+
+    @Param({"HASH_COLLECTION", "COUNTING_HASH_COLLECTION", "CONCURRENT_HASH_COLLECTION", "LINK_HASH_COLLECTION", "TREE_COLLECTION", "CONCURRENT_TREE_COLLECTION", "ARRAY_LIST", "HASH_MAP", "TREE_MAP"})
+    private Subject subject;
+
+    @Benchmark
+    public Object add() {
+        Object instance = subject.empty();
+        for (Integer element : elements)
+            subject.add(instance, element);
+        return instance;
+    }
+}
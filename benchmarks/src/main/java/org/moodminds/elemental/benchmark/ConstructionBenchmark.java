@@ -0,0 +1,44 @@
+package org.moodminds.elemental.benchmark;
+
+import org.moodminds.elemental.Container;
+import org.moodminds.elemental.HashContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.Arrays;
+
+/**
+ * Construction from the varargs, sequential and parallel {@link java.util.stream.Stream} and {@link Container} sources.
+ */
+public class ConstructionBenchmark extends AbstractBenchmark {
+
+    @Param
+    private Subject subject;
+
+    private Container<Integer> container;
+
+    @Override
+    protected void prepare() {
+        container = new HashContainer<>(elements);
+    }
+
+    @Benchmark
+    public Object varargs() {
+        return subject.of(elements);
+    }
+
+    @Benchmark
+    public Object stream() {
+        return subject.of(Arrays.stream(elements));
+    }
+
+    @Benchmark
+    public Object parallelStream() {
+        return subject.of(Arrays.stream(elements).parallel());
+    }
+
+    @Benchmark
+    public Object container() {
+        return subject.of(container);
+    }
+}
@@ -0,0 +1,83 @@
+package org.moodminds.elemental.benchmark;
+
+import org.moodminds.elemental.ConcurrentTreeCollection;
+import org.moodminds.elemental.NavigableCollection;
+import org.moodminds.elemental.TreeCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler-style adding and polling of the first element by many threads at once,
+ * of the {@link ConcurrentTreeCollection} against a {@link TreeCollection} guarded by its monitor.
+ * The thread count is to be varied with the {@code -t} option to see the scaling.
+ */
+@Threads(4)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ContentionBenchmark extends AbstractBenchmark {
+
+    @Param
+    private Queue queue;
+
+    private NavigableCollection<Integer> instance;
+
+    @Override
+    protected void prepare() {
+        instance = queue.of(elements);
+    }
+
+    @Benchmark
+    public Integer addPollFirst() {
+        queue.add(instance, elements[ThreadLocalRandom.current().nextInt(elements.length)]);
+        return queue.pollFirst(instance);
+    }
+
+    /**
+     * The benchmarked shared navigable collections.
+     */
+    public enum Queue {
+
+        CONCURRENT_TREE_COLLECTION {
+            @Override NavigableCollection<Integer> of(Integer[] elements) { return new ConcurrentTreeCollection<>(elements); }
+            @Override void add(NavigableCollection<Integer> queue, Integer element) { queue.add(element); }
+            @Override Integer pollFirst(NavigableCollection<Integer> queue) { return queue.pollFirst(); }
+        },
+
+        SYNCHRONIZED_TREE_COLLECTION {
+            @Override NavigableCollection<Integer> of(Integer[] elements) { return new TreeCollection<>(elements); }
+            @Override void add(NavigableCollection<Integer> queue, Integer element) { synchronized (queue) { queue.add(element); } }
+            @Override Integer pollFirst(NavigableCollection<Integer> queue) { synchronized (queue) { return queue.pollFirst(); } }
+        };
+
+        /**
+         * Create the shared collection of the given elements.
+         *
+         * @param elements the given elements
+         * @return the shared collection of the given elements
+         */
+        abstract NavigableCollection<Integer> of(Integer[] elements);
+
+        /**
+         * Add the given element to the given shared collection.
+         *
+         * @param queue the given shared collection
+         * @param element the given element
+         */
+        abstract void add(NavigableCollection<Integer> queue, Integer element);
+
+        /**
+         * Retrieve and remove the first element of the given shared collection.
+         *
+         * @param queue the given shared collection
+         * @return the first element, or {@code null} if empty
+         */
+        abstract Integer pollFirst(NavigableCollection<Integer> queue);
+    }
+}
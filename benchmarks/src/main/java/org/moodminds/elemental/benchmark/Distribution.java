@@ -0,0 +1,76 @@
+package org.moodminds.elemental.benchmark;
+
+import java.util.Random;
+
+import static java.lang.Math.max;
+
+/**
+ * Duplicate ratio of the benchmarked elements, defining how many
+ * of them end up in the single-value path and how many in the bucket path.
+ */
+public enum Distribution {
+
+    /**
+     * All elements are distinct.
+     */
+    DISTINCT {
+        @Override int distinct(int size) { return size; }
+    },
+
+    /**
+     * Every tenth element is a duplicate of another one.
+     */
+    TEN_PERCENT {
+        @Override int distinct(int size) { return max(size - size / 10, 1); }
+    },
+
+    /**
+     * Each distinct element is repeated about sixteen times.
+     */
+    HEAVY {
+        @Override int distinct(int size) { return max(size >> 4, 1); }
+    };
+
+    /**
+     * Return the number of distinct elements among the given size.
+     *
+     * @param size the given number of elements
+     * @return the number of distinct elements among the given size
+     */
+    abstract int distinct(int size);
+
+    /**
+     * Generate the shuffled elements array of the given size.
+     * Every distinct value in range {@code [0, distinct(size))} is present
+     * at least once, the rest are randomly picked duplicates.
+     *
+     * @param size the given number of elements
+     * @param random the given {@link Random}
+     * @return the shuffled elements array of the given size
+     */
+    Integer[] elements(int size, Random random) {
+        int distinct = distinct(size); Integer[] elements = new Integer[size];
+        for (int i = 0; i < size; i++)
+            elements[i] = i < distinct ? i : random.nextInt(distinct);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1); Integer swap = elements[i];
+            elements[i] = elements[j]; elements[j] = swap;
+        } return elements;
+    }
+
+    /**
+     * Generate the lookup probes for the given elements: a half
+     * of them are present in the elements, the other half are absent.
+     *
+     * @param elements the given elements array
+     * @param count the number of probes, a power of two
+     * @param random the given {@link Random}
+     * @return the lookup probes for the given elements
+     */
+    static Integer[] probes(Integer[] elements, int count, Random random) {
+        Integer[] probes = new Integer[count];
+        for (int i = 0; i < count; i++)
+            probes[i] = (i & 1) == 0 ? elements[random.nextInt(elements.length)] : -1 - random.nextInt(elements.length);
+        return probes;
+    }
+}
@@ -0,0 +1,63 @@
+package org.moodminds.elemental.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Full sequential iteration via the {@link java.util.Iterator}, {@code forEach} and the spliterator,
+ * and the spliterator-driven parallel {@link java.util.stream.Stream}.
+ * <p>
+ * The {@code forEach} and {@code spliterator} cases reuse a single consumer, so with {@code -prof gc}
+ * their {@code gc.alloc.rate.norm} stays the same small constant for any {@code size}: nothing is
+ * allocated per element.
+ */
+public class IterationBenchmark extends AbstractBenchmark {
+
+    @Param
+    private Subject subject;
+
+    private Object instance;
+
+    private Consumer<Integer> consumer;
+
+    @Override
+    protected void prepare() {
+        instance = subject.of(elements);
+    }
+
+    @Setup
+    public void consumer(Blackhole blackhole) {
+        consumer = blackhole::consume;
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        subject.iterate(instance, blackhole);
+    }
+
+    @Benchmark
+    public void forEach() {
+        subject.forEach(instance, consumer);
+    }
+
+    @Benchmark
+    public void spliterator() {
+        subject.spliterator(instance).forEachRemaining(consumer);
+    }
+
+    @Benchmark
+    public void tryAdvance() {
+        Spliterator<Integer> spliterator = subject.spliterator(instance);
+        while (spliterator.tryAdvance(consumer));
+    }
+
+    @Benchmark
+    public long parallelStream() {
+        return subject.parallelStream(instance).mapToLong(Integer::longValue).sum();
+    }
+}
@@ -0,0 +1,39 @@
+package org.moodminds.elemental.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+
+/**
+ * Element lookup by the present and absent probes.
+ */
+public class LookupBenchmark extends AbstractBenchmark {
+
+    @Param
+    private Subject subject;
+
+    private Object instance;
+
+    @Override
+    protected void prepare() {
+        instance = subject.of(elements);
+    }
+
+    @Benchmark
+    public int getCount() {
+        return subject.getCount(instance, probe());
+    }
+
+    @Benchmark
+    public void getAll(Blackhole blackhole) {
+        for (Iterator<Integer> all = subject.getAll(instance, probe()); all.hasNext(); )
+            blackhole.consume(all.next());
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return subject.contains(instance, probe());
+    }
+}
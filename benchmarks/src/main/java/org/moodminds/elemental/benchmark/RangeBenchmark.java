@@ -0,0 +1,85 @@
+package org.moodminds.elemental.benchmark;
+
+import org.moodminds.elemental.BTreeCollection;
+import org.moodminds.elemental.NavigableCollection;
+import org.moodminds.elemental.TreeCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+
+/**
+ * Range scans of the sub-views and the {@code floorAll}/{@code ceilingAll} lookups
+ * of the node-per-entry {@link TreeCollection} against the B+ tree {@link BTreeCollection}.
+ */
+public class RangeBenchmark extends AbstractBenchmark {
+
+    /**
+     * The number of the elements scanned per range, at most.
+     */
+    protected static final int SPAN = 256;
+
+    @Param
+    private Navigation navigation;
+
+    private NavigableCollection<Integer> instance;
+
+    /**
+     * The value width of a range holding about {@link #SPAN} elements.
+     */
+    private int width;
+
+    @Override
+    protected void prepare() {
+        instance = navigation.of(elements);
+        width = Math.max(1, (int) ((long) SPAN * distribution.distinct(size) / size));
+    }
+
+    @Benchmark
+    public void rangeIterator(Blackhole blackhole) {
+        Integer from = probe();
+        for (Integer element : instance.sub(from, true, from + width, false))
+            blackhole.consume(element);
+    }
+
+    @Benchmark
+    public void rangeForEach(Blackhole blackhole) {
+        Integer from = probe();
+        instance.sub(from, true, from + width, false).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void floorAll(Blackhole blackhole) {
+        for (Iterator<Integer> iterator = instance.floorAll(probe()); iterator.hasNext(); )
+            blackhole.consume(iterator.next());
+    }
+
+    @Benchmark
+    public void ceilingAll(Blackhole blackhole) {
+        for (Iterator<Integer> iterator = instance.ceilingAll(probe()); iterator.hasNext(); )
+            blackhole.consume(iterator.next());
+    }
+
+    /**
+     * The benchmarked navigable structures.
+     */
+    public enum Navigation {
+
+        TREE_COLLECTION {
+            @Override NavigableCollection<Integer> of(Integer[] elements) { return new TreeCollection<>(elements); }
+        },
+
+        BTREE_COLLECTION {
+            @Override NavigableCollection<Integer> of(Integer[] elements) { return new BTreeCollection<>(elements); }
+        };
+
+        /**
+         * Construct the subject instance from the given elements array.
+         *
+         * @param elements the given elements array
+         * @return the subject instance
+         */
+        abstract NavigableCollection<Integer> of(Integer[] elements);
+    }
+}
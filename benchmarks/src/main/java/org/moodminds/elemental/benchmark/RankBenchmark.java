@@ -0,0 +1,100 @@
+package org.moodminds.elemental.benchmark;
+
+import org.moodminds.elemental.TreeCollection;
+import org.moodminds.elemental.TreeContainer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Percentile-style range counting and selection by index of the sorted containers,
+ * against the grouping {@link TreeMap} of element lists walking its head map.
+ */
+public class RankBenchmark extends AbstractBenchmark {
+
+    @Param
+    private Ranking ranking;
+
+    private Object instance;
+
+    @Override
+    protected void prepare() {
+        instance = ranking.of(elements);
+    }
+
+    @Benchmark
+    public int headSize() {
+        return ranking.headSize(instance, probe());
+    }
+
+    @Benchmark
+    public Integer select() {
+        return ranking.select(instance, (probe() & Integer.MAX_VALUE) % elements.length);
+    }
+
+    /**
+     * The benchmarked sorted structures.
+     */
+    public enum Ranking {
+
+        TREE_CONTAINER {
+            @Override Object of(Integer[] elements) { return new TreeContainer<>(elements); }
+            @Override int headSize(Object subject, Integer element) { return ((TreeContainer<Integer>) subject).head(element).size(); }
+            @Override Integer select(Object subject, int index) { return ((TreeContainer<Integer>) subject).select(index); }
+        },
+
+        TREE_COLLECTION {
+            @Override Object of(Integer[] elements) { return new TreeCollection<>(elements); }
+            @Override int headSize(Object subject, Integer element) { return ((TreeCollection<Integer>) subject).head(element).size(); }
+            @Override Integer select(Object subject, int index) { return ((TreeCollection<Integer>) subject).select(index); }
+        },
+
+        TREE_MAP {
+            @Override Object of(Integer[] elements) {
+                NavigableMap<Integer, List<Integer>> map = new TreeMap<>();
+                for (Integer element : elements) map.computeIfAbsent(element, key -> new ArrayList<>(1)).add(element);
+                return map; }
+            @Override int headSize(Object subject, Integer element) {
+                int size = 0; for (List<Integer> group : map(subject).headMap(element).values()) size += group.size(); return size; }
+            @Override Integer select(Object subject, int index) {
+                for (List<Integer> group : map(subject).values()) {
+                    if (index < group.size()) return group.get(index); index -= group.size(); }
+                throw new IndexOutOfBoundsException(); }
+        };
+
+        /**
+         * Construct the subject instance from the given elements array.
+         *
+         * @param elements the given elements array
+         * @return the subject instance
+         */
+        abstract Object of(Integer[] elements);
+
+        /**
+         * Return the number of the elements less than the given one in the given subject instance.
+         *
+         * @param subject the given subject instance
+         * @param element the given element
+         * @return the number of the elements less than the given one
+         */
+        abstract int headSize(Object subject, Integer element);
+
+        /**
+         * Return the element at the given index of the ascending order of the given subject instance.
+         *
+         * @param subject the given subject instance
+         * @param index the given index
+         * @return the element at the given index
+         */
+        abstract Integer select(Object subject, int index);
+
+        @SuppressWarnings("unchecked")
+        private static NavigableMap<Integer, List<Integer>> map(Object subject) {
+            return (NavigableMap<Integer, List<Integer>>) subject;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.moodminds.elemental.benchmark;
+
+import org.moodminds.elemental.ArraySequence;
+import org.moodminds.elemental.LinkTailSequence;
+import org.moodminds.elemental.TailedSequence;
+import org.moodminds.elemental.UnrolledTailSequence;
+import org.moodminds.elemental.VectorSequence;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Construction, forward and descending iteration and positional access of the node-per-element
+ * {@link LinkTailSequence} against the {@link UnrolledTailSequence} and the {@link VectorSequence},
+ * with the {@link ArraySequence} baseline.
+ */
+public class SequenceBenchmark extends AbstractBenchmark {
+
+    @Param
+    private Layout layout;
+
+    private TailedSequence<Integer> instance;
+
+    private Consumer<Integer> consumer;
+
+    /**
+     * The random positions of the positional access, {@link #PROBES} of them.
+     */
+    private int[] indexes;
+
+    private int index;
+
+    @Override
+    protected void prepare() {
+        instance = layout.of(elements);
+        indexes = new Random(42).ints(PROBES, 0, size).toArray();
+    }
+
+    @Setup
+    public void consumer(Blackhole blackhole) {
+        consumer = blackhole::consume;
+    }
+
+    @Benchmark
+    public Object construct() {
+        return layout.of(elements);
+    }
+
+    @Benchmark
+    public void iterate(Blackhole blackhole) {
+        for (Integer element : instance)
+            blackhole.consume(element);
+    }
+
+    @Benchmark
+    public void forEach() {
+        instance.forEach(consumer);
+    }
+
+    @Benchmark
+    public void descending(Blackhole blackhole) {
+        for (Iterator<Integer> iterator = instance.descendingIterator(); iterator.hasNext(); )
+            blackhole.consume(iterator.next());
+    }
+
+    @Benchmark
+    public Integer get() {
+        return instance.get(indexes[index++ & (PROBES - 1)]);
+    }
+
+    /**
+     * The benchmarked sequence layouts.
+     */
+    public enum Layout {
+
+        LINK_TAIL_SEQUENCE {
+            @Override TailedSequence<Integer> of(Integer[] elements) { return new LinkTailSequence<>(elements); }
+        },
+
+        UNROLLED_TAIL_SEQUENCE {
+            @Override TailedSequence<Integer> of(Integer[] elements) { return new UnrolledTailSequence<>(elements); }
+        },
+
+        VECTOR_SEQUENCE {
+            @Override TailedSequence<Integer> of(Integer[] elements) { return new VectorSequence<>(elements); }
+        },
+
+        ARRAY_SEQUENCE {
+            @Override TailedSequence<Integer> of(Integer[] elements) { return new ArraySequence<>(elements.clone()); }
+        };
+
+        /**
+         * Construct the subject instance from the given elements array.
+         *
+         * @param elements the given elements array
+         * @return the subject instance
+         */
+        abstract TailedSequence<Integer> of(Integer[] elements);
+    }
+}
@@ -0,0 +1,56 @@
+package org.moodminds.elemental.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Java serialization round trip.
+ */
+public class SerializationBenchmark extends AbstractBenchmark {
+
+    @Param
+    private Subject subject;
+
+    private Object instance;
+
+    private byte[] serialized;
+
+    @Override
+    protected void prepare() throws Exception {
+        instance = subject.of(elements); serialized = serialize(instance);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return serialize(instance);
+    }
+
+    @Benchmark
+    public Object deserialize() throws Exception {
+        return deserialize(serialized);
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        return deserialize(serialize(instance));
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(object);
+        } return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws Exception {
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return input.readObject();
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package org.moodminds.elemental.benchmark;
+
+import org.moodminds.elemental.BTreeCollection;
+import org.moodminds.elemental.BTreeContainer;
+import org.moodminds.elemental.ConcurrentHashCollection;
+import org.moodminds.elemental.ConcurrentTreeCollection;
+import org.moodminds.elemental.Container;
+import org.moodminds.elemental.CountingHashCollection;
+import org.moodminds.elemental.CountingHashContainer;
+import org.moodminds.elemental.HashCollection;
+import org.moodminds.elemental.HashContainer;
+import org.moodminds.elemental.LinkHashCollection;
+import org.moodminds.elemental.SortedArrayContainer;
+import org.moodminds.elemental.TreeCollection;
+import org.moodminds.elemental.TreeContainer;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Collections.emptyList;
+import static java.util.function.Function.identity;
+import static java.util.function.Predicate.isEqual;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The benchmarked structure, adapting the Elementals {@link Container}s
+ * and their closest JDK counterparts to the same set of operations.
+ * <p>
+ * The JDK baselines holding duplicates are the {@link ArrayList} and
+ * the grouping {@link HashMap} and {@link TreeMap} of element lists,
+ * which is what the heap containers do with their buckets.
+ */
+public enum Subject {
+
+    HASH_CONTAINER {
+        @Override Object of(Integer[] elements) { return new HashContainer<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new HashContainer<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new HashContainer<>(elements); }
+    },
+
+    HASH_COLLECTION {
+        @Override Object of(Integer[] elements) { return new HashCollection<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new HashCollection<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new HashCollection<>(elements); }
+        @Override Object empty() { return new HashCollection<Integer>(); }
+        @Override void add(Object subject, Integer element) { collection(subject).add(element); }
+    },
+
+    LINK_HASH_COLLECTION {
+        @Override Object of(Integer[] elements) { return new LinkHashCollection<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new LinkHashCollection<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new LinkHashCollection<>(elements); }
+        @Override Object empty() { return new LinkHashCollection<Integer>(); }
+        @Override void add(Object subject, Integer element) { collection(subject).add(element); }
+    },
+
+    COUNTING_HASH_CONTAINER {
+        @Override Object of(Integer[] elements) { return new CountingHashContainer<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new CountingHashContainer<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new CountingHashContainer<>(elements); }
+    },
+
+    COUNTING_HASH_COLLECTION {
+        @Override Object of(Integer[] elements) { return new CountingHashCollection<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new CountingHashCollection<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new CountingHashCollection<>(elements); }
+        @Override Object empty() { return new CountingHashCollection<Integer>(); }
+        @Override void add(Object subject, Integer element) { collection(subject).add(element); }
+    },
+
+    CONCURRENT_HASH_COLLECTION {
+        @Override Object of(Integer[] elements) { return new ConcurrentHashCollection<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new ConcurrentHashCollection<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new ConcurrentHashCollection<>(elements); }
+        @Override Object empty() { return new ConcurrentHashCollection<Integer>(); }
+        @Override void add(Object subject, Integer element) { collection(subject).add(element); }
+    },
+
+    TREE_CONTAINER {
+        @Override Object of(Integer[] elements) { return new TreeContainer<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new TreeContainer<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new TreeContainer<>(elements); }
+    },
+
+    TREE_COLLECTION {
+        @Override Object of(Integer[] elements) { return new TreeCollection<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new TreeCollection<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new TreeCollection<>(elements); }
+        @Override Object empty() { return new TreeCollection<Integer>(); }
+        @Override void add(Object subject, Integer element) { collection(subject).add(element); }
+    },
+
+    SORTED_ARRAY_CONTAINER {
+        @Override Object of(Integer[] elements) { return new SortedArrayContainer<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new SortedArrayContainer<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new SortedArrayContainer<>(elements); }
+    },
+
+    BTREE_CONTAINER {
+        @Override Object of(Integer[] elements) { return new BTreeContainer<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new BTreeContainer<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new BTreeContainer<>(elements); }
+    },
+
+    BTREE_COLLECTION {
+        @Override Object of(Integer[] elements) { return new BTreeCollection<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new BTreeCollection<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new BTreeCollection<>(elements); }
+        @Override Object empty() { return new BTreeCollection<Integer>(); }
+        @Override void add(Object subject, Integer element) { collection(subject).add(element); }
+    },
+
+    CONCURRENT_TREE_COLLECTION {
+        @Override Object of(Integer[] elements) { return new ConcurrentTreeCollection<>(elements); }
+        @Override Object of(Stream<Integer> elements) { return new ConcurrentTreeCollection<>(elements); }
+        @Override Object of(Container<Integer> elements) { return new ConcurrentTreeCollection<>(elements); }
+        @Override Object empty() { return new ConcurrentTreeCollection<Integer>(); }
+        @Override void add(Object subject, Integer element) { collection(subject).add(element); }
+    },
+
+    ARRAY_LIST {
+        @Override Object of(Integer[] elements) {
+            List<Integer> list = new ArrayList<>(elements.length);
+            for (Integer element : elements) list.add(element);
+            return list; }
+        @Override Object of(Stream<Integer> elements) { return elements.collect(toList()); }
+        @Override Object of(Container<Integer> elements) {
+            List<Integer> list = new ArrayList<>(elements.size());
+            for (Integer element : elements) list.add(element);
+            return list; }
+        @Override Object empty() { return new ArrayList<Integer>(); }
+        @Override void add(Object subject, Integer element) { collection(subject).add(element); }
+        @Override int getCount(Object subject, Object o) {
+            int count = 0; for (Integer element : list(subject)) if (o.equals(element)) count++; return count; }
+        @Override Iterator<Integer> getAll(Object subject, Object o) { return list(subject).stream().filter(isEqual(o)).iterator(); }
+        @Override boolean contains(Object subject, Object o) { return list(subject).contains(o); }
+        @Override void iterate(Object subject, Blackhole blackhole) { for (Integer element : list(subject)) blackhole.consume(element); }
+        @Override void forEach(Object subject, Consumer<Integer> action) { list(subject).forEach(action); }
+        @Override Spliterator<Integer> spliterator(Object subject) { return list(subject).spliterator(); }
+        @Override Stream<Integer> parallelStream(Object subject) { return list(subject).parallelStream(); }
+    },
+
+    HASH_MAP {
+        @Override Object of(Integer[] elements) { return group(new HashMap<>(), elements); }
+        @Override Object of(Stream<Integer> elements) { return elements.collect(groupingBy(identity(), HashMap::new, toList())); }
+        @Override Object of(Container<Integer> elements) { return group(new HashMap<>(), elements); }
+        @Override Object empty() { return new HashMap<Integer, List<Integer>>(); }
+        @Override void add(Object subject, Integer element) { group(map(subject), element); }
+        @Override int getCount(Object subject, Object o) { return map(subject).getOrDefault(o, emptyList()).size(); }
+        @Override Iterator<Integer> getAll(Object subject, Object o) { return map(subject).getOrDefault(o, emptyList()).iterator(); }
+        @Override boolean contains(Object subject, Object o) { return map(subject).containsKey(o); }
+        @Override void iterate(Object subject, Blackhole blackhole) {
+            for (List<Integer> group : map(subject).values()) for (Integer element : group) blackhole.consume(element); }
+        @Override void forEach(Object subject, Consumer<Integer> action) {
+            map(subject).forEach((key, group) -> group.forEach(action)); }
+        @Override Spliterator<Integer> spliterator(Object subject) { return map(subject).values().stream().flatMap(List::stream).spliterator(); }
+        @Override Stream<Integer> parallelStream(Object subject) { return map(subject).values().parallelStream().flatMap(List::stream); }
+    },
+
+    TREE_MAP {
+        @Override Object of(Integer[] elements) { return group(new TreeMap<>(), elements); }
+        @Override Object of(Stream<Integer> elements) { return elements.collect(groupingBy(identity(), TreeMap::new, toList())); }
+        @Override Object of(Container<Integer> elements) { return group(new TreeMap<>(), elements); }
+        @Override Object empty() { return new TreeMap<Integer, List<Integer>>(); }
+        @Override void add(Object subject, Integer element) { group(map(subject), element); }
+        @Override int getCount(Object subject, Object o) { return map(subject).getOrDefault(o, emptyList()).size(); }
+        @Override Iterator<Integer> getAll(Object subject, Object o) { return map(subject).getOrDefault(o, emptyList()).iterator(); }
+        @Override boolean contains(Object subject, Object o) { return map(subject).containsKey(o); }
+        @Override void iterate(Object subject, Blackhole blackhole) {
+            for (List<Integer> group : map(subject).values()) for (Integer element : group) blackhole.consume(element); }
+        @Override void forEach(Object subject, Consumer<Integer> action) {
+            map(subject).forEach((key, group) -> group.forEach(action)); }
+        @Override Spliterator<Integer> spliterator(Object subject) { return map(subject).values().stream().flatMap(List::stream).spliterator(); }
+        @Override Stream<Integer> parallelStream(Object subject) { return map(subject).values().parallelStream().flatMap(List::stream); }
+    };
+
+    /**
+     * Construct the subject instance from the given elements array.
+     *
+     * @param elements the given elements array
+     * @return the subject instance
+     */
+    abstract Object of(Integer[] elements);
+
+    /**
+     * Construct the subject instance from the given elements {@link Stream}.
+     *
+     * @param elements the given elements {@link Stream}
+     * @return the subject instance
+     */
+    abstract Object of(Stream<Integer> elements);
+
+    /**
+     * Construct the subject instance from the given elements {@link Container}.
+     *
+     * @param elements the given elements {@link Container}
+     * @return the subject instance
+     */
+    abstract Object of(Container<Integer> elements);
+
+    /**
+     * Construct an empty mutable subject instance.
+     *
+     * @return an empty mutable subject instance
+     * @throws UnsupportedOperationException if the subject is immutable
+     */
+    Object empty() {
+        throw new UnsupportedOperationException(name() + " is immutable");
+    }
+
+    /**
+     * Add the given element to the given mutable subject instance.
+     *
+     * @param subject the given subject instance
+     * @param element the given element
+     * @throws UnsupportedOperationException if the subject is immutable
+     */
+    void add(Object subject, Integer element) {
+        throw new UnsupportedOperationException(name() + " is immutable");
+    }
+
+    /**
+     * Return the number of the given element occurrences in the given subject instance.
+     *
+     * @param subject the given subject instance
+     * @param o the given element
+     * @return the number of the given element occurrences
+     */
+    int getCount(Object subject, Object o) {
+        return container(subject).getCount(o);
+    }
+
+    /**
+     * Return an {@link Iterator} over the given element occurrences in the given subject instance.
+     *
+     * @param subject the given subject instance
+     * @param o the given element
+     * @return an {@link Iterator} over the given element occurrences
+     */
+    Iterator<Integer> getAll(Object subject, Object o) {
+        return container(subject).getAll(o);
+    }
+
+    /**
+     * Return {@code true} if the given subject instance contains the given element.
+     *
+     * @param subject the given subject instance
+     * @param o the given element
+     * @return {@code true} if the given subject instance contains the given element
+     */
+    boolean contains(Object subject, Object o) {
+        return container(subject).contains(o);
+    }
+
+    /**
+     * Iterate over all the elements of the given subject instance.
+     *
+     * @param subject the given subject instance
+     * @param blackhole the {@link Blackhole} consuming the elements
+     */
+    void iterate(Object subject, Blackhole blackhole) {
+        for (Integer element : container(subject)) blackhole.consume(element);
+    }
+
+    /**
+     * Perform the given action for all the elements of the given subject instance.
+     *
+     * @param subject the given subject instance
+     * @param action the given action
+     */
+    void forEach(Object subject, Consumer<Integer> action) {
+        container(subject).forEach(action);
+    }
+
+    /**
+     * Return a {@link Spliterator} over all the elements of the given subject instance.
+     *
+     * @param subject the given subject instance
+     * @return a {@link Spliterator} over all the elements
+     */
+    Spliterator<Integer> spliterator(Object subject) {
+        return container(subject).spliterator();
+    }
+
+    /**
+     * Return a parallel {@link Stream} over all the elements of the given subject instance.
+     *
+     * @param subject the given subject instance
+     * @return a parallel {@link Stream} over all the elements
+     */
+    Stream<Integer> parallelStream(Object subject) {
+        return StreamSupport.stream(container(subject).spliterator(), true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Container<Integer> container(Object subject) {
+        return (Container<Integer>) subject;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static java.util.Collection<Integer> collection(Object subject) {
+        return (java.util.Collection<Integer>) subject;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Integer> list(Object subject) {
+        return (List<Integer>) subject;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Integer, List<Integer>> map(Object subject) {
+        return (Map<Integer, List<Integer>>) subject;
+    }
+
+    private static Map<Integer, List<Integer>> group(Map<Integer, List<Integer>> map, Integer[] elements) {
+        for (Integer element : elements) group(map, element); return map;
+    }
+
+    private static Map<Integer, List<Integer>> group(Map<Integer, List<Integer>> map, Container<Integer> elements) {
+        for (Integer element : elements) group(map, element); return map;
+    }
+
+    private static void group(Map<Integer, List<Integer>> map, Integer element) {
+        map.computeIfAbsent(element, key -> new ArrayList<>(1)).add(element);
+    }
+}
@@ -4,12 +4,16 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Iterator;
+import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.Consumer;
 
 import static java.lang.String.format;
 import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
 import static java.util.Arrays.copyOfRange;
+import static java.util.Objects.requireNonNull;
 import static java.util.Spliterator.IMMUTABLE;
 import static java.util.Spliterator.ORDERED;
 import static org.moodminds.sneaky.Cast.cast;
@@ -116,6 +120,18 @@ public abstract class AbstractArraySequence<E> extends AbstractTailedSequence<E>
         return spliterator(0, size);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @param action {@inheritDoc}
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        requireNonNull(action); Object[] array = this.array;
+        for (int i = 0, size = this.size; i < size; i++)
+            action.accept(cast(array[i]));
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -126,6 +142,37 @@ public abstract class AbstractArraySequence<E> extends AbstractTailedSequence<E>
         return size;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Against another array sequence, the internal arrays are compared directly.
+     *
+     * @param s {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    protected boolean equals(Sequence<?> s) {
+        if (!(s instanceof AbstractArraySequence))
+            return super.equals(s);
+        AbstractArraySequence<?> sequence = (AbstractArraySequence<?>) s;
+        if (size != sequence.size)
+            return false;
+        Object[] array1 = array, array2 = sequence.array;
+        for (int i = offset(), j = sequence.offset(), end = i + size; i < end; i++, j++)
+            if (!Objects.equals(array1[i], array2[j]))
+                return false;
+        return true;
+    }
+
+    /**
+     * Return the position of the first element in the internal array.
+     *
+     * @return the position of the first element in the internal array
+     */
+    protected int offset() {
+        return 0;
+    }
+
     /**
      * Return the element at the specified position in the internal array, cast to the desired type.
      *
@@ -137,6 +184,18 @@ public abstract class AbstractArraySequence<E> extends AbstractTailedSequence<E>
         return cast(array[index]);
     }
 
+    /**
+     * Append the given element to the end of the internal array, growing it by half when full.
+     * Intended for the extensions populating the sequence in place.
+     *
+     * @param element the element to append
+     */
+    protected void append(E element) {
+        if (size == array.length)
+            array = copyOf(array, size + (size >> 1) + 1);
+        array[size++] = element; resetHashCode();
+    }
+
     /**
      * Return a {@link TailedSequenceIterator} for this sequence, starting at the given index
      * with the specified offset and iterating over at most the given number of elements.
@@ -209,7 +268,7 @@ public abstract class AbstractArraySequence<E> extends AbstractTailedSequence<E>
      */
     protected <T> T[] toArray(T[] array, int offset, int size) {
         if (array.length < size)
-            return cast(copyOfRange(array, offset, offset + size, array.getClass()));
+            return cast(copyOfRange(this.array, offset, offset + size, array.getClass()));
         arraycopy(this.array, offset, array, 0, size);
         if (array.length > size) array[size] = null; return array;
     }
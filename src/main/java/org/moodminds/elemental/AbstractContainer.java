@@ -1,10 +1,14 @@
 package org.moodminds.elemental;
 
+import org.moodminds.sneaky.Cast;
+
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
 
 import static java.util.function.Predicate.isEqual;
 
@@ -13,20 +17,12 @@ import static java.util.function.Predicate.isEqual;
  *
  * @param <V> the type of elements
  */
-public abstract class AbstractContainer<V> extends AbstractEquatable implements Container<V> {
+public abstract class AbstractContainer<V> extends AbstractHashEquatable implements Container<V> {
 
     /**
-     * A reusable factory for producing a function that counts occurrences of elements in a Container.
-     * <p>
-     * This constant is a function that, given a {@link Container}, returns a function mapping each distinct element
-     * to the number of times it appears in that Container.
+     * The end of iteration marker of the {@link #equalOrders(Iterator, Iterator, Comparator)} runs.
      */
-    private static final Function<Container<?>, Function<Object, Integer>> COUNTER = container ->
-            container instanceof RandomMatch ? container::getCount : ((Function<Object, int[]>) container.stream().collect(
-                    HashMap<Object, int[]>::new, (counts, value) -> counts.merge(value, new int[]{1}, (count, unused) -> {
-                        count[0]++; return count;
-                    }), Map::putAll
-            )::get).andThen(count -> count != null ? count[0] : 0);
+    private static final Object END = new Object();
 
     /**
      * {@inheritDoc}
@@ -55,12 +51,12 @@ public abstract class AbstractContainer<V> extends AbstractEquatable implements
     }
 
     /**
-     * {@inheritDoc}
+     * Compute the hash code of this {@link Container} from its elements.
      *
-     * @return {@inheritDoc}
+     * @return the hash code of this {@link Container}
      */
     @Override
-    public int hashCode() {
+    protected int computeHashCode() {
         int hashCode = 0;
         for (Object element : this)
             if (element != null)
@@ -87,12 +83,16 @@ public abstract class AbstractContainer<V> extends AbstractEquatable implements
      */
     @Override
     protected boolean equals(Equatable equatable) {
-        return equals((Container<?>) equatable);
+        return !(equatable instanceof AbstractContainer && hashCodeDiffers((AbstractContainer<?>) equatable))
+                && equals((Container<?>) equatable);
     }
 
     /**
      * Return {@code true} if this {@link Container} is equal to the given {@link Container},
      * or {@code false} otherwise.
+     * <p>
+     * Two {@link SortedContainer}s of the equal comparators are merged along their orders, otherwise
+     * the occurrences of the elements are {@link #equalCounts(Container) counted}.
      *
      * @param c the given {@link Container} to check this for equality to
      * @return {@code true} if this {@link Container} is equal to the given {@link Container}
@@ -101,16 +101,74 @@ public abstract class AbstractContainer<V> extends AbstractEquatable implements
         if (size() != c.size())
             return false;
 
-        Function<Object, Integer> count1 = COUNTER.apply(this), count2 = COUNTER.apply(c);
-
         try {
+            if (this instanceof SortedContainer && c instanceof SortedContainer) {
+                Comparator<?> comparator = ((SortedContainer<?>) this).comparator();
+                if (Objects.equals(comparator, ((SortedContainer<?>) c).comparator()))
+                    return equalOrders(iterator(), c.iterator(), Cast.<Comparator<Object>>cast(comparator != null
+                            ? comparator : Comparator.naturalOrder()));
+            } return equalCounts(c);
+        } catch (ClassCastException | NullPointerException ignored) {
+            return false;
+        }
+    }
+
+    /**
+     * Return {@code true} if every element occurs in this {@link Container} as many times as in the given one
+     * of the same size, or {@code false} otherwise.
+     * <p>
+     * The occurrences are looked up once per distinct element on the {@link RandomMatch} side,
+     * against the ones counted in a single {@link HashMap} on the other side.
+     *
+     * @param c the given {@link Container} of the same size
+     * @return {@code true} if every element occurs in this {@link Container} as many times as in the given one
+     */
+    protected boolean equalCounts(Container<?> c) {
+        if (this instanceof RandomMatch && c instanceof RandomMatch) {
             for (V value : this)
-                if (!count1.apply(value).equals(count2.apply(value)))
+                if (getCount(value) != c.getCount(value))
                     return false;
             return true;
-        } catch (ClassCastException | NullPointerException ignored) {
-            return false;
         }
+
+        Container<?> matched = c instanceof RandomMatch ? c : this, counted = matched == c ? this : c;
+
+        Map<Object, int[]> counts = new HashMap<>();
+        for (Object value : counted)
+            counts.computeIfAbsent(value, unused -> new int[1])[0]++;
+
+        if (matched instanceof RandomMatch) {
+            for (Map.Entry<Object, int[]> count : counts.entrySet())
+                if (matched.getCount(count.getKey()) != count.getValue()[0])
+                    return false;
+        } else
+            for (Object value : matched) {
+                int[] count = counts.get(value);
+                if (count == null || count[0]-- == 0)
+                    return false;
+            }
+        return true;
+    }
+
+    /**
+     * Return {@code true} if the given iterators provide the same elements along the given order,
+     * comparing the runs of the elements equal by the order as the unordered groups.
+     *
+     * @param iterator1 the first given iterator
+     * @param iterator2 the second given iterator
+     * @param comparator the given order
+     * @return {@code true} if the given iterators provide the same elements along the given order
+     */
+    protected static boolean equalOrders(Iterator<?> iterator1, Iterator<?> iterator2, Comparator<Object> comparator) {
+        List<Object> run1 = new ArrayList<>(), run2 = new ArrayList<>();
+        Object next1 = iterator1.hasNext() ? iterator1.next() : END, next2 = iterator2.hasNext() ? iterator2.next() : END;
+        while (next1 != END && next2 != END) {
+            if (comparator.compare(next1, next2) != 0)
+                return false;
+            next1 = run(iterator1, next1, run1, comparator); next2 = run(iterator2, next2, run2, comparator);
+            if (!equalRuns(run1, run2))
+                return false;
+        } return next1 == END && next2 == END;
     }
 
     /**
@@ -205,4 +263,27 @@ public abstract class AbstractContainer<V> extends AbstractEquatable implements
                 return next; }
         };
     }
+
+
+    private static Object run(Iterator<?> iterator, Object first, List<Object> run, Comparator<Object> comparator) {
+        run.clear(); run.add(first);
+        while (iterator.hasNext()) {
+            Object next = iterator.next();
+            if (comparator.compare(first, next) != 0) return next;
+            run.add(next);
+        } return END;
+    }
+
+    private static boolean equalRuns(List<Object> run1, List<Object> run2) {
+        int size = run1.size(); if (size != run2.size()) return false;
+        int i = 0; while (i < size && Objects.equals(run1.get(i), run2.get(i))) i++;
+        if (i == size) return true;
+        Map<Object, int[]> counts = new HashMap<>();
+        for (int j = i; j < size; j++)
+            counts.computeIfAbsent(run1.get(j), unused -> new int[1])[0]++;
+        for (int j = i; j < size; j++) {
+            int[] count = counts.get(run2.get(j));
+            if (count == null || count[0]-- == 0) return false;
+        } return true;
+    }
 }
@@ -0,0 +1,71 @@
+package org.moodminds.elemental;
+
+/**
+ * A template implementation of the {@link Equatable} interface, which {@link #computeHashCode() computes}
+ * its hash code and optionally caches it.
+ */
+public abstract class AbstractHashEquatable extends AbstractEquatable {
+
+    /**
+     * Cached hash code holding field, {@code 0} until computed, see {@link #hashCodeCached()}.
+     */
+    private transient int hashCode;
+
+    /**
+     * Whether the computed hash code is {@code 0} holding field.
+     */
+    private transient boolean hashCodeZero;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        if (!hashCodeCached())
+            return computeHashCode();
+        int hashCode = this.hashCode;
+        if (hashCode == 0 && !hashCodeZero)
+            if ((hashCode = computeHashCode()) == 0) hashCodeZero = true;
+            else this.hashCode = hashCode;
+        return hashCode;
+    }
+
+    /**
+     * Compute the hash code of this {@link Equatable}.
+     *
+     * @return the hash code of this {@link Equatable}
+     */
+    protected abstract int computeHashCode();
+
+    /**
+     * Return {@code true} if the hash code of this {@link Equatable} is computed once, on the first
+     * {@link #hashCode()} call, and then cached, which only fits the immutable implementations.
+     * The cache is racy like the one of {@link String}, as the same value is computed by all threads,
+     * and is not serialized. The in-place modifications {@link #resetHashCode() reset} it.
+     *
+     * @return {@code true} if the hash code of this {@link Equatable} is cached
+     */
+    protected boolean hashCodeCached() {
+        return false;
+    }
+
+    /**
+     * Discard the cached hash code, if any, on an in-place modification of this {@link Equatable}.
+     */
+    protected void resetHashCode() {
+        hashCode = 0; hashCodeZero = false;
+    }
+
+    /**
+     * Return {@code true} if this {@link Equatable} and the given one are known to differ by their hash codes
+     * cached already, or {@code false} otherwise.
+     *
+     * @param equatable the given {@link Equatable}
+     * @return {@code true} if this {@link Equatable} and the given one are known to differ by their hash codes
+     */
+    protected boolean hashCodeDiffers(AbstractHashEquatable equatable) {
+        return (hashCode != 0 || hashCodeZero) && (equatable.hashCode != 0 || equatable.hashCodeZero) && hashCode != equatable.hashCode;
+    }
+}
@@ -1,11 +1,5 @@
 package org.moodminds.elemental;
 
-import org.moodminds.elemental.AbstractHeapCollection.Bucket;
-import org.moodminds.elemental.AbstractHeapCollection.Bucket.Node;
-
-import java.io.InvalidObjectException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
@@ -16,10 +10,13 @@ import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.fill;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
-import static org.moodminds.sneaky.Cast.cast;
 
 /**
  * An abstract base for {@link Collection}s that do not preserve insertion order.
@@ -30,24 +27,14 @@ import static org.moodminds.sneaky.Cast.cast;
  * without maintaining sequential order.
  *
  * @param <E> the element type
+ * @param <B> the type of the internal {@link Container} bucket that holds duplicates
  * @param <M> the type of the internal {@link Map}
  */
-public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
-        extends AbstractHeapContainer<E, Bucket<E>, M> implements Collection<E> {
+public abstract class AbstractHeapCollection<E, B extends Container<E>, M extends Map<E, Object>>
+        extends AbstractHeapContainer<E, B, M> implements Collection<E> {
 
     private static final long serialVersionUID = 4988869826364597936L;
 
-    /**
-     * A reusable {@link BiConsumer} that appends an element to an existing {@link Bucket}.
-     */
-    protected transient final BiConsumer<Bucket<E>, E> bucketAccumulation = Bucket::put;
-
-    /**
-     * A reusable {@link BiFunction} that creates a new {@link Bucket} from two elements:
-     * the existing single element previously associated with a key, and the new incoming element.
-     */
-    protected transient final BiFunction<E, E, Bucket<E>> bucketConstruction = Bucket::new;
-
     /**
      * Construct the object with the given {@link M map}.
      *
@@ -58,18 +45,36 @@ public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
     }
 
     /**
-     * Construct the object with the given {@link M map}
-     * and sequential single-threaded {@link Producer} of elements.
+     * Construct the object with the given {@link M map}, sequential single-threaded {@link Producer} of elements,
+     * {@link BiConsumer} bucket accumulation and {@link BiFunction} bucket construction functions.
      *
      * @param map the given {@link M map}
      * @param elements the given sequential single-threaded {@link Producer} of elements
+     * @param bucketAccumulation a {@link BiConsumer} that adds the element to an existing bucket
+     * @param bucketConstruction a {@link BiFunction} that creates a new bucket from an existing single value and the new element
      */
-    protected AbstractHeapCollection(M map, Producer<? extends E> elements) {
-        super(map, elements, Bucket::put, Bucket::new);
+    protected AbstractHeapCollection(M map, Producer<? extends E> elements, BiConsumer<B, E> bucketAccumulation, BiFunction<E, E, B> bucketConstruction) {
+        super(map, elements, bucketAccumulation, bucketConstruction);
+    }
+
+    /**
+     * Construct the object with the given {@link M map}, {@link Stream} of elements, {@link Collector}
+     * of the partial collections used for the parallel streams, {@link BiConsumer} bucket accumulation
+     * and {@link BiFunction} bucket construction functions.
+     *
+     * @param map the given {@link M map}
+     * @param elements the given {@link Stream} of elements
+     * @param collector the given {@link Collector} of the partial collections
+     * @param bucketAccumulation a {@link BiConsumer} that adds the element to an existing bucket
+     * @param bucketConstruction a {@link BiFunction} that creates a new bucket from an existing single value and the new element
+     */
+    protected AbstractHeapCollection(M map, Stream<? extends E> elements, Collector<? super E, ?, ? extends AbstractHeapContainer<E, B, ?>> collector,
+                                     BiConsumer<B, E> bucketAccumulation, BiFunction<E, E, B> bucketConstruction) {
+        super(map, elements, collector, bucketAccumulation, bucketConstruction);
     }
 
     @Override public boolean add(E element) {
-        put(bucketAccumulation, bucketConstruction, element); countMod(); return true; }
+        put(element); countMod(); return true; }
     @Override public void clear() {
         map.clear(); countClear(); countMod(); }
 
@@ -79,6 +84,8 @@ public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
         return collectionIterator(super.iterator()); }
     @Override public Spliterator<E> spliterator() {
         return collectionSpliterator(super.spliterator()); }
+    @Override public void forEach(Consumer<? super E> action) {
+        int expectedMod = totalMod(); super.forEach(action); checkMod(expectedMod); }
 
     /**
      * {@inheritDoc}
@@ -108,7 +115,7 @@ public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
      * @return {@inheritDoc}
      */
     @Override
-    protected Iterator<E> iterator(Bucket<E> bucket, Iterator<E> bucketIterator) {
+    protected Iterator<E> iterator(B bucket, Iterator<E> bucketIterator) {
         return new Iterator<E>() {
 
             E current; final Iterator<E> iterator = bucketIterator(bucket, AbstractHeapCollection.super.iterator(bucket, bucketIterator),
@@ -131,10 +138,10 @@ public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
      * @return {@inheritDoc}
      */
     @Override
-    protected Iterator<E> containerIterator(Iterator<Entry<E, Object>> entriesIterator, Function<Bucket<E>, Iterator<E>> bucketIteration, Runnable removal) {
+    protected Iterator<E> containerIterator(Iterator<Entry<E, Object>> entriesIterator, Function<B, Iterator<E>> bucketIteration, Runnable removal) {
         return new Object() {
 
-            Entry<E, Object> entry; Bucket<E> bucket; Iterator<E> bucketIterator;
+            Entry<E, Object> entry; B bucket; Iterator<E> bucketIterator;
 
             final AbstractIterator<E> iterator = (AbstractIterator<E>) AbstractHeapCollection.super.containerIterator(new Iterator<Entry<E, Object>>() {
 
@@ -142,41 +149,11 @@ public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
                 @Override public Entry<E, Object> next() { bucket = null; bucketIterator = null; return entry = entriesIterator.next(); }
 
             }, bucket -> this.bucketIterator = bucketIterator(bucket, bucketIteration.apply(this.bucket = bucket), entry::setValue, entriesIterator::remove),
-                    () -> { if (removal != null) removal.run(); if (bucketIterator != null) bucketIterator.remove(); else entriesIterator.remove();
+                    () -> { if (removal != null) removal.run(); if (bucketIterator != null) bucketIterator.remove(); else entriesIterator.remove(); count(-1);
             });
         }.iterator;
     }
 
-    /**
-     * {@inheritDoc}
-     *
-     * @param entriesSpliterator {@inheritDoc}
-     * @param useSourceSize {@inheritDoc}
-     * @param isDistinct {@inheritDoc}
-     * @param knownSize {@inheritDoc}
-     * @return {@inheritDoc}
-     */
-    @Override
-    protected Spliterator<E> containerSpliterator(Spliterator<Entry<E, Object>> entriesSpliterator, boolean useSourceSize, boolean isDistinct, Integer knownSize) {
-        return new Spliterator<E>() {
-
-            final Spliterator<E> spliterator = AbstractHeapCollection.super.containerSpliterator(entriesSpliterator, useSourceSize, isDistinct, knownSize);
-
-            @Override public boolean tryAdvance(Consumer<? super E> action) { return spliterator.tryAdvance(action); }
-            @Override public Spliterator<E> trySplit() { return spliterator.trySplit(); }
-            @Override public long estimateSize() { return spliterator.estimateSize(); }
-            @Override public void forEachRemaining(Consumer<? super E> action) { spliterator.forEachRemaining(action); }
-            @Override public long getExactSizeIfKnown() { return spliterator.getExactSizeIfKnown(); }
-            @Override public Comparator<? super E> getComparator() { return spliterator.getComparator(); }
-
-            @Override public int characteristics() {
-                return spliterator.characteristics() & ~IMMUTABLE; }
-            @Override public boolean hasCharacteristics(int characteristics) {
-                if ((characteristics & IMMUTABLE) != 0) return false;
-                return spliterator.hasCharacteristics(characteristics); }
-        };
-    }
-
     /**
      * Return an {@link Iterator} that wraps the given iterator and provides additional checks for modification
      * during iteration. Support element removal, ensure consistency with the Collection's modification
@@ -219,7 +196,6 @@ public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
             @Override public long estimateSize() { return spliterator.estimateSize(); }
             @Override public long getExactSizeIfKnown() { return spliterator.getExactSizeIfKnown(); }
             @Override public int characteristics() { return spliterator.characteristics() & ~IMMUTABLE; }
-            @Override public boolean hasCharacteristics(int characteristics) { return spliterator.hasCharacteristics(characteristics); }
             @Override public Comparator<? super E> getComparator() { return spliterator.getComparator(); }
             @Override public Spliterator<E> trySplit() { return ofNullable(spliterator.trySplit())
                     .map(AbstractHeapCollection.this::collectionSpliterator).orElse(null); }
@@ -234,8 +210,14 @@ public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
 
     @Override protected String toStringThis() {
         return "(this Collection)"; }
-    @Override protected boolean isBucket(Object value) {
-        return value instanceof Bucket; }
+
+    /**
+     * Insert the specified {@code element}, either by adding it to an existing bucket or by creating a new one,
+     * as implemented by {@link #put(BiConsumer, BiFunction, Object)} with this Collection's bucket functions.
+     *
+     * @param element the element to insert
+     */
+    protected abstract void put(E element);
 
     /**
      * Check if the Collection has been modified since the specified modification count.
@@ -276,6 +258,7 @@ public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
      *     <li>When an element is removed, if the bucket contains only one remaining element,
      *         that element is passed to {@code bucketCollapse} {@link Consumer}.</li>
      *     <li>If the bucket becomes empty after removal, {@code bucketRemoval} {@link Runnable} is executed.</li>
+     *     <li>Otherwise, the shrunk bucket is {@link #reweigh(Object) reweighed}.</li>
      * </ul>
      *
      * @param bucket the bucket containing the elements to iterate over
@@ -284,120 +267,109 @@ public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
      * @param bucketRemoval the action to perform when the bucket becomes empty
      * @return an iterator over the elements in the given bucket
      */
-    private Iterator<E> bucketIterator(Bucket<E> bucket, Iterator<E> bucketIterator, Consumer<E> bucketCollapse, Runnable bucketRemoval) {
+    private Iterator<E> bucketIterator(B bucket, Iterator<E> bucketIterator, Consumer<E> bucketCollapse, Runnable bucketRemoval) {
         return new Iterator<E>() {
 
+            E current;
+
             @Override public boolean hasNext() { return bucketIterator.hasNext(); }
-            @Override public E next() { return bucketIterator.next(); }
+            @Override public E next() { return current = bucketIterator.next(); }
             @Override public void remove() { bucketIterator.remove();
                 if (bucket.size() == 1) bucketCollapse.accept(bucket.iterator().next());
-                else if (!bucket.contains()) bucketRemoval.run(); }
+                else if (!bucket.contains()) bucketRemoval.run();
+                else reweigh(current); }
             @Override public void forEachRemaining(Consumer<? super E> action) {
-                bucketIterator.forEachRemaining(action); }
+                bucketIterator.forEachRemaining(element -> action.accept(current = element)); }
         };
     }
 
     /**
-     * Represents a bucket in the Collection, extending {@link AbstractLinkSequence}.
-     * This class is responsible for managing a collection of elements in a linked sequence.
+     * Represents a bucket in the Collection, extending {@link ArraySequence}.
+     * This class is responsible for managing a collection of elements in a growable array.
      * Each bucket can contain multiple elements and provides functionality for managing those elements
      * efficiently within the broader structure.
      *
      * @param <E> the type of elements contained in this bucket
      */
-    protected static class Bucket<E> extends AbstractLinkSequence<E, Node<E>> {
+    protected static class Bucket<E> extends ArraySequence<E> {
 
-        private static final long serialVersionUID = -5964830056992665020L;
+        private static final long serialVersionUID = 2519512377418934302L;
 
         /**
-         * Tail {@link Node} node holding field.
+         * Modification count holder field.
          */
-        protected transient Node<E> tail;
+        protected transient int modCount;
 
-        public Bucket(E first, E second) { put(first); put(second); }
+        public Bucket(E first, E second) { super(first, second); }
 
-        @Override
-        public Sequence<E> sub(int fromIndex, int toIndex) {
-            return new SubBucket(size, fromIndex, toIndex);
-        }
-
-        public void put(E element) {
-            link(tail, new Node<>(element)); size++;
-        }
+        @Override protected boolean hashCodeCached() {
+            return false; }
 
         @Override
-        protected void link(Node<E> previous, Node<E> next) {
-            super.link(previous, next); if (next.next == null) tail = next;
+        public TailedSequence<E> sub(int fromIndex, int toIndex) {
+            return new SubBucket(offset, size, fromIndex, toIndex);
         }
 
-        @Override
-        protected void unlink(Node<E> previous) {
-            super.unlink(previous);
-            if (previous == null) {
-                if (head == null) tail = null;
-            } else if (previous.next == null) tail = previous;
+        /**
+         * Append the given element, moving the elements to the start of the internal array if it is full
+         * and at least half of the array is freed by the {@link #poll(int) polled} leading elements,
+         * or growing the array by half otherwise.
+         *
+         * @param element the given element
+         */
+        public void put(E element) {
+            if (offset + size == array.length) {
+                Object[] array = offset > size >> 1 ? this.array : new Object[size + (size >> 1) + 1];
+                arraycopy(this.array, offset, array, 0, size);
+                if (array == this.array) fill(array, size, offset + size, null);
+                this.array = array; offset = 0; }
+            array[offset + size++] = element; modCount++;
         }
 
-        @Override
-        protected TailedSequenceIterator<E> iterator(Node<E> previous, Sequence<E> sequence, int index, Runnable removal) {
-            return new Object() {
-                AbstractLinkSequenceIterator<E, Node<E>> iterator;
-                {
-                    iterator = (AbstractLinkSequenceIterator<E, Node<E>>) Bucket.super.iterator(previous, sequence, index, () -> {
-                        if (removal != null) removal.run(); unlink(iterator.previous); iterator.next = null; size--; iterator.index--;
-                    });
-                }
-            }.iterator;
+        /**
+         * Remove the given number of the leading elements in constant time per element,
+         * advancing the {@link #offset} instead of shifting the following elements back.
+         *
+         * @param number the given number of the leading elements, within the size
+         */
+        protected void poll(int number) {
+            fill(array, offset, offset += number, null); size -= number; modCount++;
         }
 
-        @Override
-        protected Node<E> previous(Node<E> link) {
-            return null;
+        /**
+         * Remove the element at the given position of the internal array, shifting the following ones back.
+         *
+         * @param index the given position
+         */
+        protected void remove(int index) {
+            int end = offset + --size; arraycopy(array, index + 1, array, index, end - index); array[end] = null; modCount++;
         }
 
         @Override
-        protected void serialize(ObjectOutputStream output) throws Exception {
-            output.writeInt(size); for (E element : this)
-                output.writeObject(element);
-        }
+        protected TailedSequenceIterator<E> iterator(int offset, Sequence<E> sequence, int index, Runnable removal) {
+            return new AbstractTailedSequenceIterator<E>(index, removal) {
 
-        @Override
-        protected void deserialize(ObjectInputStream input) throws Exception {
-            int size; if ((size = input.readInt()) < 0)
-                throw new InvalidObjectException("Negative size: " + size);
-            while (this.size < size)
-                put(cast(input.readObject()));
-        }
+                int last;
 
-        /**
-         * Implementation of the {@link AbstractLinkSequence.Node}.
-         *
-         * @param <E> the type of elements
-         */
-        protected static class Node<E> extends AbstractLinkSequence.Node<E, Node<E>> {
-
-            /**
-             * Construct the object with the specified item.
-             *
-             * @param item the item to store in this node
-             */
-            protected Node(E item) { super(item); }
+                @Override protected boolean hasPreviousElement() { return index > 0; }
+                @Override protected boolean hasNextElement() { return index < sequence.size(); }
+                @Override protected E previousElement() { return element(offset + (last = --index)); }
+                @Override protected E nextElement() { return element(offset + (last = index++)); }
+                @Override protected void removeElement() { Bucket.this.remove(offset + last); if (last < index) index--; }
+            };
         }
 
         /**
          * A formal immutable implementation of a sub-bucket view.
          */
-        protected class SubBucket extends AbstractLinkSubSequence {
-
-            private static final long serialVersionUID = -7000073677354528483L;
+        protected class SubBucket extends ArraySubSequence {
 
-            private transient final int bucketSize; private transient final Node<E> bucketTail;
+            private static final long serialVersionUID = 4262817300361473517L;
 
-            protected SubBucket(int size, int fromIndex, int toIndex) {
-                super(size, fromIndex, toIndex); this.bucketSize = Bucket.this.size; this.bucketTail = Bucket.this.tail; }
+            private transient final int bucketMod;
 
-            protected SubBucket(int bucketSize, Node<E> bucketTail, SubBucket parent, int fromIndex, int toIndex) {
-                super(parent, fromIndex, toIndex); this.bucketSize = bucketSize; this.bucketTail = bucketTail; }
+            protected SubBucket(int offset, int size, int fromIndex, int toIndex) {
+                super(offset, size, fromIndex, toIndex); this.bucketMod = modCount; }
 
             @Override public int getCount(Object o) {
                 checkMod(); return super.getCount(o); }
@@ -407,36 +379,21 @@ public abstract class AbstractHeapCollection<E, M extends Map<E, Object>>
                 checkMod(); return super.get(index); }
             @Override public int size() {
                 checkMod(); return super.size(); }
+            @Override public Object[] toArray() {
+                checkMod(); return super.toArray(); }
+            @Override public <T> T[] toArray(T[] a) {
+                checkMod(); return super.toArray(a); }
             @Override public Iterator<E> iterator() {
-                checkMod(); return iterator(0, previous(0)); }
-            @Override public SequenceIterator<E> iterator(int index) {
-                checkMod(); return iterator(positionIndex(index, size), previous(index)); }
+                checkMod(); return super.iterator(); }
+            @Override public TailedSequenceIterator<E> iterator(int index) {
+                checkMod(); return super.iterator(index); }
             @Override public Spliterator<E> spliterator() {
                 checkMod(); return super.spliterator(); }
-            @Override public Sequence<E> sub(int fromIndex, int toIndex) {
-                checkMod(); return new SubBucket(bucketSize, bucketTail, this, fromIndex, toIndex); }
-
-            protected SequenceIterator<E> iterator(int index, Node<E> previous) {
-                return new TailedSequenceIterator<E>() {
-
-                    final TailedSequenceIterator<E> iterator = Bucket.super.iterator(previous, SubBucket.this, index, null);
-
-                    @Override public boolean hasPrevious() { return iterator.hasPrevious(); }
-                    @Override public E previous() { checkMod(); return iterator.previous(); }
-                    @Override public int previousIndex() { checkMod(); return iterator.previousIndex(); }
-                    @Override public boolean hasNext() { return iterator.hasNext(); }
-                    @Override public E next() { checkMod(); return iterator.next(); }
-                    @Override public int nextIndex() { checkMod(); return iterator.nextIndex(); }
-                    @Override public void remove() { checkMod(); iterator.remove(); }
-                    @Override public void forEachRemaining(Consumer<? super E> action) {
-                        checkMod(); iterator.forEachRemaining(action.andThen(unused -> checkMod())); }
-                    @Override public void forEachPreceding(Consumer<? super E> action) {
-                        checkMod(); iterator.forEachPreceding(action.andThen(unused -> checkMod())); }
-                };
-            }
+            @Override public TailedSequence<E> sub(int fromIndex, int toIndex) {
+                checkMod(); return new SubBucket(offset, size, fromIndex, toIndex); }
 
             void checkMod() {
-                if (bucketSize != Bucket.this.size || bucketTail != Bucket.this.tail)
+                if (bucketMod != modCount)
                     throw new ConcurrentModificationException();
             }
         }
@@ -2,19 +2,26 @@ package org.moodminds.elemental;
 
 import org.moodminds.sneaky.Cast;
 
+import java.io.Serializable;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
 import static java.lang.Boolean.FALSE;
-import static java.util.Optional.ofNullable;
+import static java.util.Objects.requireNonNull;
+import static java.util.Spliterator.*;
 import static org.moodminds.sneaky.Cast.cast;
 
 /**
@@ -56,6 +63,22 @@ public abstract class AbstractHeapContainer<E, B extends Container<E>, M extends
         super(map); init(elements, bucketAccumulation, bucketConstruction);
     }
 
+    /**
+     * Construct the object with the given {@link M map}, {@link Stream} of elements, {@link Collector}
+     * of the partial containers used for the parallel streams, {@link BiConsumer} bucket accumulation
+     * and {@link BiFunction} bucket construction functions.
+     *
+     * @param map the given {@link M map}
+     * @param elements the given {@link Stream} of elements
+     * @param collector the given {@link Collector} of the partial containers
+     * @param bucketAccumulation a {@link BiConsumer} that adds the element to an existing bucket
+     * @param bucketConstruction a {@link BiFunction} that creates a new bucket from an existing single value and the new element
+     */
+    protected AbstractHeapContainer(M map, Stream<? extends E> elements, Collector<? super E, ?, ? extends AbstractHeapContainer<E, B, ?>> collector,
+                                    BiConsumer<B, E> bucketAccumulation, BiFunction<E, E, B> bucketConstruction) {
+        super(map); init(elements, collector, bucketAccumulation, bucketConstruction);
+    }
+
     /**
      * Initialize the container from the specified sequential single-threaded {@link Producer} of elements
      * and inserting them using the provided bucket handling strategies.
@@ -68,6 +91,62 @@ public abstract class AbstractHeapContainer<E, B extends Container<E>, M extends
         elements.provide(element -> put(bucketAccumulation, bucketConstruction, element));
     }
 
+    /**
+     * Initialize the container from the specified {@link Stream} of elements. A sequential stream is inserted
+     * directly, while a parallel one is first collected by the given {@link Collector} into the partial containers,
+     * which are then merged into this one bucket-wise.
+     *
+     * @param elements the given {@link Stream} of elements
+     * @param collector the given {@link Collector} of the partial containers
+     * @param bucketAccumulation a {@link BiConsumer} that adds the element to an existing bucket
+     * @param bucketConstruction a {@link BiFunction} that creates a new bucket from an existing single value and the new element
+     */
+    protected void init(Stream<? extends E> elements, Collector<? super E, ?, ? extends AbstractHeapContainer<E, B, ?>> collector,
+                        BiConsumer<B, E> bucketAccumulation, BiFunction<E, E, B> bucketConstruction) {
+        if (elements.isParallel())
+            merge(elements.collect(collector), bucketAccumulation, bucketConstruction);
+        else init(elements::forEach, bucketAccumulation, bucketConstruction);
+    }
+
+    /**
+     * Initialize the container from the specified sequential single-threaded {@link Producer} of elements
+     * through the given {@link RankTreeMap.Loader} of the internal map: in linear time while the elements
+     * come in ascending order, grouping the runs of the equal ones into buckets, and one by one after.
+     *
+     * @param loader the given {@link RankTreeMap.Loader} of the internal map
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     * @param bucketAccumulation a {@link BiConsumer} that adds the element to an existing bucket
+     * @param bucketConstruction a {@link BiFunction} that creates a new bucket from an existing single value and the new element
+     */
+    protected void init(RankTreeMap<E, Object>.Loader loader, Producer<? extends E> elements,
+                        BiConsumer<B, E> bucketAccumulation, BiFunction<E, E, B> bucketConstruction) {
+        elements.provide(element -> {
+            if (loader.load(element, element, (value, unused) -> tryBucket(value,
+                    bucket -> { bucketAccumulation.accept(bucket, element); return bucket; },
+                    single -> bucketConstruction.apply(cast(single), element)))) count(1);
+            else put(bucketAccumulation, bucketConstruction, element);
+        }); loader.flush();
+    }
+
+    /**
+     * Merge the given container into this one bucket-wise: the values and buckets of the keys absent
+     * in this container are moved as is, the others are inserted element by element. The given
+     * container shares its buckets with this one afterwards, so it is not supposed to be used anymore.
+     *
+     * @param container the given container to merge
+     * @param bucketAccumulation a {@link BiConsumer} that adds the element to an existing bucket
+     * @param bucketConstruction a {@link BiFunction} that creates a new bucket from an existing single value and the new element
+     */
+    protected void merge(AbstractHeapContainer<E, B, ?> container, BiConsumer<B, E> bucketAccumulation, BiFunction<E, E, B> bucketConstruction) {
+        for (Entry<E, Object> entry : container.map.entrySet()) {
+            E key = entry.getKey(); Object value = entry.getValue();
+            if (!isMapped(key, map.get(key))) {
+                map.put(key, value); count(container.tryBucket(value, Container::size, unused -> 1));
+            } else if (!container.tryBucket(value, bucket -> bucket.forEach(element -> put(bucketAccumulation, bucketConstruction, element))))
+                put(bucketAccumulation, bucketConstruction, cast(value));
+        } resetHashCode();
+    }
+
     /**
      * Insert the specified {@code element} into the internal map,
      * either by adding it to an existing bucket or by creating a new one.
@@ -88,11 +167,11 @@ public abstract class AbstractHeapContainer<E, B extends Container<E>, M extends
      */
     protected void put(BiConsumer<B, E> bucketAccumulation, BiFunction<E, E, B> bucketConstruction, E element) {
         Object value = map.get(element);
-        if (!tryBucket(value, bucket -> bucketAccumulation.accept(bucket, element)))
+        if (!tryBucket(value, bucket -> { bucketAccumulation.accept(bucket, element); reweigh(element); }))
             if (isMapped(element, value))
                 map.put(cast(value), bucketConstruction.apply(cast(value), element));
             else map.put(element, element);
-        count(1);
+        count(1); resetHashCode();
     }
 
     @Override public Iterator<E> iterator() {
@@ -100,6 +179,32 @@ public abstract class AbstractHeapContainer<E, B extends Container<E>, M extends
     @Override public Spliterator<E> spliterator() {
         return containerSpliterator(map.entrySet().spliterator(), true, isDistinct().orElse(FALSE), getSize().orElse(null)); }
 
+    @Override public void forEach(Consumer<? super E> action) {
+        requireNonNull(action); map.forEach((key, value) -> accept(value, action)); }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Against another unsorted heap container, the numbers of the distinct elements are compared first,
+     * then the size of every bucket of this one against the matching bucket of the other.
+     *
+     * @param c {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    protected boolean equalCounts(Container<?> c) {
+        if (!(c instanceof AbstractHeapContainer) || this instanceof SortedContainer || c instanceof SortedContainer)
+            return super.equalCounts(c);
+        AbstractHeapContainer<?, ?, ?> container = (AbstractHeapContainer<?, ?, ?>) c;
+        if (map.size() != container.map.size())
+            return false;
+        for (Entry<E, Object> entry : map.entrySet()) {
+            int count = tryBucket(entry.getValue(), Container::size, value -> 1);
+            if (count != container.getCount(entry.getKey()))
+                return false;
+        } return true;
+    }
+
     /**
      * {@inheritDoc}
      *
@@ -163,60 +268,189 @@ public abstract class AbstractHeapContainer<E, B extends Container<E>, M extends
      * @return a {@link Spliterator} that can iterate over the elements of the container, handling bucket and entry-based elements
      */
     protected Spliterator<E> containerSpliterator(Spliterator<Entry<E, Object>> entriesSpliterator, boolean useSourceSize, boolean isDistinct, Integer knownSize) {
-        return new Spliterator<E>() {
+        boolean sourceSized = isDistinct && useSourceSize && entriesSpliterator.hasCharacteristics(SIZED);
+        boolean weighed = weighed(entriesSpliterator);
+        int characteristics = entriesSpliterator.characteristics() & ~(SIZED | SUBSIZED) | IMMUTABLE;
+        return new ContainerSpliterator(entriesSpliterator, null,
+                knownSize != null ? knownSize : sourceSized ? entriesSpliterator.estimateSize() : weighed ? weigh(entriesSpliterator) : -1,
+                isDistinct && useSourceSize, sourceSized && entriesSpliterator.hasCharacteristics(SUBSIZED) || weighed,
+                isDistinct ? characteristics : characteristics & ~DISTINCT,
+                (characteristics & SORTED) != 0 ? comparator(entriesSpliterator.getComparator()) : null);
+    }
 
-            Spliterator<E> bucketSpliterator; Integer size = size(entriesSpliterator, knownSize);
+    /**
+     * Adapt the given comparator of the entries to the comparator of their keys.
+     *
+     * @param comparator the given comparator of the entries, may be {@code null}
+     * @return the comparator of the keys, or {@code null} if the given one is {@code null}
+     */
+    private Comparator<? super E> comparator(Comparator<? super Entry<E, Object>> comparator) {
+        return comparator == null ? null : new Comparator<E>() {
 
-            @Override public boolean tryAdvance(Consumer<? super E> action) {
-                while (true) {
-                    if (bucketSpliterator != null && bucketSpliterator.tryAdvance(action))
-                        return true;
-                    bucketSpliterator = null; Object[] value = new Object[1];
-                    if (entriesSpliterator.tryAdvance(entry -> value[0] = entry.getValue())) {
-                        if (tryBucket(value[0], bucket -> bucketSpliterator = bucket.spliterator()))
-                            continue;
-                        action.accept(cast(value[0])); return true;
-                    } else return false; } }
-
-            @Override public Spliterator<E> trySplit() {
-                Integer size = this.size; return ofNullable(entriesSpliterator.trySplit())
-                        .map(split -> containerSpliterator(split, useSourceSize, isDistinct,
-                                size != null & (this.size = size(entriesSpliterator, null)) != null ? size - this.size : null))
-                        .orElse(null); }
-
-            @Override public long estimateSize() {
-                return size != null ? size : Long.MAX_VALUE; }
-
-            @Override public int characteristics() {
-                int characteristics = entriesSpliterator.characteristics();
-                if (!isDistinct)
-                    characteristics &= ~DISTINCT;
-                if (size == null && !(isDistinct && useSourceSize))
-                    characteristics &= ~(SIZED | SUBSIZED);
-                return characteristics | IMMUTABLE; }
-
-            @Override public Comparator<? super E> getComparator() {
-                return ofNullable(entriesSpliterator.getComparator()).map(comp -> new Comparator<E>() {
-
-                    E key1; final Entry<E, Object> entry1 = new AbstractKeyValue<E, Object>() {
-                        @Override public E getKey() { return key1; }
-                        @Override public Object getValue() { return null; } };
-                    E key2; final Entry<E, Object> entry2 = new AbstractKeyValue<E, Object>() {
-                        @Override public E getKey() { return key2; }
-                        @Override public Object getValue() { return null; } };
-
-                    @Override public int compare(E e1, E e2) { key1 = e1; key2 = e2;
-                        int result = comp.compare(entry1, entry2); key1 = null; key2 = null; return result; }
-
-                }).orElse(null); }
-
-            private Integer size(Spliterator<Entry<E, Object>> spliterator, Integer knownSize) {
-                return isDistinct && useSourceSize && spliterator.hasCharacteristics(SIZED)
-                        ? Integer.valueOf((int) spliterator.estimateSize()) : knownSize;
-            }
+            E key1; final Entry<E, Object> entry1 = new AbstractKeyValue<E, Object>() {
+                @Override public E getKey() { return key1; }
+                @Override public Object getValue() { return null; } };
+            E key2; final Entry<E, Object> entry2 = new AbstractKeyValue<E, Object>() {
+                @Override public E getKey() { return key2; }
+                @Override public Object getValue() { return null; } };
+
+            @Override public int compare(E e1, E e2) { key1 = e1; key2 = e2;
+                int result = comparator.compare(entry1, entry2); key1 = null; key2 = null; return result; }
         };
     }
 
+    /**
+     * A {@link Spliterator} over the container's entries and the bucket currently being traversed.
+     * <p>
+     * The splitting keeps the encounter order and balances the skewed containers: a partially traversed
+     * bucket is split off first, the entries are split next, and a single remaining bucket is split inside.
+     * The sizes of the parts are exact if the elements are distinct and the entries sub-sized, or if the internal
+     * map keeps the weights of its buckets, as the {@link OpenHashMap}, {@link RankTreeMap} and {@link BTreeMap}
+     * given a weigher do, and estimated rather than counted otherwise. The array buckets are traversed
+     * in place, so neither the traversal nor the element-wise advancing allocates anything per element.
+     */
+    protected class ContainerSpliterator implements Spliterator<E> {
+
+        final Spliterator<Entry<E, Object>> entries; Spliterator<E> bucket; long size; Object value;
+        Object[] array; int index, fence;
+        final boolean sourceSized, subsized; final int characteristics; final Comparator<? super E> comparator;
+        final Consumer<Object> store = value -> this.value = value;
+        final Consumer<Entry<E, Object>> fetch = entry -> value = entry.getValue();
+
+        /**
+         * Construct the object with the given entries and bucket spliterators, the size and the properties.
+         *
+         * @param entries the given entries {@link Spliterator}, or {@code null} if only the bucket remains
+         * @param bucket the given {@link Spliterator} of the bucket being traversed, or {@code null}
+         * @param size the exact number of the remaining elements, or {@code -1} if unknown
+         * @param sourceSized {@code true} if the sized entries spliterators count the elements exactly
+         * @param subsized {@code true} if the sizes of the split parts are known exactly
+         * @param characteristics the characteristics except {@link #SIZED} and {@link #SUBSIZED}
+         * @param comparator the elements {@link Comparator} if {@link #SORTED}
+         */
+        protected ContainerSpliterator(Spliterator<Entry<E, Object>> entries, Spliterator<E> bucket, long size,
+                                       boolean sourceSized, boolean subsized, int characteristics, Comparator<? super E> comparator) {
+            this.entries = entries; this.bucket = bucket; this.size = size; this.sourceSized = sourceSized;
+            this.subsized = subsized; this.characteristics = characteristics; this.comparator = comparator; }
+
+        @Override public boolean tryAdvance(Consumer<? super E> action) {
+            while (true) {
+                if (array != null) {
+                    if (index < fence) {
+                        if (size > 0) size--; action.accept(cast(array[index++])); return true; }
+                    array = null; }
+                if (bucket != null) {
+                    if (bucket.tryAdvance(action)) {
+                        if (size > 0) size--; return true; }
+                    bucket = null; }
+                if (entries == null || !advance())
+                    return false;
+                Object value = this.value; this.value = null;
+                if (isBucket(value)) {
+                    open(value); continue; }
+                if (size > 0) size--;
+                action.accept(cast(value)); return true; } }
+
+        @Override public void forEachRemaining(Consumer<? super E> action) {
+            requireNonNull(action); if (array != null) {
+                for (Object[] array = this.array; index < fence; index++) action.accept(cast(array[index]));
+                array = null; }
+            if (bucket != null) {
+                bucket.forEachRemaining(action); bucket = null; }
+            if (entries instanceof OpenHashMap.EntrySpliterator)
+                ((OpenHashMap<?, ?>.EntrySpliterator) entries).forEachRemainingValue(value -> accept(value, action));
+            else if (entries != null)
+                entries.forEachRemaining(entry -> accept(entry.getValue(), action));
+            size = 0; }
+
+        @Override public Spliterator<E> trySplit() {
+            if (array != null) {
+                bucket = cast(Spliterators.spliterator(array, index, fence, 0)); array = null; }
+            if (bucket != null) {
+                Spliterator<E> split = entries != null ? bucket : bucket.trySplit();
+                if (split == bucket) bucket = null; return split(null, split, split != null ? split.getExactSizeIfKnown() : -1); }
+            if (entries == null) return null;
+            Spliterator<Entry<E, Object>> split = entries.trySplit();
+            if (split != null)
+                return split(split, null, sourceSized && split.hasCharacteristics(SIZED) ? split.estimateSize()
+                        : weighed(split) ? weigh(split) : -1);
+            if (!advance()) return null;
+            Object value = this.value; this.value = null;
+            if (!isBucket(value)) {
+                array = new Object[] {value}; index = 0; fence = 1; return null; }
+            Spliterator<E> prefix = (bucket = Cast.<B>cast(value).spliterator()).trySplit();
+            return split(null, prefix, prefix != null ? prefix.getExactSizeIfKnown() : -1); }
+
+        @Override public long estimateSize() {
+            if (size >= 0) return size;
+            long estimate = (entries != null ? entries.estimateSize() : 0) + (bucket != null ? bucket.estimateSize() : 0)
+                    + (array != null ? fence - index : 0);
+            return estimate < 0 ? Long.MAX_VALUE : estimate; }
+
+        @Override public int characteristics() {
+            return size >= 0 ? characteristics | SIZED | (subsized ? SUBSIZED : 0) : characteristics; }
+
+        @Override public Comparator<? super E> getComparator() {
+            if ((characteristics & SORTED) == 0) throw new IllegalStateException();
+            return comparator; }
+
+        /**
+         * Start traversing the given bucket, in place if it is an {@link AbstractArraySequence}.
+         *
+         * @param bucket the given bucket
+         */
+        void open(Object bucket) {
+            if (bucket instanceof AbstractArraySequence) {
+                AbstractArraySequence<?> sequence = (AbstractArraySequence<?>) bucket;
+                array = sequence.array; index = sequence.offset(); fence = index + sequence.size;
+            } else this.bucket = Cast.<B>cast(bucket).spliterator(); }
+
+        /**
+         * Fetch the value of the next entry into the {@link #value} field,
+         * avoiding the entry creation for the {@link OpenHashMap} entries.
+         *
+         * @return {@code false} if no entries remain, {@code true} otherwise
+         */
+        boolean advance() {
+            return entries instanceof OpenHashMap.EntrySpliterator
+                    ? ((OpenHashMap<?, ?>.EntrySpliterator) entries).tryAdvanceValue(store) : entries.tryAdvance(fetch); }
+
+        /**
+         * Return a {@link ContainerSpliterator} of the split part, subtracting its size from this one.
+         *
+         * @param entries the entries {@link Spliterator} of the split part, or {@code null}
+         * @param bucket the bucket {@link Spliterator} of the split part, or {@code null}
+         * @param size the exact size of the split part, or {@code -1} if unknown
+         * @return a {@link ContainerSpliterator} of the split part, or {@code null} if nothing is split
+         */
+        Spliterator<E> split(Spliterator<Entry<E, Object>> entries, Spliterator<E> bucket, long size) {
+            if (entries == null && bucket == null) return null;
+            this.size = this.size >= 0 && size >= 0 ? this.size - size : -1;
+            return new ContainerSpliterator(entries, bucket, size, sourceSized, subsized, characteristics, comparator); }
+    }
+
+    /**
+     * Perform the given action for the given map value, which is either a single element
+     * or a bucket, whose elements are then all passed to the action in a row.
+     *
+     * @param value the given map value
+     * @param action the given action
+     */
+    protected void accept(Object value, Consumer<? super E> action) {
+        if (isBucket(value))
+            Cast.<B>cast(value).forEach(action);
+        else action.accept(cast(value));
+    }
+
+    /**
+     * Notify the internal map that the bucket of the given element has been resized in place,
+     * if the map is an {@link OpenHashMap}, as the bucket sizes are opaque to the other plain maps.
+     *
+     * @param element the given element
+     */
+    protected void reweigh(E element) {
+        if (map instanceof OpenHashMap) ((OpenHashMap<?, ?>) map).reweigh(element); }
+
     /**
      * Adjust the size of this container by the specified amount.
      *
@@ -240,4 +474,61 @@ public abstract class AbstractHeapContainer<E, B extends Container<E>, M extends
      *         {@code false} if it does not, or an empty {@link Optional} if the uniqueness is unknown
      */
     protected abstract Optional<Boolean> isDistinct();
+
+
+    /**
+     * Return a {@link Serializable} weigher of the internal map values, weighing the buckets
+     * of the given class by their sizes and any other value as one element.
+     *
+     * @param bucket the given class of the buckets
+     * @return a weigher of the internal map values
+     */
+    protected static ToIntFunction<Object> weigher(Class<?> bucket) {
+        return (ToIntFunction<Object> & Serializable) value -> bucket.isInstance(value) ? ((Container<?>) value).size() : 1;
+    }
+
+    /**
+     * Return {@code true} if the given entries spliterator knows the total weight of its values.
+     *
+     * @param entries the given entries spliterator
+     * @return {@code true} if the given entries spliterator knows the total weight of its values
+     */
+    private static boolean weighed(Spliterator<?> entries) {
+        return entries instanceof OpenHashMap.EntrySpliterator ? ((OpenHashMap<?, ?>.EntrySpliterator) entries).weighed()
+                : entries instanceof RankTreeMap.EntrySpliterator || entries instanceof BTreeMap.EntrySpliterator;
+    }
+
+    /**
+     * Return the total weight of the values of the given entries spliterator, which is {@link #weighed(Spliterator) weighed}.
+     *
+     * @param entries the given entries spliterator
+     * @return the total weight of the values of the given entries spliterator
+     */
+    private static long weigh(Spliterator<?> entries) {
+        return entries instanceof OpenHashMap.EntrySpliterator ? ((OpenHashMap<?, ?>.EntrySpliterator) entries).weigh()
+                : entries instanceof RankTreeMap.EntrySpliterator ? ((RankTreeMap<?, ?>.EntrySpliterator) entries).weigh()
+                : ((BTreeMap<?, ?>.EntrySpliterator) entries).weigh();
+    }
+
+
+    /**
+     * Return a {@link Collector} of the given characteristics accumulating the elements into the partial containers
+     * of the given {@link Supplier} and merging them bucket-wise, the elements of the right container after the left's.
+     *
+     * @param supplier the given {@link Supplier} of the empty containers
+     * @param bucketAccumulation a {@link BiConsumer} that adds the element to an existing bucket
+     * @param bucketConstruction a {@link BiFunction} that creates a new bucket from an existing single value and the new element
+     * @param characteristics the given {@link Collector.Characteristics}
+     * @param <E> the element type
+     * @param <B> the type of the internal {@link Container} bucket that holds duplicates
+     * @param <C> the type of the container
+     * @return a {@link Collector} accumulating the elements into the containers
+     */
+    protected static <E, B extends Container<E>, C extends AbstractHeapContainer<E, B, ?>> Collector<E, C, C> collector(
+            Supplier<C> supplier, BiConsumer<B, E> bucketAccumulation, BiFunction<E, E, B> bucketConstruction,
+            Collector.Characteristics... characteristics) {
+        return Collector.of(supplier, (container, element) -> container.put(bucketAccumulation, bucketConstruction, element),
+                (container1, container2) -> { container1.merge(container2, bucketAccumulation, bucketConstruction); return container1; },
+                characteristics);
+    }
 }
@@ -4,8 +4,6 @@ import java.lang.reflect.Method;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
-import java.util.function.Supplier;
 
 import static java.util.Objects.requireNonNull;
 
@@ -22,23 +20,30 @@ import static java.util.Objects.requireNonNull;
  */
 public abstract class AbstractIterator<E> implements Iterator<E> {
 
-    private static final Predicate<Method> REMOVE_METHOD_PREDICATE = method ->
-            "removeElement".equals(method.getName()) && method.getParameterCount() == 0;
-
+    /**
+     * Whether the {@link #removeElement()} method is overridden, resolved once per iterator class.
+     */
+    private static final ClassValue<Boolean> REMOVE_ELEMENT_DEFINED = new ClassValue<Boolean>() {
+        @Override protected Boolean computeValue(Class<?> type) {
+            for (; type != AbstractIterator.class; type = type.getSuperclass())
+                for (Method method : type.getDeclaredMethods())
+                    if ("removeElement".equals(method.getName()) && method.getParameterCount() == 0)
+                        return true;
+            return false; }
+    };
 
-    private final Supplier<Boolean> hasPreviousPredicate = this::hasPrevious;
-    private final Supplier<E> previousElementSupplier = this::previousElement;
+    /**
+     * The 'has previous' and 'has next' check states.
+     */
+    private static final byte UNKNOWN = 0, ABSENT = 1, PRESENT = 2;
 
-    private final Supplier<Boolean> hasNextPredicate = this::hasNext;
-    private final Supplier<E> nextElementSupplier = this::nextElement;
 
     private final Runnable removal;
 
-
     /**
-     * Marker for the 'has previous' and 'has next' check states.
+     * Holders of the 'has previous' and 'has next' check states.
      */
-    private Boolean hasPrevious, hasNext;
+    private byte hasPrevious, hasNext;
 
     /**
      * Marker for the 'on an element' cursor state.
@@ -58,9 +63,7 @@ public abstract class AbstractIterator<E> implements Iterator<E> {
      * @param removal the given {@link Runnable} removal operation
      */
     protected AbstractIterator(Runnable removal) {
-        this.removal = removeElementDefined() ? removal != null ? () -> {
-            removal.run(); removeElement();
-        } : this::removeElement : removal;
+        this.removal = removal;
     }
 
     /**
@@ -73,7 +76,9 @@ public abstract class AbstractIterator<E> implements Iterator<E> {
      *         in the reverse direction, {@code false} otherwise
      */
     protected boolean hasPrevious() {
-        hasNext = null; return hasPrevious == null && (hasPrevious = hasPreviousElement()) || hasPrevious;
+        hasNext = UNKNOWN; if (hasPrevious == UNKNOWN)
+            hasPrevious = hasPreviousElement() ? PRESENT : ABSENT;
+        return hasPrevious == PRESENT;
     }
 
     /**
@@ -89,7 +94,9 @@ public abstract class AbstractIterator<E> implements Iterator<E> {
      *         in the iteration
      */
     protected E previous() {
-        E element = element(hasPreviousPredicate, previousElementSupplier); hasPrevious = null; return element;
+        if (!hasPrevious())
+            throw new NoSuchElementException();
+        E element = previousElement(); current = true; hasPrevious = UNKNOWN; return element;
     }
 
     /**
@@ -99,7 +106,9 @@ public abstract class AbstractIterator<E> implements Iterator<E> {
      */
     @Override
     public boolean hasNext() {
-        hasPrevious = null; return hasNext == null && (hasNext = hasNextElement()) || hasNext;
+        hasPrevious = UNKNOWN; if (hasNext == UNKNOWN)
+            hasNext = hasNextElement() ? PRESENT : ABSENT;
+        return hasNext == PRESENT;
     }
 
     /**
@@ -110,7 +119,9 @@ public abstract class AbstractIterator<E> implements Iterator<E> {
      */
     @Override
     public E next() {
-        E element = element(hasNextPredicate, nextElementSupplier); hasNext = null; return element;
+        if (!hasNext())
+            throw new NoSuchElementException();
+        E element = nextElement(); current = true; hasNext = UNKNOWN; return element;
     }
 
     /**
@@ -121,11 +132,16 @@ public abstract class AbstractIterator<E> implements Iterator<E> {
      */
     @Override
     public final void remove() {
-        if (!current && removal != null)
+        boolean defined = removeElementDefined();
+        if (removal == null && !defined)
+            throw new UnsupportedOperationException();
+        if (!current)
             throw new IllegalStateException();
-        if (removal != null) {
-            removal.run(); current = false;
-        } else throw new UnsupportedOperationException();
+        if (removal != null)
+            removal.run();
+        if (defined)
+            removeElement();
+        current = false;
     }
 
     /**
@@ -170,24 +186,6 @@ public abstract class AbstractIterator<E> implements Iterator<E> {
         }
     }
 
-    /**
-     * Retrieve an element based on the provided predicate and supplier.
-     *
-     * <p>This method checks if an element is available using the {@code hasPredicate}. If the predicate evaluates to {@code false},
-     * a {@link NoSuchElementException} is thrown. If the predicate evaluates to {@code true}, the element is obtained using the
-     * {@code elementSupplier} and returned.</p>
-     *
-     * @param hasPredicate a {@link Supplier has predicate} that returns {@code true} if an element is available, {@code false} otherwise
-     * @param elementSupplier an {@link Supplier element supplier} that provides the element to be retrieved
-     * @return the element supplied by {@code elementSupplier} if {@code hasPredicate} is {@code true}
-     * @throws NoSuchElementException if {@code hasPredicate} evaluates to {@code false}
-     */
-    private E element(Supplier<Boolean> hasPredicate, Supplier<E> elementSupplier) {
-        if (!hasPredicate.get())
-            throw new NoSuchElementException();
-        E element = elementSupplier.get(); current = true; return element;
-    }
-
     /**
      * Determine if more elements precede in the iteration.
      * A return value of {@code true} guarantees that a subsequent call
@@ -237,14 +235,12 @@ public abstract class AbstractIterator<E> implements Iterator<E> {
 
     /**
      * Determine whether the removal operation is definitely supported.
+     * The default implementation checks whether {@link #removeElement()} is overridden,
+     * resolving it by reflection only once per iterator class.
      *
      * @return {@code true} if the removal operation is definitely supported, {@code false} otherwise.
      */
     protected boolean removeElementDefined() {
-        for (Class<?> type = getClass(); type != AbstractIterator.class; type = type.getSuperclass())
-            for (Method method : type.getDeclaredMethods())
-                if (REMOVE_METHOD_PREDICATE.test(method))
-                    return true;
-        return false;
+        return REMOVE_ELEMENT_DEFINED.get(getClass());
     }
 }
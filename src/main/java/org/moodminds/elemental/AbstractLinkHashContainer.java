@@ -0,0 +1,342 @@
+package org.moodminds.elemental;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * A template implementation of the {@link Container} interface, preserving the order of elements,
+ * which is powered by a compact ordered hash layout.
+ * <p>
+ * The elements are appended to a dense array in their order, along with their hashes and the links to the next
+ * and the previous equal elements, while a sparse {@code int} index table of the open addressing maps each of
+ * the distinct elements to the run of the equal ones, keeping the position of its last element, whose link closes
+ * the run in a circle back to the first one, and the number of them. So it takes a few words per element instead
+ * of a few objects, any element is unlinked from its run in constant time, and the iteration is a sequential scan
+ * of the dense array. The removed elements leave the holes in place, which are compacted away once the dense
+ * array is full.
+ *
+ * @param <E> the element type
+ */
+public abstract class AbstractLinkHashContainer<E> extends AbstractContainer<E> implements RandomMatch, Serializable {
+
+    private static final long serialVersionUID = 8720418655419276510L;
+
+    /**
+     * The minimal capacity of the dense array.
+     */
+    protected static final int MINIMUM = 8;
+
+    /**
+     * The placeholder of the removed elements in the dense array.
+     */
+    protected static final Object REMOVED = new Object();
+
+    /**
+     * The sparse index table holder field, of two {@code int} values per slot: the position of the last
+     * element of the run and the number of its elements, which is zero for a free slot.
+     */
+    protected transient int[] index;
+
+    /**
+     * The dense array of the elements in their order holder field.
+     */
+    protected transient Object[] elements;
+
+    /**
+     * The dense array of the hashes of the elements holder field.
+     */
+    protected transient int[] hashes;
+
+    /**
+     * The dense array of the positions of the next equal elements holder field.
+     */
+    protected transient int[] links;
+
+    /**
+     * The dense array of the positions of the previous equal elements holder field.
+     */
+    protected transient int[] backLinks;
+
+    /**
+     * The number of the used positions of the dense array, including the removed ones, holder field.
+     */
+    protected transient int end;
+
+    /**
+     * Container size holder field.
+     */
+    protected transient int size;
+
+    /**
+     * The number of the distinct elements holder field.
+     */
+    protected transient int distinct;
+
+    /**
+     * Construct the object with the given initial capacity.
+     *
+     * @param capacity the given initial capacity
+     */
+    protected AbstractLinkHashContainer(int capacity) {
+        init(capacity);
+    }
+
+    @Override public Iterator<E> getAll(Object o) {
+        return new RunIterator(slot(o, hash(o))); }
+    @Override public int getCount(Object o) {
+        int slot = slot(o, hash(o)); return slot >= 0 ? index[(slot << 1) + 1] : 0; }
+    @Override public boolean contains(Object o) {
+        return slot(o, hash(o)) >= 0; }
+
+    @Override public boolean contains() {
+        return size > 0; }
+    @Override public int size() {
+        return size; }
+
+    @Override public Iterator<E> iterator() {
+        return new ElementIterator(); }
+    @Override public Spliterator<E> spliterator() {
+        return new ElementSpliterator(0, end, size, Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.SIZED
+                | (size == end ? Spliterator.SUBSIZED : 0) | (size == distinct ? Spliterator.DISTINCT : 0)); }
+
+    @Override public void forEach(Consumer<? super E> action) {
+        requireNonNull(action); Object[] elements = this.elements;
+        for (int i = 0, end = this.end; i < end; i++)
+            if (elements[i] != REMOVED) action.accept(cast(elements[i])); }
+
+    /**
+     * Allocate the empty arrays of the given capacity.
+     *
+     * @param capacity the given capacity
+     */
+    protected void init(int capacity) {
+        capacity = max(capacity, MINIMUM); elements = new Object[capacity]; hashes = new int[capacity];
+        links = new int[capacity]; backLinks = new int[capacity];
+        index = new int[slots(capacity) << 1]; end = size = distinct = 0;
+    }
+
+    /**
+     * Append the given element, compacting or growing the dense array first if it is full.
+     *
+     * @param element the given element
+     */
+    protected void put(E element) {
+        if (end == elements.length)
+            resize(size + (size >> 1) + 1);
+        put(element, hash(element));
+    }
+
+    /**
+     * Append the elements of the given container in their order, reusing their hashes.
+     *
+     * @param container the given container
+     */
+    protected void merge(AbstractLinkHashContainer<E> container) {
+        int size = this.size + container.size; if (end + container.size > elements.length)
+            resize(size + (size >> 1));
+        Object[] elements = container.elements; int[] hashes = container.hashes;
+        for (int i = 0, end = container.end; i < end; i++)
+            if (elements[i] != REMOVED) put(elements[i], hashes[i]);
+    }
+
+    /**
+     * Remove the element at the given position of the dense array, unlinking it from its run.
+     *
+     * @param position the given position
+     */
+    protected void remove(int position) {
+        int slot = slot(elements[position], hashes[position]) << 1, count = index[slot + 1];
+        if (count == 1) delete(slot >> 1);
+        else {
+            int next = links[position], previous = backLinks[position];
+            links[previous] = next; backLinks[next] = previous;
+            if (position == index[slot]) index[slot] = previous;
+            index[slot + 1] = count - 1;
+        } elements[position] = REMOVED; size--; resetHashCode();
+    }
+
+    /**
+     * Return the slot of the index table of the run of the elements equal to the given one,
+     * or the bitwise complement of the free slot to put it into.
+     *
+     * @param o the given element
+     * @param hash the hash of the given element
+     * @return the slot of the given element, or the bitwise complement of the free slot
+     */
+    protected int slot(Object o, int hash) {
+        int[] index = this.index; int mask = (index.length >> 1) - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            if (index[(slot << 1) + 1] == 0)
+                return ~slot;
+            int last = index[slot << 1]; Object element;
+            if (hashes[last] == hash && ((element = elements[last]) == o || o != null && o.equals(element)))
+                return slot;
+        }
+    }
+
+    private void put(Object element, int hash) {
+        int position = end++, slot = slot(element, hash); elements[position] = element; hashes[position] = hash;
+        if (slot >= 0) {
+            slot <<= 1; int last = index[slot], first = links[last];
+            links[position] = first; backLinks[first] = position; links[last] = position; backLinks[position] = last;
+            index[slot] = position; index[slot + 1]++;
+        } else {
+            slot = ~slot << 1; links[position] = backLinks[position] = position;
+            index[slot] = position; index[slot + 1] = 1; distinct++;
+        } size++; resetHashCode();
+    }
+
+    private void delete(int slot) {
+        int[] index = this.index; int mask = (index.length >> 1) - 1;
+        for (int next = slot; ; ) {
+            if (index[((next = (next + 1) & mask) << 1) + 1] == 0) break;
+            int home = hashes[index[next << 1]] & mask;
+            if (slot <= next ? slot < home && home <= next : slot < home || home <= next) continue;
+            index[slot << 1] = index[next << 1]; index[(slot << 1) + 1] = index[(next << 1) + 1]; slot = next;
+        } index[slot << 1] = 0; index[(slot << 1) + 1] = 0; distinct--;
+    }
+
+    private void resize(int capacity) {
+        Object[] elements = this.elements; int[] hashes = this.hashes; int end = this.end; init(capacity);
+        for (int i = 0; i < end; i++)
+            if (elements[i] != REMOVED) put(elements[i], hashes[i]);
+    }
+
+    private void writeObject(ObjectOutputStream output) throws Exception {
+        output.defaultWriteObject(); output.writeInt(size);
+        for (int i = 0; i < end; i++)
+            if (elements[i] != REMOVED) output.writeObject(elements[i]);
+    }
+
+    private void readObject(ObjectInputStream input) throws Exception {
+        input.defaultReadObject(); int size = input.readInt();
+        if (size < 0)
+            throw new InvalidObjectException("Negative size: " + size);
+        init(size); for (int i = 0; i < size; i++) {
+            Object element = input.readObject(); put(element, hash(element)); }
+    }
+
+
+    /**
+     * The {@link Iterator} over the dense array, skipping the removed elements.
+     */
+    protected class ElementIterator extends AbstractIterator<E> {
+
+        protected int next, current = -1;
+
+        @Override protected boolean hasNextElement() {
+            while (next < end && elements[next] == REMOVED) next++; return next < end; }
+        @Override protected E nextElement() {
+            return cast(elements[current = next++]); }
+
+        /**
+         * Remove the current element.
+         */
+        protected void delete() {
+            AbstractLinkHashContainer.this.remove(current); current = -1; }
+    }
+
+    /**
+     * The {@link Iterator} over the run of the equal elements of the given slot, in their order.
+     */
+    protected class RunIterator extends AbstractIterator<E> {
+
+        protected int next, current = -1, remaining;
+
+        protected RunIterator(int slot) {
+            if (slot >= 0) { next = links[index[slot << 1]]; remaining = index[(slot << 1) + 1]; } }
+
+        @Override protected boolean hasNextElement() {
+            return remaining > 0; }
+        @Override protected E nextElement() {
+            current = next; next = links[next]; remaining--; return cast(elements[current]); }
+
+        /**
+         * Remove the current element.
+         */
+        protected void delete() {
+            AbstractLinkHashContainer.this.remove(current); current = -1; }
+    }
+
+    /**
+     * The {@link Spliterator} over a range of the dense array, skipping the removed elements,
+     * split at the middle of the range, with the exact sizes of the parts if there are no removed ones.
+     */
+    protected class ElementSpliterator implements Spliterator<E> {
+
+        protected int origin, fence, estimate, characteristics;
+
+        protected ElementSpliterator(int origin, int fence, int estimate, int characteristics) {
+            this.origin = origin; this.fence = fence; this.estimate = estimate; this.characteristics = characteristics; }
+
+        @Override public boolean tryAdvance(Consumer<? super E> action) {
+            requireNonNull(action); Object[] elements = AbstractLinkHashContainer.this.elements;
+            while (origin < fence) {
+                Object element = elements[origin++];
+                if (element != REMOVED) { action.accept(cast(element)); return true; }
+            } return false; }
+
+        @Override public void forEachRemaining(Consumer<? super E> action) {
+            requireNonNull(action); Object[] elements = AbstractLinkHashContainer.this.elements;
+            for (int fence = this.fence; origin < fence; origin++)
+                if (elements[origin] != REMOVED) action.accept(cast(elements[origin])); }
+
+        @Override public Spliterator<E> trySplit() {
+            int middle = (origin + fence) >>> 1; if (middle <= origin) return null;
+            if ((characteristics & SUBSIZED) == 0) characteristics &= ~SIZED;
+            return new ElementSpliterator(origin, origin = middle, estimate >>>= 1, characteristics); }
+
+        @Override public long estimateSize() {
+            return (characteristics & SUBSIZED) != 0 ? fence - origin : estimate; }
+
+        @Override public int characteristics() {
+            return characteristics; }
+    }
+
+
+    /**
+     * Return the spread hash of the given element.
+     *
+     * @param o the given element
+     * @return the spread hash of the given element
+     */
+    protected static int hash(Object o) {
+        int hash; return o != null ? (hash = o.hashCode()) ^ (hash >>> 16) : 0;
+    }
+
+    /**
+     * Return the number of the index table slots for the given capacity of the dense array,
+     * the least power of two keeping the table at most two-thirds full.
+     *
+     * @param capacity the given capacity
+     * @return the number of the index table slots
+     */
+    protected static int slots(int capacity) {
+        int slots = MINIMUM; while (slots < capacity + (capacity >> 1)) slots <<= 1; return slots;
+    }
+
+    /**
+     * Return a {@link Collector} accumulating the elements into the partial containers of the given {@link Supplier}
+     * and merging them in the encounter order.
+     *
+     * @param supplier the given {@link Supplier} of the empty containers
+     * @param <E> the element type
+     * @param <C> the type of the container
+     * @return a {@link Collector} accumulating the elements into the containers
+     */
+    protected static <E, C extends AbstractLinkHashContainer<E>> Collector<E, C, C> collector(Supplier<C> supplier) {
+        return Collector.of(supplier, (container, element) -> container.put(element),
+                (container1, container2) -> { container1.merge(container2); return container1; });
+    }
+}
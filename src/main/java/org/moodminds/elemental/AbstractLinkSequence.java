@@ -12,6 +12,13 @@ import static org.moodminds.sneaky.Cast.cast;
 
 /**
  * A template linked implementation of the {@link Sequence} interface.
+ * <p>
+ * The positional access is served by a sparse index of every {@link #SKIP}-th node, built lazily on the first
+ * access beyond the first ones and dropped on any relinking, and by a finger to the node first accessed within
+ * the last accessed block of {@link #SKIP} nodes, replaced only once the access crosses to another block. So both
+ * the random and the sequential access take at most {@link #SKIP} steps, while the plain iteration never builds
+ * the index at all. The index is published fully built and the finger is an immutable pair of a node and its index,
+ * so an unmodified sequence may be read by the concurrent threads.
  *
  * @param <E> the type of elements
  * @param <L> the type of {@link Node} link
@@ -21,6 +28,11 @@ public abstract class AbstractLinkSequence<E, L extends Node<E, L>>
 
     private static final long serialVersionUID = 239364802410716153L;
 
+    /**
+     * The distance between the nodes of the positional index.
+     */
+    protected static final int SKIP = 32;
+
     /**
      * Head {@link L} node holding field.
      */
@@ -31,6 +43,16 @@ public abstract class AbstractLinkSequence<E, L extends Node<E, L>>
      */
     protected transient int size;
 
+    /**
+     * Positional index of every {@link #SKIP}-th {@link L} node holding field, {@code null} until built.
+     */
+    protected transient volatile Object[] skips;
+
+    /**
+     * The {@link L} node {@link Finger} of the last accessed block holding field.
+     */
+    protected transient Finger<L> finger;
+
     /**
      * {@inheritDoc}
      *
@@ -85,6 +107,7 @@ public abstract class AbstractLinkSequence<E, L extends Node<E, L>>
         if (previous != null) {
             next.next = previous.next; previous.next = next;
         } else head = next;
+        unindex(); resetHashCode();
     }
 
     /**
@@ -96,16 +119,58 @@ public abstract class AbstractLinkSequence<E, L extends Node<E, L>>
         if (previous != null) {
             previous.next = previous.next != null ? previous.next.next : null;
         } else head = head.next;
+        unindex(); resetHashCode();
     }
 
     /**
-     * Retrieve the {@link L} node at the specified index, starting from the head.
+     * Retrieve the {@link L} node at the specified index, stepping forward from the finger node
+     * if it is close behind, or from the nearest preceding node of the positional index otherwise.
      *
      * @param index the index of the {@link L} node to retrieve
      * @return the {@link L} node at the given index
      */
     protected L node(int index) {
-        return next(head, index);
+        Finger<L> finger = this.finger;
+        if (finger != null && finger.index <= index && index - finger.index < SKIP)
+            return finger(next(finger.node, index - finger.index), index);
+        return finger(index < SKIP ? next(head, index) : next(cast(skips()[index / SKIP]), index % SKIP), index);
+    }
+
+    /**
+     * Remember the given accessed {@link L} node at the given index as the finger,
+     * unless the finger is already within the same block of {@link #SKIP} nodes.
+     *
+     * @param node the given {@link L} node
+     * @param index the given index
+     * @return the given {@link L} node
+     */
+    protected L finger(L node, int index) {
+        Finger<L> finger = this.finger;
+        if (finger == null || finger.index / SKIP != index / SKIP) this.finger = new Finger<>(node, index);
+        return node;
+    }
+
+    /**
+     * Return the positional index of every {@link #SKIP}-th {@link L} node, building it fully if absent
+     * before publishing it.
+     *
+     * @return the positional index of every {@link #SKIP}-th {@link L} node
+     */
+    protected Object[] skips() {
+        Object[] skips = this.skips;
+        if (skips == null) {
+            skips = new Object[(size + SKIP - 1) / SKIP]; L node = head;
+            for (int i = 0; i < skips.length; i++) {
+                skips[i] = node; if (i < skips.length - 1) node = next(node, SKIP); }
+            this.skips = skips;
+        } return skips;
+    }
+
+    /**
+     * Drop the positional index and the last accessed node, on the change of the links.
+     */
+    protected void unindex() {
+        skips = null; finger = null;
     }
 
     /**
@@ -217,6 +282,33 @@ public abstract class AbstractLinkSequence<E, L extends Node<E, L>>
 
 
 
+    /**
+     * The immutable pair of the finger {@link L} node and its index,
+     * so that the concurrent readers never see one without the other.
+     *
+     * @param <L> the type of the {@code Link}
+     */
+    protected static final class Finger<L> {
+
+        /**
+         * The {@link L} node holding field.
+         */
+        protected final L node;
+
+        /**
+         * The index of the node holding field.
+         */
+        protected final int index;
+
+        /**
+         * Construct the object with the given {@link L} node and its index.
+         *
+         * @param node the given {@link L} node
+         * @param index the given index of the node
+         */
+        protected Finger(L node, int index) { this.node = node; this.index = index; }
+    }
+
     /**
      * Represents a node in a linked structure, holding an element and a reference to the next link.
      *
@@ -256,8 +348,6 @@ public abstract class AbstractLinkSequence<E, L extends Node<E, L>>
 
         protected final AbstractLinkSubSequence parent;
 
-        protected transient L previous;
-
         protected int offset, size;
 
         /**
@@ -307,30 +397,32 @@ public abstract class AbstractLinkSequence<E, L extends Node<E, L>>
         }
 
         @Override public <R extends E> R get(int index) {
-            return cast(previous(elementIndex(index, size) + 1).item); }
+            return cast(node(origin() + elementIndex(index, size)).item); }
         @Override public int size() {
             return size; }
 
+        /**
+         * Return the index of the first element of this subsequence within the whole sequence.
+         *
+         * @return the index of the first element of this subsequence within the whole sequence
+         */
+        protected int origin() {
+            return parent != null ? parent.origin() + offset : offset;
+        }
+
         /**
          * Return the link element that precedes the specified index within this subsequence.
          * <p>
-         * This method lazily resolves and caches the {@code previous} link to optimize subsequent lookups.
-         * If the cached {@code previous} link is unavailable, it is derived either from the parent subsequence
-         * (if present), or directly from the underlying structure using positional navigation.
+         * The link is resolved through the positional index of the whole sequence,
+         * so the lookups at the nearby indexes step from the last accessed one.
          * </p>
          *
          * @param index the target index within the subsequence, relative to its logical range
-         * @return the link element that immediately precedes the element at the specified index
+         * @return the link element that immediately precedes the element at the specified index,
+         * or {@code null} if it is the first element of the whole sequence
          */
         protected L previous(int index) {
-            if (previous == null)
-                if (offset == 0) {
-                    if (parent != null) previous = parent.previous(0);
-                } else if (parent != null && parent.previous(0) != null)
-                    previous = next(parent.previous(0), offset);
-                else previous = node(offset - 1);
-            if (index == 0) return previous;
-            return previous != null ? next(previous, index) : next(head, index - 1);
+            int position = origin() + index; return position > 0 ? node(position - 1) : null;
         }
     }
 }
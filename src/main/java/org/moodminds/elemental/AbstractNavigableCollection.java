@@ -5,6 +5,13 @@ import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.SortedMap;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.sneaky.Cast.cast;
 
 /**
  * A template implementation of the {@link NavigableCollection} interface,
@@ -47,10 +54,22 @@ public abstract class AbstractNavigableCollection<E, M extends NavigableMap<E, O
         super(map, elements);
     }
 
+    /**
+     * Construct the object with the given {@link M map}, {@link Stream} of elements
+     * and {@link Collector} of the partial collections used for the parallel streams.
+     *
+     * @param map the given {@link M map}
+     * @param elements the given {@link Stream} of elements
+     * @param collector the given {@link Collector} of the partial collections
+     */
+    protected AbstractNavigableCollection(M map, Stream<? extends E> elements, Collector<? super E, ?, ? extends AbstractHeapContainer<E, AbstractHeapCollection.Bucket<E>, ?>> collector) {
+        super(map, elements, collector);
+    }
+
     @Override public E pollFirst() {
-        return poll(iterator()); }
+        return poll(true); }
     @Override public E pollLast() {
-        return poll(descending().iterator()); }
+        return poll(false); }
 
     @Override public Iterator<E> lowerAll(E e) {
         Map.Entry<E, Object> entry = map.lowerEntry(e); return collectionIterator(entry != null ? tryBucket(entry.getValue(),
@@ -66,19 +85,102 @@ public abstract class AbstractNavigableCollection<E, M extends NavigableMap<E, O
                 bucket -> iterator(bucket, bucket.iterator()), value -> iterator(value, true)) : iterator(null, false)); }
 
     /**
-     * Retrieve and remove the next element from the specified iterator.
-     * If the iterator has no more elements, return {@code null}.
+     * Remove up to the given number of the first elements of this collection in one pass over its leading entries,
+     * passing each of them to the given action, and count the size and modification of this collection once for all.
+     * The equal elements are removed in their iteration order, each once it is accepted by the action,
+     * so if the action throws, the element it fails on and the following ones stay in this collection.
+     *
+     * @param max the given maximum number of the elements to remove
+     * @param action the given action to perform on each removed element
+     * @return the number of the removed elements
+     * @throws IllegalArgumentException if the maximum number is negative
+     * @throws NullPointerException if the action is {@code null}
+     */
+    public int pollFirst(int max, Consumer<? super E> action) {
+        return poll(true, max, action); }
+
+    /**
+     * Remove up to the given number of the last elements of this collection in one pass over its trailing entries,
+     * passing each of them to the given action, and count the size and modification of this collection once for all.
+     * The equal elements are removed in their iteration order, each once it is accepted by the action,
+     * so if the action throws, the element it fails on and the following ones stay in this collection.
+     *
+     * @param max the given maximum number of the elements to remove
+     * @param action the given action to perform on each removed element
+     * @return the number of the removed elements
+     * @throws IllegalArgumentException if the maximum number is negative
+     * @throws NullPointerException if the action is {@code null}
+     */
+    public int pollLast(int max, Consumer<? super E> action) {
+        return poll(false, max, action); }
+
+    /**
+     * Retrieve and remove the first element of the first or the last entry. A bucket is polled in place,
+     * keeping its map entry until it is collapsed to the single element left, so polling all the equal elements
+     * one by one takes linear time.
+     *
+     * @param first {@code true} for the first entry, {@code false} for the last one
+     * @return the removed element, or {@code null} if this collection is empty
+     */
+    protected E poll(boolean first) {
+        Map.Entry<E, Object> entry = first ? map.firstEntry() : map.lastEntry();
+        if (entry == null)
+            return null;
+        E element = tryBucket(entry.getValue(), bucket -> {
+            E head = bucket.get(0); bucket.poll(1);
+            if (bucket.size() == 1) map.put(entry.getKey(), bucket.get(0)); else reweigh(entry.getKey());
+            return head; }, value -> {
+            if (first) map.pollFirstEntry(); else map.pollLastEntry(); return cast(value); });
+        count(-1); countMod(); return element;
+    }
+
+    /**
+     * Remove up to the given number of the elements of the first or the last entries,
+     * passing each of them to the given action.
      *
-     * @param iterator the iterator from which to retrieve the next element
-     * @return the next element in the iterator, or {@code null} if no elements are left
+     * @param first {@code true} for the first entries, {@code false} for the last ones
+     * @param max the given maximum number of the elements to remove
+     * @param action the given action to perform on each removed element
+     * @return the number of the removed elements
      */
-    protected E poll(Iterator<E> iterator) {
-        if (iterator.hasNext()) {
-            E value = iterator.next();
-            iterator.remove(); return value;
-        } return null;
+    protected int poll(boolean first, int max, Consumer<? super E> action) {
+        if (max < 0)
+            throw new IllegalArgumentException("Negative max: " + max);
+        requireNonNull(action); int count = 0;
+        try {
+            for (Map.Entry<E, Object> entry; count < max && (entry = first ? map.pollFirstEntry() : map.pollLastEntry()) != null; ) {
+                Object value = entry.getValue();
+                if (isBucket(value)) {
+                    Bucket<E> bucket = cast(value); int number = min(max - count, bucket.size()), accepted = 0;
+                    try {
+                        for (; accepted < number; accepted++) action.accept(bucket.get(accepted));
+                    } finally {
+                        count += accepted; if (accepted < bucket.size()) restore(bucket, accepted); }
+                } else {
+                    boolean accepted = false;
+                    try {
+                        action.accept(cast(value)); accepted = true; count++;
+                    } finally {
+                        if (!accepted) map.put(entry.getKey(), value); }
+                }
+            } return count;
+        } finally {
+            if (count > 0) { count(-count); countMod(); }
+        }
     }
 
+    /**
+     * Remove the given number of the leading elements of the given bucket polled out of the map,
+     * and put the rest of it back, collapsed to the single element if just one is left.
+     * The bucket is put back as is if the given number is zero.
+     *
+     * @param bucket the given bucket
+     * @param number the given number of the leading elements
+     */
+    private void restore(Bucket<E> bucket, int number) {
+        if (number > 0) bucket.poll(number); E head = bucket.get(0);
+        map.put(head, bucket.size() == 1 ? head : bucket);
+    }
 
     /**
      * Descending sub-collection extension of the {@link AbstractSortedCollection}.
@@ -93,15 +195,22 @@ public abstract class AbstractNavigableCollection<E, M extends NavigableMap<E, O
 
         private static final long serialVersionUID = 3947071043558156236L;
 
+        protected DescendingSortedSubCollection(R root, P parent, M map) {
+            super(root, parent, map); }
+
+        /**
+         * @deprecated the range is ignored, use {@link #DescendingSortedSubCollection(AbstractSortedCollection, AbstractSortedCollection, SortedMap)} instead
+         */
+        @Deprecated
         protected DescendingSortedSubCollection(R root, P parent, M map, Range<E> range) {
-            super(root, parent, map, range); }
+            this(root, parent, map); }
 
         @Override public SortedCollection<E> sub(E fromElement, E toElement) {
-            return new DescendingSortedSubCollection<>(root, this, map.subMap(fromElement, toElement), range.subRange(toElement, false, fromElement, true)); }
+            return new DescendingSortedSubCollection<>(root, this, map.subMap(fromElement, toElement)); }
         @Override public SortedCollection<E> head(E toElement) {
-            return new DescendingSortedSubCollection<>(root, this, map.headMap(toElement), range.tailRange(toElement, false)); }
+            return new DescendingSortedSubCollection<>(root, this, map.headMap(toElement)); }
         @Override public SortedCollection<E> tail(E fromElement) {
-            return new DescendingSortedSubCollection<>(root, this, map.tailMap(fromElement), range.headRange(fromElement, true)); }
+            return new DescendingSortedSubCollection<>(root, this, map.tailMap(fromElement)); }
     }
 
     /**
@@ -117,28 +226,42 @@ public abstract class AbstractNavigableCollection<E, M extends NavigableMap<E, O
 
         private static final long serialVersionUID = 4875940283769434697L;
 
-        protected final Range<E> range;
-
         protected final R root; protected final P parent;
 
+        protected AbstractNavigableSubCollection(R root, P parent, M map) {
+            super(map); this.root = root; this.parent = parent; }
+
+        /**
+         * @deprecated the range is ignored, use {@link #AbstractNavigableSubCollection(AbstractNavigableCollection, AbstractNavigableCollection, NavigableMap)} instead
+         */
+        @Deprecated
         protected AbstractNavigableSubCollection(R root, P parent, M map, Range<E> range) {
-            super(map); this.range = range; this.root = root; this.parent = parent; parent.child = new SubReference<>(parent.child, this, range); }
+            this(root, parent, map); }
+
+        protected AbstractNavigableSubCollection(R root, P parent, M map, Integer size) {
+            super(map, size); this.root = root; this.parent = parent; sizeMod = totalMod(); }
 
+        /**
+         * @deprecated the range is ignored, use {@link #AbstractNavigableSubCollection(AbstractNavigableCollection, AbstractNavigableCollection, NavigableMap, Integer)} instead
+         */
+        @Deprecated
         protected AbstractNavigableSubCollection(R root, P parent, M map, Integer size, Range<E> range) {
-            super(map, size); this.range = range; this.root = root; this.parent = parent; parent.child = new SubReference<>(parent.child, this, range); }
+            this(root, parent, map, size); }
 
-        @Override protected int totalMod() { return parent.totalMod(); }
-        @Override protected void countMod() { parent.countMod(); }
+        @Override public void clear() {
+            int size = size(); super.clear(); root.count(-size); }
+
+        @Override protected int totalMod() { return root.totalMod(); }
+        @Override protected void countMod() { countMod(root); }
 
         @Override protected Optional<Boolean> isDistinct() {
             return parent.isDistinct(); }
 
-        @Override protected void propagateClear(Integer size) {
-            new ClearPropagation<>(range, size).untilCollection(this).propagateRoot(root); super.propagateClear(size); }
-        @Override protected void propagateCount(E element, int number) {
-            new CountPropagation<>(element, number).untilCollection(this).propagateRoot(root); super.propagateCount(element, number); }
-        @Override protected void propagateSize(int size) {
-            new SizePropagation<>(range, size).untilCollection(this).propagateRoot(root); super.propagateSize(size); }
+        @Override protected Optional<Integer> getSize() {
+            return isActual() ? super.getSize() : Optional.empty(); }
+
+        @Override protected void count(int number) {
+            super.count(number); root.count(number); }
     }
 
     /**
@@ -154,28 +277,42 @@ public abstract class AbstractNavigableCollection<E, M extends NavigableMap<E, O
 
         private static final long serialVersionUID = 6413530236317264799L;
 
+        protected NavigableSubCollection(R root, P parent, M map) {
+            super(root, parent, map); }
+
+        /**
+         * @deprecated the range is ignored, use {@link #NavigableSubCollection(AbstractNavigableCollection, AbstractNavigableCollection, NavigableMap)} instead
+         */
+        @Deprecated
         protected NavigableSubCollection(R root, P parent, M map, Range<E> range) {
-            super(root, parent, map, range); }
+            this(root, parent, map); }
+
+        protected NavigableSubCollection(R root, P parent, M map, Integer size) {
+            super(root, parent, map, size); }
 
+        /**
+         * @deprecated the range is ignored, use {@link #NavigableSubCollection(AbstractNavigableCollection, AbstractNavigableCollection, NavigableMap, Integer)} instead
+         */
+        @Deprecated
         protected NavigableSubCollection(R root, P parent, M map, Integer size, Range<E> range) {
-            super(root, parent, map, size, range); }
+            this(root, parent, map, size); }
 
         @Override public SortedCollection<E> sub(E fromElement, E toElement) {
-            return new SortedSubCollection<>(root, this, map.subMap(fromElement, toElement), range.subRange(fromElement, toElement)); }
+            return new SortedSubCollection<>(root, this, map.subMap(fromElement, toElement)); }
         @Override public SortedCollection<E> head(E toElement) {
-            return new SortedSubCollection<>(root, this, map.headMap(toElement), range.headRange(toElement)); }
+            return new SortedSubCollection<>(root, this, map.headMap(toElement)); }
         @Override public SortedCollection<E> tail(E fromElement) {
-            return new SortedSubCollection<>(root, this, map.tailMap(fromElement), range.tailRange(fromElement)); }
+            return new SortedSubCollection<>(root, this, map.tailMap(fromElement)); }
 
         @Override public NavigableCollection<E> descending() {
-            return new DescendingNavigableSubCollection<>(root, this, map.descendingMap(), size, range); }
+            return new DescendingNavigableSubCollection<>(root, this, map.descendingMap(), getSize().orElse(null)); }
 
         @Override public NavigableCollection<E> sub(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
-            return new NavigableSubCollection<>(root, this, map.subMap(fromElement, fromInclusive, toElement, toInclusive), range.subRange(fromElement, fromInclusive, toElement, toInclusive)); }
+            return new NavigableSubCollection<>(root, this, map.subMap(fromElement, fromInclusive, toElement, toInclusive)); }
         @Override public NavigableCollection<E> head(E toElement, boolean inclusive) {
-            return new NavigableSubCollection<>(root, this, map.headMap(toElement, inclusive), range.headRange(toElement, inclusive)); }
+            return new NavigableSubCollection<>(root, this, map.headMap(toElement, inclusive)); }
         @Override public NavigableCollection<E> tail(E fromElement, boolean inclusive) {
-            return new NavigableSubCollection<>(root, this, map.tailMap(fromElement, inclusive), range.tailRange(fromElement, inclusive)); }
+            return new NavigableSubCollection<>(root, this, map.tailMap(fromElement, inclusive)); }
     }
 
     /**
@@ -191,27 +328,41 @@ public abstract class AbstractNavigableCollection<E, M extends NavigableMap<E, O
 
         private static final long serialVersionUID = 6413530236317264799L;
 
+        protected DescendingNavigableSubCollection(R root, P parent, M map) {
+            super(root, parent, map); }
+
+        /**
+         * @deprecated the range is ignored, use {@link #DescendingNavigableSubCollection(AbstractNavigableCollection, AbstractNavigableCollection, NavigableMap)} instead
+         */
+        @Deprecated
         protected DescendingNavigableSubCollection(R root, P parent, M map, Range<E> range) {
-            super(root, parent, map, range); }
+            this(root, parent, map); }
+
+        protected DescendingNavigableSubCollection(R root, P parent, M map, Integer size) {
+            super(root, parent, map, size); }
 
+        /**
+         * @deprecated the range is ignored, use {@link #DescendingNavigableSubCollection(AbstractNavigableCollection, AbstractNavigableCollection, NavigableMap, Integer)} instead
+         */
+        @Deprecated
         protected DescendingNavigableSubCollection(R root, P parent, M map, Integer size, Range<E> range) {
-            super(root, parent, map, size, range); }
+            this(root, parent, map, size); }
 
         @Override public SortedCollection<E> sub(E fromElement, E toElement) {
-            return new DescendingSortedSubCollection<>(root, this, map.subMap(fromElement, toElement), range.subRange(toElement, false, fromElement, true)); }
+            return new DescendingSortedSubCollection<>(root, this, map.subMap(fromElement, toElement)); }
         @Override public SortedCollection<E> head(E toElement) {
-            return new DescendingSortedSubCollection<>(root, this, map.headMap(toElement), range.tailRange(toElement, false)); }
+            return new DescendingSortedSubCollection<>(root, this, map.headMap(toElement)); }
         @Override public SortedCollection<E> tail(E fromElement) {
-            return new DescendingSortedSubCollection<>(root, this, map.tailMap(fromElement), range.headRange(fromElement, true)); }
+            return new DescendingSortedSubCollection<>(root, this, map.tailMap(fromElement)); }
 
         @Override public NavigableCollection<E> descending() {
-            return new NavigableSubCollection<>(root, this, map.descendingMap(), size, range); }
+            return new NavigableSubCollection<>(root, this, map.descendingMap(), getSize().orElse(null)); }
 
         @Override public NavigableCollection<E> sub(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
-            return new DescendingNavigableSubCollection<>(root, this, map.subMap(fromElement, fromInclusive, toElement, toInclusive), range.subRange(toElement, toInclusive, fromElement, fromInclusive)); }
+            return new DescendingNavigableSubCollection<>(root, this, map.subMap(fromElement, fromInclusive, toElement, toInclusive)); }
         @Override public NavigableCollection<E> head(E toElement, boolean inclusive) {
-            return new DescendingNavigableSubCollection<>(root, this, map.headMap(toElement, inclusive), range.tailRange(toElement, inclusive)); }
+            return new DescendingNavigableSubCollection<>(root, this, map.headMap(toElement, inclusive)); }
         @Override public NavigableCollection<E> tail(E fromElement, boolean inclusive) {
-            return new DescendingNavigableSubCollection<>(root, this, map.tailMap(fromElement, inclusive), range.headRange(fromElement, inclusive)); }
+            return new DescendingNavigableSubCollection<>(root, this, map.tailMap(fromElement, inclusive)); }
     }
 }
@@ -5,6 +5,8 @@ import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.SortedMap;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
 /**
  * A template implementation of the {@link NavigableContainer} interface,
@@ -47,6 +49,18 @@ public abstract class AbstractNavigableContainer<E, M extends NavigableMap<E, Ob
         super(map, elements);
     }
 
+    /**
+     * Construct the object with the given {@link M map}, {@link Stream} of elements
+     * and {@link Collector} of the partial containers used for the parallel streams.
+     *
+     * @param map the given {@link M map}
+     * @param elements the given {@link Stream} of elements
+     * @param collector the given {@link Collector} of the partial containers
+     */
+    protected AbstractNavigableContainer(M map, Stream<? extends E> elements, Collector<? super E, ?, ? extends AbstractHeapContainer<E, AbstractSortedContainer.Bucket<E>, ?>> collector) {
+        super(map, elements, collector);
+    }
+
     @Override public Iterator<E> lowerAll(E e) {
         Map.Entry<E, Object> entry = map.lowerEntry(e); return entry != null ? tryBucket(entry.getValue(),
                 bucket -> iterator(bucket, bucket.iterator()), value -> iterator(value, true)) : iterator(null, false); }
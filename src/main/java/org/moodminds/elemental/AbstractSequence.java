@@ -16,7 +16,7 @@ public abstract class AbstractSequence<E> extends AbstractContainer<E> implement
      * @return {@code true} {@inheritDoc}
      */
     @Override
-    public int hashCode() {
+    protected int computeHashCode() {
         int hashCode = 1;
         for (Object e : this)
             hashCode = 31 * hashCode + Objects.hashCode(e);
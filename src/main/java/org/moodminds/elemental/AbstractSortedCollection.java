@@ -1,11 +1,11 @@
 package org.moodminds.elemental;
 
+import org.moodminds.elemental.AbstractHeapCollection.Bucket;
 import org.moodminds.sneaky.Cast;
 
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -15,9 +15,10 @@ import java.util.SortedMap;
 import java.util.Spliterator;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
-import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
-import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
 import static org.moodminds.sneaky.Cast.cast;
 
@@ -29,19 +30,24 @@ import static org.moodminds.sneaky.Cast.cast;
  * @param <M> the type of the internal {@link SortedMap}
  */
 public abstract class AbstractSortedCollection<E, M extends SortedMap<E, Object>>
-        extends AbstractHeapCollection<E, M> implements SortedCollection<E> {
+        extends AbstractHeapCollection<E, Bucket<E>, M> implements SortedCollection<E> {
 
     private static final long serialVersionUID = 8097575755780232788L;
 
+    /**
+     * The {@link RankedMap} weigher of the values, weighing a bucket by its size and a single element by one.
+     */
+    protected static final ToIntFunction<Object> WEIGHER = weigher(Bucket.class);
+
     /**
      * Container size holder field.
      */
     protected Integer size;
 
     /**
-     * Child sub-Collection {@link Reference} holder field.
+     * The {@link #totalMod() modification count} the size holder field is actual at, {@code null} if never counted.
      */
-    protected transient SubReference<E> child;
+    protected transient Integer sizeMod;
 
     /**
      * Construct the object by the given {@link M map}.
@@ -69,19 +75,27 @@ public abstract class AbstractSortedCollection<E, M extends SortedMap<E, Object>
      * @param elements the given sequential single-threaded {@link Producer} of elements
      */
     protected AbstractSortedCollection(M map, Producer<? extends E> elements) {
-        super(map, elements);
+        super(map, elements, Bucket::put, Bucket::new);
     }
 
-    @Override public boolean add(E element) {
-        super.add(element); propagateCount(element, 1); return true; }
-    @Override public void clear() {
-        Integer size = this.size; super.clear(); propagateClear(size); }
+    /**
+     * Construct the object with the given {@link M map}, {@link Stream} of elements
+     * and {@link Collector} of the partial collections used for the parallel streams.
+     *
+     * @param map the given {@link M map}
+     * @param elements the given {@link Stream} of elements
+     * @param collector the given {@link Collector} of the partial collections
+     */
+    protected AbstractSortedCollection(M map, Stream<? extends E> elements, Collector<? super E, ?, ? extends AbstractHeapContainer<E, Bucket<E>, ?>> collector) {
+        super(map, elements, collector, Bucket::put, Bucket::new);
+    }
 
     @Override public int size() {
         return getSize().orElseGet(() -> {
-            int count = 0; for (Object value : map.values())
+            int count = 0; if (map instanceof RankedMap) count = ((RankedMap<?, ?>) map).weight();
+            else for (Object value : map.values())
                 count = count + tryBucket(value, Container::size, unused -> 1);
-            propagateSize(size = count); return size;
+            sizeMod = totalMod(); return size = count;
         });
     }
 
@@ -107,30 +121,20 @@ public abstract class AbstractSortedCollection<E, M extends SortedMap<E, Object>
         return super.containerSpliterator(entriesSpliterator, false, isDistinct, knownSize);
     }
 
-    /**
-     * {@inheritDoc}
-     *
-     * @param iterator {@inheritDoc}
-     * @return {@inheritDoc}
-     */
-    @Override
-    protected Iterator<E> collectionIterator(Iterator<E> iterator) {
-        return new Iterator<E>() {
-
-            final Iterator<E> collectionIterator = AbstractSortedCollection.super.collectionIterator(iterator); E current;
-
-            @Override public boolean hasNext() { return collectionIterator.hasNext(); }
-            @Override public E next() { return current = collectionIterator.next(); }
-            @Override public void remove() { collectionIterator.remove(); propagateCount(current, -1); }
-            @Override public void forEachRemaining(Consumer<? super E> action) {
-                requireNonNull(action); collectionIterator.forEachRemaining(element ->
-                        action.accept(current = element)); }
-        };
-    }
-
     @Override protected void init(Producer<? extends E> elements, BiConsumer<Bucket<E>, E> bucketAccumulation,
                                   BiFunction<E, E, Bucket<E>> bucketConstruction) {
-        size = 0; super.init(elements, bucketAccumulation, bucketConstruction); }
+        size = 0; if (map instanceof RankTreeMap) init(((RankTreeMap<E, Object>) map).loader(), elements, bucketAccumulation, bucketConstruction);
+        else super.init(elements, bucketAccumulation, bucketConstruction); }
+    @Override protected void init(Stream<? extends E> elements, Collector<? super E, ?, ? extends AbstractHeapContainer<E, Bucket<E>, ?>> collector,
+                                  BiConsumer<Bucket<E>, E> bucketAccumulation, BiFunction<E, E, Bucket<E>> bucketConstruction) {
+        size = 0; super.init(elements, collector, bucketAccumulation, bucketConstruction); }
+
+    @Override protected void put(E element) {
+        put(Bucket::put, Bucket::new, element); }
+    @Override protected boolean isBucket(Object value) {
+        return value instanceof Bucket; }
+    @Override protected void reweigh(E element) {
+        if (map instanceof RankedMap) ((RankedMap<?, ?>) map).reweigh(element); }
 
     @Override protected Optional<Integer> getSize() {
         return ofNullable(size); }
@@ -140,71 +144,33 @@ public abstract class AbstractSortedCollection<E, M extends SortedMap<E, Object>
     @Override protected void countClear() {
         size = 0; }
 
-    /**
-     * Propagate collection clearance for all child sub-views.
-     */
-    protected void propagateClear(Integer size) {
-        propagate((collection, range) -> {
-            collection.countClear(); return true;
-        });
-    }
-
-    /**
-     * Propagate collection size change for all child sub-views.
-     *
-     * @param element the element to adjust count for
-     * @param number the given size adjustment number
-     */
-    protected void propagateCount(E element, int number) {
-        propagate((collection, range) -> {
-            collection.count(number); return true;
-        });
-    }
-
-    /**
-     * Propagate collection size count for all child sub-views.
-     */
-    protected void propagateSize(int size) {
-        propagate(new SizePropagation<>(new Range<>(map.comparator()), size));
-    }
-
-    /**
-     * Apply the provided {@link Propagation} operation to this Collection sub-views
-     * and determine whether to execute this operation on their sub-views by the returning boolean flag.
-     *
-     * @param propagation the {@link Propagation} operation to be applied
-     */
-    protected void propagate(Propagation<E> propagation) {
-        for (SubReference<E> child = this.child; child != null; child = child.previous) child.refer((sub, range) -> {
-            if (propagation.propagate(sub, range)) sub.propagate(propagation);
-        });
-    }
-
     @Override
     protected void serialize(ObjectOutputStream output) throws Exception {
         output.writeObject(map);
-
-        AbstractSortedCollection<E, ?> sub;
-
-        for (SubReference<E> child = this.child; child != null; child = child.previous)
-            if ((sub = child.get()) != null) {
-                output.writeObject(sub); output.writeObject(child.range);
-            }
-        output.writeObject(0);
     }
 
     @Override
     protected void deserialize(ObjectInputStream input) throws Exception {
         map = cast(input.readObject());
-
-        while (true) {
-            Object read = input.readObject();
-            if (!(read instanceof AbstractSortedCollection))
-                break;
-            child = new SubReference<>(child, cast(read), cast(input.readObject()));
-        }
     }
 
+    /**
+     * Count the modification in the given root collection, keeping the size holder field actual
+     * if it was, as the modification is counted by this very view.
+     *
+     * @param root the given root collection
+     */
+    protected void countMod(AbstractSortedCollection<E, ?> root) {
+        boolean actual = isActual(); root.countMod(); if (actual) sizeMod = totalMod(); }
+
+    /**
+     * Check if the size holder field is actual, that is no modification of the root collection
+     * happened since it was counted or adjusted through this view.
+     *
+     * @return {@code true} if the size holder field is actual
+     */
+    protected boolean isActual() {
+        return sizeMod != null && sizeMod == totalMod(); }
 
     /**
      * Sub-collection extension template of the {@link AbstractSortedCollection}.
@@ -219,25 +185,32 @@ public abstract class AbstractSortedCollection<E, M extends SortedMap<E, Object>
 
         private static final long serialVersionUID = -2692092958047756457L;
 
-        protected final Range<E> range;
-
         protected final R root; protected final P parent;
 
+        protected AbstractSortedSubCollection(R root, P parent, M map) {
+            super(map); this.root = root; this.parent = parent; }
+
+        /**
+         * @deprecated the range is ignored, use {@link #AbstractSortedSubCollection(AbstractSortedCollection, AbstractSortedCollection, SortedMap)} instead
+         */
+        @Deprecated
         protected AbstractSortedSubCollection(R root, P parent, M map, Range<E> range) {
-            super(map); this.range = range; this.root = root; this.parent = parent; parent.child = new SubReference<>(parent.child, this, range); }
+            this(root, parent, map); }
 
-        @Override protected int totalMod() { return parent.totalMod(); }
-        @Override protected void countMod() { parent.countMod(); }
+        @Override public void clear() {
+            int size = size(); super.clear(); root.count(-size); }
+
+        @Override protected int totalMod() { return root.totalMod(); }
+        @Override protected void countMod() { countMod(root); }
 
         @Override protected Optional<Boolean> isDistinct() {
             return parent.isDistinct(); }
 
-        @Override protected void propagateClear(Integer size) {
-            new ClearPropagation<>(range, size).untilCollection(this).propagateRoot(root); super.propagateClear(size); }
-        @Override protected void propagateCount(E element, int number) {
-            new CountPropagation<>(element, number).untilCollection(this).propagateRoot(root); super.propagateCount(element, number); }
-        @Override protected void propagateSize(int size) {
-            new SizePropagation<>(range, size).untilCollection(this).propagateRoot(root); super.propagateSize(size); }
+        @Override protected Optional<Integer> getSize() {
+            return isActual() ? super.getSize() : Optional.empty(); }
+
+        @Override protected void count(int number) {
+            super.count(number); root.count(number); }
     }
 
     /**
@@ -253,18 +226,27 @@ public abstract class AbstractSortedCollection<E, M extends SortedMap<E, Object>
 
         private static final long serialVersionUID = 3947071043558156236L;
 
+        protected SortedSubCollection(R root, P parent, M map) {
+            super(root, parent, map); }
+
+        /**
+         * @deprecated the range is ignored, use {@link #SortedSubCollection(AbstractSortedCollection, AbstractSortedCollection, SortedMap)} instead
+         */
+        @Deprecated
         protected SortedSubCollection(R root, P parent, M map, Range<E> range) {
-            super(root, parent, map, range); }
+            this(root, parent, map); }
 
         @Override public SortedCollection<E> sub(E fromElement, E toElement) {
-            return new SortedSubCollection<>(root, this, map.subMap(fromElement, toElement), range.subRange(fromElement, toElement)); }
+            return new SortedSubCollection<>(root, this, map.subMap(fromElement, toElement)); }
         @Override public SortedCollection<E> head(E toElement) {
-            return new SortedSubCollection<>(root, this, map.headMap(toElement), range.headRange(toElement)); }
+            return new SortedSubCollection<>(root, this, map.headMap(toElement)); }
         @Override public SortedCollection<E> tail(E fromElement) {
-            return new SortedSubCollection<>(root, this, map.tailMap(fromElement), range.tailRange(fromElement)); }
+            return new SortedSubCollection<>(root, this, map.tailMap(fromElement)); }
     }
 
 
+
+
     /**
      * A generic, immutable representation of a range with optional lower and upper bounds.
      * <p>
@@ -273,7 +255,9 @@ public abstract class AbstractSortedCollection<E, M extends SortedMap<E, Object>
      * </p>
      *
      * @param <V> the type of elements in the range
+     * @deprecated sub-views no longer track their ranges, their sizes are counted lazily from the backing map
      */
+    @Deprecated
     protected static class Range<V> implements Serializable {
 
         private static final long serialVersionUID = 7109706343983476145L;
@@ -470,195 +454,13 @@ public abstract class AbstractSortedCollection<E, M extends SortedMap<E, Object>
         }
     }
 
-    /**
-     * A functional interface representing a propagation mechanism for an {@link AbstractSortedCollection}.
-     * <p>
-     * Implementations define how propagation should be handled for a given collection and range.
-     * This can be used for efficient updates, event propagation, or range-based filtering.
-     * </p>
-     *
-     * @param <E> the type of elements in the collection
-     */
-    @FunctionalInterface
-    protected interface Propagation<E> {
-
-        /**
-         * Propagate an operation to the given collection within the specified range.
-         *
-         * @param collection the collection to propagate to
-         * @param range the range within which to propagate
-         * @return {@code true} if propagation should continue, {@code false} to stop propagation
-         */
-        boolean propagate(AbstractSortedCollection<E, ?> collection, Range<E> range);
-
-        /**
-         * Propagate this operation to the root collection.
-         * <p>
-         * This method starts propagation with an unbounded range using the collection's comparator,
-         * and then applies further propagation using {@link AbstractSortedCollection#propagate(Propagation)}.
-         * </p>
-         *
-         * @param root the root collection to begin propagation from
-         */
-        default void propagateRoot(AbstractSortedCollection<E, ?> root) {
-            propagate(root, new Range<>(root.map.comparator())); root.propagate(this); }
-
-        /**
-         * Return a propagation instance that stops when a specific collection is reached.
-         * <p>
-         * This method creates a wrapper around the current propagation logic, ensuring that
-         * propagation halts when the specified collection {@code c} is encountered.
-         * </p>
-         *
-         * @param c the collection at which propagation should stop
-         * @return a modified {@link Propagation} instance that stops at {@code c}
-         */
-        default Propagation<E> untilCollection(AbstractSortedCollection<E, ?> c) {
-            return (collection, range) -> {
-                if (collection == c) return false; return propagate(collection, range);
-            }; }
-    }
-
-    /**
-     * An abstract implementation of {@link Propagation} that operates within a specified {@link Range}.
-     * <p>
-     * This class provides a structured way to propagate operations within a given range,
-     * delegating the actual propagation logic to subclasses.
-     * </p>
-     *
-     * @param <E> the type of elements in the collection
-     */
-    protected abstract static class AbstractRangePropagation<E> implements Propagation<E> {
-
-        /**
-         * The range holding field.
-         */
-        protected final Range<E> range;
-
-        /**
-         * Construct the object with the specified range.
-         *
-         * @param range the range within which propagation should occur
-         */
-        protected AbstractRangePropagation(Range<E> range) {
-            this.range = range; }
-
-        @Override public boolean propagate(AbstractSortedCollection<E, ?> collection, Range<E> range) {
-            return propagate(this.range, collection, range); }
-
-        /**
-         * Perform the actual propagation logic using the given source range.
-         *
-         * @param sourceRange the originating range for the propagation
-         * @param collection the collection to propagate to
-         * @param range the range within which to propagate
-         * @return {@code true} if propagation should continue, {@code false} to stop propagation
-         */
-        public abstract boolean propagate(Range<E> sourceRange, AbstractSortedCollection<E, ?> collection, Range<E> range);
-    }
-
-    /**
-     * A {@link Propagation} implementation that propagates a count modification for a specific element.
-     *
-     * @param <E> the type of elements in the collection
-     */
-    protected static class CountPropagation<E> implements Propagation<E> {
-
-        /**
-         * The element holding field.
-         */
-        protected final E element;
-
-        /**
-         * The count holding field.
-         */
-        protected final Integer count;
-
-        /**
-         * Construct the object for the specified element and count.
-         *
-         * @param element the element whose count should be propagated
-         * @param count the count value to propagate
-         */
-        protected CountPropagation(E element, Integer count) {
-            this.element = element; this.count = count; }
-
-        @Override public boolean propagate(AbstractSortedCollection<E, ?> collection, Range<E> range) {
-            if (!range.bounds(element)) return false; collection.count(count); return true; }
-    }
-
-    /**
-     * A {@link Propagation} implementation that clears or adjusts the size of a collection
-     * based on the specified range constraints.
-     *
-     * @param <E> the type of elements in the collection
-     */
-    protected static class ClearPropagation<E> extends AbstractRangePropagation<E> {
-
-        /**
-         * The count adjustment holding field.
-         */
-        protected final Integer count;
-
-        /**
-         * Construct the object with the specified range and count.
-         *
-         * @param range the range within which elements should be cleared
-         * @param count the count adjustment to apply, or {@code null} to reset the size
-         */
-        protected ClearPropagation(Range<E> range, Integer count) {
-            super(range); this.count = count; }
-
-        @Override public boolean propagate(Range<E> sourceRange, AbstractSortedCollection<E, ?> collection, Range<E> range) {
-            if (sourceRange.fromBeforeFrom(range))
-                if (sourceRange.toAfterTo(range))
-                    collection.size = 0;
-                else if (sourceRange.toAfterFrom(range))
-                    collection.size = null;
-                else return false;
-            else if(sourceRange.toAfterTo(range))
-                if (sourceRange.fromBeforeTo(range))
-                    collection.size = null;
-                else return false;
-            else if (count != null) collection.count(-count);
-            else collection.size = null; return true; }
-    }
-
-    /**
-     * A {@link Propagation} implementation that sets or adjusts the size of a collection
-     * based on the specified range constraints.
-     *
-     * @param <E> the type of elements in the collection
-     */
-    protected static class SizePropagation<E> extends AbstractRangePropagation<E> {
-
-        /**
-         * The target size holding field.
-         */
-        protected final int size;
-
-        /**
-         * Construct the object with the specified range and size.
-         *
-         * @param range the range within which the size propagation should be applied
-         * @param size the target size to set when the range fully matches
-         */
-        protected SizePropagation(Range<E> range, int size) {
-            super(range); this.size = size; }
-
-        @Override public boolean propagate(Range<E> sourceRange, AbstractSortedCollection<E, ?> collection, Range<E> range) {
-            if (sourceRange.fromAtFrom(range) && sourceRange.toAtTo(range)) {
-                if (collection.size == null)
-                    collection.size = size;
-                return true;
-            } return !(sourceRange.fromBeforeFrom(range) || sourceRange.toAfterTo(range)); }
-    }
-
     /**
      * The {@link WeakReference} link for the child sub-views.
      *
      * @param <E> the element type
+     * @deprecated sub-views are no longer linked to their parents, their sizes are counted lazily from the backing map
      */
+    @Deprecated
     protected static class SubReference<E> extends WeakReference<AbstractSortedCollection<E, ?>> {
 
         /**
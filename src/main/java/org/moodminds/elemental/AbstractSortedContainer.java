@@ -1,12 +1,10 @@
 package org.moodminds.elemental;
 
 import org.moodminds.elemental.AbstractSortedContainer.Bucket;
-import org.moodminds.elemental.LinkSequence.Node;
 
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Comparator;
-import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
@@ -14,10 +12,11 @@ import java.util.SortedMap;
 import java.util.Spliterator;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
-import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
 
 import static java.util.Optional.ofNullable;
-import static org.moodminds.elemental.Producer.producer;
 import static org.moodminds.sneaky.Cast.cast;
 
 /**
@@ -32,6 +31,11 @@ public abstract class AbstractSortedContainer<E, M extends SortedMap<E, Object>>
 
     private static final long serialVersionUID = 6521271551072774284L;
 
+    /**
+     * The {@link RankedMap} weigher of the values, weighing a bucket by its size and a single element by one.
+     */
+    protected static final ToIntFunction<Object> WEIGHER = weigher(Bucket.class);
+
     /**
      * Container size holder field.
      */
@@ -63,33 +67,24 @@ public abstract class AbstractSortedContainer<E, M extends SortedMap<E, Object>>
      * @param elements the given sequential single-threaded {@link Producer} of elements
      */
     protected AbstractSortedContainer(M map, Producer<? extends E> elements) {
-        this(map, elements, new Bucketization<E>() {
-
-            final Map<Bucket<E>, Node<E>> tails = new IdentityHashMap<>();
-
-            @Override public void accept(Bucket<E> bucket, E element) {
-                tails.compute(bucket, (unused, tail) -> bucket.put(tail, element)); }
-            @Override public Bucket<E> apply(E first, E second) {
-                return new Object() { final Bucket<E> bucket; Node<E> tail;
-                    { bucket = new Bucket<>(next -> tail = next, first, second); tails.put(bucket, tail); }
-                }.bucket; }
-        });
+        super(map, elements, Bucket::put, Bucket::new);
     }
 
     /**
-     * Construct the object with the given {@link M} and sequential single-threaded {@link Producer} of elements
-     * and using a single stateful {@code bucketing} strategy for both bucket construction and accumulation.
+     * Construct the object with the given {@link M map}, {@link Stream} of elements
+     * and {@link Collector} of the partial containers used for the parallel streams.
      *
-     * @param map the backing {@link M} used for storing single elements and buckets
-     * @param elements the given sequential single-threaded {@link Producer} of elements
-     * @param bucketization a combined {@link Bucketization} strategy for bucket handling
+     * @param map the given {@link M map}
+     * @param elements the given {@link Stream} of elements
+     * @param collector the given {@link Collector} of the partial containers
      */
-    private AbstractSortedContainer(M map, Producer<? extends E> elements, Bucketization<E> bucketization) {
-        super(map, elements, bucketization, bucketization);
+    protected AbstractSortedContainer(M map, Stream<? extends E> elements, Collector<? super E, ?, ? extends AbstractHeapContainer<E, Bucket<E>, ?>> collector) {
+        super(map, elements, collector, Bucket::put, Bucket::new);
     }
 
     @Override public int size() {
         return getSize().orElseGet(() -> {
+            if (map instanceof RankedMap) return size = ((RankedMap<?, ?>) map).weight();
             int count = 0; for (Object value : map.values())
                 count = count + tryBucket(value, Container::size, unused -> 1);
             return size = count;
@@ -112,7 +107,11 @@ public abstract class AbstractSortedContainer<E, M extends SortedMap<E, Object>>
 
     @Override protected void init(Producer<? extends E> elements, BiConsumer<Bucket<E>, E> bucketAccumulation,
                                   BiFunction<E, E, Bucket<E>> bucketConstruction) {
-        size = 0; super.init(elements, bucketAccumulation, bucketConstruction); }
+        size = 0; if (map instanceof RankTreeMap) init(((RankTreeMap<E, Object>) map).loader(), elements, bucketAccumulation, bucketConstruction);
+        else super.init(elements, bucketAccumulation, bucketConstruction); }
+    @Override protected void init(Stream<? extends E> elements, Collector<? super E, ?, ? extends AbstractHeapContainer<E, Bucket<E>, ?>> collector,
+                                  BiConsumer<Bucket<E>, E> bucketAccumulation, BiFunction<E, E, Bucket<E>> bucketConstruction) {
+        size = 0; super.init(elements, collector, bucketAccumulation, bucketConstruction); }
 
     @Override protected Optional<Integer> getSize() {
         return ofNullable(size); }
@@ -122,6 +121,8 @@ public abstract class AbstractSortedContainer<E, M extends SortedMap<E, Object>>
 
     @Override protected boolean isBucket(Object value) {
         return value instanceof Bucket; }
+    @Override protected void reweigh(E element) {
+        if (map instanceof RankedMap) ((RankedMap<?, ?>) map).reweigh(element); }
 
     /**
      * {@inheritDoc}
@@ -145,20 +146,16 @@ public abstract class AbstractSortedContainer<E, M extends SortedMap<E, Object>>
      *
      * @param <E> the type of elements
      */
-    protected static class Bucket<E> extends LinkSequence<E> {
+    protected static class Bucket<E> extends ArraySequence<E> {
 
-        private static final long serialVersionUID = -8267799111732935085L;
+        private static final long serialVersionUID = 1806396830482415827L;
 
-        protected Bucket(Consumer<Node<E>> tails, E first, E second) {
-            super(tails, producer(first, second)); }
-    }
+        protected Bucket(E first, E second) {
+            super(first, second); }
 
-    /**
-     * A composite utility that handles both bucket accumulation and bucket construction logic.
-     *
-     * @param <E> the type of elements stored in the bucket
-     */
-    protected interface Bucketization<E> extends BiConsumer<Bucket<E>, E>, BiFunction<E, E, Bucket<E>> {}
+        protected void put(E element) {
+            append(element); }
+    }
 
 
     /**
@@ -63,15 +63,20 @@ public abstract class AbstractTailedLinkSequence<E, L extends Node<E, L>> extend
     }
 
     /**
-     * Retrieve the {@link L} node at the specified index, traversing from the head if the index is closer to the head,
-     * or from the tail otherwise.
+     * Retrieve the {@link L} node at the specified index, stepping backward from the finger node
+     * or the tail if either is close ahead, or as the {@link AbstractLinkSequence#node(int)} does otherwise.
      *
      * @param index the index of the {@link L} node to retrieve
      * @return the {@link L} node at the given index
      */
     @Override
     protected L node(int index) {
-        return index < (size >> 1) ? super.node(index) : previous(tail, size - index - 1);
+        Finger<L> finger = this.finger;
+        if (finger != null && index < finger.index && finger.index - index < SKIP)
+            return finger(previous(finger.node, finger.index - index), index);
+        if (size - index <= SKIP)
+            return finger(previous(tail, size - index - 1), index);
+        return super.node(index);
     }
 
     /**
@@ -5,15 +5,15 @@ import java.util.Objects;
 /**
  * A template implementation of the {@link Tuple} as a distinct structure.
  */
-public abstract class AbstractTuple extends AbstractEquatable implements Tuple {
+public abstract class AbstractTuple extends AbstractHashEquatable implements Tuple {
 
     /**
-     * {@inheritDoc}
+     * Compute the hash code of this Tuple from its values.
      *
-     * @return {@inheritDoc}
+     * @return the hash code of this Tuple
      */
     @Override
-    public int hashCode() {
+    protected int computeHashCode() {
         int hashCode = 1;
         for (int i = 0; i < width(); i++)
             hashCode = 31 * hashCode + Objects.hashCode(get(i));
@@ -0,0 +1,345 @@
+package org.moodminds.elemental;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * A template unrolled linked implementation of the {@link TailedSequence} interface.
+ * <p>
+ * The elements are kept in a doubly linked list of the {@link Chunk}s, each holding an array of up to
+ * {@link #CAPACITY} of them, so the appending takes constant time as for the node-per-element linked sequence,
+ * while a few words of the chunk header are shared by all its elements and the traversal mostly goes
+ * along an array. The positional access skips the whole chunks from the closer end.
+ *
+ * @param <E> the type of elements
+ */
+public abstract class AbstractUnrolledSequence<E> extends AbstractTailedSequence<E>
+        implements TailedSequence<E>, Serializable {
+
+    private static final long serialVersionUID = 5023317466580950428L;
+
+    /**
+     * The maximal number of elements of a {@link Chunk}.
+     */
+    protected static final int CAPACITY = 32;
+
+    /**
+     * Head and tail {@link Chunk} holding fields.
+     */
+    protected transient Chunk head, tail;
+
+    /**
+     * Sequence size holding field.
+     */
+    protected transient int size;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @Override
+    public <R extends E> R get(int index) {
+        return element(elementIndex(index, size));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new ChunkIterator(this, 0, 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param index {@inheritDoc}
+     * @return {@inheritDoc}
+     * @throws IndexOutOfBoundsException {@inheritDoc}
+     */
+    @Override
+    public TailedSequenceIterator<E> iterator(int index) {
+        return new ChunkIterator(this, 0, positionIndex(index, size));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param action {@inheritDoc}
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        requireNonNull(action);
+        for (Chunk chunk = head; chunk != null; chunk = chunk.next) {
+            Object[] items = chunk.items;
+            for (int i = 0, count = chunk.count; i < count; i++)
+                action.accept(cast(items[i]));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Append the given element to the tail {@link Chunk}, linking a new one if it is full.
+     *
+     * @param element the given element
+     */
+    protected void put(E element) {
+        Chunk tail = this.tail;
+        if (tail == null || tail.count == CAPACITY) {
+            Chunk chunk = new Chunk(); chunk.previous = tail;
+            if (tail != null) tail.next = chunk; else head = chunk;
+            this.tail = tail = chunk;
+        } tail.items[tail.count++] = element; size++; resetHashCode();
+    }
+
+    /**
+     * Remove the element at the given offset of the given {@link Chunk}, unlinking the chunk if it gets empty,
+     * or merging the next one into it if both together fit into half of the {@link #CAPACITY}.
+     *
+     * @param chunk the given {@link Chunk}
+     * @param offset the given offset
+     */
+    protected void remove(Chunk chunk, int offset) {
+        Object[] items = chunk.items; int count = --chunk.count;
+        arraycopy(items, offset + 1, items, offset, count - offset); items[count] = null; size--; resetHashCode();
+        if (count == 0) unlink(chunk);
+        else if (chunk.next != null && count + chunk.next.count <= CAPACITY >> 1) {
+            Chunk next = chunk.next; arraycopy(next.items, 0, items, count, next.count);
+            chunk.count += next.count; unlink(next);
+        }
+    }
+
+    /**
+     * Unlink the given {@link Chunk}, keeping its own links intact for the iterators positioned on it.
+     *
+     * @param chunk the given {@link Chunk}
+     */
+    protected void unlink(Chunk chunk) {
+        if (chunk.previous != null) chunk.previous.next = chunk.next; else head = chunk.next;
+        if (chunk.next != null) chunk.next.previous = chunk.previous; else tail = chunk.previous;
+    }
+
+    /**
+     * Return the element at the given valid position, skipping the whole {@link Chunk}s from the closer end.
+     *
+     * @param position the given position
+     * @param <R> the target type for casting
+     * @return the element at the given position
+     */
+    protected <R extends E> R element(int position) {
+        Chunk chunk;
+        if (position < size >> 1)
+            for (chunk = head; position >= chunk.count; chunk = chunk.next)
+                position -= chunk.count;
+        else {
+            position = size - position;
+            for (chunk = tail; position > chunk.count; chunk = chunk.previous)
+                position -= chunk.count;
+            position = chunk.count - position;
+        } return cast(chunk.items[position]);
+    }
+
+    /**
+     * Validate and return the given index within the specified size.
+     *
+     * @param index the index to validate
+     * @param size the upper bound (exclusive) for valid indices
+     * @return the validated index
+     * @throws IndexOutOfBoundsException if {@code index} is negative or not less than {@code size}
+     */
+    protected int elementIndex(int index, int size) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        return index;
+    }
+
+    /**
+     * Validate and return the given position within the specified size.
+     *
+     * @param index the position to validate
+     * @param size the upper bound (inclusive) for valid positions
+     * @return the validated position
+     * @throws IndexOutOfBoundsException if {@code index} is negative or greater than {@code size}
+     */
+    protected int positionIndex(int index, int size) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        return index;
+    }
+
+    private void writeObject(ObjectOutputStream output) throws Exception {
+        output.defaultWriteObject(); serialize(output);
+    }
+
+    private void readObject(ObjectInputStream input) throws Exception {
+        input.defaultReadObject(); deserialize(input);
+    }
+
+    protected abstract void serialize(ObjectOutputStream output) throws Exception;
+
+    protected abstract void deserialize(ObjectInputStream input) throws Exception;
+
+
+    /**
+     * A node of the unrolled linked list, holding an array of elements
+     * and references to the next and previous chunks.
+     */
+    protected static class Chunk {
+
+        /**
+         * The elements array holding field.
+         */
+        protected final Object[] items = new Object[CAPACITY];
+
+        /**
+         * The number of elements holding field.
+         */
+        protected int count;
+
+        /**
+         * Previous and next {@link Chunk} holding fields.
+         */
+        protected Chunk previous, next;
+    }
+
+    /**
+     * The {@link TailedSequenceIterator} over the given sequence, positioned by the {@link Chunk}
+     * and the offset in it of the next element, moving along the arrays of the chunks.
+     * <p>
+     * The iterator does not remove elements by itself, the extensions may enable it
+     * by overriding the {@link #removeElement()} method to call the {@link #delete()} one.
+     */
+    protected class ChunkIterator extends AbstractTailedSequenceIterator<E> {
+
+        protected final Sequence<E> sequence;
+
+        protected Chunk chunk, current;
+
+        protected int offset, currentOffset;
+
+        protected boolean forward;
+
+        /**
+         * Construct the object with the given sequence, its origin and the given index in it.
+         *
+         * @param sequence the given sequence
+         * @param origin the position of the first element of the given sequence
+         * @param index the given index of the next element
+         */
+        protected ChunkIterator(Sequence<E> sequence, int origin, int index) {
+            super(index); this.sequence = sequence; seek(origin + index);
+        }
+
+        @Override protected boolean hasPreviousElement() {
+            return index > 0; }
+        @Override protected boolean hasNextElement() {
+            return index < sequence.size(); }
+
+        @Override protected E previousElement() {
+            if (offset == 0) { chunk = chunk.previous; offset = chunk.count; }
+            index--; forward = false; return cast((current = chunk).items[currentOffset = --offset]); }
+        @Override protected E nextElement() {
+            if (offset == chunk.count) { chunk = chunk.next; offset = 0; }
+            index++; forward = true; return cast((current = chunk).items[currentOffset = offset++]); }
+
+        @Override public void forEachRemaining(Consumer<? super E> action) {
+            requireNonNull(action); if (!hasNext()) return; action.accept(next());
+            for (int remaining = sequence.size() - index; remaining > 0; ) {
+                if (offset == chunk.count) { chunk = chunk.next; offset = 0; }
+                int count = min(chunk.count - offset, remaining); Object[] items = chunk.items;
+                for (int i = 0; i < count; i++)
+                    action.accept(cast(items[offset + i]));
+                offset += count; index += count; remaining -= count;
+                current = chunk; currentOffset = offset - 1;
+            }
+        }
+
+        /**
+         * Remove the last returned element, positioning this iterator on the element following it.
+         */
+        protected void delete() {
+            if (forward) index--; AbstractUnrolledSequence.this.remove(current, currentOffset);
+            chunk = current; offset = currentOffset;
+            if (chunk.count == 0)
+                if (chunk.next != null) { chunk = chunk.next; offset = 0; }
+                else if (chunk.previous != null) { chunk = chunk.previous; offset = chunk.count; }
+                else { chunk = null; offset = 0; }
+        }
+
+        private void seek(int position) {
+            if (head == null) return;
+            if (position <= size >> 1)
+                for (chunk = head; position > chunk.count; chunk = chunk.next)
+                    position -= chunk.count;
+            else {
+                position = size - position;
+                for (chunk = tail; position > chunk.count; chunk = chunk.previous)
+                    position -= chunk.count;
+                position = chunk.count - position;
+            } offset = position;
+        }
+    }
+
+    /**
+     * A subsequence view of an unrolled linked sequence template.
+     */
+    protected abstract class AbstractUnrolledSubSequence extends AbstractTailedSequence<E>
+            implements Serializable {
+
+        private static final long serialVersionUID = -2113820357961393357L;
+
+        protected int offset, size;
+
+        /**
+         * Construct the object with the specified boundaries relative to the given offset.
+         *
+         * @param offset the base offset within the whole sequence
+         * @param size the total size of the parent sequence
+         * @param fromIndex the starting index of the subsequence (inclusive)
+         * @param toIndex the ending index of the subsequence (exclusive)
+         * @throws IndexOutOfBoundsException if {@code fromIndex} is negative or {@code toIndex} exceeds {@code size}
+         * @throws IllegalArgumentException if {@code fromIndex} is greater than {@code toIndex}
+         */
+        protected AbstractUnrolledSubSequence(int offset, int size, int fromIndex, int toIndex) {
+            if (fromIndex < 0)
+                throw new IndexOutOfBoundsException(format("fromIndex = %d", fromIndex));
+            if (toIndex > size)
+                throw new IndexOutOfBoundsException(format("toIndex = %d", toIndex));
+            if (fromIndex > toIndex)
+                throw new IllegalArgumentException(format("fromIndex(%d) > toIndex(%d)", fromIndex, toIndex));
+            this.offset = offset + fromIndex; this.size = toIndex - fromIndex;
+        }
+
+        @Override public <R extends E> R get(int index) {
+            return element(offset + elementIndex(index, size)); }
+        @Override public Iterator<E> iterator() {
+            return new ChunkIterator(this, offset, 0); }
+        @Override public TailedSequenceIterator<E> iterator(int index) {
+            return new ChunkIterator(this, offset, positionIndex(index, size)); }
+        @Override public int size() {
+            return size; }
+    }
+}
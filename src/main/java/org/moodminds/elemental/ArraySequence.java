@@ -1,14 +1,27 @@
 package org.moodminds.elemental;
 
+import org.moodminds.sneaky.Cast;
+
 import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Iterator;
 import java.util.Spliterator;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
+import static java.lang.String.format;
+import static java.util.Arrays.copyOf;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.sneaky.Cast.cast;
+
 /**
  * An array {@link Sequence} implementation.
+ * <p>
+ * The array of the elements given to the {@link #ArraySequence(Object[]) varargs constructor}
+ * is adopted as is, without copying, as well as by the {@link #adopt(Object[])} and
+ * {@link #adopt(Object[], int, int)} factories, so it should not be modified afterwards.
+ * The other sources of elements are copied.
  *
  * @param <E> the type of elements
  */
@@ -16,6 +29,11 @@ public class ArraySequence<E> extends AbstractArraySequence<E> {
 
     private static final long serialVersionUID = -667506475198692850L;
 
+    /**
+     * The position of the first element in the internal array holding field.
+     */
+    protected transient int offset;
+
     /**
      * Construct the object with the specified elements array.
      *
@@ -62,12 +80,34 @@ public class ArraySequence<E> extends AbstractArraySequence<E> {
         super(elements.sequential().toArray());
     }
 
+    @Override protected boolean hashCodeCached() {
+        return true; }
+    @Override protected int offset() {
+        return offset; }
+
+    @Override public <R extends E> R get(int index) {
+        return element(offset + elementIndex(index, size)); }
+    @Override public Object[] toArray() {
+        return toArray(offset, size); }
+    @Override public <T> T[] toArray(T[] array) {
+        return toArray(array, offset, size); }
+    @Override public Iterator<E> iterator() {
+        return iterator(offset, this, 0); }
+    @Override public TailedSequenceIterator<E> iterator(int index) {
+        return iterator(offset, this, positionIndex(index, size)); }
+    @Override public Spliterator<E> spliterator() {
+        return spliterator(offset, size); }
+    @Override public void forEach(Consumer<? super E> action) {
+        requireNonNull(action); Object[] array = this.array;
+        for (int i = offset, end = offset + size; i < end; i++)
+            action.accept(cast(array[i])); }
+
     @Override public TailedSequence<E> sub(int fromIndex, int toIndex) {
         return fromIndex == 0 && toIndex == size ? this
-                : new ArraySubSequence(0, size, fromIndex, toIndex); }
+                : new ArraySubSequence(offset, size, fromIndex, toIndex); }
 
     @Override protected void serialize(ObjectOutputStream output) throws Exception {
-        output.writeInt(size); for (int i = 0; i < size; i++)
+        output.writeInt(size); for (int i = offset; i < offset + size; i++)
             output.writeObject(array[i]); }
     @Override protected void deserialize(ObjectInputStream input) throws Exception {
         if ((size = input.readInt()) < 0)
@@ -108,4 +148,120 @@ public class ArraySequence<E> extends AbstractArraySequence<E> {
     public static <E> ArraySequence<E> sequence(E... values) {
         return new ArraySequence<>(values);
     }
+
+    /**
+     * Return an {@link ArraySequence} backed by the given array, without copying it.
+     * The array should not be modified afterwards.
+     *
+     * @param array the given array
+     * @param <E> the type of elements
+     * @return an {@link ArraySequence} backed by the given array
+     * @throws NullPointerException if the given array is {@code null}
+     */
+    public static <E> ArraySequence<E> adopt(E[] array) {
+        return new ArraySequence<>(requireNonNull(array));
+    }
+
+    /**
+     * Return an {@link ArraySequence} backed by the given range of the given array, without copying it.
+     * The range of the array should not be modified afterwards.
+     *
+     * @param array the given array
+     * @param offset the position of the first element of the range
+     * @param length the number of elements of the range
+     * @param <E> the type of elements
+     * @return an {@link ArraySequence} backed by the given range of the given array
+     * @throws NullPointerException if the given array is {@code null}
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds
+     */
+    public static <E> ArraySequence<E> adopt(E[] array, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > array.length - length)
+            throw new IndexOutOfBoundsException(format("offset = %d, length = %d, array.length = %d",
+                    offset, length, array.length));
+        ArraySequence<E> sequence = new ArraySequence<>(array);
+        sequence.offset = offset; sequence.size = length; return sequence;
+    }
+
+    /**
+     * Return a {@link Builder} of an {@link ArraySequence} presized for the given number of elements.
+     *
+     * @param capacity the given expected number of elements
+     * @param <E> the type of elements
+     * @return a {@link Builder} of an {@link ArraySequence}
+     * @throws IllegalArgumentException if the given capacity is negative
+     */
+    public static <E> Builder<E> builder(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        return new Builder<>(capacity);
+    }
+
+
+    /**
+     * A builder of an {@link ArraySequence}, filling its internal array directly
+     * and sealing it into the sequence on {@link #build()}, without the final copy.
+     * The array grows by half if more elements are added than presized for.
+     *
+     * @param <E> the type of elements
+     */
+    public static class Builder<E> implements Consumer<E> {
+
+        /**
+         * The array being filled holding field, {@code null} once built.
+         */
+        protected Object[] array;
+
+        /**
+         * The number of the added elements holding field.
+         */
+        protected int size;
+
+        /**
+         * Construct the object with the given capacity.
+         *
+         * @param capacity the given capacity
+         */
+        protected Builder(int capacity) {
+            array = new Object[capacity];
+        }
+
+        /**
+         * Add the given element.
+         *
+         * @param element the given element
+         * @return this builder
+         * @throws IllegalStateException if the sequence is already built
+         */
+        public Builder<E> add(E element) {
+            if (array == null)
+                throw new IllegalStateException("Already built");
+            if (size == array.length)
+                array = copyOf(array, size + (size >> 1) + 1);
+            array[size++] = element; return this;
+        }
+
+        /**
+         * Add the given element.
+         *
+         * @param element the given element
+         * @throws IllegalStateException if the sequence is already built
+         */
+        @Override
+        public void accept(E element) {
+            add(element);
+        }
+
+        /**
+         * Seal the filled array into an {@link ArraySequence}, which this builder can not add to anymore.
+         *
+         * @return the {@link ArraySequence} of the added elements
+         * @throws IllegalStateException if the sequence is already built
+         */
+        public ArraySequence<E> build() {
+            if (array == null)
+                throw new IllegalStateException("Already built");
+            ArraySequence<E> sequence = new ArraySequence<>(Cast.<E[]>cast(array));
+            sequence.size = size; array = null; return sequence;
+        }
+    }
 }
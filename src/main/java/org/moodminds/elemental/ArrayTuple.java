@@ -69,6 +69,16 @@ public class ArrayTuple extends AbstractTuple implements Tuple, Serializable {
         return data.length;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@code true}
+     */
+    @Override
+    protected boolean hashCodeCached() {
+        return true;
+    }
+
 
     /**
      * Return n-width {@link ArrayTuple} of the specified values.
@@ -0,0 +1,240 @@
+package org.moodminds.elemental;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static org.moodminds.elemental.Producer.producer;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * A {@link BTreeMap}-powered implementation of the {@link NavigableCollection} interface.
+ * <p>
+ * The elements are kept in the wide array-based leaves of the B+ tree, the duplicates bucketed per slot, so the range
+ * scans of the sub-views and the {@code floorAll}/{@code ceilingAll} lookups touch few cache lines per element.
+ * As with the {@link TreeCollection}, the sizes of the sub-views are counted, and the elements are ranked and selected
+ * by index, in logarithmic time.
+ *
+ * @param <E> the element type
+ */
+public class BTreeCollection<E> extends AbstractNavigableCollection<E, NavigableMap<E, Object>> {
+
+    private static final long serialVersionUID = 2809571638421957514L;
+
+    /**
+     * Modification count holder field.
+     */
+    private transient int modCount;
+
+    /**
+     * Construct the object with the given elements vararg.
+     *
+     * @param elements the given elements vararg
+     */
+    @SafeVarargs
+    public BTreeCollection(E... elements) {
+        this(new BTreeMap<>(null, WEIGHER), producer(elements));
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements array.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements array
+     */
+    @SafeVarargs
+    public BTreeCollection(Comparator<? super E> comparator, E... elements) {
+        this(new BTreeMap<>(comparator, WEIGHER), producer(elements));
+    }
+
+    /**
+     * Construct the object with the given elements {@link Stream}.
+     *
+     * @param elements the given elements {@link Stream}
+     */
+    public BTreeCollection(Stream<? extends E> elements) {
+        this(new BTreeMap<>(null, WEIGHER), elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Stream}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Stream}
+     */
+    public BTreeCollection(Comparator<? super E> comparator, Stream<? extends E> elements) {
+        this(new BTreeMap<>(comparator, WEIGHER), elements);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Container}.
+     *
+     * @param elements the given elements {@link Container}
+     */
+    public BTreeCollection(Container<? extends E> elements) {
+        this(new BTreeMap<>(null, WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Container}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Container}
+     */
+    public BTreeCollection(Comparator<? super E> comparator, Container<? extends E> elements) {
+        this(new BTreeMap<>(comparator, WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link java.util.Collection}.
+     *
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public BTreeCollection(java.util.Collection<? extends E> elements) {
+        this(new BTreeMap<>(null, WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link java.util.Collection}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public BTreeCollection(Comparator<? super E> comparator, java.util.Collection<? extends E> elements) {
+        this(new BTreeMap<>(comparator, WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Collection}.
+     *
+     * @param elements the given elements {@link Collection}
+     */
+    public BTreeCollection(Collection<? extends E> elements) {
+        this((java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Collection}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Collection}
+     */
+    public BTreeCollection(Comparator<? super E> comparator, Collection<? extends E> elements) {
+        this(comparator, (java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the given {@link BTreeMap map}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link BTreeMap map}
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected BTreeCollection(BTreeMap<E, Object> map, Producer<? extends E> elements) {
+        super(map, elements); }
+
+    /**
+     * Construct the object with the given {@link BTreeMap map} and {@link Stream} of elements,
+     * building the partial collections in parallel if the stream is parallel.
+     *
+     * @param map the given {@link BTreeMap map}
+     * @param elements the given {@link Stream} of elements
+     */
+    protected BTreeCollection(BTreeMap<E, Object> map, Stream<? extends E> elements) {
+        super(map, elements, toCollection(map.comparator())); }
+
+    @Override public SortedCollection<E> sub(E fromElement, E toElement) {
+        return new SortedSubCollection<>(this, this, map.subMap(fromElement, toElement)); }
+    @Override public SortedCollection<E> head(E toElement) {
+        return new SortedSubCollection<>(this, this, map.headMap(toElement)); }
+    @Override public SortedCollection<E> tail(E fromElement) {
+        return new SortedSubCollection<>(this, this, map.tailMap(fromElement)); }
+
+    @Override public NavigableCollection<E> descending() {
+        return new DescendingNavigableSubCollection<>(this, this, map.descendingMap(), size); }
+
+    @Override public NavigableCollection<E> sub(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        return new NavigableSubCollection<>(this, this, map.subMap(fromElement, fromInclusive, toElement, toInclusive)); }
+    @Override public NavigableCollection<E> head(E toElement, boolean inclusive) {
+        return new NavigableSubCollection<>(this, this, map.headMap(toElement, inclusive)); }
+    @Override public NavigableCollection<E> tail(E fromElement, boolean inclusive) {
+        return new NavigableSubCollection<>(this, this, map.tailMap(fromElement, inclusive)); }
+
+    @Override protected int totalMod() { return modCount; }
+    @Override protected void countMod() { modCount++; }
+
+    @Override protected Optional<Boolean> isDistinct() {
+        return getSize().map(size -> size == map.size()); }
+
+    /**
+     * Return the number of the elements of this collection less than the given one, in logarithmic time.
+     *
+     * @param element the given element, present or not
+     * @return the number of the elements less than the given one
+     * @throws ClassCastException if the element cannot be compared with the elements of this collection
+     */
+    public int rank(E element) {
+        return ((RankedMap<E, Object>) map).rank(element); }
+
+    /**
+     * Return the element at the given index of the ascending order of this collection, in logarithmic time.
+     *
+     * @param index the given index
+     * @return the element at the given index
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+     */
+    public E select(int index) {
+        Map.Entry<E, Object> entry = ((RankedMap<E, Object>) map).weightedEntry(index);
+        return tryBucket(entry.getValue(), bucket -> bucket.get(index - rank(entry.getKey())), value -> cast(value)); }
+
+    /**
+     * Return a {@link BTreeCollection} of the given {@link Comparable} values.
+     *
+     * @param elements the given {@link Comparable} values
+     * @param <E> the element type
+     * @return a {@link BTreeCollection} of the given {@link Comparable} values
+     */
+    @SafeVarargs
+    public static <E extends Comparable<E>> BTreeCollection<E> collection(E... elements) {
+        return new BTreeCollection<>(elements);
+    }
+
+    /**
+     * Return a {@link BTreeCollection} of the given {@link Comparator} of the given values.
+     *
+     * @param comparator the given values {@link Comparator}
+     * @param elements the given values
+     * @param <E> the element type
+     * @return a {@link BTreeCollection} of the given {@link Comparator} of the given values
+     */
+    @SafeVarargs
+    public static <E> BTreeCollection<E> collection(Comparator<? super E> comparator, E... elements) {
+        return new BTreeCollection<>(comparator, elements);
+    }
+
+    /**
+     * Return a {@link Collector} accumulating the {@link Comparable} elements into a new {@link BTreeCollection},
+     * which merges the partial collections of a parallel stream bucket-wise.
+     *
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link BTreeCollection}
+     */
+    public static <E extends Comparable<E>> Collector<E, ?, BTreeCollection<E>> toCollection() {
+        return toCollection(null);
+    }
+
+    /**
+     * Return a {@link Collector} accumulating the elements into a new {@link BTreeCollection} of the given
+     * {@link Comparator}, which merges the partial collections of a parallel stream bucket-wise.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link BTreeCollection}
+     */
+    public static <E> Collector<E, ?, BTreeCollection<E>> toCollection(Comparator<? super E> comparator) {
+        return collector(() -> new BTreeCollection<>(new BTreeMap<>(comparator, WEIGHER), producer()), Bucket::put, Bucket::new);
+    }
+}
@@ -0,0 +1,221 @@
+package org.moodminds.elemental;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static org.moodminds.elemental.Producer.producer;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * A {@link BTreeMap}-powered implementation of the {@link NavigableContainer} interface.
+ * <p>
+ * The elements are kept in the wide array-based leaves of the B+ tree, the duplicates bucketed per slot, so the range
+ * scans of the sub-views and the {@code floorAll}/{@code ceilingAll} lookups touch few cache lines per element.
+ * As with the {@link TreeContainer}, the sizes of the sub-views are counted, and the elements are ranked and selected
+ * by index, in logarithmic time.
+ *
+ * @param <E> the element type
+ */
+public class BTreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap<E, Object>> {
+
+    private static final long serialVersionUID = -3175093804126693150L;
+
+    /**
+     * Construct the object with the given elements vararg.
+     *
+     * @param elements the given elements vararg
+     */
+    @SafeVarargs
+    public BTreeContainer(E... elements) {
+        this(new BTreeMap<>(null, WEIGHER), producer(elements));
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements array.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements array
+     */
+    @SafeVarargs
+    public BTreeContainer(Comparator<? super E> comparator, E... elements) {
+        this(new BTreeMap<>(comparator, WEIGHER), producer(elements));
+    }
+
+    /**
+     * Construct the object with the given elements {@link Stream}.
+     *
+     * @param elements the given elements {@link Stream}
+     */
+    public BTreeContainer(Stream<? extends E> elements) {
+        this(new BTreeMap<>(null, WEIGHER), elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Stream}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Stream}
+     */
+    public BTreeContainer(Comparator<? super E> comparator, Stream<? extends E> elements) {
+        this(new BTreeMap<>(comparator, WEIGHER), elements);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Container}.
+     *
+     * @param elements the given elements {@link Container}
+     */
+    public BTreeContainer(Container<? extends E> elements) {
+        this(new BTreeMap<>(null, WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Container}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Container}
+     */
+    public BTreeContainer(Comparator<? super E> comparator, Container<? extends E> elements) {
+        this(new BTreeMap<>(comparator, WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link java.util.Collection}.
+     *
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public BTreeContainer(java.util.Collection<? extends E> elements) {
+        this(new BTreeMap<>(null, WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link java.util.Collection}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public BTreeContainer(Comparator<? super E> comparator, java.util.Collection<? extends E> elements) {
+        this(new BTreeMap<>(comparator, WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Collection}.
+     *
+     * @param elements the given elements {@link Collection}
+     */
+    public BTreeContainer(Collection<? extends E> elements) {
+        this((java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Collection}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Collection}
+     */
+    public BTreeContainer(Comparator<? super E> comparator, Collection<? extends E> elements) {
+        this(comparator, (java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the given {@link BTreeMap map}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link BTreeMap map}
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected BTreeContainer(BTreeMap<E, Object> map, Producer<? extends E> elements) {
+        super(map, elements);
+    }
+
+    /**
+     * Construct the object with the given {@link BTreeMap map} and {@link Stream} of elements,
+     * building the partial containers in parallel if the stream is parallel.
+     *
+     * @param map the given {@link BTreeMap map}
+     * @param elements the given {@link Stream} of elements
+     */
+    protected BTreeContainer(BTreeMap<E, Object> map, Stream<? extends E> elements) {
+        super(map, elements, toContainer(map.comparator()));
+    }
+
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
+    @Override protected Optional<Boolean> isDistinct() {
+        return getSize().map(size -> size == map.size()); }
+
+    /**
+     * Return the number of the elements of this container less than the given one, in logarithmic time.
+     *
+     * @param element the given element, present or not
+     * @return the number of the elements less than the given one
+     * @throws ClassCastException if the element cannot be compared with the elements of this container
+     */
+    public int rank(E element) {
+        return ((RankedMap<E, Object>) map).rank(element); }
+
+    /**
+     * Return the element at the given index of the ascending order of this container, in logarithmic time.
+     *
+     * @param index the given index
+     * @return the element at the given index
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+     */
+    public E select(int index) {
+        Map.Entry<E, Object> entry = ((RankedMap<E, Object>) map).weightedEntry(index);
+        return tryBucket(entry.getValue(), bucket -> bucket.get(index - rank(entry.getKey())), value -> cast(value)); }
+
+
+    /**
+     * Return a {@link BTreeContainer} of the given {@link Comparable} values.
+     *
+     * @param elements the given {@link Comparable} values
+     * @param <E> the element type
+     * @return a {@link BTreeContainer} of the given {@link Comparable} values
+     */
+    @SafeVarargs
+    public static <E extends Comparable<E>> BTreeContainer<E> container(E... elements) {
+        return new BTreeContainer<>(elements);
+    }
+
+    /**
+     * Return a {@link BTreeContainer} of the given {@link Comparator} of the given values.
+     *
+     * @param comparator the given values {@link Comparator}
+     * @param elements the given values
+     * @param <E> the element type
+     * @return a {@link BTreeContainer} of the given {@link Comparator} of the given values
+     */
+    @SafeVarargs
+    public static <E> BTreeContainer<E> container(Comparator<? super E> comparator, E... elements) {
+        return new BTreeContainer<>(comparator, elements);
+    }
+
+    /**
+     * Return a {@link Collector} accumulating the {@link Comparable} elements into a new {@link BTreeContainer},
+     * which merges the partial containers of a parallel stream bucket-wise.
+     *
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link BTreeContainer}
+     */
+    public static <E extends Comparable<E>> Collector<E, ?, BTreeContainer<E>> toContainer() {
+        return toContainer(null);
+    }
+
+    /**
+     * Return a {@link Collector} accumulating the elements into a new {@link BTreeContainer} of the given
+     * {@link Comparator}, which merges the partial containers of a parallel stream bucket-wise.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link BTreeContainer}
+     */
+    public static <E> Collector<E, ?, BTreeContainer<E>> toContainer(Comparator<? super E> comparator) {
+        return collector(() -> new BTreeContainer<>(new BTreeMap<>(comparator, WEIGHER), producer()), Bucket::put, Bucket::new);
+    }
+}
@@ -0,0 +1,1078 @@
+package org.moodminds.elemental;
+
+import org.moodminds.sneaky.Cast;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.fill;
+import static java.util.Collections.reverseOrder;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * A B+ tree implementation of the {@link NavigableMap} interface.
+ * <p>
+ * The entries are kept in the array-based leaves of up to {@value #CAPACITY} entries, linked in the key order,
+ * so that a range is scanned sequentially through the memory rather than chasing a node per entry. The inner
+ * nodes route the keys to the leaves and keep the number of the entries and the total weight of the values
+ * of every child, where the weight of a value is given by a {@link ToIntFunction} weigher, one per entry by default.
+ * So the size and weight of any sub-map view, the weighted rank of a key and the entry at a weighted index are
+ * all found in logarithmic time, see {@link RankedMap}. A value whose weight changes in place is to be
+ * {@link #reweigh(Object) reweighed}. Permit {@code null} values, and {@code null} keys only if the comparator
+ * does. This implementation is not synchronized.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class BTreeMap<K, V> extends AbstractMap<K, V> implements RankedMap<K, V>, Serializable {
+
+    private static final long serialVersionUID = -5264389129753801472L;
+
+    /**
+     * The maximum number of the entries of a leaf and of the children of an inner node,
+     * which compressed references of the keys fill two 64-byte cache lines.
+     */
+    protected static final int CAPACITY = 32;
+
+    /**
+     * The minimum number of the entries of a leaf and of the children of an inner node other than the root.
+     */
+    private static final int MINIMUM = CAPACITY / 2 - 1;
+
+    /**
+     * The keys {@link Comparator} holder field, {@code null} for the natural ordering.
+     */
+    private final Comparator<? super K> comparator;
+
+    /**
+     * The values weigher holder field, {@code null} for the unit weight.
+     */
+    private final ToIntFunction<? super V> weigher;
+
+    /**
+     * Tree root holder field.
+     */
+    private transient Node root;
+
+    /**
+     * The number of the entries and the total weight of the values holder fields.
+     */
+    private transient int size, weight;
+
+    /**
+     * Modification count holder field.
+     */
+    protected transient int modCount;
+
+    /**
+     * Entry set view holder field.
+     */
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Construct the object with the natural ordering of keys and the unit weight of values.
+     */
+    public BTreeMap() {
+        this(null, null);
+    }
+
+    /**
+     * Construct the object with the given keys {@link Comparator} and the unit weight of values.
+     *
+     * @param comparator the given keys {@link Comparator}, or {@code null} for the natural ordering
+     */
+    public BTreeMap(Comparator<? super K> comparator) {
+        this(comparator, null);
+    }
+
+    /**
+     * Construct the object with the given keys {@link Comparator} and values weigher.
+     * The weigher should be {@link Serializable} for the map to be.
+     *
+     * @param comparator the given keys {@link Comparator}, or {@code null} for the natural ordering
+     * @param weigher the given values weigher, or {@code null} for the unit weight
+     */
+    public BTreeMap(Comparator<? super K> comparator, ToIntFunction<? super V> weigher) {
+        this.comparator = comparator; this.weigher = weigher;
+    }
+
+    @Override public int size() {
+        return size; }
+    @Override public boolean isEmpty() {
+        return root == null; }
+    @Override public boolean containsKey(Object key) {
+        return root != null && search(leaf(key), 0, key) >= 0; }
+    @Override public V get(Object key) {
+        if (root == null) return null; Leaf leaf = leaf(key); int slot = search(leaf, 0, key);
+        return slot >= 0 ? cast(leaf.values[slot]) : null; }
+
+    @Override public Comparator<? super K> comparator() {
+        return comparator; }
+
+    @Override public K firstKey() {
+        return key(first()); }
+    @Override public K lastKey() {
+        return key(last()); }
+
+    @Override public Map.Entry<K, V> firstEntry() {
+        return first(); }
+    @Override public Map.Entry<K, V> lastEntry() {
+        return last(); }
+    @Override public Map.Entry<K, V> pollFirstEntry() {
+        return poll(first()); }
+    @Override public Map.Entry<K, V> pollLastEntry() {
+        return poll(last()); }
+
+    @Override public Map.Entry<K, V> lowerEntry(K key) {
+        return floor(key, false); }
+    @Override public K lowerKey(K key) {
+        return keyOrNull(floor(key, false)); }
+    @Override public Map.Entry<K, V> floorEntry(K key) {
+        return floor(key, true); }
+    @Override public K floorKey(K key) {
+        return keyOrNull(floor(key, true)); }
+    @Override public Map.Entry<K, V> ceilingEntry(K key) {
+        return ceiling(key, true); }
+    @Override public K ceilingKey(K key) {
+        return keyOrNull(ceiling(key, true)); }
+    @Override public Map.Entry<K, V> higherEntry(K key) {
+        return ceiling(key, false); }
+    @Override public K higherKey(K key) {
+        return keyOrNull(ceiling(key, false)); }
+
+    @Override public Set<K> keySet() {
+        return navigableKeySet(); }
+    @Override public NavigableSet<K> navigableKeySet() {
+        return new RankTreeMap.KeySet<>(this); }
+    @Override public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet(); }
+    @Override public NavigableMap<K, V> descendingMap() {
+        return new SubMap<>(this, true, null, true, true, null, true, true); }
+
+    @Override public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return new SubMap<>(this, false, fromKey, fromInclusive, false, toKey, toInclusive, false); }
+    @Override public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return new SubMap<>(this, true, null, true, false, toKey, inclusive, false); }
+    @Override public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return new SubMap<>(this, false, fromKey, inclusive, true, null, true, false); }
+    @Override public NavigableMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false); }
+    @Override public NavigableMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false); }
+    @Override public NavigableMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true); }
+
+    @Override public int weight() {
+        return weight; }
+    @Override public int rank(Object key) {
+        return weightBefore(key, false); }
+    @Override public Map.Entry<K, V> weightedEntry(int index) {
+        if (index < 0 || index >= weight) throw new IndexOutOfBoundsException("Index: " + index);
+        return entry(weighted(index)); }
+    @Override public void reweigh(Object key) {
+        if (root == null) return; Leaf leaf = leaf(key); int slot = search(leaf, 0, key);
+        if (slot >= 0) reweigh(leaf, slot); }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key {@inheritDoc}
+     * @param value {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public V put(K key, V value) {
+        if (root == null) {
+            compare(key, key); root = new Leaf(); }
+        else {
+            Leaf leaf = leaf(key); int slot = search(leaf, 0, key);
+            if (slot >= 0) {
+                V previous = cast(leaf.values[slot]); leaf.values[slot] = value; reweigh(leaf, slot); return previous; }
+        }
+        insert(key, value, weigh(value)); modCount++; return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public V remove(Object key) {
+        if (root == null) return null; Leaf leaf = leaf(key); int slot = search(leaf, 0, key);
+        if (slot < 0) return null; V previous = cast(leaf.values[slot]);
+        delete(key, leaf.weights[slot]); return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        root = null; size = weight = 0; modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param action {@inheritDoc}
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(0, size, false, action);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return entrySet != null ? entrySet : (entrySet = new EntrySet(null));
+    }
+
+    /**
+     * Compare the given keys by the {@link #comparator}, or naturally if it is {@code null}.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return the comparison result
+     */
+    final int compare(Object key1, Object key2) {
+        return comparator == null ? Cast.<Comparable<Object>>cast(requireNonNull(key1)).compareTo(key2)
+                : comparator.compare(cast(key1), cast(key2));
+    }
+
+    /**
+     * Return the weight of the given value.
+     *
+     * @param value the given value
+     * @return the weight of the given value
+     */
+    final int weigh(V value) {
+        return weigher != null ? weigher.applyAsInt(value) : 1;
+    }
+
+    /**
+     * Binary search the given key among the keys of the given node, starting from the given index.
+     *
+     * @param node the given node
+     * @param from the given index to start from
+     * @param key the given key
+     * @return the index of the key if found, otherwise {@code (-(insertion point) - 1)}
+     */
+    final int search(Node node, int from, Object key) {
+        Object[] keys = node.keys; int low = from, high = node.size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1, comparison = compare(key, keys[middle]);
+            if (comparison > 0) low = middle + 1;
+            else if (comparison < 0) high = middle - 1;
+            else return middle;
+        } return -(low + 1);
+    }
+
+    /**
+     * Return the index of the child of the given inner node which subtree the given key belongs to.
+     *
+     * @param inner the given inner node
+     * @param key the given key
+     * @return the index of the child
+     */
+    final int route(Inner inner, Object key) {
+        int index = search(inner, 1, key); return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * Return the leaf which the given key belongs to, the tree is to be not empty.
+     *
+     * @param key the given key
+     * @return the leaf which the given key belongs to
+     */
+    final Leaf leaf(Object key) {
+        Node node = root; while (node instanceof Inner) node = ((Inner) node).children[route((Inner) node, key)];
+        return (Leaf) node;
+    }
+
+    final Map.Entry<K, V> first() {
+        Node node = root; if (node == null) return null;
+        while (node instanceof Inner) node = ((Inner) node).children[0];
+        return export((Leaf) node, 0);
+    }
+
+    final Map.Entry<K, V> last() {
+        Node node = root; if (node == null) return null;
+        while (node instanceof Inner) node = ((Inner) node).children[node.size - 1];
+        return export((Leaf) node, node.size - 1);
+    }
+
+    /**
+     * Return the entry with the lowest key greater than, or equal to if inclusive, the given one.
+     *
+     * @param key the given key
+     * @param inclusive whether the equal key matches
+     * @return the matching entry, or {@code null} if none
+     */
+    final Map.Entry<K, V> ceiling(Object key, boolean inclusive) {
+        if (root == null) return null; Leaf leaf = leaf(key); int slot = search(leaf, 0, key);
+        slot = slot >= 0 ? inclusive ? slot : slot + 1 : -slot - 1;
+        if (slot == leaf.size) {
+            leaf = leaf.next; slot = 0; }
+        return export(leaf, slot);
+    }
+
+    /**
+     * Return the entry with the highest key less than, or equal to if inclusive, the given one.
+     *
+     * @param key the given key
+     * @param inclusive whether the equal key matches
+     * @return the matching entry, or {@code null} if none
+     */
+    final Map.Entry<K, V> floor(Object key, boolean inclusive) {
+        if (root == null) return null; Leaf leaf = leaf(key); int slot = search(leaf, 0, key);
+        slot = slot >= 0 ? inclusive ? slot : slot - 1 : -slot - 2;
+        if (slot < 0) {
+            leaf = leaf.previous; slot = leaf != null ? leaf.size - 1 : 0; }
+        return export(leaf, slot);
+    }
+
+    /**
+     * Return the number of the entries with the keys less than, or equal to if inclusive, the given one.
+     *
+     * @param key the given key
+     * @param inclusive whether the equal key is counted
+     * @return the number of the preceding entries
+     */
+    final int countBefore(Object key, boolean inclusive) {
+        if (root == null) return 0; int count = 0; Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node; int child = route(inner, key);
+            for (int i = 0; i < child; i++) count += inner.counts[i];
+            node = inner.children[child]; }
+        int slot = search(node, 0, key);
+        return count + (slot >= 0 ? inclusive ? slot + 1 : slot : -slot - 1);
+    }
+
+    /**
+     * Return the weight of the entries with the keys less than, or equal to if inclusive, the given one.
+     *
+     * @param key the given key
+     * @param inclusive whether the equal key is weighed
+     * @return the weight of the preceding entries
+     */
+    final int weightBefore(Object key, boolean inclusive) {
+        if (root == null) return 0; int weight = 0; Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node; int child = route(inner, key);
+            for (int i = 0; i < child; i++) weight += inner.totals[i];
+            node = inner.children[child]; }
+        Leaf leaf = (Leaf) node; int slot = search(leaf, 0, key);
+        slot = slot >= 0 ? inclusive ? slot + 1 : slot : -slot - 1;
+        for (int i = 0; i < slot; i++) weight += leaf.weights[i];
+        return weight;
+    }
+
+    /**
+     * Return the weight of the given number of the first entries of the ascending order.
+     *
+     * @param index the given number of the first entries, within the size inclusive
+     * @return the weight of the given number of the first entries
+     */
+    final int weightTo(int index) {
+        if (index >= size) return weight; int weight = 0; Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node; int child = 0;
+            for (; index >= inner.counts[child]; child++) {
+                index -= inner.counts[child]; weight += inner.totals[child]; }
+            node = inner.children[child]; }
+        Leaf leaf = (Leaf) node;
+        for (int slot = 0; slot < index; slot++) weight += leaf.weights[slot];
+        return weight;
+    }
+
+    /**
+     * Return the ascending index of the entry covering the given weighted index.
+     *
+     * @param index the given weighted index, within the weight
+     * @return the ascending index of the entry covering the given weighted index
+     */
+    final int weighted(int index) {
+        int position = 0; Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node; int child = 0;
+            for (; index >= inner.totals[child]; child++) {
+                index -= inner.totals[child]; position += inner.counts[child]; }
+            node = inner.children[child]; }
+        Leaf leaf = (Leaf) node; int slot = 0;
+        for (; index >= leaf.weights[slot]; slot++) index -= leaf.weights[slot];
+        return position + slot;
+    }
+
+    /**
+     * Return the entry at the given index of the ascending order.
+     *
+     * @param index the given index, within the size
+     * @return the entry at the given index
+     */
+    final Map.Entry<K, V> entry(int index) {
+        Cursor cursor = new Cursor(); cursor.seek(index); return export(cursor.leaf, cursor.slot);
+    }
+
+    /**
+     * Perform the given action for the given number of the entries from the given ascending index on,
+     * in the ascending or descending order, without creating the entries.
+     *
+     * @param index the given ascending index of the first entry to perform the action for
+     * @param count the given number of the entries
+     * @param descending whether to go in the descending order
+     * @param action the given action
+     */
+    final void forEach(int index, int count, boolean descending, BiConsumer<? super K, ? super V> action) {
+        requireNonNull(action); if (count <= 0) return; int expectedMod = modCount;
+        Cursor cursor = new Cursor(); cursor.seek(index); Leaf leaf = cursor.leaf; int slot = cursor.slot;
+        while (true) {
+            int until = descending ? max(slot - count + 1, 0) : min(slot + count, leaf.size);
+            Object[] keys = leaf.keys, values = leaf.values;
+            if (descending) for (int i = slot; i >= until; i--)
+                action.accept(cast(keys[i]), cast(values[i]));
+            else for (int i = slot; i < until; i++)
+                action.accept(cast(keys[i]), cast(values[i]));
+            if ((count -= descending ? slot - until + 1 : until - slot) <= 0) break;
+            if (modCount != expectedMod) throw new ConcurrentModificationException();
+            if (descending) {
+                leaf = leaf.previous; slot = leaf.size - 1; }
+            else {
+                leaf = leaf.next; slot = 0; }
+        }
+        if (modCount != expectedMod) throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Recalculate the weight of the value at the given slot of the given leaf, adjusting the totals from the root.
+     *
+     * @param leaf the given leaf
+     * @param slot the given slot
+     */
+    final void reweigh(Leaf leaf, int slot) {
+        int delta = weigh(cast(leaf.values[slot])) - leaf.weights[slot]; if (delta == 0) return;
+        leaf.weights[slot] += delta; weight += delta; Object key = leaf.keys[slot];
+        for (Node node = root; node instanceof Inner; ) {
+            Inner inner = (Inner) node; int child = route(inner, key);
+            inner.totals[child] += delta; node = inner.children[child]; }
+    }
+
+    /**
+     * Insert the entry of the given absent key, splitting the full nodes on the way down to the leaf,
+     * so that no split is to propagate up.
+     *
+     * @param key the given absent key
+     * @param value the given value
+     * @param weight the weight of the given value
+     */
+    private void insert(K key, V value, int weight) {
+        if (root.size == CAPACITY) {
+            Inner inner = new Inner(); inner.children[0] = root; inner.size = 1; recount(inner, 0);
+            split(inner, 0); root = inner; }
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node; int child = route(inner, key);
+            if (inner.children[child].size == CAPACITY) {
+                split(inner, child); if (compare(key, inner.keys[child + 1]) >= 0) child++; }
+            inner.counts[child]++; inner.totals[child] += weight; node = inner.children[child];
+        }
+        Leaf leaf = (Leaf) node; int slot = -search(leaf, 0, key) - 1, move = leaf.size - slot;
+        arraycopy(leaf.keys, slot, leaf.keys, slot + 1, move); arraycopy(leaf.values, slot, leaf.values, slot + 1, move);
+        arraycopy(leaf.weights, slot, leaf.weights, slot + 1, move);
+        leaf.keys[slot] = key; leaf.values[slot] = value; leaf.weights[slot] = weight; leaf.size++;
+        size++; this.weight += weight;
+    }
+
+    /**
+     * Delete the entry of the given present key, filling up the minimal nodes on the way down to the leaf,
+     * so that no merge is to propagate up, and replacing the bound of the subtree the key is the lowest of.
+     *
+     * @param key the given present key
+     * @param weight the weight of the value of the given key
+     */
+    final void delete(Object key, int weight) {
+        Inner bound = null; int boundChild = 0; Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node; int child = route(inner, key);
+            if (inner.children[child].size == MINIMUM) {
+                replenish(inner, child);
+                if (inner == root && inner.size == 1) {
+                    node = root = inner.children[0]; continue; }
+                child = route(inner, key); }
+            if (child > 0 && compare(key, inner.keys[child]) == 0) {
+                bound = inner; boundChild = child; }
+            inner.counts[child]--; inner.totals[child] -= weight; node = inner.children[child];
+        }
+        Leaf leaf = (Leaf) node; int slot = search(leaf, 0, key), move = leaf.size - slot - 1;
+        arraycopy(leaf.keys, slot + 1, leaf.keys, slot, move); arraycopy(leaf.values, slot + 1, leaf.values, slot, move);
+        arraycopy(leaf.weights, slot + 1, leaf.weights, slot, move);
+        leaf.keys[--leaf.size] = null; leaf.values[leaf.size] = null;
+        size--; this.weight -= weight;
+        if (bound != null) bound.keys[boundChild] = leaf.keys[0];
+        if (leaf.size == 0) root = null; modCount++;
+    }
+
+    /**
+     * Split the given full child of the given non-full inner node in halves.
+     *
+     * @param parent the given inner node
+     * @param child the index of the given child
+     */
+    private void split(Inner parent, int child) {
+        Node node = parent.children[child], sibling; Object bound; int half = CAPACITY / 2;
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node, right = new Leaf();
+            arraycopy(leaf.keys, half, right.keys, 0, CAPACITY - half); arraycopy(leaf.values, half, right.values, 0, CAPACITY - half);
+            arraycopy(leaf.weights, half, right.weights, 0, CAPACITY - half);
+            fill(leaf.keys, half, CAPACITY, null); fill(leaf.values, half, CAPACITY, null);
+            right.next = leaf.next; right.previous = leaf; if (leaf.next != null) leaf.next.previous = right; leaf.next = right;
+            bound = right.keys[0]; sibling = right;
+        } else {
+            Inner inner = (Inner) node, right = new Inner();
+            arraycopy(inner.keys, half, right.keys, 0, CAPACITY - half); arraycopy(inner.children, half, right.children, 0, CAPACITY - half);
+            arraycopy(inner.counts, half, right.counts, 0, CAPACITY - half); arraycopy(inner.totals, half, right.totals, 0, CAPACITY - half);
+            fill(inner.keys, half, CAPACITY, null); fill(inner.children, half, CAPACITY, null);
+            bound = right.keys[0]; right.keys[0] = null; sibling = right;
+        }
+        node.size = half; sibling.size = CAPACITY - half;
+        int at = child + 1, move = parent.size - at;
+        arraycopy(parent.keys, at, parent.keys, at + 1, move); arraycopy(parent.children, at, parent.children, at + 1, move);
+        arraycopy(parent.counts, at, parent.counts, at + 1, move); arraycopy(parent.totals, at, parent.totals, at + 1, move);
+        parent.keys[at] = bound; parent.children[at] = sibling; parent.size++;
+        recount(parent, child); recount(parent, at);
+    }
+
+    /**
+     * Fill up the given minimal child of the given inner node, either borrowing from a sibling or merging with it.
+     *
+     * @param parent the given inner node
+     * @param child the index of the given child
+     */
+    private void replenish(Inner parent, int child) {
+        if (child > 0 && parent.children[child - 1].size > MINIMUM) borrowLeft(parent, child);
+        else if (child + 1 < parent.size && parent.children[child + 1].size > MINIMUM) borrowRight(parent, child);
+        else merge(parent, child + 1 < parent.size ? child : child - 1);
+    }
+
+    private void borrowLeft(Inner parent, int child) {
+        Node node = parent.children[child], left = parent.children[child - 1]; int last = left.size - 1;
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node, from = (Leaf) left;
+            arraycopy(leaf.keys, 0, leaf.keys, 1, leaf.size); arraycopy(leaf.values, 0, leaf.values, 1, leaf.size);
+            arraycopy(leaf.weights, 0, leaf.weights, 1, leaf.size);
+            leaf.keys[0] = from.keys[last]; leaf.values[0] = from.values[last]; leaf.weights[0] = from.weights[last];
+            from.keys[last] = null; from.values[last] = null; parent.keys[child] = leaf.keys[0];
+        } else {
+            Inner inner = (Inner) node, from = (Inner) left;
+            arraycopy(inner.keys, 0, inner.keys, 1, inner.size); arraycopy(inner.children, 0, inner.children, 1, inner.size);
+            arraycopy(inner.counts, 0, inner.counts, 1, inner.size); arraycopy(inner.totals, 0, inner.totals, 1, inner.size);
+            inner.keys[1] = parent.keys[child]; inner.keys[0] = null; inner.children[0] = from.children[last];
+            inner.counts[0] = from.counts[last]; inner.totals[0] = from.totals[last];
+            parent.keys[child] = from.keys[last]; from.keys[last] = null; from.children[last] = null;
+        }
+        node.size++; left.size--; recount(parent, child - 1); recount(parent, child);
+    }
+
+    private void borrowRight(Inner parent, int child) {
+        Node node = parent.children[child], right = parent.children[child + 1]; int last = right.size - 1;
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node, from = (Leaf) right;
+            leaf.keys[leaf.size] = from.keys[0]; leaf.values[leaf.size] = from.values[0]; leaf.weights[leaf.size] = from.weights[0];
+            arraycopy(from.keys, 1, from.keys, 0, last); arraycopy(from.values, 1, from.values, 0, last);
+            arraycopy(from.weights, 1, from.weights, 0, last);
+            from.keys[last] = null; from.values[last] = null; parent.keys[child + 1] = from.keys[0];
+        } else {
+            Inner inner = (Inner) node, from = (Inner) right;
+            inner.keys[inner.size] = parent.keys[child + 1]; inner.children[inner.size] = from.children[0];
+            inner.counts[inner.size] = from.counts[0]; inner.totals[inner.size] = from.totals[0];
+            parent.keys[child + 1] = from.keys[1];
+            arraycopy(from.keys, 1, from.keys, 0, last); arraycopy(from.children, 1, from.children, 0, last);
+            arraycopy(from.counts, 1, from.counts, 0, last); arraycopy(from.totals, 1, from.totals, 0, last);
+            from.keys[0] = null; from.keys[last] = null; from.children[last] = null;
+        }
+        node.size++; right.size--; recount(parent, child); recount(parent, child + 1);
+    }
+
+    private void merge(Inner parent, int child) {
+        Node node = parent.children[child], right = parent.children[child + 1];
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node, from = (Leaf) right;
+            arraycopy(from.keys, 0, leaf.keys, leaf.size, from.size); arraycopy(from.values, 0, leaf.values, leaf.size, from.size);
+            arraycopy(from.weights, 0, leaf.weights, leaf.size, from.size);
+            leaf.next = from.next; if (from.next != null) from.next.previous = leaf;
+        } else {
+            Inner inner = (Inner) node, from = (Inner) right;
+            inner.keys[inner.size] = parent.keys[child + 1];
+            arraycopy(from.keys, 1, inner.keys, inner.size + 1, from.size - 1); arraycopy(from.children, 0, inner.children, inner.size, from.size);
+            arraycopy(from.counts, 0, inner.counts, inner.size, from.size); arraycopy(from.totals, 0, inner.totals, inner.size, from.size);
+        }
+        node.size += right.size;
+        int at = child + 1, move = parent.size - at - 1;
+        arraycopy(parent.keys, at + 1, parent.keys, at, move); arraycopy(parent.children, at + 1, parent.children, at, move);
+        arraycopy(parent.counts, at + 1, parent.counts, at, move); arraycopy(parent.totals, at + 1, parent.totals, at, move);
+        parent.keys[--parent.size] = null; parent.children[parent.size] = null; recount(parent, child);
+    }
+
+    final Map.Entry<K, V> poll(Map.Entry<K, V> entry) {
+        if (entry != null) remove(entry.getKey()); return entry;
+    }
+
+    final Map.Entry<K, V> export(Leaf leaf, int slot) {
+        return leaf != null ? new SimpleImmutableEntry<K, V>(cast(leaf.keys[slot]), cast(leaf.values[slot])) : null;
+    }
+
+
+    /**
+     * A node of the tree, holding up to {@link #CAPACITY} keys.
+     */
+    protected static abstract class Node {
+
+        final Object[] keys = new Object[CAPACITY]; int size;
+    }
+
+    /**
+     * A leaf node, holding the entries of the ascending keys along with the weights of their values,
+     * and linked with the previous and next leaves.
+     */
+    protected static final class Leaf extends Node {
+
+        final Object[] values = new Object[CAPACITY]; final int[] weights = new int[CAPACITY]; Leaf previous, next;
+    }
+
+    /**
+     * An inner node, holding the children along with the number of the entries and the total weight
+     * of their subtrees. The key at an index is the lowest key of the subtree of the child at that index,
+     * except the first one, which is not held.
+     */
+    protected static final class Inner extends Node {
+
+        final Node[] children = new Node[CAPACITY]; final int[] counts = new int[CAPACITY], totals = new int[CAPACITY];
+    }
+
+    /**
+     * A position of an entry of the tree, as a leaf and a slot in it.
+     */
+    protected class Cursor {
+
+        Leaf leaf; int slot;
+
+        /**
+         * Position at the entry of the given ascending index.
+         *
+         * @param index the given ascending index, within the size
+         */
+        void seek(int index) {
+            Node node = root;
+            while (node instanceof Inner) {
+                Inner inner = (Inner) node; int child = 0;
+                for (; index >= inner.counts[child]; child++) index -= inner.counts[child];
+                node = inner.children[child]; }
+            leaf = (Leaf) node; slot = index; }
+
+        void advance() {
+            if (++slot == leaf.size) {
+                leaf = leaf.next; slot = 0; } }
+
+        void retreat() {
+            if (--slot < 0) {
+                leaf = leaf.previous; slot = leaf != null ? leaf.size - 1 : 0; } }
+    }
+
+    /**
+     * The modifiable entry at a position of the tree, valid until the next structural modification.
+     */
+    protected final class LeafEntry extends AbstractKeyValue<K, V> {
+
+        final Leaf leaf; final int slot;
+
+        LeafEntry(Leaf leaf, int slot) {
+            this.leaf = leaf; this.slot = slot; }
+
+        @Override public K getKey() {
+            return cast(leaf.keys[slot]); }
+        @Override public V getValue() {
+            return cast(leaf.values[slot]); }
+        @Override public V setValue(V value) {
+            V previous = getValue(); leaf.values[slot] = value; reweigh(leaf, slot); return previous; }
+    }
+
+    /**
+     * An {@link Iterator} of the given number of the entries, starting from the given ascending index.
+     */
+    protected class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        final Cursor cursor = new Cursor(); int next, remaining, expectedMod = modCount; K last; boolean present;
+        final boolean descending;
+
+        protected EntryIterator(int next, int remaining, boolean descending) {
+            this.next = next; this.remaining = remaining; this.descending = descending; }
+
+        @Override public boolean hasNext() {
+            return remaining > 0; }
+
+        @Override public Map.Entry<K, V> next() {
+            if (remaining <= 0) throw new NoSuchElementException(); checkMod();
+            if (cursor.leaf == null) cursor.seek(next);
+            LeafEntry entry = new LeafEntry(cursor.leaf, cursor.slot); last = entry.getKey(); present = true;
+            if (--remaining > 0)
+                if (descending) {
+                    next--; cursor.retreat(); }
+                else {
+                    next++; cursor.advance(); }
+            return entry; }
+
+        @Override public void remove() {
+            if (!present) throw new IllegalStateException(); checkMod();
+            BTreeMap.this.remove(last); if (!descending) next--;
+            cursor.leaf = null; last = null; present = false; expectedMod = modCount; }
+
+        void checkMod() {
+            if (modCount != expectedMod) throw new ConcurrentModificationException(); }
+    }
+
+    /**
+     * A {@link Spliterator} of the entries within a range of the ascending indexes,
+     * splitting it in halves exactly by the order statistics.
+     */
+    protected class EntrySpliterator implements Spliterator<Map.Entry<K, V>> {
+
+        int origin, fence; final Cursor cursor = new Cursor(); final boolean descending; final int expectedMod = modCount;
+
+        protected EntrySpliterator(int origin, int fence, boolean descending) {
+            this.origin = origin; this.fence = fence; this.descending = descending; }
+
+        @Override public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            requireNonNull(action); if (origin >= fence) return false;
+            if (cursor.leaf == null) cursor.seek(descending ? fence - 1 : origin);
+            LeafEntry entry = new LeafEntry(cursor.leaf, cursor.slot);
+            if (descending) {
+                if (--fence > origin) cursor.retreat(); }
+            else if (++origin < fence) cursor.advance();
+            action.accept(entry); checkMod(); return true; }
+
+        @Override public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            requireNonNull(action); if (origin >= fence) return;
+            if (cursor.leaf == null) cursor.seek(descending ? fence - 1 : origin);
+            for (int remaining = fence - origin; remaining > 0; remaining--) {
+                action.accept(new LeafEntry(cursor.leaf, cursor.slot));
+                if (remaining > 1) {
+                    if (descending) cursor.retreat(); else cursor.advance(); } }
+            origin = fence; cursor.leaf = null; checkMod(); }
+
+        @Override public Spliterator<Map.Entry<K, V>> trySplit() {
+            int origin = this.origin, middle = origin + fence >>> 1;
+            if (middle <= origin) return null; cursor.leaf = null;
+            if (descending) {
+                int fence = this.fence; this.fence = middle; return new EntrySpliterator(middle, fence, true); }
+            this.origin = middle; return new EntrySpliterator(origin, middle, false); }
+
+        @Override public long estimateSize() {
+            return fence - origin; }
+        @Override public int characteristics() {
+            return DISTINCT | ORDERED | SIZED | SUBSIZED | (descending ? 0 : SORTED); }
+
+        @Override public Comparator<? super Map.Entry<K, V>> getComparator() {
+            if (descending) throw new IllegalStateException();
+            return (entry1, entry2) -> compare(entry1.getKey(), entry2.getKey()); }
+
+        /**
+         * Return the total weight of the values of the remaining entries.
+         *
+         * @return the total weight of the values of the remaining entries
+         */
+        protected long weigh() {
+            return origin < fence ? weightTo(fence) - weightTo(origin) : 0; }
+
+        void checkMod() {
+            if (modCount != expectedMod) throw new ConcurrentModificationException(); }
+    }
+
+    /**
+     * The {@link Set} view of the entries of this map, or of the given {@link SubMap} of it.
+     */
+    protected class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        final SubMap<K, V> sub;
+
+        protected EntrySet(SubMap<K, V> sub) {
+            this.sub = sub; }
+
+        @Override public int size() {
+            return sub != null ? sub.size() : size; }
+        @Override public boolean isEmpty() {
+            return sub != null ? sub.isEmpty() : root == null; }
+        @Override public void clear() {
+            if (sub != null) super.clear(); else BTreeMap.this.clear(); }
+
+        @Override public Iterator<Map.Entry<K, V>> iterator() {
+            if (sub == null) return new EntryIterator(0, size, false);
+            int origin = sub.origin(), size = max(sub.fence() - origin, 0);
+            return new EntryIterator(sub.descending ? origin + size - 1 : origin, size, sub.descending); }
+        @Override public Spliterator<Map.Entry<K, V>> spliterator() {
+            return sub != null ? new EntrySpliterator(sub.origin(), max(sub.origin(), sub.fence()), sub.descending)
+                    : new EntrySpliterator(0, size, false); }
+
+        @Override public boolean contains(Object o) {
+            return present(o); }
+        @Override public boolean remove(Object o) {
+            if (!present(o)) return false; BTreeMap.this.remove(((Map.Entry<?, ?>) o).getKey()); return true; }
+
+        private boolean present(Object o) {
+            if (!(o instanceof Map.Entry) || root == null) return false; Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o; Object key = entry.getKey();
+            if (sub != null && !sub.inRange(key)) return false; Leaf leaf = leaf(key); int slot = search(leaf, 0, key);
+            return slot >= 0 && Objects.equals(leaf.values[slot], entry.getValue()); }
+    }
+
+    /**
+     * A ranged and optionally descending view of a {@link BTreeMap}.
+     * The bounds are held in the ascending order of the backing map regardless of the direction.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     */
+    protected static class SubMap<K, V> extends AbstractMap<K, V> implements RankedMap<K, V>, Serializable {
+
+        private static final long serialVersionUID = 7440518663958730371L;
+
+        protected final BTreeMap<K, V> m;
+
+        protected final K lo, hi;
+
+        protected final boolean fromStart, loInclusive, toEnd, hiInclusive, descending;
+
+        private transient Set<Map.Entry<K, V>> entrySet;
+
+        protected SubMap(BTreeMap<K, V> m, boolean fromStart, K lo, boolean loInclusive,
+                         boolean toEnd, K hi, boolean hiInclusive, boolean descending) {
+            if (!fromStart && !toEnd) {
+                if (m.compare(lo, hi) > 0) throw new IllegalArgumentException("fromKey > toKey"); }
+            else {
+                if (!fromStart) m.compare(lo, lo);
+                if (!toEnd) m.compare(hi, hi); }
+            this.m = m; this.fromStart = fromStart; this.lo = lo; this.loInclusive = loInclusive;
+            this.toEnd = toEnd; this.hi = hi; this.hiInclusive = hiInclusive; this.descending = descending;
+        }
+
+        @Override public int size() {
+            return max(fence() - origin(), 0); }
+        @Override public boolean isEmpty() {
+            return absLowest() == null; }
+        @Override public boolean containsKey(Object key) {
+            return inRange(key) && m.containsKey(key); }
+        @Override public V get(Object key) {
+            return inRange(key) ? m.get(key) : null; }
+        @Override public V put(K key, V value) {
+            if (!inRange(key)) throw new IllegalArgumentException("key out of range"); return m.put(key, value); }
+        @Override public V remove(Object key) {
+            return inRange(key) ? m.remove(key) : null; }
+        @Override public void forEach(BiConsumer<? super K, ? super V> action) {
+            int origin = origin(), size = max(fence() - origin, 0);
+            m.forEach(descending ? origin + size - 1 : origin, size, descending, action); }
+
+        @Override public Comparator<? super K> comparator() {
+            return descending ? reverseOrder(m.comparator) : m.comparator; }
+
+        @Override public K firstKey() {
+            return key(lowest()); }
+        @Override public K lastKey() {
+            return key(highest()); }
+
+        @Override public Map.Entry<K, V> firstEntry() {
+            return lowest(); }
+        @Override public Map.Entry<K, V> lastEntry() {
+            return highest(); }
+        @Override public Map.Entry<K, V> pollFirstEntry() {
+            return m.poll(lowest()); }
+        @Override public Map.Entry<K, V> pollLastEntry() {
+            return m.poll(highest()); }
+
+        @Override public Map.Entry<K, V> lowerEntry(K key) {
+            return descending ? absHigher(key) : absLower(key); }
+        @Override public K lowerKey(K key) {
+            return keyOrNull(descending ? absHigher(key) : absLower(key)); }
+        @Override public Map.Entry<K, V> floorEntry(K key) {
+            return descending ? absCeiling(key) : absFloor(key); }
+        @Override public K floorKey(K key) {
+            return keyOrNull(descending ? absCeiling(key) : absFloor(key)); }
+        @Override public Map.Entry<K, V> ceilingEntry(K key) {
+            return descending ? absFloor(key) : absCeiling(key); }
+        @Override public K ceilingKey(K key) {
+            return keyOrNull(descending ? absFloor(key) : absCeiling(key)); }
+        @Override public Map.Entry<K, V> higherEntry(K key) {
+            return descending ? absLower(key) : absHigher(key); }
+        @Override public K higherKey(K key) {
+            return keyOrNull(descending ? absLower(key) : absHigher(key)); }
+
+        @Override public Set<K> keySet() {
+            return navigableKeySet(); }
+        @Override public NavigableSet<K> navigableKeySet() {
+            return new RankTreeMap.KeySet<>(this); }
+        @Override public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet(); }
+        @Override public NavigableMap<K, V> descendingMap() {
+            return new SubMap<>(m, fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending); }
+
+        @Override public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+            if (!inRange(fromKey, fromInclusive)) throw new IllegalArgumentException("fromKey out of range");
+            if (!inRange(toKey, toInclusive)) throw new IllegalArgumentException("toKey out of range");
+            return descending ? new SubMap<>(m, false, toKey, toInclusive, false, fromKey, fromInclusive, true)
+                    : new SubMap<>(m, false, fromKey, fromInclusive, false, toKey, toInclusive, false); }
+        @Override public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+            if (!inRange(toKey, inclusive)) throw new IllegalArgumentException("toKey out of range");
+            return descending ? new SubMap<>(m, false, toKey, inclusive, toEnd, hi, hiInclusive, true)
+                    : new SubMap<>(m, fromStart, lo, loInclusive, false, toKey, inclusive, false); }
+        @Override public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            if (!inRange(fromKey, inclusive)) throw new IllegalArgumentException("fromKey out of range");
+            return descending ? new SubMap<>(m, fromStart, lo, loInclusive, false, fromKey, inclusive, true)
+                    : new SubMap<>(m, false, fromKey, inclusive, toEnd, hi, hiInclusive, false); }
+        @Override public NavigableMap<K, V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false); }
+        @Override public NavigableMap<K, V> headMap(K toKey) {
+            return headMap(toKey, false); }
+        @Override public NavigableMap<K, V> tailMap(K fromKey) {
+            return tailMap(fromKey, true); }
+
+        @Override public Set<Map.Entry<K, V>> entrySet() {
+            return entrySet != null ? entrySet : (entrySet = m.new EntrySet(this)); }
+
+        @Override public int weight() {
+            return max(fenceWeight() - originWeight(), 0); }
+        @Override public int rank(Object key) {
+            return descending ? max(fenceWeight() - max(originWeight(), m.weightBefore(key, true)), 0)
+                    : max(min(fenceWeight(), m.weightBefore(key, false)) - originWeight(), 0); }
+        @Override public Map.Entry<K, V> weightedEntry(int index) {
+            int origin = originWeight(), fence = fenceWeight();
+            if (index < 0 || index >= fence - origin) throw new IndexOutOfBoundsException("Index: " + index);
+            return m.entry(m.weighted(descending ? fence - 1 - index : origin + index)); }
+        @Override public void reweigh(Object key) {
+            if (inRange(key)) m.reweigh(key); }
+
+        /**
+         * Return the ascending index of the first entry of this view.
+         *
+         * @return the ascending index of the first entry of this view
+         */
+        int origin() {
+            return fromStart ? 0 : m.countBefore(lo, !loInclusive); }
+
+        /**
+         * Return the ascending index following the last entry of this view.
+         *
+         * @return the ascending index following the last entry of this view
+         */
+        int fence() {
+            return toEnd ? m.size() : m.countBefore(hi, hiInclusive); }
+
+        int originWeight() {
+            return fromStart ? 0 : m.weightBefore(lo, !loInclusive); }
+
+        int fenceWeight() {
+            return toEnd ? m.weight() : m.weightBefore(hi, hiInclusive); }
+
+        boolean tooLow(Object key) {
+            if (fromStart) return false; int comparison = m.compare(key, lo);
+            return comparison < 0 || comparison == 0 && !loInclusive; }
+
+        boolean tooHigh(Object key) {
+            if (toEnd) return false; int comparison = m.compare(key, hi);
+            return comparison > 0 || comparison == 0 && !hiInclusive; }
+
+        boolean inRange(Object key) {
+            return !tooLow(key) && !tooHigh(key); }
+
+        boolean inRange(Object key, boolean inclusive) {
+            return inclusive ? inRange(key) : (fromStart || m.compare(key, lo) >= 0) && (toEnd || m.compare(hi, key) >= 0); }
+
+        Map.Entry<K, V> lowest() {
+            return descending ? absHighest() : absLowest(); }
+
+        Map.Entry<K, V> highest() {
+            return descending ? absLowest() : absHighest(); }
+
+        Map.Entry<K, V> absLowest() {
+            return withinHigh(fromStart ? m.first() : m.ceiling(lo, loInclusive)); }
+
+        Map.Entry<K, V> absHighest() {
+            return withinLow(toEnd ? m.last() : m.floor(hi, hiInclusive)); }
+
+        Map.Entry<K, V> absCeiling(Object key) {
+            return tooLow(key) ? absLowest() : withinHigh(m.ceiling(key, true)); }
+
+        Map.Entry<K, V> absHigher(Object key) {
+            return tooLow(key) ? absLowest() : withinHigh(m.ceiling(key, false)); }
+
+        Map.Entry<K, V> absFloor(Object key) {
+            return tooHigh(key) ? absHighest() : withinLow(m.floor(key, true)); }
+
+        Map.Entry<K, V> absLower(Object key) {
+            return tooHigh(key) ? absHighest() : withinLow(m.floor(key, false)); }
+
+        private Map.Entry<K, V> withinHigh(Map.Entry<K, V> entry) {
+            return entry == null || tooHigh(entry.getKey()) ? null : entry; }
+
+        private Map.Entry<K, V> withinLow(Map.Entry<K, V> entry) {
+            return entry == null || tooLow(entry.getKey()) ? null : entry; }
+    }
+
+
+    private void writeObject(ObjectOutputStream output) throws IOException {
+        output.defaultWriteObject(); output.writeInt(size);
+        Node node = root; if (node == null) return;
+        while (node instanceof Inner) node = ((Inner) node).children[0];
+        for (Leaf leaf = (Leaf) node; leaf != null; leaf = leaf.next)
+            for (int slot = 0; slot < leaf.size; slot++) {
+                output.writeObject(leaf.keys[slot]); output.writeObject(leaf.values[slot]); }
+    }
+
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject(); int size;
+        if ((size = input.readInt()) < 0)
+            throw new InvalidObjectException("Negative size: " + size);
+        for (int i = 0; i < size; i++)
+            put(cast(input.readObject()), cast(input.readObject()));
+    }
+
+    private static void recount(Inner inner, int child) {
+        Node node = inner.children[child]; int count = 0, total = 0;
+        if (node instanceof Leaf) {
+            count = node.size; for (int i = 0; i < count; i++) total += ((Leaf) node).weights[i]; }
+        else for (int i = 0; i < node.size; i++) {
+            count += ((Inner) node).counts[i]; total += ((Inner) node).totals[i]; }
+        inner.counts[child] = count; inner.totals[child] = total;
+    }
+
+    private static <K> K key(Map.Entry<K, ?> entry) {
+        if (entry == null) throw new NoSuchElementException(); return entry.getKey();
+    }
+
+    private static <K> K keyOrNull(Map.Entry<K, ?> entry) {
+        return entry != null ? entry.getKey() : null;
+    }
+}
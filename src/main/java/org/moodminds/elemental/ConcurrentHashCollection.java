@@ -0,0 +1,464 @@
+package org.moodminds.elemental;
+
+import org.moodminds.elemental.ConcurrentHashCollection.Bucket;
+import org.moodminds.sneaky.Cast;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.empty;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+import static java.util.stream.Collector.Characteristics.CONCURRENT;
+import static java.util.stream.Collector.Characteristics.IDENTITY_FINISH;
+import static java.util.stream.Collector.Characteristics.UNORDERED;
+import static org.moodminds.elemental.Producer.producer;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * A thread-safe {@link ConcurrentHashMap}-powered implementation of the {@link Collection} interface,
+ * which treats the equal elements as interchangeable and keeps only the first of them
+ * along with the number of its occurrences.
+ * <p>
+ * A single occurrence is kept as a plain map value, more of them are counted by a bucket,
+ * whose counter is updated by compare-and-set without locking. The size is kept by a {@link LongAdder},
+ * so neither the additions nor the removals of the different elements contend with each other.
+ * The {@link #add(Object, int)} and {@link #remove(Object, int)} adjust the number of occurrences atomically.
+ * <p>
+ * The iterators and spliterators are weakly consistent: they never throw {@link java.util.ConcurrentModificationException},
+ * and may or may not reflect the modifications made after their creation. The {@link #size()} is exact only
+ * in the absence of the concurrent modifications. This collection does not permit {@code null} elements.
+ *
+ * @param <E> the element type
+ */
+public class ConcurrentHashCollection<E> extends AbstractHeapCollection<E, Bucket<E>, ConcurrentMap<E, Object>> {
+
+    private static final long serialVersionUID = -6013486539263745410L;
+
+    /**
+     * Collection size holder field.
+     */
+    protected transient LongAdder size;
+
+    /**
+     * Construct the object with the given elements vararg.
+     *
+     * @param elements the given elements vararg
+     */
+    @SafeVarargs
+    public ConcurrentHashCollection(E... elements) {
+        this(new ConcurrentHashMap<>(elements.length), producer(elements));
+    }
+
+    /**
+     * Construct the object with the given elements {@link Stream},
+     * adding the elements concurrently if the stream is parallel.
+     *
+     * @param elements the given elements {@link Stream}
+     */
+    public ConcurrentHashCollection(Stream<? extends E> elements) {
+        this(new ConcurrentHashMap<>(), elements);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Container}.
+     *
+     * @param elements the given elements {@link Container}
+     */
+    public ConcurrentHashCollection(Container<? extends E> elements) {
+        this(new ConcurrentHashMap<>(elements.size()), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link java.util.Collection}.
+     *
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public ConcurrentHashCollection(java.util.Collection<? extends E> elements) {
+        this(new ConcurrentHashMap<>(elements.size()), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Collection}.
+     *
+     * @param elements the given elements {@link Collection}
+     */
+    public ConcurrentHashCollection(Collection<? extends E> elements) {
+        this((java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the specified initial capacity and the default load factor (0.75).
+     *
+     * @param initialCapacity the initial capacity of the hash table
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public ConcurrentHashCollection(int initialCapacity) {
+        this(new ConcurrentHashMap<>(initialCapacity), producer());
+    }
+
+    /**
+     * Construct the object with the specified initial capacity and load factor.
+     *
+     * @param initialCapacity the initial capacity of the hash map
+     * @param loadFactor the load factor of the hash map
+     * @throws IllegalArgumentException if the initial capacity is negative, or if the load factor is not positive
+     */
+    public ConcurrentHashCollection(int initialCapacity, float loadFactor) {
+        this(new ConcurrentHashMap<>(initialCapacity, loadFactor), producer());
+    }
+
+    /**
+     * Construct the object with the given {@link ConcurrentMap}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link ConcurrentMap}
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected ConcurrentHashCollection(ConcurrentMap<E, Object> map, Producer<? extends E> elements) {
+        super(map); size = new LongAdder(); init(elements, Bucket::put, Bucket::new);
+    }
+
+    /**
+     * Construct the object with the given {@link ConcurrentMap} and {@link Stream} of elements,
+     * adding the elements concurrently if the stream is parallel.
+     *
+     * @param map the given {@link ConcurrentMap}
+     * @param elements the given {@link Stream} of elements
+     */
+    protected ConcurrentHashCollection(ConcurrentMap<E, Object> map, Stream<? extends E> elements) {
+        this(map, producer()); elements.forEach(this::add);
+    }
+
+    @Override public int size() {
+        long size = this.size.sum(); return size > MAX_VALUE ? MAX_VALUE : (int) max(size, 0); }
+
+    @Override public boolean add(E element) {
+        add(element, 1); return true; }
+    @Override public boolean remove(Object o) {
+        return remove(o, 1) > 0; }
+
+    @Override public Iterator<E> getAll(Object o) {
+        Object value = map.get(o); return value == null ? EmptyIterator.iterator()
+                : occurrencesIterator(tryBucket(value, bucket -> bucket.element, Cast::cast), tryBucket(value, Bucket::size, unused -> 1)); }
+
+    /**
+     * Add the given number of occurrences of the given element atomically.
+     *
+     * @param element the given element
+     * @param occurrences the given number of occurrences
+     * @return the number of occurrences of the element before the operation
+     * @throws NullPointerException if the element is {@code null}
+     * @throws IllegalArgumentException if the number of occurrences is negative or the resulting count overflows
+     */
+    public int add(E element, int occurrences) {
+        requireNonNull(element); if (occurrences < 0)
+            throw new IllegalArgumentException("Negative occurrences: " + occurrences);
+        if (occurrences == 0) return getCount(element);
+        while (true) {
+            Object value = map.get(element);
+            if (value == null) {
+                if (map.putIfAbsent(element, occurrences == 1 ? element : new Bucket<>(element, occurrences)) == null) {
+                    count(occurrences); return 0; }
+            } else if (isBucket(value)) {
+                Bucket<E> bucket = cast(value); int count = bucket.add(occurrences);
+                if (count > 0) {
+                    count(occurrences); return count; }
+                map.remove(element, bucket);
+            } else if (occurrences == MAX_VALUE)
+                throw new IllegalArgumentException("Count overflow: " + element);
+            else if (map.replace(element, value, new Bucket<>(Cast.<E>cast(value), occurrences + 1))) {
+                count(occurrences); return 1; }
+        }
+    }
+
+    /**
+     * Remove up to the given number of occurrences of the given element atomically.
+     *
+     * @param o the given element
+     * @param occurrences the given number of occurrences
+     * @return the number of occurrences of the element before the operation
+     * @throws NullPointerException if the element is {@code null}
+     * @throws IllegalArgumentException if the number of occurrences is negative
+     */
+    public int remove(Object o, int occurrences) {
+        requireNonNull(o); if (occurrences < 0)
+            throw new IllegalArgumentException("Negative occurrences: " + occurrences);
+        if (occurrences == 0) return getCount(o);
+        while (true) {
+            Object value = map.get(o);
+            if (value == null)
+                return 0;
+            if (isBucket(value)) {
+                Bucket<E> bucket = cast(value); int count = bucket.remove(occurrences);
+                if (count > 0) {
+                    if (count <= occurrences) map.remove(o, bucket);
+                    count(-min(count, occurrences)); return count; }
+                map.remove(o, bucket);
+            } else if (map.remove(o, value)) {
+                count(-1); return 1; }
+        }
+    }
+
+    /**
+     * Remove all the elements, entry by entry, so that the concurrent additions are either kept or removed whole.
+     */
+    @Override
+    public void clear() {
+        for (Entry<E, Object> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            if (isBucket(value)) {
+                Bucket<E> bucket = cast(value); int count = bucket.retire();
+                map.remove(entry.getKey(), bucket); count(-count);
+            } else if (map.remove(entry.getKey(), value))
+                count(-1);
+        }
+    }
+
+    @Override public Iterator<E> iterator() {
+        return new AbstractIterator<E>() {
+
+            final Iterator<Object> values = map.values().iterator(); E element; int remaining;
+
+            @Override protected boolean hasNextElement() {
+                while (remaining == 0 && values.hasNext()) {
+                    Object value = values.next(); element = tryBucket(value, bucket -> bucket.element, Cast::cast);
+                    remaining = tryBucket(value, Bucket::size, unused -> 1); }
+                return remaining > 0; }
+            @Override protected E nextElement() {
+                remaining--; return element; }
+            @Override protected void removeElement() {
+                ConcurrentHashCollection.this.remove(element, 1); }
+        };
+    }
+
+    @Override protected void put(E element) {
+        add(element, 1); }
+    @Override protected boolean isBucket(Object value) {
+        return value instanceof Bucket; }
+
+    @Override protected Optional<Boolean> isDistinct() {
+        return empty(); }
+    @Override protected Optional<Integer> getSize() {
+        return empty(); }
+
+    @Override protected void count(int number) { size.add(number); }
+    @Override protected void countClear() { size.reset(); }
+
+    @Override protected int totalMod() { return 0; }
+    @Override protected void countMod() {}
+
+    /**
+     * Return an {@link Iterator} yielding the given element the given number of times,
+     * removing an occurrence of it on the {@link Iterator#remove()}.
+     *
+     * @param element the given element
+     * @param count the given number of times
+     * @return an {@link Iterator} yielding the given element the given number of times
+     */
+    protected Iterator<E> occurrencesIterator(E element, int count) {
+        return new AbstractIterator<E>() {
+
+            int remaining = count;
+
+            @Override protected boolean hasNextElement() { return remaining > 0; }
+            @Override protected E nextElement() { remaining--; return element; }
+            @Override protected void removeElement() { ConcurrentHashCollection.this.remove(element, 1); }
+        };
+    }
+
+    @Override
+    protected void serialize(ObjectOutputStream output) throws Exception {
+        List<Object> elements = new ArrayList<>(); List<Integer> counts = new ArrayList<>();
+        for (Object value : map.values()) {
+            int count = tryBucket(value, Bucket::size, unused -> 1);
+            if (count > 0) {
+                elements.add(tryBucket(value, bucket -> bucket.element, unused -> value)); counts.add(count); }
+        }
+        output.writeInt(elements.size()); for (int i = 0; i < elements.size(); i++) {
+            output.writeObject(elements.get(i)); output.writeInt(counts.get(i)); }
+    }
+
+    @Override
+    protected void deserialize(ObjectInputStream input) throws Exception {
+        int distinct; if ((distinct = input.readInt()) < 0)
+            throw new InvalidObjectException("Negative size: " + distinct);
+        map = new ConcurrentHashMap<>(distinct); size = new LongAdder(); for (int i = 0; i < distinct; i++) {
+            E element = cast(input.readObject()); int count;
+            if (element == null)
+                throw new InvalidObjectException("Null element");
+            if ((count = input.readInt()) <= 0)
+                throw new InvalidObjectException("Non-positive count: " + count);
+            map.put(element, count == 1 ? element : new Bucket<>(element, count)); size.add(count);
+        }
+    }
+
+    /**
+     * Represents a bucket in this collection, holding the first of the equal elements
+     * along with the number of their occurrences, updated by compare-and-set.
+     * The bucket whose counter dropped to zero is retired: it accepts no more
+     * occurrences and is to be removed from the map by any thread that encounters it.
+     *
+     * @param <E> the type of elements
+     */
+    protected static class Bucket<E> extends AbstractContainer<E> {
+
+        private static final AtomicIntegerFieldUpdater<Bucket<?>> COUNT = cast(newUpdater(Bucket.class, "count"));
+
+        /**
+         * The representative element holding field.
+         */
+        protected final E element;
+
+        /**
+         * The number of occurrences holding field.
+         */
+        protected volatile int count;
+
+        protected Bucket(E first, E second) {
+            this(first, 2); }
+
+        protected Bucket(E element, int count) {
+            this.element = element; this.count = count; }
+
+        protected void put(E element) {
+            COUNT.incrementAndGet(this); }
+
+        /**
+         * Add the given number of occurrences unless this bucket is retired.
+         *
+         * @param occurrences the given positive number of occurrences
+         * @return the number of occurrences before the operation, or {@code 0} if this bucket is retired
+         * @throws IllegalArgumentException if the resulting count overflows
+         */
+        protected int add(int occurrences) {
+            for (int count; (count = this.count) > 0; ) {
+                if (count > MAX_VALUE - occurrences)
+                    throw new IllegalArgumentException("Count overflow: " + element);
+                if (COUNT.compareAndSet(this, count, count + occurrences))
+                    return count;
+            } return 0;
+        }
+
+        /**
+         * Remove up to the given number of occurrences, retiring this bucket if none remains.
+         *
+         * @param occurrences the given positive number of occurrences
+         * @return the number of occurrences before the operation, or {@code 0} if this bucket is retired
+         */
+        protected int remove(int occurrences) {
+            for (int count; (count = this.count) > 0; )
+                if (COUNT.compareAndSet(this, count, max(count - occurrences, 0)))
+                    return count;
+            return 0;
+        }
+
+        /**
+         * Retire this bucket, removing all its occurrences.
+         *
+         * @return the number of occurrences before the operation
+         */
+        protected int retire() {
+            return COUNT.getAndSet(this, 0); }
+
+        @Override public int size() {
+            return count; }
+        @Override public boolean contains() {
+            return count > 0; }
+        @Override public boolean contains(Object o) {
+            return count > 0 && Objects.equals(element, o); }
+        @Override public int getCount(Object o) {
+            return Objects.equals(element, o) ? count : 0; }
+        @Override public Iterator<E> getAll(Object o) {
+            return Objects.equals(element, o) ? iterator() : EmptyIterator.iterator(); }
+
+        @Override public Iterator<E> iterator() {
+            return new AbstractIterator<E>() {
+
+                int remaining = count;
+
+                @Override protected boolean hasNextElement() { return remaining > 0; }
+                @Override protected E nextElement() { remaining--; return element; }
+            };
+        }
+
+        @Override public void forEach(Consumer<? super E> action) {
+            requireNonNull(action); for (int i = count; i > 0; i--) action.accept(element);
+        }
+
+        @Override public Spliterator<E> spliterator() {
+            return spliterator(0, count);
+        }
+
+        /**
+         * Return a {@link Spliterator} yielding the representative element
+         * for each of the occurrences in the given range.
+         *
+         * @param origin the first occurrence index, inclusive
+         * @param fence the last occurrence index, exclusive
+         * @return a {@link Spliterator} yielding the representative element
+         */
+        protected Spliterator<E> spliterator(int origin, int fence) {
+            return new Spliterator<E>() {
+
+                int index = origin;
+
+                @Override public boolean tryAdvance(Consumer<? super E> action) {
+                    requireNonNull(action); if (index >= fence) return false;
+                    index++; action.accept(element); return true; }
+                @Override public void forEachRemaining(Consumer<? super E> action) {
+                    requireNonNull(action); for (; index < fence; index++) action.accept(element); }
+                @Override public Spliterator<E> trySplit() {
+                    int index = this.index, middle = index + fence >>> 1;
+                    return middle > index ? spliterator(index, this.index = middle) : null; }
+                @Override public long estimateSize() {
+                    return fence - index; }
+                @Override public int characteristics() {
+                    return SIZED | SUBSIZED | IMMUTABLE; }
+            };
+        }
+    }
+
+
+    /**
+     * Return a {@link ConcurrentHashCollection} of the given values.
+     *
+     * @param elements the given values
+     * @param <E> the element type
+     * @return a {@link ConcurrentHashCollection} of the given values
+     */
+    @SafeVarargs
+    public static <E> ConcurrentHashCollection<E> collection(E... elements) {
+        return new ConcurrentHashCollection<>(elements);
+    }
+
+    /**
+     * Return a {@link Collector.Characteristics#CONCURRENT concurrent} unordered {@link Collector}
+     * accumulating the elements into a single new {@link ConcurrentHashCollection}.
+     *
+     * @param <E> the element type
+     * @return a concurrent unordered {@link Collector} accumulating the elements into a new {@link ConcurrentHashCollection}
+     */
+    public static <E> Collector<E, ?, ConcurrentHashCollection<E>> toCollection() {
+        return Collector.of(() -> new ConcurrentHashCollection<>(new ConcurrentHashMap<>(), producer()), ConcurrentHashCollection::add,
+                (left, right) -> { left.addAll(right); return left; }, CONCURRENT, UNORDERED, IDENTITY_FINISH);
+    }
+}
@@ -0,0 +1,621 @@
+package org.moodminds.elemental;
+
+import org.moodminds.elemental.ConcurrentTreeCollection.Bucket;
+import org.moodminds.sneaky.Cast;
+
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.max;
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.empty;
+import static java.util.stream.Collector.Characteristics.CONCURRENT;
+import static java.util.stream.Collector.Characteristics.IDENTITY_FINISH;
+import static org.moodminds.elemental.Producer.producer;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * A thread-safe {@link ConcurrentSkipListMap}-powered implementation of the {@link NavigableCollection} interface.
+ * <p>
+ * A single element is kept as a plain map value, the equal ones are gathered into an immutable array bucket,
+ * which is replaced by a copy on each addition and removal, so that every update is a single compare-and-set
+ * of the map value and the distinct equal elements are all preserved. The size is kept by a {@link LongAdder},
+ * so neither the additions nor the {@link #pollFirst()} and {@link #pollLast()} of the different elements
+ * contend with each other beyond the skip list itself.
+ * <p>
+ * The iterators, spliterators and sub-views are weakly consistent: they never throw
+ * {@link java.util.ConcurrentModificationException}, and may or may not reflect the modifications made
+ * after their creation. The {@link #size()} is exact only in the absence of the concurrent modifications,
+ * and is calculated by traversal for the sub-views. This collection does not permit {@code null} elements.
+ *
+ * @param <E> the element type
+ */
+public class ConcurrentTreeCollection<E> extends AbstractHeapCollection<E, Bucket<E>, ConcurrentNavigableMap<E, Object>>
+        implements NavigableCollection<E> {
+
+    private static final long serialVersionUID = 3570226512974103368L;
+
+    /**
+     * Collection size holder field.
+     */
+    protected transient LongAdder size;
+
+    /**
+     * Construct the object with the given elements vararg.
+     *
+     * @param elements the given elements vararg
+     */
+    @SafeVarargs
+    public ConcurrentTreeCollection(E... elements) {
+        this(new ConcurrentSkipListMap<>(), producer(elements));
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements array.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements array
+     */
+    @SafeVarargs
+    public ConcurrentTreeCollection(Comparator<? super E> comparator, E... elements) {
+        this(new ConcurrentSkipListMap<>(comparator), producer(elements));
+    }
+
+    /**
+     * Construct the object with the given elements {@link Stream},
+     * adding the elements concurrently if the stream is parallel.
+     *
+     * @param elements the given elements {@link Stream}
+     */
+    public ConcurrentTreeCollection(Stream<? extends E> elements) {
+        this(new ConcurrentSkipListMap<>(), elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Stream},
+     * adding the elements concurrently if the stream is parallel.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Stream}
+     */
+    public ConcurrentTreeCollection(Comparator<? super E> comparator, Stream<? extends E> elements) {
+        this(new ConcurrentSkipListMap<>(comparator), elements);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Container}.
+     *
+     * @param elements the given elements {@link Container}
+     */
+    public ConcurrentTreeCollection(Container<? extends E> elements) {
+        this(new ConcurrentSkipListMap<>(), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Container}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Container}
+     */
+    public ConcurrentTreeCollection(Comparator<? super E> comparator, Container<? extends E> elements) {
+        this(new ConcurrentSkipListMap<>(comparator), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link java.util.Collection}.
+     *
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public ConcurrentTreeCollection(java.util.Collection<? extends E> elements) {
+        this(new ConcurrentSkipListMap<>(), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link java.util.Collection}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public ConcurrentTreeCollection(Comparator<? super E> comparator, java.util.Collection<? extends E> elements) {
+        this(new ConcurrentSkipListMap<>(comparator), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Collection}.
+     *
+     * @param elements the given elements {@link Collection}
+     */
+    public ConcurrentTreeCollection(Collection<? extends E> elements) {
+        this((java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Collection}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Collection}
+     */
+    public ConcurrentTreeCollection(Comparator<? super E> comparator, Collection<? extends E> elements) {
+        this(comparator, (java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the given {@link ConcurrentNavigableMap map}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link ConcurrentNavigableMap map}
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected ConcurrentTreeCollection(ConcurrentNavigableMap<E, Object> map, Producer<? extends E> elements) {
+        super(map); size = new LongAdder(); elements.provide(this::add);
+    }
+
+    /**
+     * Construct the object with the given {@link ConcurrentNavigableMap map} and {@link Stream} of elements,
+     * adding the elements concurrently if the stream is parallel.
+     *
+     * @param map the given {@link ConcurrentNavigableMap map}
+     * @param elements the given {@link Stream} of elements
+     */
+    protected ConcurrentTreeCollection(ConcurrentNavigableMap<E, Object> map, Stream<? extends E> elements) {
+        this(map, producer()); elements.forEach(this::add);
+    }
+
+    /**
+     * Construct the sub-view object with the given {@link ConcurrentNavigableMap map}.
+     *
+     * @param map the given {@link ConcurrentNavigableMap map}
+     */
+    protected ConcurrentTreeCollection(ConcurrentNavigableMap<E, Object> map) {
+        super(map);
+    }
+
+    @Override public int size() {
+        long size = this.size.sum(); return size > MAX_VALUE ? MAX_VALUE : (int) max(size, 0); }
+
+    @Override public boolean add(E element) {
+        map.merge(element, element, Bucket::merge); count(1); return true; }
+
+    @Override public boolean remove(Object o) {
+        while (true) {
+            Object value = map.get(o);
+            if (value == null)
+                return false;
+            if (update(cast(o), value, isBucket(value) ? Cast.<Bucket<E>>cast(value).without(0) : null)) {
+                count(-1); return true; }
+        }
+    }
+
+    /**
+     * Remove all the elements, entry by entry, so that the concurrent additions to an entry being removed are kept.
+     */
+    @Override
+    public void clear() {
+        for (Entry<E, Object> entry : map.entrySet())
+            if (update(entry.getKey(), entry.getValue(), null))
+                count(-tryBucket(entry.getValue(), Container::size, unused -> 1));
+    }
+
+    @Override public E pollFirst() {
+        return poll(true); }
+    @Override public E pollLast() {
+        return poll(false); }
+
+    /**
+     * Remove up to the given number of the first elements of this collection, passing each of them to the given action.
+     * Each element is removed atomically before it is passed to the action, so if the action throws,
+     * the element it fails on is removed already, while the following ones stay in this collection.
+     *
+     * @param max the given maximum number of the elements to remove
+     * @param action the given action to perform on each removed element
+     * @return the number of the removed elements
+     * @throws IllegalArgumentException if the maximum number is negative
+     * @throws NullPointerException if the action is {@code null}
+     */
+    public int pollFirst(int max, Consumer<? super E> action) {
+        return poll(true, max, action); }
+
+    /**
+     * Remove up to the given number of the last elements of this collection, passing each of them to the given action.
+     * Each element is removed atomically before it is passed to the action, so if the action throws,
+     * the element it fails on is removed already, while the following ones stay in this collection.
+     *
+     * @param max the given maximum number of the elements to remove
+     * @param action the given action to perform on each removed element
+     * @return the number of the removed elements
+     * @throws IllegalArgumentException if the maximum number is negative
+     * @throws NullPointerException if the action is {@code null}
+     */
+    public int pollLast(int max, Consumer<? super E> action) {
+        return poll(false, max, action); }
+
+    @Override public Comparator<? super E> comparator() {
+        return map.comparator(); }
+
+    @Override public Iterator<E> getAll(Object o) {
+        Object value = map.get(o); return value != null ? entryIterator(cast(o), value) : EmptyIterator.iterator(); }
+    @Override public Iterator<E> firstAll() {
+        return entryIterator(map.firstEntry()); }
+    @Override public Iterator<E> lastAll() {
+        return entryIterator(map.lastEntry()); }
+    @Override public Iterator<E> lowerAll(E e) {
+        return entryIterator(map.lowerEntry(e)); }
+    @Override public Iterator<E> floorAll(E e) {
+        return entryIterator(map.floorEntry(e)); }
+    @Override public Iterator<E> ceilingAll(E e) {
+        return entryIterator(map.ceilingEntry(e)); }
+    @Override public Iterator<E> higherAll(E e) {
+        return entryIterator(map.higherEntry(e)); }
+
+    @Override public NavigableCollection<E> sub(E fromElement, E toElement) {
+        return view(map.subMap(fromElement, toElement)); }
+    @Override public NavigableCollection<E> head(E toElement) {
+        return view(map.headMap(toElement)); }
+    @Override public NavigableCollection<E> tail(E fromElement) {
+        return view(map.tailMap(fromElement)); }
+
+    @Override public NavigableCollection<E> descending() {
+        return view(map.descendingMap()); }
+
+    @Override public NavigableCollection<E> sub(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        return view(map.subMap(fromElement, fromInclusive, toElement, toInclusive)); }
+    @Override public NavigableCollection<E> head(E toElement, boolean inclusive) {
+        return view(map.headMap(toElement, inclusive)); }
+    @Override public NavigableCollection<E> tail(E fromElement, boolean inclusive) {
+        return view(map.tailMap(fromElement, inclusive)); }
+
+    @Override public Iterator<E> iterator() {
+        return new AbstractIterator<E>() {
+
+            final Iterator<Entry<E, Object>> entries = map.entrySet().iterator();
+
+            E key, current; Object value; int index, fence;
+
+            @Override protected boolean hasNextElement() {
+                while (index == fence && entries.hasNext()) {
+                    Entry<E, Object> entry = entries.next(); key = entry.getKey(); value = entry.getValue();
+                    index = 0; fence = tryBucket(value, Container::size, unused -> 1); }
+                return index < fence; }
+            @Override protected E nextElement() {
+                return current = element(value, index++); }
+            @Override protected void removeElement() {
+                ConcurrentTreeCollection.this.remove(key, current); }
+        };
+    }
+
+    @Override protected void put(E element) {
+        add(element); }
+    @Override protected boolean isBucket(Object value) {
+        return value instanceof Bucket; }
+
+    @Override protected Optional<Boolean> isDistinct() {
+        return empty(); }
+    @Override protected Optional<Integer> getSize() {
+        return empty(); }
+
+    @Override protected void count(int number) { size.add(number); }
+    @Override protected void countClear() { size.reset(); }
+
+    @Override protected int totalMod() { return 0; }
+    @Override protected void countMod() {}
+
+    /**
+     * Retrieve and remove the first element of the first or the last entry.
+     *
+     * @param first {@code true} for the first entry, {@code false} for the last one
+     * @return the removed element, or {@code null} if this collection is empty
+     */
+    protected E poll(boolean first) {
+        while (true) {
+            Entry<E, Object> entry = first ? map.firstEntry() : map.lastEntry();
+            if (entry == null)
+                return null;
+            E key = entry.getKey(); Object value = entry.getValue();
+            if (isBucket(value)) {
+                Bucket<E> bucket = cast(value);
+                if (update(key, value, bucket.without(0))) {
+                    count(-1); return bucket.get(0); }
+            } else if (update(key, value, null)) {
+                count(-1); return cast(value); }
+        }
+    }
+
+    /**
+     * Remove up to the given number of the elements of the first or the last entries one by one,
+     * passing each of them to the given action.
+     *
+     * @param first {@code true} for the first entries, {@code false} for the last ones
+     * @param max the given maximum number of the elements to remove
+     * @param action the given action to perform on each removed element
+     * @return the number of the removed elements
+     */
+    protected int poll(boolean first, int max, Consumer<? super E> action) {
+        if (max < 0)
+            throw new IllegalArgumentException("Negative max: " + max);
+        requireNonNull(action); int count = 0;
+        for (E element; count < max && (element = poll(first)) != null; count++)
+            action.accept(element);
+        return count;
+    }
+
+    /**
+     * Remove the given element instance kept under the given key, if it is still there.
+     *
+     * @param key the given key
+     * @param element the given element instance
+     * @return {@code true} if the element was removed, {@code false} otherwise
+     */
+    protected boolean remove(E key, Object element) {
+        while (true) {
+            Object value = map.get(key);
+            if (isBucket(value)) {
+                Bucket<E> bucket = cast(value); int index = bucket.indexOf(element);
+                if (index < 0)
+                    return false;
+                if (update(key, value, bucket.without(index))) {
+                    count(-1); return true; }
+            } else if (value != element)
+                return false;
+            else if (update(key, value, null)) {
+                count(-1); return true; }
+        }
+    }
+
+    /**
+     * Replace the given value of the given key with the given replacement, or remove the entry if the replacement
+     * is {@code null}, only if the key is still mapped to the very same value instance. The values are compared
+     * by identity, so that neither an equal element put in between is taken for the one read and removed twice,
+     * nor is it lost.
+     *
+     * @param key the given key
+     * @param value the given value instance read
+     * @param replacement the given replacement, or {@code null} to remove the entry
+     * @return {@code true} if the value was replaced or removed, {@code false} otherwise
+     */
+    protected boolean update(E key, Object value, Object replacement) {
+        Object expected = isBucket(value) ? value : new Instance(value);
+        return replacement != null ? map.replace(key, expected, replacement) : map.remove(key, expected);
+    }
+
+    /**
+     * Return an {@link Iterator} over the elements of the given entry, removing them by their instances.
+     *
+     * @param entry the given entry, may be {@code null}
+     * @return an {@link Iterator} over the elements of the given entry
+     */
+    protected Iterator<E> entryIterator(Entry<E, Object> entry) {
+        return entry != null ? entryIterator(entry.getKey(), entry.getValue()) : EmptyIterator.iterator();
+    }
+
+    /**
+     * Return an {@link Iterator} over the elements of the given value kept under the given key,
+     * removing them by their instances.
+     *
+     * @param key the given key
+     * @param value the given value, either a single element or a bucket
+     * @return an {@link Iterator} over the elements of the given value
+     */
+    protected Iterator<E> entryIterator(E key, Object value) {
+        return new AbstractIterator<E>() {
+
+            final int fence = tryBucket(value, Container::size, unused -> 1); int index; E current;
+
+            @Override protected boolean hasNextElement() { return index < fence; }
+            @Override protected E nextElement() { return current = element(value, index++); }
+            @Override protected void removeElement() { ConcurrentTreeCollection.this.remove(key, current); }
+        };
+    }
+
+    /**
+     * Return a sub-view of this collection over the given {@link ConcurrentNavigableMap map}.
+     *
+     * @param map the given {@link ConcurrentNavigableMap map}
+     * @return a sub-view of this collection
+     */
+    protected NavigableCollection<E> view(ConcurrentNavigableMap<E, Object> map) {
+        return new SubCollection<>(this, map);
+    }
+
+    /**
+     * Return the number of elements kept in the given {@link Map map}, calculated by traversal.
+     *
+     * @param map the given {@link Map map}
+     * @return the number of elements kept in the given map
+     */
+    protected long weigh(Map<E, Object> map) {
+        long weight = 0; for (Object value : map.values())
+            weight += tryBucket(value, Container::size, unused -> 1);
+        return weight;
+    }
+
+    private E element(Object value, int index) {
+        return isBucket(value) ? Cast.<Bucket<E>>cast(value).get(index) : cast(value);
+    }
+
+    @Override
+    protected void serialize(ObjectOutputStream output) throws Exception {
+        output.writeObject(map);
+    }
+
+    @Override
+    protected void deserialize(ObjectInputStream input) throws Exception {
+        map = cast(input.readObject()); size = new LongAdder(); size.add(weigh(map));
+    }
+
+    /**
+     * A weakly consistent sub-view of the {@link ConcurrentTreeCollection}, whose size is calculated by traversal.
+     *
+     * @param <E> the element type
+     */
+    protected static class SubCollection<E> extends ConcurrentTreeCollection<E> {
+
+        private static final long serialVersionUID = -4512093307562380953L;
+
+        /**
+         * The root collection holder field.
+         */
+        protected final ConcurrentTreeCollection<E> root;
+
+        protected SubCollection(ConcurrentTreeCollection<E> root, ConcurrentNavigableMap<E, Object> map) {
+            super(map); this.root = root; }
+
+        @Override public int size() {
+            long size = weigh(map); return size > MAX_VALUE ? MAX_VALUE : (int) size; }
+
+        @Override protected void count(int number) { root.count(number); }
+        @Override protected void countClear() {}
+
+        @Override protected NavigableCollection<E> view(ConcurrentNavigableMap<E, Object> map) {
+            return new SubCollection<>(root, map); }
+
+        @Override protected void deserialize(ObjectInputStream input) throws Exception {
+            map = cast(input.readObject()); }
+    }
+
+    /**
+     * Represents an immutable bucket in this collection, holding the equal elements in an array.
+     * It is replaced by a modified copy on each update and is compared by identity,
+     * as the map compares the values on its conditional updates.
+     *
+     * @param <E> the type of elements
+     */
+    protected static class Bucket<E> extends ArraySequence<E> {
+
+        private static final long serialVersionUID = -2251606813694590451L;
+
+        protected Bucket(Object[] array) {
+            super(Cast.<E[]>cast(array)); }
+
+        protected Bucket(E first, E second) {
+            this(new Object[] {first, second}); }
+
+        /**
+         * Return a copy of this bucket with the given element appended.
+         *
+         * @param element the given element
+         * @return a copy of this bucket with the given element appended
+         */
+        protected Bucket<E> with(E element) {
+            Object[] array = copyOf(this.array, size + 1); array[size] = element; return new Bucket<>(array); }
+
+        /**
+         * Return a copy of this bucket without the element at the given index,
+         * or the single remaining element if just one remains.
+         *
+         * @param index the given index
+         * @return a copy of this bucket without the element at the given index, or the remaining element
+         */
+        protected Object without(int index) {
+            if (size == 2) return array[1 - index]; Object[] array = new Object[size - 1];
+            arraycopy(this.array, 0, array, 0, index); arraycopy(this.array, index + 1, array, index, size - index - 1);
+            return new Bucket<>(array); }
+
+        /**
+         * Return the index of the given element instance, or {@code -1} if absent.
+         *
+         * @param element the given element instance
+         * @return the index of the given element instance, or {@code -1} if absent
+         */
+        protected int indexOf(Object element) {
+            for (int i = 0; i < size; i++) if (array[i] == element) return i; return -1; }
+
+        @Override public boolean equals(Object obj) {
+            return this == obj; }
+        @Override public int hashCode() {
+            return System.identityHashCode(this); }
+
+        /**
+         * Merge the given present map value, either a single element or a bucket, with the given added element.
+         *
+         * @param present the given present map value
+         * @param element the given added element
+         * @return the bucket holding both the present and added elements
+         */
+        protected static Object merge(Object present, Object element) {
+            return present instanceof Bucket ? Cast.<Bucket<Object>>cast(present).with(element) : new Bucket<>(present, element); }
+    }
+
+    /**
+     * Represents the expected single element value of a conditional map update, equal to the very same
+     * element instance only, as the map compares the expected value to the present one by its equals method.
+     */
+    protected static class Instance {
+
+        /**
+         * The expected element instance holder field.
+         */
+        protected final Object element;
+
+        protected Instance(Object element) {
+            this.element = element; }
+
+        @Override public boolean equals(Object obj) {
+            return obj == element; }
+        @Override public int hashCode() {
+            return System.identityHashCode(element); }
+    }
+
+
+    /**
+     * Return a {@link ConcurrentTreeCollection} of the given {@link Comparable} values.
+     *
+     * @param elements the given {@link Comparable} values
+     * @param <E> the element type
+     * @return a {@link ConcurrentTreeCollection} of the given {@link Comparable} values
+     */
+    @SafeVarargs
+    public static <E extends Comparable<E>> ConcurrentTreeCollection<E> collection(E... elements) {
+        return new ConcurrentTreeCollection<>(elements);
+    }
+
+    /**
+     * Return a {@link ConcurrentTreeCollection} of the given {@link Comparator} of the given values.
+     *
+     * @param comparator the given values {@link Comparator}
+     * @param elements the given values
+     * @param <E> the element type
+     * @return a {@link ConcurrentTreeCollection} of the given {@link Comparator} of the given values
+     */
+    @SafeVarargs
+    public static <E> ConcurrentTreeCollection<E> collection(Comparator<? super E> comparator, E... elements) {
+        return new ConcurrentTreeCollection<>(comparator, elements);
+    }
+
+    /**
+     * Return a {@link Collector.Characteristics#CONCURRENT concurrent} {@link Collector}
+     * accumulating the {@link Comparable} elements into a single new {@link ConcurrentTreeCollection}.
+     *
+     * @param <E> the element type
+     * @return a concurrent {@link Collector} accumulating the elements into a new {@link ConcurrentTreeCollection}
+     */
+    public static <E extends Comparable<E>> Collector<E, ?, ConcurrentTreeCollection<E>> toCollection() {
+        return toCollection(null);
+    }
+
+    /**
+     * Return a {@link Collector.Characteristics#CONCURRENT concurrent} {@link Collector}
+     * accumulating the elements into a single new {@link ConcurrentTreeCollection} of the given {@link Comparator}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param <E> the element type
+     * @return a concurrent {@link Collector} accumulating the elements into a new {@link ConcurrentTreeCollection}
+     */
+    public static <E> Collector<E, ?, ConcurrentTreeCollection<E>> toCollection(Comparator<? super E> comparator) {
+        return Collector.of(() -> new ConcurrentTreeCollection<>(new ConcurrentSkipListMap<>(comparator), producer()), ConcurrentTreeCollection::add,
+                (left, right) -> { left.addAll(right); return left; }, CONCURRENT, IDENTITY_FINISH);
+    }
+}
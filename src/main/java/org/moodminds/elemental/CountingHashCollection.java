@@ -0,0 +1,238 @@
+package org.moodminds.elemental;
+
+import org.moodminds.elemental.CountingHashCollection.Bucket;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static java.lang.Math.max;
+import static java.util.Optional.of;
+import static java.util.stream.Collector.Characteristics.UNORDERED;
+import static org.moodminds.elemental.Producer.producer;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * An {@link OpenHashMap}-powered implementation of the {@link Collection} interface,
+ * which treats the equal elements as interchangeable and keeps only the first of them
+ * along with the number of its occurrences.
+ * <p>
+ * The {@link #getAll(Object)} yields the kept representative as many times as the equal
+ * elements were added, so the duplicates identity is not preserved. Adding and removing
+ * a duplicate is a mere update of its counter.
+ *
+ * @param <E> the element type
+ */
+public class CountingHashCollection<E> extends AbstractHeapCollection<E, Bucket<E>, Map<E, Object>> {
+
+    private static final long serialVersionUID = 5471093648210937513L;
+
+    /**
+     * The {@link OpenHashMap} weigher of the values, weighing a bucket by its size and a single element by one.
+     */
+    private static final ToIntFunction<Object> WEIGHER = weigher(Bucket.class);
+
+    /**
+     * Collection size holder field.
+     */
+    protected transient int size;
+
+    /**
+     * Modification count holder field.
+     */
+    protected transient int modCount;
+
+    /**
+     * Construct the object with the given elements vararg.
+     *
+     * @param elements the given elements vararg
+     */
+    @SafeVarargs
+    public CountingHashCollection(E... elements) {
+        this(new OpenHashMap<>(capacity(elements.length), WEIGHER), producer(elements));
+    }
+
+    /**
+     * Construct the object with the given elements {@link Stream}.
+     *
+     * @param elements the given elements {@link Stream}
+     */
+    public CountingHashCollection(Stream<? extends E> elements) {
+        this(new OpenHashMap<>(WEIGHER), elements);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Container}.
+     *
+     * @param elements the given elements {@link Container}
+     */
+    public CountingHashCollection(Container<? extends E> elements) {
+        this(new OpenHashMap<>(capacity(elements.size()), WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link java.util.Collection}.
+     *
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public CountingHashCollection(java.util.Collection<? extends E> elements) {
+        this(new OpenHashMap<>(capacity(elements.size()), WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Collection}.
+     *
+     * @param elements the given elements {@link Collection}
+     */
+    public CountingHashCollection(Collection<? extends E> elements) {
+        this((java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the specified initial capacity and the default load factor (0.75).
+     *
+     * @param initialCapacity the initial capacity of the hash table
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public CountingHashCollection(int initialCapacity) {
+        this(new OpenHashMap<>(initialCapacity, WEIGHER), producer());
+    }
+
+    /**
+     * Construct the object with the specified initial capacity and load factor.
+     *
+     * @param initialCapacity the initial capacity of the hash map
+     * @param loadFactor the load factor of the hash map
+     * @throws IllegalArgumentException if the initial capacity is negative, or if the load factor is not positive
+     */
+    public CountingHashCollection(int initialCapacity, float loadFactor) {
+        this(new OpenHashMap<>(initialCapacity, loadFactor, WEIGHER), producer());
+    }
+
+    /**
+     * Construct the object with the given {@link OpenHashMap}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link OpenHashMap}
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected CountingHashCollection(OpenHashMap<E, Object> map, Producer<? extends E> elements) {
+        super(map, elements, Bucket::put, Bucket::new);
+    }
+
+    /**
+     * Construct the object with the given {@link OpenHashMap} and {@link Stream} of elements,
+     * building the partial collections in parallel if the stream is parallel.
+     *
+     * @param map the given {@link OpenHashMap}
+     * @param elements the given {@link Stream} of elements
+     */
+    protected CountingHashCollection(OpenHashMap<E, Object> map, Stream<? extends E> elements) {
+        super(map, elements, toCollection(), Bucket::put, Bucket::new);
+    }
+
+    @Override public int size() {
+        return size; }
+
+    @Override protected Optional<Boolean> isDistinct() {
+        return of(size == map.size()); }
+    @Override protected Optional<Integer> getSize() {
+        return of(size); }
+
+    @Override protected void put(E element) {
+        put(Bucket::put, Bucket::new, element); }
+    @Override protected boolean isBucket(Object value) {
+        return value instanceof Bucket; }
+
+    @Override protected void count(int number) { size = size + number; }
+    @Override protected void countClear() { size = 0; }
+
+    @Override protected int totalMod() { return modCount; }
+    @Override protected void countMod() { modCount++; }
+
+    @Override
+    protected void serialize(ObjectOutputStream output) throws Exception {
+        output.writeInt(map.size()); for (Object value : map.values())
+            if (isBucket(value)) {
+                Bucket<E> bucket = cast(value); output.writeObject(bucket.element); output.writeInt(bucket.count);
+            } else {
+                output.writeObject(value); output.writeInt(1); }
+    }
+
+    @Override
+    protected void deserialize(ObjectInputStream input) throws Exception {
+        int distinct; if ((distinct = input.readInt()) < 0)
+            throw new InvalidObjectException("Negative size: " + distinct);
+        map = new OpenHashMap<>(capacity(distinct), WEIGHER); for (int i = 0; i < distinct; i++) {
+            E element = cast(input.readObject()); int count;
+            if ((count = input.readInt()) <= 0)
+                throw new InvalidObjectException("Non-positive count: " + count);
+            map.put(element, count == 1 ? element : new Bucket<>(element, count)); size = size + count;
+        }
+    }
+
+    /**
+     * Represents a bucket in this collection, holding the first of the equal elements
+     * along with the number of their occurrences, which are removable by its {@link Iterator}.
+     *
+     * @param <E> the type of elements
+     */
+    protected static class Bucket<E> extends CountingHashContainer.Bucket<E> {
+
+        protected Bucket(E first, E second) {
+            super(first, second); }
+
+        protected Bucket(E element, int count) {
+            super(element, count); }
+
+        @Override public Iterator<E> iterator() {
+            return new AbstractIterator<E>() {
+
+                int index;
+
+                @Override protected boolean hasNextElement() { return index < count; }
+                @Override protected E nextElement() { index++; return element; }
+                @Override protected void removeElement() { index--; count--; }
+            };
+        }
+    }
+
+    /**
+     * Calculate the initial {@link OpenHashMap} capacity basing on the given size.
+     *
+     * @param size the given size
+     * @return the initial {@link OpenHashMap} capacity basing on the given size
+     */
+    protected static int capacity(int size) {
+        return max((int) (size/.75f) + 1, 16);
+    }
+
+    /**
+     * Return a {@link CountingHashCollection} of the given values.
+     *
+     * @param elements the given values
+     * @param <E> the element type
+     * @return a {@link CountingHashCollection} of the given values
+     */
+    @SafeVarargs
+    public static <E> CountingHashCollection<E> collection(E... elements) {
+        return new CountingHashCollection<>(elements);
+    }
+
+    /**
+     * Return an unordered {@link Collector} accumulating the elements into a new {@link CountingHashCollection},
+     * which merges the partial collections of a parallel stream bucket-wise.
+     *
+     * @param <E> the element type
+     * @return an unordered {@link Collector} accumulating the elements into a new {@link CountingHashCollection}
+     */
+    public static <E> Collector<E, ?, CountingHashCollection<E>> toCollection() {
+        return collector(() -> new CountingHashCollection<>(new OpenHashMap<>(WEIGHER), producer()), Bucket::put, Bucket::new, UNORDERED);
+    }
+}
@@ -0,0 +1,272 @@
+package org.moodminds.elemental;
+
+import org.moodminds.elemental.CountingHashContainer.Bucket;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.of;
+import static java.util.stream.Collector.Characteristics.UNORDERED;
+import static org.moodminds.elemental.Producer.producer;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * An {@link OpenHashMap}-powered implementation of the {@link Container} interface,
+ * which treats the equal elements as interchangeable and keeps only the first of them
+ * along with the number of its occurrences.
+ * <p>
+ * The {@link #getAll(Object)} yields the kept representative as many times as the equal
+ * elements were provided, so the duplicates identity is not preserved.
+ *
+ * @param <E> the element type
+ */
+public class CountingHashContainer<E> extends AbstractHeapContainer<E, Bucket<E>, Map<E, Object>> {
+
+    private static final long serialVersionUID = -2978183318441560207L;
+
+    /**
+     * The {@link OpenHashMap} weigher of the values, weighing a bucket by its size and a single element by one.
+     */
+    private static final ToIntFunction<Object> WEIGHER = weigher(Bucket.class);
+
+    /**
+     * Container size holder field.
+     */
+    protected transient int size;
+
+    /**
+     * Construct the object with the given elements array.
+     *
+     * @param elements the given elements array
+     */
+    @SafeVarargs
+    public CountingHashContainer(E... elements) {
+        this(new OpenHashMap<>(capacity(elements.length), WEIGHER), producer(elements));
+    }
+
+    /**
+     * Construct the object with the given elements {@link Stream}.
+     *
+     * @param elements the given elements {@link Stream}
+     */
+    public CountingHashContainer(Stream<? extends E> elements) {
+        this(new OpenHashMap<>(WEIGHER), elements);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Container}.
+     *
+     * @param elements the given elements {@link Container}
+     */
+    public CountingHashContainer(Container<? extends E> elements) {
+        this(new OpenHashMap<>(capacity(elements.size()), WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link java.util.Collection}.
+     *
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public CountingHashContainer(java.util.Collection<? extends E> elements) {
+        this(new OpenHashMap<>(capacity(elements.size()), WEIGHER), elements::forEach);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Collection}.
+     *
+     * @param elements the given elements {@link Collection}
+     */
+    public CountingHashContainer(Collection<? extends E> elements) {
+        this((java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the given {@link OpenHashMap}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link OpenHashMap}
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected CountingHashContainer(OpenHashMap<E, Object> map, Producer<? extends E> elements) {
+        super(map, elements, Bucket::put, Bucket::new);
+    }
+
+    /**
+     * Construct the object with the given {@link OpenHashMap} and {@link Stream} of elements,
+     * building the partial containers in parallel if the stream is parallel.
+     *
+     * @param map the given {@link OpenHashMap}
+     * @param elements the given {@link Stream} of elements
+     */
+    protected CountingHashContainer(OpenHashMap<E, Object> map, Stream<? extends E> elements) {
+        super(map, elements, toContainer(), Bucket::put, Bucket::new);
+    }
+
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
+    @Override public int size() {
+        return size; }
+
+    @Override protected Optional<Boolean> isDistinct() {
+        return of(size == map.size()); }
+    @Override protected Optional<Integer> getSize() {
+        return of(size); }
+
+    @Override protected void count(int number) { size = size + number; }
+
+    @Override protected boolean isBucket(Object value) {
+        return value instanceof Bucket; }
+
+    @Override
+    protected void serialize(ObjectOutputStream output) throws Exception {
+        output.writeInt(map.size()); for (Object value : map.values())
+            if (isBucket(value)) {
+                Bucket<E> bucket = cast(value); output.writeObject(bucket.element); output.writeInt(bucket.count);
+            } else {
+                output.writeObject(value); output.writeInt(1); }
+    }
+
+    @Override
+    protected void deserialize(ObjectInputStream input) throws Exception {
+        int distinct; if ((distinct = input.readInt()) < 0)
+            throw new InvalidObjectException("Negative size: " + distinct);
+        map = new OpenHashMap<>(capacity(distinct), WEIGHER); for (int i = 0; i < distinct; i++) {
+            E element = cast(input.readObject()); int count;
+            if ((count = input.readInt()) <= 0)
+                throw new InvalidObjectException("Non-positive count: " + count);
+            map.put(element, count == 1 ? element : new Bucket<>(element, count)); size = size + count;
+        }
+    }
+
+    /**
+     * Represents a bucket in this container, holding the first of the equal elements
+     * along with the number of their occurrences.
+     *
+     * @param <E> the type of elements
+     */
+    protected static class Bucket<E> extends AbstractContainer<E> {
+
+        /**
+         * The representative element holding field.
+         */
+        protected final E element;
+
+        /**
+         * The number of occurrences holding field.
+         */
+        protected int count;
+
+        protected Bucket(E first, E second) {
+            this(first, 2); }
+
+        protected Bucket(E element, int count) {
+            this.element = element; this.count = count; }
+
+        protected void put(E element) {
+            count++; }
+
+        @Override public int size() {
+            return count; }
+        @Override public boolean contains() {
+            return count > 0; }
+        @Override public boolean contains(Object o) {
+            return count > 0 && Objects.equals(element, o); }
+        @Override public int getCount(Object o) {
+            return Objects.equals(element, o) ? count : 0; }
+        @Override public Iterator<E> getAll(Object o) {
+            return Objects.equals(element, o) ? iterator() : EmptyIterator.iterator(); }
+
+        @Override public Iterator<E> iterator() {
+            return new AbstractIterator<E>() {
+
+                int index;
+
+                @Override protected boolean hasNextElement() { return index < count; }
+                @Override protected E nextElement() { index++; return element; }
+            };
+        }
+
+        @Override public void forEach(Consumer<? super E> action) {
+            requireNonNull(action); for (int i = 0; i < count; i++) action.accept(element);
+        }
+
+        @Override public Spliterator<E> spliterator() {
+            return spliterator(0, count);
+        }
+
+        /**
+         * Return a {@link Spliterator} yielding the representative element
+         * for each of the occurrences in the given range.
+         *
+         * @param origin the first occurrence index, inclusive
+         * @param fence the last occurrence index, exclusive
+         * @return a {@link Spliterator} yielding the representative element
+         */
+        protected Spliterator<E> spliterator(int origin, int fence) {
+            return new Spliterator<E>() {
+
+                int index = origin;
+
+                @Override public boolean tryAdvance(Consumer<? super E> action) {
+                    requireNonNull(action); if (index >= fence) return false;
+                    index++; action.accept(element); return true; }
+                @Override public void forEachRemaining(Consumer<? super E> action) {
+                    requireNonNull(action); for (; index < fence; index++) action.accept(element); }
+                @Override public Spliterator<E> trySplit() {
+                    int index = this.index, middle = index + fence >>> 1;
+                    return middle > index ? spliterator(index, this.index = middle) : null; }
+                @Override public long estimateSize() {
+                    return fence - index; }
+                @Override public int characteristics() {
+                    return SIZED | SUBSIZED | IMMUTABLE; }
+            };
+        }
+    }
+
+
+    /**
+     * Calculate the initial {@link OpenHashMap} capacity basing on the given size.
+     *
+     * @param size the given size
+     * @return the initial {@link OpenHashMap} capacity basing on the given size
+     */
+    protected static int capacity(int size) {
+        return max((int) (size/.75f) + 1, 16);
+    }
+
+    /**
+     * Return a {@link CountingHashContainer} of the given values.
+     *
+     * @param elements the given values
+     * @param <E> the element type
+     * @return a {@link CountingHashContainer} of the given values
+     */
+    @SafeVarargs
+    public static <E> CountingHashContainer<E> container(E... elements) {
+        return new CountingHashContainer<>(elements);
+    }
+
+    /**
+     * Return an unordered {@link Collector} accumulating the elements into a new {@link CountingHashContainer},
+     * which merges the partial containers of a parallel stream bucket-wise.
+     *
+     * @param <E> the element type
+     * @return an unordered {@link Collector} accumulating the elements into a new {@link CountingHashContainer}
+     */
+    public static <E> Collector<E, ?, CountingHashContainer<E>> toContainer() {
+        return collector(() -> new CountingHashContainer<>(new OpenHashMap<>(WEIGHER), producer()), Bucket::put, Bucket::new, UNORDERED);
+    }
+}
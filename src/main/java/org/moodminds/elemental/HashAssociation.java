@@ -47,7 +47,7 @@ public class HashAssociation<K, V> extends AbstractMapAssociation<K, V, KeyValue
      * @param kvs the given {@link Stream} of {@link KeyValue} pairs
      */
     public HashAssociation(Stream<? extends KeyValue<? extends K, ? extends V>> kvs) {
-        this(new HashMap<>(), kvs.sequential()::forEach);
+        this(new HashMap<>(), kvs::forEachOrdered);
     }
 
     /**
@@ -88,6 +88,9 @@ public class HashAssociation<K, V> extends AbstractMapAssociation<K, V, KeyValue
         super(map); kvs.provide(kv -> map.put(kv.getKey(), kv.getValue()));
     }
 
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
     @Override protected Iterator<KeyValue<K, V>> iterator(K key, V value, boolean present) {
         return OptionalIterator.iterator(() -> new AbstractKeyValue<K, V>() {
             @Override public K getKey() { return key; }
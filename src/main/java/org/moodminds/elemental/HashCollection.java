@@ -1,28 +1,38 @@
 package org.moodminds.elemental;
 
+import org.moodminds.elemental.AbstractHeapCollection.Bucket;
+
 import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
 import static java.lang.Math.max;
 import static java.util.Optional.of;
+import static java.util.stream.Collector.Characteristics.UNORDERED;
 import static org.moodminds.elemental.Producer.producer;
 import static org.moodminds.sneaky.Cast.cast;
 import static org.moodminds.sneaky.Sneak.sneak;
 
 /**
- * A {@link HashMap}-powered implementation of the {@link Collection} interface.
+ * An {@link OpenHashMap}-powered implementation of the {@link Collection} interface.
  *
  * @param <E> the element type
  */
-public class HashCollection<E> extends AbstractHeapCollection<E, Map<E, Object>> {
+public class HashCollection<E> extends AbstractHeapCollection<E, Bucket<E>, Map<E, Object>> {
 
     private static final long serialVersionUID = -8125380692227516710L;
 
+    /**
+     * The {@link OpenHashMap} weigher of the values, weighing a bucket by its size and a single element by one.
+     */
+    private static final ToIntFunction<Object> WEIGHER = weigher(Bucket.class);
+
     /**
      * Collection size holder field.
      */
@@ -40,7 +50,7 @@ public class HashCollection<E> extends AbstractHeapCollection<E, Map<E, Object>>
      */
     @SafeVarargs
     public HashCollection(E... elements) {
-        this(new HashMap<>(capacity(elements.length)), producer(elements));
+        this(new OpenHashMap<>(capacity(elements.length), WEIGHER), producer(elements));
     }
 
     /**
@@ -49,7 +59,7 @@ public class HashCollection<E> extends AbstractHeapCollection<E, Map<E, Object>>
      * @param elements the given elements {@link Stream}
      */
     public HashCollection(Stream<? extends E> elements) {
-        this(new HashMap<>(), elements.sequential()::forEach);
+        this(new OpenHashMap<>(WEIGHER), elements);
     }
 
     /**
@@ -58,7 +68,7 @@ public class HashCollection<E> extends AbstractHeapCollection<E, Map<E, Object>>
      * @param elements the given elements {@link Container}
      */
     public HashCollection(Container<? extends E> elements) {
-        this(new HashMap<>(capacity(elements.size())), elements::forEach);
+        this(new OpenHashMap<>(capacity(elements.size()), WEIGHER), elements::forEach);
     }
 
     /**
@@ -67,7 +77,7 @@ public class HashCollection<E> extends AbstractHeapCollection<E, Map<E, Object>>
      * @param elements the given elements {@link java.util.Collection}
      */
     public HashCollection(java.util.Collection<? extends E> elements) {
-        this(new HashMap<>(capacity(elements.size())), elements::forEach);
+        this(new OpenHashMap<>(capacity(elements.size()), WEIGHER), elements::forEach);
     }
 
     /**
@@ -86,7 +96,7 @@ public class HashCollection<E> extends AbstractHeapCollection<E, Map<E, Object>>
      * @throws IllegalArgumentException if the initial capacity is negative
      */
     public HashCollection(int initialCapacity) {
-        this(new HashMap<>(initialCapacity), producer());
+        this(new OpenHashMap<>(initialCapacity, WEIGHER), producer());
     }
 
     /**
@@ -97,18 +107,43 @@ public class HashCollection<E> extends AbstractHeapCollection<E, Map<E, Object>>
      * @throws IllegalArgumentException if the initial capacity is negative, or if the load factor is not positive
      */
     public HashCollection(int initialCapacity, float loadFactor) {
-        this(new HashMap<>(initialCapacity, loadFactor), producer());
+        this(new OpenHashMap<>(initialCapacity, loadFactor, WEIGHER), producer());
+    }
+
+    /**
+     * Construct the object with the given {@link OpenHashMap}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link OpenHashMap}
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected HashCollection(OpenHashMap<E, Object> map, Producer<? extends E> elements) {
+        super(map, elements, Bucket::put, Bucket::new);
+    }
+
+    /**
+     * Construct the object with the given {@link OpenHashMap} and {@link Stream} of elements,
+     * building the partial collections in parallel if the stream is parallel.
+     *
+     * @param map the given {@link OpenHashMap}
+     * @param elements the given {@link Stream} of elements
+     */
+    protected HashCollection(OpenHashMap<E, Object> map, Stream<? extends E> elements) {
+        super(map, elements, toCollection(), Bucket::put, Bucket::new);
     }
 
     /**
      * Construct the object with the given {@link HashMap}
      * and sequential single-threaded {@link Producer} of elements.
      *
-     * @param map the given  {@link HashMap}
+     * @param map the given {@link HashMap}, whose entries are copied into an {@link OpenHashMap}
      * @param elements the given sequential single-threaded {@link Producer} of elements
+     * @deprecated the collection is backed by an {@link OpenHashMap}, so the given map is not used afterwards;
+     * use {@link #HashCollection(OpenHashMap, Producer)} instead
      */
+    @Deprecated
     protected HashCollection(HashMap<E, Object> map, Producer<? extends E> elements) {
-        super(map, elements);
+        this(open(map), elements);
     }
 
     @Override public int size() {
@@ -119,6 +154,11 @@ public class HashCollection<E> extends AbstractHeapCollection<E, Map<E, Object>>
     @Override protected Optional<Integer> getSize() {
         return of(size); }
 
+    @Override protected void put(E element) {
+        put(Bucket::put, Bucket::new, element); }
+    @Override protected boolean isBucket(Object value) {
+        return value instanceof Bucket; }
+
     @Override protected void count(int number) { size = size + number; }
     @Override protected void countClear() { size = 0; }
 
@@ -135,25 +175,36 @@ public class HashCollection<E> extends AbstractHeapCollection<E, Map<E, Object>>
     protected void deserialize(ObjectInputStream input) throws Exception {
         int size; if ((size = input.readInt()) < 0)
             throw new InvalidObjectException("Negative size: " + size);
-        map = new HashMap<>(capacity(size)); init(consumer -> {
+        map = new OpenHashMap<>(capacity(size), WEIGHER); init(consumer -> {
             try {
                 while (this.size < size)
                     consumer.accept(cast(input.readObject()));
             } catch (Exception e) { sneak(e); }
-        }, bucketAccumulation, bucketConstruction);
+        }, Bucket::put, Bucket::new);
     }
 
 
     /**
-     * Calculate the initial {@link HashMap} capacity basing on the given size.
+     * Calculate the initial {@link OpenHashMap} capacity basing on the given size.
      *
      * @param size the given size
-     * @return the initial {@link HashMap} capacity basing on the given size
+     * @return the initial {@link OpenHashMap} capacity basing on the given size
      */
     protected static int capacity(int size) {
         return max((int) (size/.75f) + 1, 16);
     }
 
+    /**
+     * Return an {@link OpenHashMap} holding the entries of the given {@link HashMap}.
+     *
+     * @param map the given {@link HashMap}
+     * @param <E> the element type
+     * @return an {@link OpenHashMap} holding the entries of the given {@link HashMap}
+     */
+    private static <E> OpenHashMap<E, Object> open(HashMap<E, Object> map) {
+        OpenHashMap<E, Object> open = new OpenHashMap<>(capacity(map.size()), WEIGHER); open.putAll(map); return open;
+    }
+
     /**
      * Return a {@link HashCollection} of the given values.
      *
@@ -165,4 +216,15 @@ public class HashCollection<E> extends AbstractHeapCollection<E, Map<E, Object>>
     public static <E> HashCollection<E> collection(E... elements) {
         return new HashCollection<>(elements);
     }
+
+    /**
+     * Return an unordered {@link Collector} accumulating the elements into a new {@link HashCollection},
+     * which merges the partial collections of a parallel stream bucket-wise.
+     *
+     * @param <E> the element type
+     * @return an unordered {@link Collector} accumulating the elements into a new {@link HashCollection}
+     */
+    public static <E> Collector<E, ?, HashCollection<E>> toCollection() {
+        return collector(() -> new HashCollection<>(new OpenHashMap<>(WEIGHER), producer()), Bucket::put, Bucket::new, UNORDERED);
+    }
 }
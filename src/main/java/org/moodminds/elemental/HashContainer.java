@@ -7,22 +7,24 @@ import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.HashMap;
-import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
 import static java.lang.Math.max;
 import static java.util.Optional.of;
+import static java.util.stream.Collector.Characteristics.UNORDERED;
 import static org.moodminds.elemental.Producer.producer;
 import static org.moodminds.sneaky.Cast.cast;
 import static org.moodminds.sneaky.Sneak.sneak;
 
 /**
- * A {@link HashMap}-powered implementation of the {@link Container} interface.
+ * An {@link OpenHashMap}-powered implementation of the {@link Container} interface.
  *
  * @param <E> the element type
  */
@@ -30,6 +32,11 @@ public class HashContainer<E> extends AbstractHeapContainer<E, Bucket<E>, Map<E,
 
     private static final long serialVersionUID = 4140307042993429240L;
 
+    /**
+     * The {@link OpenHashMap} weigher of the values, weighing a bucket by its size and a single element by one.
+     */
+    private static final ToIntFunction<Object> WEIGHER = weigher(Bucket.class);
+
     /**
      * Container size holder field.
      */
@@ -42,7 +49,7 @@ public class HashContainer<E> extends AbstractHeapContainer<E, Bucket<E>, Map<E,
      */
     @SafeVarargs
     public HashContainer(E... elements) {
-        this(new HashMap<>(capacity(elements.length)), producer(elements));
+        this(new OpenHashMap<>(capacity(elements.length), WEIGHER), producer(elements));
     }
 
     /**
@@ -51,7 +58,7 @@ public class HashContainer<E> extends AbstractHeapContainer<E, Bucket<E>, Map<E,
      * @param elements the given elements {@link Stream}
      */
     public HashContainer(Stream<? extends E> elements) {
-        this(new HashMap<>(), elements.sequential()::forEach);
+        this(new OpenHashMap<>(WEIGHER), elements);
     }
 
     /**
@@ -60,7 +67,7 @@ public class HashContainer<E> extends AbstractHeapContainer<E, Bucket<E>, Map<E,
      * @param elements the given elements {@link Container}
      */
     public HashContainer(Container<? extends E> elements) {
-        this(new HashMap<>(capacity(elements.size())), elements::forEach);
+        this(new OpenHashMap<>(capacity(elements.size()), WEIGHER), elements::forEach);
     }
 
     /**
@@ -69,7 +76,7 @@ public class HashContainer<E> extends AbstractHeapContainer<E, Bucket<E>, Map<E,
      * @param elements the given elements {@link java.util.Collection}
      */
     public HashContainer(java.util.Collection<? extends E> elements) {
-        this(new HashMap<>(capacity(elements.size())), elements::forEach);
+        this(new OpenHashMap<>(capacity(elements.size()), WEIGHER), elements::forEach);
     }
 
     /**
@@ -81,27 +88,55 @@ public class HashContainer<E> extends AbstractHeapContainer<E, Bucket<E>, Map<E,
         this((java.util.Collection<? extends E>) elements);
     }
 
+    /**
+     * Construct the object with the given {@link OpenHashMap}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link OpenHashMap}
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected HashContainer(OpenHashMap<E, Object> map, Producer<? extends E> elements) {
+        super(map, elements, Bucket::put, Bucket::new);
+    }
+
+    /**
+     * Construct the object with the given {@link OpenHashMap} and {@link Stream} of elements,
+     * building the partial containers in parallel if the stream is parallel.
+     *
+     * @param map the given {@link OpenHashMap}
+     * @param elements the given {@link Stream} of elements
+     */
+    protected HashContainer(OpenHashMap<E, Object> map, Stream<? extends E> elements) {
+        super(map, elements, toContainer(), Bucket::put, Bucket::new);
+    }
+
     /**
      * Construct the object with the given {@link HashMap}
      * and sequential single-threaded {@link Producer} of elements.
      *
-     * @param map the given {@link HashMap}
+     * @param map the given {@link HashMap}, whose entries are copied into an {@link OpenHashMap}
      * @param elements the given sequential single-threaded {@link Producer} of elements
+     * @deprecated the container is backed by an {@link OpenHashMap}, so the given map is not used afterwards;
+     * use {@link #HashContainer(OpenHashMap, Producer)} instead
      */
+    @Deprecated
     protected HashContainer(HashMap<E, Object> map, Producer<? extends E> elements) {
-        this(map, elements, bucketization());
+        this(open(map), elements);
     }
 
     /**
      * Construct the object with the given {@link HashMap} and sequential single-threaded {@link Producer} of elements
      * and using a single stateful {@link Bucketization} strategy for both bucket construction and accumulation.
      *
-     * @param map the backing {@link HashMap} used for storing single elements and buckets
+     * @param map the given {@link HashMap}, whose entries are copied into an {@link OpenHashMap}
      * @param elements the given sequential single-threaded {@link Producer} of elements
      * @param bucketization a combined {@link Bucketization} strategy for bucket handling
+     * @deprecated the container is backed by an {@link OpenHashMap}, so the given map is not used afterwards,
+     * and the array buckets need no stateful strategy; use {@link #HashContainer(OpenHashMap, Producer)} instead
      */
+    @Deprecated
     protected HashContainer(HashMap<E, Object> map, Producer<? extends E> elements, Bucketization<E> bucketization) {
-        super(map, elements, bucketization, bucketization);
+        super(open(map), elements, bucketization, bucketization);
     }
 
     /**
@@ -110,11 +145,17 @@ public class HashContainer<E> extends AbstractHeapContainer<E, Bucket<E>, Map<E,
      *
      * @param elements the given sequential single-threaded {@link Producer} of elements
      * @param bucketization a combined {@link Bucketization} strategy for bucket handling
+     * @deprecated the array buckets need no stateful strategy;
+     * use {@link #init(Producer, BiConsumer, BiFunction)} with {@code Bucket::put} and {@code Bucket::new} instead
      */
+    @Deprecated
     protected void init(Producer<? extends E> elements, Bucketization<E> bucketization) {
         init(elements, bucketization, bucketization);
     }
 
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
     @Override public int size() {
         return size; }
 
@@ -138,65 +179,86 @@ public class HashContainer<E> extends AbstractHeapContainer<E, Bucket<E>, Map<E,
     protected void deserialize(ObjectInputStream input) throws Exception {
         int size; if ((size = input.readInt()) < 0)
             throw new InvalidObjectException("Negative size: " + size);
-        map = new HashMap<>(capacity(size)); init(consumer -> {
+        map = new OpenHashMap<>(capacity(size), WEIGHER); init(consumer -> {
             try {
                 while (this.size < size)
                     consumer.accept(cast(input.readObject()));
             } catch (Exception e) { sneak(e); }
-        }, bucketization());
+        }, Bucket::put, Bucket::new);
     }
 
     /**
-     * Create a new {@link Bucketization} instance with internal state tracking for bucket tails.
+     * Represents a bucket in this container.
      *
      * @param <E> the type of elements
-     * @return a stateful {@link Bucketization} implementation with per-bucket tail tracking
      */
-    private static <E> Bucketization<E> bucketization() {
-        return new Bucketization<E>() {
+    protected static class Bucket<E> extends ArraySequence<E> {
 
-            final Map<Bucket<E>, Node<E>> tails = new IdentityHashMap<>();
+        private static final long serialVersionUID = -2217410468290730531L;
 
-            @Override public void accept(Bucket<E> bucket, E element) {
-                tails.compute(bucket, (unused, tail) -> bucket.put(tail, element)); }
-            @Override public Bucket<E> apply(E first, E second) {
-                return new Object() { final Bucket<E> bucket; Node<E> tail;
-                    { bucket = new Bucket<>(next -> tail = next, first, second); tails.put(bucket, tail); }
-                }.bucket; }
-        };
-    }
+        protected Bucket(E first, E second) {
+            super(first, second); }
 
-    /**
-     * Represents a bucket in this container.
-     *
-     * @param <E> the type of elements
-     */
-    protected static class Bucket<E> extends LinkSequence<E> {
+        /**
+         * Construct the object with the given first two elements.
+         *
+         * @param tails the tail node {@link Consumer}, which is not called
+         * @param first the given first element
+         * @param second the given second element
+         * @deprecated the bucket is backed by an array, so there are no tail nodes to track;
+         * use {@link #Bucket(Object, Object)} instead
+         */
+        @Deprecated
+        protected Bucket(Consumer<Node<E>> tails, E first, E second) {
+            this(first, second); }
 
-        private static final long serialVersionUID = 5178607093351787071L;
+        protected void put(E element) {
+            append(element); }
 
-        protected Bucket(Consumer<Node<E>> tails, E first, E second) {
-            super(tails, producer(first, second)); }
+        /**
+         * Append the given element.
+         *
+         * @param tail the given tail node, which is ignored
+         * @param element the given element
+         * @return the given tail node
+         * @deprecated the bucket is backed by an array, so there are no tail nodes to track;
+         * use {@link #put(Object)} instead
+         */
+        @Deprecated
+        protected Node<E> put(Node<E> tail, E element) {
+            put(element); return tail; }
     }
 
     /**
      * A composite utility that handles both bucket accumulation and bucket construction logic.
      *
      * @param <E> the type of elements stored in the bucket
+     * @deprecated the array buckets need no stateful strategy; pass {@code Bucket::put} and {@code Bucket::new} instead
      */
+    @Deprecated
     protected interface Bucketization<E> extends BiConsumer<Bucket<E>, E>, BiFunction<E, E, Bucket<E>> {}
 
-
     /**
-     * Calculate the initial {@link HashMap} capacity basing on the given size.
+     * Calculate the initial {@link OpenHashMap} capacity basing on the given size.
      *
      * @param size the given size
-     * @return the initial {@link HashMap} capacity basing on the given size
+     * @return the initial {@link OpenHashMap} capacity basing on the given size
      */
     protected static int capacity(int size) {
         return max((int) (size/.75f) + 1, 16);
     }
 
+    /**
+     * Return an {@link OpenHashMap} holding the entries of the given {@link HashMap}.
+     *
+     * @param map the given {@link HashMap}
+     * @param <E> the element type
+     * @return an {@link OpenHashMap} holding the entries of the given {@link HashMap}
+     */
+    private static <E> OpenHashMap<E, Object> open(HashMap<E, Object> map) {
+        OpenHashMap<E, Object> open = new OpenHashMap<>(capacity(map.size()), WEIGHER); open.putAll(map); return open;
+    }
+
     /**
      * Return a {@link HashContainer} of the given values.
      *
@@ -208,4 +270,15 @@ public class HashContainer<E> extends AbstractHeapContainer<E, Bucket<E>, Map<E,
     public static <E> HashContainer<E> container(E... elements) {
         return new HashContainer<>(elements);
     }
+
+    /**
+     * Return an unordered {@link Collector} accumulating the elements into a new {@link HashContainer},
+     * which merges the partial containers of a parallel stream bucket-wise.
+     *
+     * @param <E> the element type
+     * @return an unordered {@link Collector} accumulating the elements into a new {@link HashContainer}
+     */
+    public static <E> Collector<E, ?, HashContainer<E>> toContainer() {
+        return collector(() -> new HashContainer<>(new OpenHashMap<>(WEIGHER), producer()), Bucket::put, Bucket::new, UNORDERED);
+    }
 }
@@ -77,6 +77,9 @@ public class HashUnitainer<E> extends AbstractMapUnitainer<E, Map<E, E>> {
         super(map); elements.provide(element -> map.putIfAbsent(element, element));
     }
 
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
     @Override
     protected void serialize(ObjectOutputStream output) throws Exception {
         output.writeInt(map.size()); for (E e : this)
@@ -0,0 +1,271 @@
+package org.moodminds.elemental;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Arrays.copyOf;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * A lazily materialized implementation of the {@link Sequence} interface, pulling the elements
+ * from the given source {@link Iterator} only as far as the accessed position.
+ * <p>
+ * The pulled elements are memoized in the arrays of {@link #CHUNK} of them, so each element is pulled once
+ * and then accessed in constant time, without copying the ones pulled before as the sequence grows. The
+ * {@link #get(int) positional access}, the {@link #iterator() iteration} and the {@link #sub(int, int) slicing}
+ * pull only the elements up to the ones they reach, while the {@link #size()} drains the whole source.
+ * The pulling is serialized, so the sequence may be shared between threads as the eager ones are.
+ *
+ * @param <E> the type of elements
+ */
+public class LazySequence<E> extends AbstractSequence<E> implements Sequence<E>, Serializable {
+
+    private static final long serialVersionUID = 6629412187015862245L;
+
+    /**
+     * The number of the bits of a position within a chunk.
+     */
+    protected static final int BITS = 6;
+
+    /**
+     * The number of elements of a chunk.
+     */
+    protected static final int CHUNK = 1 << BITS;
+
+    /**
+     * The mask of a position within a chunk.
+     */
+    protected static final int MASK = CHUNK - 1;
+
+    /**
+     * The source {@link Iterator} holding field, {@code null} once drained.
+     */
+    protected transient Iterator<? extends E> source;
+
+    /**
+     * The chunks of the pulled elements holding field.
+     */
+    protected transient Object[][] chunks;
+
+    /**
+     * The number of the pulled elements holding field.
+     */
+    protected transient volatile int count;
+
+    /**
+     * Construct the object with the specified elements {@link Stream}.
+     *
+     * @param elements the specified elements {@link Stream}
+     */
+    public LazySequence(Stream<? extends E> elements) {
+        this(elements.sequential().iterator());
+    }
+
+    /**
+     * Construct the object with the specified elements {@link Iterator}.
+     *
+     * @param elements the specified elements {@link Iterator}
+     */
+    public LazySequence(Iterator<? extends E> elements) {
+        this.source = requireNonNull(elements); chunks = new Object[1][];
+    }
+
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
+    @Override public <R extends E> R get(int index) {
+        if (index < 0 || !pull(index))
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        return element(index); }
+    @Override public int size() {
+        pull(Integer.MAX_VALUE); return count; }
+
+    @Override public boolean contains() {
+        return pull(0); }
+
+    @Override public Iterator<E> iterator() {
+        return new LazyIterator(0, 0, Integer.MAX_VALUE); }
+    @Override public SequenceIterator<E> iterator(int index) {
+        if (index < 0 || index > 0 && !pull(index - 1))
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        return new LazyIterator(0, index, Integer.MAX_VALUE); }
+
+    @Override public void forEach(Consumer<? super E> action) {
+        requireNonNull(action); forEach(0, Integer.MAX_VALUE, action); }
+
+    @Override public Sequence<E> sub(int fromIndex, int toIndex) {
+        return new LazySubSequence(0, Integer.MAX_VALUE, fromIndex, toIndex); }
+
+    /**
+     * Return {@code true} if the element at the given non-negative position is pulled,
+     * pulling the elements up to it if not yet, or {@code false} if the source is shorter.
+     *
+     * @param position the given position
+     * @return {@code true} if the element at the given position is pulled
+     */
+    protected boolean pull(int position) {
+        if (position < count) return true;
+        synchronized (this) {
+            Iterator<? extends E> source = this.source;
+            if (source == null) return position < this.count;
+            Object[][] chunks = this.chunks; int count = this.count;
+            try {
+                for (; count <= position; count++) {
+                    if (!source.hasNext()) { this.source = null; break; }
+                    int chunk = count >>> BITS, offset = count & MASK;
+                    if (offset == 0) {
+                        if (chunk == chunks.length) this.chunks = chunks = copyOf(chunks, chunk << 1);
+                        chunks[chunk] = new Object[CHUNK];
+                    } chunks[chunk][offset] = source.next();
+                }
+            } finally { this.count = count; }
+            return position < count;
+        }
+    }
+
+    /**
+     * Return the pulled element at the given position.
+     *
+     * @param position the given position
+     * @param <R> the target type for casting
+     * @return the element at the given position
+     */
+    protected <R extends E> R element(int position) {
+        return cast(chunks[position >>> BITS][position & MASK]);
+    }
+
+    /**
+     * Perform the given action for each element between the given positions along the chunks,
+     * pulling them chunk by chunk.
+     *
+     * @param from the given position of the first element (inclusive)
+     * @param to the given position of the last element (exclusive)
+     * @param action the given action
+     */
+    protected void forEach(int from, int to, Consumer<? super E> action) {
+        while (from < to && pull(from)) {
+            pull(min(to - 1, from | MASK)); Object[] chunk = chunks[from >>> BITS];
+            int end = min(min(to, count), (from | MASK) + 1);
+            for (int i = from & MASK, length = i + end - from; i < length; i++)
+                action.accept(cast(chunk[i]));
+            from = end;
+        }
+    }
+
+    private void writeObject(ObjectOutputStream output) throws Exception {
+        output.defaultWriteObject(); output.writeInt(size());
+        for (E element : this) output.writeObject(element);
+    }
+
+    private void readObject(ObjectInputStream input) throws Exception {
+        input.defaultReadObject(); int size = input.readInt();
+        if (size < 0)
+            throw new InvalidObjectException("Negative size: " + size);
+        Object[][] chunks = new Object[max(1, (size + MASK) >>> BITS)][];
+        for (int i = 0; i < size; i++) {
+            if ((i & MASK) == 0) chunks[i >>> BITS] = new Object[CHUNK];
+            chunks[i >>> BITS][i & MASK] = input.readObject();
+        } this.chunks = chunks; count = size;
+    }
+
+
+    /**
+     * The {@link SequenceIterator} over the elements of a lazy sequence up to the given position,
+     * pulling them as it goes.
+     */
+    protected class LazyIterator extends AbstractSequenceIterator<E> {
+
+        protected final int offset, to;
+
+        /**
+         * Construct the object with the given offset, the given index relative to it and the given ending position.
+         *
+         * @param offset the given offset within the whole sequence
+         * @param index the given index of the next element relative to the offset
+         * @param to the given position following the last element
+         */
+        protected LazyIterator(int offset, int index, int to) {
+            super(index); this.offset = offset; this.to = to; }
+
+        @Override protected boolean hasNextElement() {
+            return offset + index < to && pull(offset + index); }
+        @Override protected E nextElement() {
+            return element(offset + index++); }
+
+        @Override public void forEachRemaining(Consumer<? super E> action) {
+            requireNonNull(action); if (!hasNext()) return; action.accept(next());
+            forEach(offset + index, to, action); index = min(to, count) - offset; }
+    }
+
+    /**
+     * A subsequence view of the pulled elements of a lazy sequence.
+     */
+    protected class LazySubSequence extends AbstractSequence<E> implements Serializable {
+
+        private static final long serialVersionUID = -3948501779365142930L;
+
+        protected final int offset, size;
+
+        /**
+         * Construct the object with the specified boundaries relative to the given offset,
+         * pulling the elements up to the ending one.
+         *
+         * @param offset the base offset within the whole sequence
+         * @param size the total size of the parent sequence, or {@link Integer#MAX_VALUE} if not yet known
+         * @param fromIndex the starting index of the subsequence (inclusive)
+         * @param toIndex the ending index of the subsequence (exclusive)
+         * @throws IndexOutOfBoundsException if {@code fromIndex} is negative or {@code toIndex} exceeds the size
+         * @throws IllegalArgumentException if {@code fromIndex} is greater than {@code toIndex}
+         */
+        protected LazySubSequence(int offset, int size, int fromIndex, int toIndex) {
+            if (fromIndex < 0)
+                throw new IndexOutOfBoundsException(format("fromIndex = %d", fromIndex));
+            if (toIndex > size || toIndex > 0 && !pull(offset + toIndex - 1))
+                throw new IndexOutOfBoundsException(format("toIndex = %d", toIndex));
+            if (fromIndex > toIndex)
+                throw new IllegalArgumentException(format("fromIndex(%d) > toIndex(%d)", fromIndex, toIndex));
+            this.offset = offset + fromIndex; this.size = toIndex - fromIndex;
+        }
+
+        @Override public <R extends E> R get(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index out of range: " + index);
+            return element(offset + index); }
+        @Override public int size() {
+            return size; }
+
+        @Override public Iterator<E> iterator() {
+            return new LazyIterator(offset, 0, offset + size); }
+        @Override public SequenceIterator<E> iterator(int index) {
+            if (index < 0 || index > size)
+                throw new IndexOutOfBoundsException("Index out of range: " + index);
+            return new LazyIterator(offset, index, offset + size); }
+
+        @Override public void forEach(Consumer<? super E> action) {
+            requireNonNull(action); LazySequence.this.forEach(offset, offset + size, action); }
+
+        @Override public Sequence<E> sub(int fromIndex, int toIndex) {
+            return new LazySubSequence(offset, size, fromIndex, toIndex); }
+    }
+
+
+    /**
+     * Return a {@link LazySequence} of the elements of the given {@link Stream}.
+     *
+     * @param elements the given {@link Stream}
+     * @param <E> the type of elements
+     * @return a {@link LazySequence} of the elements of the given {@link Stream}
+     */
+    public static <E> LazySequence<E> sequence(Stream<? extends E> elements) {
+        return new LazySequence<>(elements);
+    }
+}
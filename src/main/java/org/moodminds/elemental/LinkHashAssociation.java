@@ -44,7 +44,7 @@ public class LinkHashAssociation<K, V> extends HashAssociation<K, V> {
      * @param kvs the given {@link Stream} of {@link KeyValue} pairs
      */
     public LinkHashAssociation(Stream<? extends KeyValue<? extends K, ? extends V>> kvs) {
-        this(new LinkedHashMap<>(), kvs.sequential()::forEach);
+        this(new LinkedHashMap<>(), kvs::forEachOrdered);
     }
 
     /**
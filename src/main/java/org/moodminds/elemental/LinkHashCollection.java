@@ -1,48 +1,36 @@
 package org.moodminds.elemental;
 
-import org.moodminds.sneaky.Cast;
-
-import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
-import static java.lang.Math.max;
 import static java.util.Objects.requireNonNull;
-import static java.util.Spliterator.*;
+import static java.util.Optional.ofNullable;
 import static org.moodminds.elemental.Producer.producer;
-import static org.moodminds.sneaky.Cast.cast;
-import static org.moodminds.sneaky.Sneak.sneak;
 
 /**
- * A {@link HashMap}-powered implementation of the {@link Collection} interface,
+ * A compact ordered hash implementation of the {@link Collection} interface,
  * preserving the order of elements as defined during insertion.
+ * <p>
+ * The elements are kept in a dense array in their order with a sparse {@code int} index table over them,
+ * see {@link AbstractLinkHashContainer}, so the equal elements are found in constant time and iterated
+ * in their order, while the whole collection is iterated by a sequential scan. The removed elements
+ * leave the holes, compacted away on the addition to the full dense array.
  *
  * @param <E> the element type
  */
-public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashCollection.Bucket<E>, Map<E, Object>>
-        implements Collection<E> {
+public class LinkHashCollection<E> extends AbstractLinkHashContainer<E> implements Collection<E> {
 
     private static final long serialVersionUID = -2848920053576607533L;
 
-    /**
-     * The head and tail holding fields.
-     */
-    protected transient Node<E> head, tail;
-
-    /**
-     * Collection size holder field.
-     */
-    protected transient int size;
-
     /**
      * Modification count holder field.
      */
@@ -55,7 +43,7 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
      */
     @SafeVarargs
     public LinkHashCollection(E... elements) {
-        this(new HashMap<>(capacity(elements.length)), producer(elements));
+        this(elements.length, producer(elements));
     }
 
     /**
@@ -64,7 +52,7 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
      * @param elements the given elements {@link Stream}
      */
     public LinkHashCollection(Stream<? extends E> elements) {
-        this(new HashMap<>(), elements.sequential()::forEach);
+        this(MINIMUM, elements::forEachOrdered);
     }
 
     /**
@@ -73,7 +61,7 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
      * @param elements the given elements {@link Container}
      */
     public LinkHashCollection(Container<? extends E> elements) {
-        this(new HashMap<>(capacity(elements.size())), elements::forEach);
+        this(elements.size(), elements::forEach);
     }
 
     /**
@@ -82,7 +70,7 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
      * @param elements the given elements {@link java.util.Collection}
      */
     public LinkHashCollection(java.util.Collection<? extends E> elements) {
-        this(new HashMap<>(capacity(elements.size())), elements::forEach);
+        this(elements.size(), elements::forEach);
     }
 
     /**
@@ -95,98 +83,50 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
     }
 
     /**
-     * Construct the object with the given {@link HashMap map}
+     * Construct the object with the given initial capacity
      * and sequential single-threaded {@link Producer} of elements.
      *
-     * @param map the given {@link HashMap map}
+     * @param capacity the given initial capacity
      * @param elements the given sequential single-threaded {@link Producer} of elements
      */
-    protected LinkHashCollection(HashMap<E, Object> map, Producer<? extends E> elements) {
-        super(map); init(elements);
+    protected LinkHashCollection(int capacity, Producer<? extends E> elements) {
+        super(capacity); elements.provide(this::put);
     }
 
-    protected void init(Producer<? extends E> elements) {
-        elements.provide(this::put);
+    /**
+     * Construct the object with the given {@link HashMap map}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link HashMap map}, whose size is taken for the initial capacity
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     * @deprecated the collection keeps its elements in a compact array index rather than in a map,
+     * so the entries of the given map are not used; use {@link #LinkHashCollection(int, Producer)} instead
+     */
+    @Deprecated
+    protected LinkHashCollection(HashMap<E, Object> map, Producer<? extends E> elements) {
+        this(map.size(), elements);
     }
 
     @Override public Iterator<E> getAll(Object o) {
-        return collectionIterator(super.getAll(o)); }
+        return collectionIterator(new RunIterator(slot(o, hash(o))) {
+            @Override protected void removeElement() { delete(); } }); }
 
     @Override public boolean add(E e) {
         put(e); modCount++; return true; }
     @Override public void clear() {
-        map.clear(); size = 0; head = tail = null; modCount++; }
-    @Override public int size() {
-        return size; }
+        init(MINIMUM); modCount++; }
 
     @Override public Iterator<E> iterator()  {
-        return collectionIterator(new AbstractLinkIterator<E, Node<E>>(null) {
-            @Override protected Node<E> previous(Node<E> link) {
-                return link.previous(); }
-            @Override protected boolean hasNext(Node<E> link) {
-                return link != null ? link.next() != null : head != null; }
-            @Override protected Node<E> next(Node<E> link) {
-                return link != null ? link.next() : head; }
-            @Override protected E item(Node<E> link) {
-                return link.item(); }
-            @Override protected void removeElement() {
-                if (next instanceof Bucket.Node) {
-                    Bucket<E>.Node next = (Bucket<E>.Node) this.next;
-                    Bucket<E> bucket = next.bucket(); next.delete();
-                    if (bucket.size() == 1) {
-                        Bucket<E>.Node head = head(bucket);
-                        Node<E> link = new NodeLink<>(head.item());
-                        relink(head, link);
-                        if (previous == head) previous = link;
-                        map.put(head.item(), link);
-                    } else if (!bucket.contains()) map.remove(next.item());
-                } else map.remove(next.item()); unlink(previous); next = null; size--; }
-        }); }
-
+        return collectionIterator(new ElementIterator() {
+            @Override protected void removeElement() { delete(); } }); }
     @Override public Spliterator<E> spliterator() {
-        return Spliterators.spliterator(iterator(), size, ORDERED
-                | (size > map.size() ? 0 : DISTINCT)); }
-
-    @Override
-    protected Iterator<E> iterator(Object value, boolean present) {
-        return iterator(cast(value), present);
-    }
+        return collectionSpliterator(super.spliterator()); }
 
-    protected Iterator<E> iterator(Node<E> node, boolean present) {
-        return new OptionalIterator<E>(present ? node.item() : null, present) {
-            @Override protected void removeElement() {
-                map.remove(node.item()); unlink(node.previous()); size--; present = false; }
-        };
-    }
-
-    @Override
-    protected Iterator<E> iterator(Bucket<E> bucket, Iterator<E> bucketIterator) {
-        return new Iterator<E>() {
+    @Override public void forEach(Consumer<? super E> action) {
+        int expectedMod = modCount; super.forEach(action); checkMod(expectedMod); }
 
-            final AbstractLinkSequenceIterator<E, Bucket<E>.Node> iterator =
-                    (AbstractLinkSequenceIterator<E, Bucket<E>.Node>) LinkHashCollection.super.iterator(bucket, bucketIterator);
-
-            @Override public boolean hasNext() { return iterator.hasNext(); }
-            @Override public E next() { return iterator.next(); }
-            @Override public void remove() {
-                Node<E> next = iterator.next, previous = next.previous(); iterator.remove();
-                if (bucket.size() == 1) {
-                    Bucket<E>.Node head = head(bucket);
-                    Node<E> link = new NodeLink<>(head.item());
-                    relink(head, link);
-                    if (previous == head) previous = link;
-                    map.put(head.item(), link);
-                } else if (!bucket.contains()) map.remove(next.item());
-                unlink(previous); size--; }
-            @Override public void forEachRemaining(Consumer<? super E> action) {
-                iterator.forEachRemaining(action); }
-        };
-    }
-
-    @Override
-    protected boolean isBucket(Object value) {
-        return value instanceof Bucket;
-    }
+    @Override protected String toStringThis() {
+        return "(this Collection)"; }
 
     /**
      * Return an {@link Iterator} that wraps the given iterator and provides additional checks for modification
@@ -213,50 +153,31 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
         };
     }
 
-    protected void put(E element) {
-        Object value = map.get(element);
-        if (!tryBucket(value, bucket -> link(bucket.put(element))))
-            if (value != null) {
-                Bucket<E> bucket = new Bucket<E>(Cast.<Node<E>>cast(value).item(), element, (head, tail) -> {
-                    relink(cast(value), head); link(tail);
-                }); map.put(element, bucket);
-            } else {
-                Node<E> node; map.put(element, node = new NodeLink<>(element)); link(node);
-            }
-        size++;
-    }
+    /**
+     * Return a {@link Spliterator} that wraps the given spliterator and provides additional checks for modification
+     * during traversal, dropping the {@link Spliterator#IMMUTABLE} characteristic of the underlying one.
+     *
+     * @param spliterator the underlying spliterator to wrap and traverse
+     * @return a {@link Spliterator} that performs modification checks
+     */
+    protected Spliterator<E> collectionSpliterator(Spliterator<E> spliterator) {
+        return new Spliterator<E>() {
 
-    protected void link(Node<E> next) {
-        link(tail, next);
-    }
+            final int expectedMod = modCount;
 
-    protected void link(Node<E> previous, Node<E> next) {
-        if (previous != null) {
-            next.next(previous.next()); previous.next(next);
-            if (next.next() == null) tail = next;
-            else next.next().previous(next);
-        } else head = tail = next; next.previous(previous);
-    }
+            @Override public boolean tryAdvance(Consumer<? super E> action) { checkMod(); return spliterator.tryAdvance(action); }
+            @Override public long estimateSize() { return spliterator.estimateSize(); }
+            @Override public int characteristics() { return spliterator.characteristics() & ~IMMUTABLE; }
+            @Override public Comparator<? super E> getComparator() { return spliterator.getComparator(); }
+            @Override public Spliterator<E> trySplit() { return ofNullable(spliterator.trySplit())
+                    .map(LinkHashCollection.this::collectionSpliterator).orElse(null); }
 
-    protected void unlink(Node<E> previous) {
-        if (previous == null)
-            if ((head = head.next()) == null) tail = null;
-            else head.previous(null);
-        else {
-            previous.next(previous.next().next());
-            if (previous.next() == null) tail = previous;
-            else previous.next().previous(previous);
-        }
-    }
+            @Override public void forEachRemaining(Consumer<? super E> action) {
+                requireNonNull(action); checkMod(); spliterator.forEachRemaining(action
+                        .andThen(unused -> checkMod())); }
 
-    protected void relink(Node<E> link, Node<E> node) {
-        Node<E> previous = link.previous(), next = link.next();
-        if (next != null) {
-            next.previous(node); node.next(next); }
-        if (previous != null) {
-            previous.next(node); node.previous(previous); }
-        if (head == link) head = node;
-        if (tail == link) tail = node;
+            void checkMod() { LinkHashCollection.this.checkMod(expectedMod); }
+        };
     }
 
     /**
@@ -269,35 +190,13 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
     protected void checkMod(int expectedMod) {
         if (modCount != expectedMod) throw new ConcurrentModificationException(); }
 
-    @Override
-    protected void serialize(ObjectOutputStream output) throws Exception {
-        output.writeInt(size); for (E e : this)
-            output.writeObject(e);
-    }
-
-    @Override
-    protected void deserialize(ObjectInputStream input) throws Exception {
-        int size; if ((size = input.readInt()) < 0)
-            throw new InvalidObjectException("Negative size: " + size);
-        map = new HashMap<>(capacity(size)); init(consumer -> {
-            try {
-                while (this.size < size)
-                    consumer.accept(cast(input.readObject()));
-            } catch (Exception e) { sneak(e); }
-        });
-    }
-
-    private Bucket<E>.Node head(Bucket<E> bucket) {
-        AbstractLinkSequenceIterator<E, Bucket<E>.Node> iterator
-                = (AbstractLinkSequenceIterator<E, Bucket<E>.Node>) bucket.iterator();
-        iterator.next(); return iterator.next;
-    }
-
     /**
      * Represents a node in this Collection referencing to the next and previous {@link Node}.
      *
      * @param <E> the type of element
+     * @deprecated the collection keeps its elements in a compact array index, so this type is not used anymore
      */
+    @Deprecated
     protected interface Node<E> {
 
         /**
@@ -340,7 +239,9 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
      * A basic implementation of {@link Node} that holds an element and a reference to the next {@link Node}.
      *
      * @param <E> the type of element
+     * @deprecated the collection keeps its elements in a compact array index, so this type is not used anymore
      */
+    @Deprecated
     protected static class NodeLink<E> implements Node<E> {
 
         protected E item; protected Node<E> previous, next;
@@ -360,7 +261,9 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
      * functionality to manage and iterate over those elements efficiently.
      *
      * @param <E> the type of elements contained in this bucket
+     * @deprecated the collection keeps its elements in a compact array index, so this type is not used anymore
      */
+    @Deprecated
     protected static class Bucket<E> extends AbstractTailedLinkSequence<E, Bucket<E>.Node> {
 
         private static final long serialVersionUID = -7693277982552371297L;
@@ -477,16 +380,6 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
     }
 
 
-    /**
-     * Calculate the initial {@link HashMap} capacity basing on the given size.
-     *
-     * @param size the given size
-     * @return the initial {@link HashMap} capacity basing on the given size
-     */
-    protected static int capacity(int size) {
-        return max((int) (size/.75f) + 1, 16);
-    }
-
     /**
      * Return a {@link LinkHashCollection} of the given values.
      *
@@ -498,4 +391,15 @@ public class LinkHashCollection<E> extends AbstractMapContainer<E, LinkHashColle
     public static <E> LinkHashCollection<E> collection(E... elements) {
         return new LinkHashCollection<>(elements);
     }
+
+    /**
+     * Return a {@link Collector} accumulating the elements into a new {@link LinkHashCollection} in the encounter order.
+     * The partial collections of a parallel stream are merged in the encounter order.
+     *
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link LinkHashCollection}
+     */
+    public static <E> Collector<E, ?, LinkHashCollection<E>> toCollection() {
+        return collector(() -> new LinkHashCollection<>(MINIMUM, producer()));
+    }
 }
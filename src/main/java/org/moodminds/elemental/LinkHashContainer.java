@@ -1,45 +1,32 @@
 package org.moodminds.elemental;
 
-import org.moodminds.elemental.LinkHashContainer.Bucket;
-import org.moodminds.elemental.LinkHashContainer.Bucket.NodeNode;
 import org.moodminds.elemental.LinkHashContainer.Bucket.LinkNodeNode;
-import org.moodminds.sneaky.Cast;
+import org.moodminds.elemental.LinkHashContainer.Bucket.NodeNode;
 
-import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.HashMap;
-import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.function.BiConsumer;
-import java.util.function.Consumer;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
-import static java.lang.Math.max;
-import static java.util.Spliterator.*;
 import static org.moodminds.elemental.Producer.producer;
-import static org.moodminds.sneaky.Cast.cast;
-import static org.moodminds.sneaky.Sneak.sneak;
 
 /**
- * A {@link LinkedHashMap}-powered implementation of the {@link Container} interface,
+ * A compact ordered hash implementation of the {@link Container} interface,
  * preserving the order of elements as defined during construction.
+ * <p>
+ * The elements are kept in a dense array in their order with a sparse {@code int} index table over them,
+ * see {@link AbstractLinkHashContainer}, so the equal elements are found in constant time and iterated
+ * in their order, while the whole container is iterated by a sequential scan.
  *
  * @param <E> the element type
  */
-public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map<E, Object>> {
+public class LinkHashContainer<E> extends AbstractLinkHashContainer<E> {
 
     private static final long serialVersionUID = -7910725201009294081L;
 
-    /**
-     * Container size holder field.
-     */
-    protected transient int size;
-
     /**
      * Construct the object with the given elements array.
      *
@@ -47,7 +34,7 @@ public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map
      */
     @SafeVarargs
     public LinkHashContainer(E... elements) {
-        this(new LinkedHashMap<>(capacity(elements.length)), producer(elements));
+        this(elements.length, producer(elements));
     }
 
     /**
@@ -56,7 +43,7 @@ public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map
      * @param elements the given elements {@link Stream}
      */
     public LinkHashContainer(Stream<? extends E> elements) {
-        this(new LinkedHashMap<>(), elements.sequential()::forEach);
+        this(MINIMUM, elements::forEachOrdered);
     }
 
     /**
@@ -65,7 +52,7 @@ public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map
      * @param elements the given elements {@link Container}
      */
     public LinkHashContainer(Container<? extends E> elements) {
-        this(new LinkedHashMap<>(capacity(elements.size())), elements::forEach);
+        this(elements.size(), elements::forEach);
     }
 
     /**
@@ -74,7 +61,7 @@ public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map
      * @param elements the given elements {@link java.util.Collection}
      */
     public LinkHashContainer(java.util.Collection<? extends E> elements) {
-        this(new LinkedHashMap<>(capacity(elements.size())), elements::forEach);
+        this(elements.size(), elements::forEach);
     }
 
     /**
@@ -87,203 +74,40 @@ public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map
     }
 
     /**
-     * Construct the object with the given {@link LinkedHashMap map}
+     * Construct the object with the given initial capacity
      * and sequential single-threaded {@link Producer} of elements.
      *
-     * @param map the given {@link LinkedHashMap map}
+     * @param capacity the given initial capacity
      * @param elements the given sequential single-threaded {@link Producer} of elements
      */
-    protected LinkHashContainer(LinkedHashMap<E, Object> map, Producer<? extends E> elements) {
-        super(map); init(elements);
+    protected LinkHashContainer(int capacity, Producer<? extends E> elements) {
+        super(capacity); elements.provide(this::put);
     }
 
     /**
-     * Initialize the inner {@link LinkedHashMap map} of this Container with the specified
-     * sequential single-threaded {@link Producer} of elements.
+     * Construct the object with the given {@link LinkedHashMap map}
+     * and sequential single-threaded {@link Producer} of elements.
      *
-     * @param elements the specified sequential single-threaded {@link Producer} of elements
+     * @param map the given {@link LinkedHashMap map}, whose size is taken for the initial capacity
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     * @deprecated the container keeps its elements in a compact array index rather than in a map,
+     * so the entries of the given map are not used; use {@link #LinkHashContainer(int, Producer)} instead
      */
-    protected void init(Producer<? extends E> elements) {
-        elements.provide(new Consumer<E>() {
-
-            final Map<Bucket<E>, Bucket.Node<E>> tails = new IdentityHashMap<>(); Bucketing bucketing;
-
-            @Override public void accept(E element) {
-                Object value = map.get(element);
-                if (!tryBucket(value, bucket -> bucketing.add(bucket, element)))
-                    if (value instanceof Node)
-                        bucketing.add(Cast.<Node<E>>cast(value), element);
-                    else if (isMapped(element, value))
-                        bucketing.add(Cast.<E>cast(value), element);
-                    else {
-                        bucketing = new ValueBucketing(element); map.put(element, element);
-                    }
-                size++; }
-
-            /**
-             * Strategy for handling insertion of an element that is already present in the container.
-             * <p>
-             * Implementations define how to merge or bucket the new {@code element}
-             * with an existing occurrence, represented by either a raw value, node, or bucket.
-             */
-            abstract class Bucketing {
-
-                /**
-                 * Merge the given element with an existing value already present in the container.
-                 *
-                 * @param value the existing value
-                 * @param element the element to add
-                 */
-                abstract void add(E value, E element);
-
-                /**
-                 * Merge the given element with an existing {@link Node} already present in the container.
-                 *
-                 * @param value the {@link Node} representing the existing value
-                 * @param element the element to add
-                 */
-                abstract void add(Node<E> value, E element);
-
-                /**
-                 * Merge the given element into an existing {@link Bucket} already associated with the value.
-                 *
-                 * @param value the {@link Bucket} representing the existing value
-                 * @param element the element to add
-                 */
-                abstract void add(Bucket<E> value, E element);
-            }
-
-            /**
-             * Bucketing algorithm for adding an element after a unique predecessor.
-             */
-            class ValueBucketing extends Bucketing {
-
-                final E last;
-
-                ValueBucketing(E last) { this.last = last; }
-
-                @Override void add(E value, E element) {
-                    bucketing = new MultiBucketing() {{
-                        if (value == last)
-                            map.put(value, bucket = new Bucket<>(value, element, (LinkNodeNode<E>) (head, tail) -> {
-                                previous = head; before = head; next = tail;
-                            }));
-                        else map.put(value, bucket = new Bucket<>(value, element, (NodeNode<E>) (head, tail) -> {
-                            previous = head; map.put(last, before = new NodeLink<>(last, next = tail));
-                        })); tails.put(bucket, next);
-                    }}; }
-
-                @Override void add(Node<E> value, E element) {
-                    bucketing = new MultiBucketing() {{
-                        map.put(value.item(), bucket = new Bucket<>(value.item(), value.next(), element, (head, tail) -> {
-                            previous = head; map.put(last, before = new NodeLink<>(last, next = tail));
-                        })); tails.put(bucket, next);
-                    }}; }
-
-                @Override void add(Bucket<E> value, E element) {
-                    bucketing = new MultiBucketing() {{
-                        tails.compute((bucket = value), (bucket, tail) -> {
-                            bucket.put(tail, element, (previous, next) -> {
-                                this.previous = previous; map.put(last, before = new NodeLink<>(last, this.next = next));
-                            }); return next;
-                        });
-                    }}; }
-            }
-
-            /**
-             * Bucketing algorithm for adding an element after a non-unique predecessor.
-             */
-            class MultiBucketing extends Bucketing {
-
-                Bucket<E> bucket; Bucket.Node<E> previous, next; Link<E> before;
-
-                @Override void add(E value, E element) {
-                    map.put(value, bucket = new Bucket<>(value, element, (NodeNode<E>) (head, tail) ->
-                        bucket.link(previous, before, tail, (previous, next) -> {
-                            this.previous = head; before = previous; this.next = next; tails.put(bucket, previous);
-                        })
-                    )); tails.put(bucket, next); }
-
-                @Override void add(Node<E> value, E element) {
-                    map.put(value.item(), bucket = new Bucket<>(value.item(), value.next(), element, (head, tail) ->
-                        bucket.link(previous, before == value ? head : before, tail, (previous, next) -> {
-                            this.previous = head; before = previous; this.next = next; tails.put(bucket, previous);
-                        })
-                    )); tails.put(bucket, next); }
-
-                @Override void add(Bucket<E> value, E element) {
-                    if (bucket == value)
-                        bucket.put(previous, before, element, (previous, next) -> {
-                            this.previous = previous; before = previous; this.next = next;
-                        });
-                    else value.put(tails.get(value), element, (previous, next) -> {
-                            bucket.link(this.previous, before, next, (before, unused) -> {
-                                this.previous = previous; this.before = before; this.next = next; tails.put(bucket, before);
-                            }); bucket = value;
-                        });
-                    tails.put(bucket, next); }
-            }
-        });
+    @Deprecated
+    protected LinkHashContainer(LinkedHashMap<E, Object> map, Producer<? extends E> elements) {
+        this(map.size(), elements);
     }
 
-    @Override public int size() {
-        return size; }
-
-    @Override public Iterator<E> iterator() {
-        return new AbstractIterator<E>() {
-
-            final Iterator<Map.Entry<E, Object>> entriesIterator = map.entrySet().iterator(); Node<E> node;
-
-            @Override protected boolean hasNextElement() {
-                return node != null || entriesIterator.hasNext(); }
-
-            @Override protected E nextElement() {
-                while (true) {
-                    if (node != null) {
-                        E element = node.item(); node = node.next(); return element; }
-                    Object value = entriesIterator.next().getValue();
-                    if (tryBucket(value, bucket -> node = bucket.head))
-                        continue;
-                    else if (value instanceof Node) {
-                        node = cast(value); continue;
-                    } return cast(value);
-                } }
-        }; }
-
-    @Override public Spliterator<E> spliterator() {
-        return Spliterators.spliterator(iterator(), size, ORDERED | IMMUTABLE
-                | (size > map.size() ? 0 : DISTINCT)); }
-
-    @Override protected Iterator<E> iterator(Object value, boolean present) {
-        return OptionalIterator.iterator(() -> cast(value instanceof Node
-                ? ((Node<?>) value).item() : value), present); }
-
-    @Override protected boolean isBucket(Object value) {
-        return value instanceof Bucket; }
-
-    @Override
-    protected void serialize(ObjectOutputStream output) throws Exception {
-        output.writeInt(size); for (E e : this)
-            output.writeObject(e);
-    }
-
-    @Override
-    protected void deserialize(ObjectInputStream input) throws Exception {
-        int size; if ((size = input.readInt()) < 0)
-            throw new InvalidObjectException("Negative size: " + size);
-        map = new LinkedHashMap<>(capacity(size)); init(consumer -> {
-            try {
-                while (this.size < size)
-                    consumer.accept(cast(input.readObject()));
-            } catch (Exception e) { sneak(e); }
-        });
-    }
+    @Override protected boolean hashCodeCached() {
+        return true; }
 
     /**
      * Represents a node in this Container referencing to the next {@link Node}.
      *
      * @param <E> the type of element
+     * @deprecated the container keeps its elements in a compact array index, so this type is not used anymore
      */
+    @Deprecated
     protected interface Node<E> {
 
         /**
@@ -305,7 +129,9 @@ public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map
      * Represents a linking node in this Container referencing to the next {@link Node}.
      *
      * @param <E> the type of element
+     * @deprecated the container keeps its elements in a compact array index, so this type is not used anymore
      */
+    @Deprecated
     protected interface Link<E> extends Node<E> {
 
         /**
@@ -320,7 +146,9 @@ public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map
      * A basic implementation of {@link Node} that holds an element and a reference to the next {@link Node}.
      *
      * @param <E> the type of element
+     * @deprecated the container keeps its elements in a compact array index, so this type is not used anymore
      */
+    @Deprecated
     protected static class NodeLink<E> implements Link<E> {
 
         protected final E item; protected Node<E> next;
@@ -345,7 +173,9 @@ public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map
      * functionality to manage and iterate over those elements efficiently.
      *
      * @param <E> the type of elements contained in this bucket
+     * @deprecated the container keeps its elements in a compact array index, so this type is not used anymore
      */
+    @Deprecated
     protected static class Bucket<E> extends AbstractLinkSequence<E, Bucket.Node<E>> {
 
         private static final long serialVersionUID = 5178607093351787071L;
@@ -460,16 +290,6 @@ public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map
     }
 
 
-    /**
-     * Calculate the initial {@link HashMap} capacity basing on the given size.
-     *
-     * @param size the given size
-     * @return the initial {@link HashMap} capacity basing on the given size
-     */
-    protected static int capacity(int size) {
-        return max((int) (size/.75f) + 1, 16);
-    }
-
     /**
      * Return a {@link LinkHashContainer} of the given values.
      *
@@ -481,4 +301,15 @@ public class LinkHashContainer<E> extends AbstractMapContainer<E, Bucket<E>, Map
     public static <E> LinkHashContainer<E> container(E... elements) {
         return new LinkHashContainer<>(elements);
     }
+
+    /**
+     * Return a {@link Collector} accumulating the elements into a new {@link LinkHashContainer} in the encounter order.
+     * The partial containers of a parallel stream are merged in the encounter order.
+     *
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link LinkHashContainer}
+     */
+    public static <E> Collector<E, ?, LinkHashContainer<E>> toContainer() {
+        return collector(() -> new LinkHashContainer<>(MINIMUM, producer()));
+    }
 }
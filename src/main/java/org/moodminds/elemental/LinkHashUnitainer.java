@@ -80,6 +80,9 @@ public class LinkHashUnitainer<E> extends AbstractMapUnitainer<E, Map<E, E>> {
         super(map); elements.provide(element -> map.putIfAbsent(element, element));
     }
 
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
     @Override
     protected void serialize(ObjectOutputStream output) throws Exception {
         output.writeInt(map.size()); for (E e : this)
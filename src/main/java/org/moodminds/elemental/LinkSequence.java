@@ -126,6 +126,9 @@ public class LinkSequence<E> extends AbstractLinkSequence<E, Node<E>> {
         Node<E> next; link(tail, next = new Node<>(element)); size++; return next;
     }
 
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
     @Override public Sequence<E> sub(int fromIndex, int toIndex) {
         return new LinkSubSequence(size, fromIndex, toIndex); }
 
@@ -99,6 +99,9 @@ public class LinkTailSequence<E> extends AbstractTailedLinkSequence<E, Node<E>>
         Node<E> next; link(tail, tail = next = new Node<>(element)); size++; return next;
     }
 
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
     @Override public TailedSequence<E> sub(int fromIndex, int toIndex) {
         return new TailedLinkSubSequence(size, fromIndex, toIndex); }
 
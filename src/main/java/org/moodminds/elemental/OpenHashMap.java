@@ -0,0 +1,557 @@
+package org.moodminds.elemental;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import static java.lang.Float.isNaN;
+import static java.lang.Integer.highestOneBit;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.fill;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * An open-addressing implementation of the {@link Map} interface.
+ * <p>
+ * Keys and values are kept in two flat arrays and collisions are resolved by linear probing,
+ * so no per-entry objects are allocated. Removal shifts the following entries of the probe cluster
+ * back instead of leaving tombstones. Permit {@code null} keys and values. The iteration order
+ * is not defined. This implementation is not synchronized.
+ * <p>
+ * Given a {@link ToIntFunction} weigher of the values, the map also keeps the total weight of the values
+ * per block of the table slots, so the weight of a range of the slots, such as the part of a split
+ * {@link Spliterator} covers, is summed up block-wise. A block is invalidated on any change of its slots
+ * and recounted lazily, while a value changing its weight in place is to be {@link #reweigh(Object) reweighed}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class OpenHashMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * The maximum capacity of the table.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The default capacity of the table.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The binary logarithm of the number of the table slots per weights block.
+     */
+    private static final int BLOCK = 6;
+
+    /**
+     * The default load factor of the table.
+     */
+    private static final float DEFAULT_LOAD_FACTOR = .75f;
+
+    /**
+     * The key standing for {@code null} in the table, as {@code null} marks the empty slot.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * Table keys holder field, {@code null} for the empty slots.
+     */
+    protected transient Object[] keys;
+
+    /**
+     * Table values holder field, aligned with the {@link #keys}.
+     */
+    protected transient Object[] values;
+
+    /**
+     * Total weights of the table slot blocks holder field, {@code -1} for the blocks to be recounted,
+     * or {@code null} if the values are not weighed.
+     */
+    protected transient int[] weights;
+
+    /**
+     * Map size holder field.
+     */
+    protected transient int size;
+
+    /**
+     * Modification count holder field.
+     */
+    protected transient int modCount;
+
+    /**
+     * The size the table is to be grown on exceeding.
+     */
+    private int threshold;
+
+    /**
+     * The load factor of the table.
+     */
+    private final float loadFactor;
+
+    /**
+     * The values weigher holder field, {@code null} if the values are not weighed.
+     */
+    private final ToIntFunction<? super V> weigher;
+
+    /**
+     * Entry set view holder field.
+     */
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Construct the object with the default initial capacity (16) and the default load factor (0.75).
+     */
+    public OpenHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct the object with the specified initial capacity and the default load factor (0.75).
+     *
+     * @param initialCapacity the initial capacity of the table
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public OpenHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Construct the object with the specified initial capacity and load factor.
+     * The table always keeps at least one empty slot, regardless of the load factor.
+     *
+     * @param initialCapacity the initial capacity of the table
+     * @param loadFactor the load factor of the table
+     * @throws IllegalArgumentException if the initial capacity is negative, or if the load factor is not positive
+     */
+    public OpenHashMap(int initialCapacity, float loadFactor) {
+        this(initialCapacity, loadFactor, null);
+    }
+
+    /**
+     * Construct the object with the default initial capacity (16), the default load factor (0.75)
+     * and the given values weigher.
+     *
+     * @param weigher the given values weigher, or {@code null} if the values are not weighed
+     */
+    public OpenHashMap(ToIntFunction<? super V> weigher) {
+        this(DEFAULT_CAPACITY, weigher);
+    }
+
+    /**
+     * Construct the object with the specified initial capacity, the default load factor (0.75)
+     * and the given values weigher.
+     *
+     * @param initialCapacity the initial capacity of the table
+     * @param weigher the given values weigher, or {@code null} if the values are not weighed
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public OpenHashMap(int initialCapacity, ToIntFunction<? super V> weigher) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR, weigher);
+    }
+
+    /**
+     * Construct the object with the specified initial capacity, load factor and the given values weigher.
+     * The table always keeps at least one empty slot, regardless of the load factor.
+     *
+     * @param initialCapacity the initial capacity of the table
+     * @param loadFactor the load factor of the table
+     * @param weigher the given values weigher, or {@code null} if the values are not weighed
+     * @throws IllegalArgumentException if the initial capacity is negative, or if the load factor is not positive
+     */
+    public OpenHashMap(int initialCapacity, float loadFactor, ToIntFunction<? super V> weigher) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " + initialCapacity);
+        if (loadFactor <= 0 || isNaN(loadFactor))
+            throw new IllegalArgumentException("Illegal load factor: " + loadFactor);
+        this.loadFactor = loadFactor; this.weigher = weigher; allocate(capacity(initialCapacity));
+    }
+
+    @Override public int size() {
+        return size; }
+    @Override public boolean isEmpty() {
+        return size == 0; }
+    @Override public boolean containsKey(Object key) {
+        return slot(mask(key)) >= 0; }
+    @Override public V get(Object key) {
+        int slot = slot(mask(key)); return slot >= 0 ? cast(values[slot]) : null; }
+    @Override public V getOrDefault(Object key, V defaultValue) {
+        int slot = slot(mask(key)); return slot >= 0 ? cast(values[slot]) : defaultValue; }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key {@inheritDoc}
+     * @param value {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public V put(K key, V value) {
+        Object masked = mask(key); int slot = slot(masked);
+        if (slot >= 0) {
+            V previous = cast(values[slot]); values[slot] = value; unweigh(slot); return previous; }
+        if (size >= threshold) {
+            resize(keys.length << 1); slot = slot(masked); }
+        keys[slot = -slot - 1] = masked; values[slot] = value; unweigh(slot);
+        size++; modCount++; return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public V remove(Object key) {
+        int slot = slot(mask(key)); if (slot < 0) return null;
+        V previous = cast(values[slot]); delete(slot, null); return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        if (size > 0) {
+            fill(keys, null); fill(values, null); size = 0;
+            if (weights != null) fill(weights, 0); } modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param action {@inheritDoc}
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        requireNonNull(action); Object[] keys = this.keys, values = this.values; int expectedMod = modCount;
+        for (int slot = 0; slot < keys.length; slot++) {
+            Object key = keys[slot]; if (key != null) action.accept(unmask(key), cast(values[slot])); }
+        if (modCount != expectedMod) throw new ConcurrentModificationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return entrySet != null ? entrySet : (entrySet = new EntrySet());
+    }
+
+    /**
+     * Notify the map that the weight of the value of the given key has changed in place.
+     * Does nothing if the key is absent, or if the values are not weighed.
+     *
+     * @param key the given key
+     */
+    public void reweigh(Object key) {
+        if (weights != null) {
+            int slot = slot(mask(key)); if (slot >= 0) unweigh(slot); }
+    }
+
+    /**
+     * Return the slot of the given masked key if present, or {@code -(insertion slot) - 1} otherwise.
+     *
+     * @param key the given masked key
+     * @return the slot of the given masked key if present, or {@code -(insertion slot) - 1} otherwise
+     */
+    protected int slot(Object key) {
+        Object[] keys = this.keys; int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = slot + 1 & mask) {
+            Object current = keys[slot];
+            if (current == null)
+                return -slot - 1;
+            if (current == key || key.equals(current))
+                return slot;
+        }
+    }
+
+    /**
+     * Remove the entry at the given slot, shifting the following entries of its probe cluster back.
+     * An entry shifted from the wrapped beginning of the table to the given slot or past it
+     * is reported to the given iterator, as it would be missed by the descending traversal.
+     *
+     * @param slot the given slot
+     * @param iterator the traversing {@link EntryIterator}, may be {@code null}
+     */
+    private void delete(int slot, EntryIterator iterator) {
+        Object[] keys = this.keys, values = this.values; int mask = keys.length - 1;
+        for (int gap = slot, next = slot + 1 & mask; ; next = next + 1 & mask) {
+            Object key = keys[next];
+            if (key == null) {
+                keys[gap] = null; values[gap] = null; unweigh(gap); break; }
+            int home = hash(key) & mask;
+            if (gap <= next ? home <= gap || home > next : home <= gap && home > next) {
+                if (iterator != null && next < slot && gap >= slot)
+                    iterator.wrap(key);
+                keys[gap] = key; values[gap] = values[next]; unweigh(gap); gap = next;
+            }
+        }
+        size--; modCount++;
+    }
+
+    /**
+     * Reallocate the table to the given capacity, rehashing all the entries.
+     *
+     * @param capacity the given power of two capacity
+     * @throws IllegalStateException if the capacity limit is exceeded
+     */
+    private void resize(int capacity) {
+        Object[] keys = this.keys, values = this.values;
+        if (capacity > MAXIMUM_CAPACITY || capacity < 0) {
+            if (size >= keys.length - 1)
+                throw new IllegalStateException("Capacity exceeded: " + size);
+            threshold = keys.length - 1; return; }
+        allocate(capacity); Object[] newKeys = this.keys, newValues = this.values; int mask = capacity - 1;
+        for (int i = keys.length - 1; i >= 0; i--) {
+            Object key = keys[i]; if (key == null) continue;
+            int slot = hash(key) & mask;
+            while (newKeys[slot] != null)
+                slot = slot + 1 & mask;
+            newKeys[slot] = key; newValues[slot] = values[i];
+        } if (weights != null) fill(weights, -1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity]; values = new Object[capacity];
+        if (weigher != null) weights = new int[max(capacity >>> BLOCK, 1)];
+        threshold = min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    /**
+     * Invalidate the weight of the block of the given slot.
+     *
+     * @param slot the given slot
+     */
+    private void unweigh(int slot) {
+        if (weights != null) weights[slot >>> BLOCK] = -1;
+    }
+
+    /**
+     * Return the total weight of the values in the given range of the table slots,
+     * recounting the invalidated blocks fully covered by the range. The recounting
+     * of a block is idempotent, so the concurrent readers may race on it harmlessly.
+     *
+     * @param origin the given first slot, inclusive
+     * @param fence the given last slot, exclusive
+     * @return the total weight of the values in the given range of the table slots
+     */
+    private long weight(int origin, int fence) {
+        long weight = 0; int[] weights = this.weights;
+        for (int end; origin < fence; origin = end) {
+            int block = origin >>> BLOCK; end = min((block + 1) << BLOCK, fence);
+            if (origin != block << BLOCK || end != (block + 1) << BLOCK)
+                weight += weigh(origin, end);
+            else {
+                int total = weights[block]; if (total < 0) weights[block] = total = (int) weigh(origin, end);
+                weight += total; }
+        } return weight;
+    }
+
+    private long weigh(int origin, int fence) {
+        long weight = 0; Object[] keys = this.keys, values = this.values;
+        for (int slot = origin; slot < fence; slot++)
+            if (keys[slot] != null) weight += weigher.applyAsInt(cast(values[slot]));
+        return weight;
+    }
+
+    /**
+     * A live view of the table entry which is looked up again by the key
+     * when its slot got occupied by another entry.
+     */
+    protected class Entry extends AbstractKeyValue<K, V> {
+
+        protected final Object key; protected final int slot;
+
+        protected Entry(Object key, int slot) {
+            this.key = key; this.slot = slot; }
+
+        @Override public K getKey() {
+            return unmask(key); }
+        @Override public V getValue() {
+            return keys[slot] == key ? cast(values[slot]) : get(getKey()); }
+        @Override public V setValue(V value) {
+            if (keys[slot] != key) return put(getKey(), value);
+            V previous = cast(values[slot]); values[slot] = value; unweigh(slot); return previous; }
+    }
+
+    /**
+     * An {@link Iterator} of the entries, traversing the table slots in descending order
+     * to support the removal in the middle of a probe cluster.
+     */
+    protected class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        int slot = keys.length, remaining = size, expectedMod = modCount, wrapped, wrappedCount;
+
+        Object[] wrappedKeys; Entry current;
+
+        @Override public boolean hasNext() {
+            return remaining > 0; }
+
+        @Override public Map.Entry<K, V> next() {
+            checkMod(); if (remaining == 0) throw new NoSuchElementException(); remaining--;
+            Object[] keys = OpenHashMap.this.keys;
+            while (slot > 0)
+                if (keys[--slot] != null)
+                    return current = new Entry(keys[slot], slot);
+            slot = -1; Object key = wrappedKeys[wrapped++]; return current = new Entry(key, slot(key)); }
+
+        @Override public void remove() {
+            if (current == null) throw new IllegalStateException(); checkMod();
+            if (slot >= 0) delete(slot, this); else delete(slot(current.key), null);
+            current = null; expectedMod = modCount; }
+
+        void wrap(Object key) {
+            if (wrappedKeys == null) wrappedKeys = new Object[4];
+            else if (wrappedCount == wrappedKeys.length) wrappedKeys = copyOf(wrappedKeys, wrappedCount << 1);
+            wrappedKeys[wrappedCount++] = key; }
+
+        void checkMod() {
+            if (modCount != expectedMod) throw new ConcurrentModificationException(); }
+    }
+
+    /**
+     * A {@link Spliterator} of the entries, traversing a range of the table slots in ascending order.
+     */
+    protected class EntrySpliterator implements Spliterator<Map.Entry<K, V>> {
+
+        int origin, fence, estimate; boolean sized; final int expectedMod = modCount;
+
+        protected EntrySpliterator(int origin, int fence, int estimate, boolean sized) {
+            this.origin = origin; this.fence = fence; this.estimate = estimate; this.sized = sized; }
+
+        @Override public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            requireNonNull(action); Object[] keys = OpenHashMap.this.keys;
+            while (origin < fence) {
+                int slot = origin++; Object key = keys[slot];
+                if (key != null) {
+                    action.accept(new Entry(key, slot)); checkMod(); return true; }
+            } return false; }
+
+        @Override public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            requireNonNull(action); Object[] keys = OpenHashMap.this.keys;
+            for (int slot = origin, fence = this.fence; slot < fence; slot++) {
+                Object key = keys[slot]; if (key != null) action.accept(new Entry(key, slot)); }
+            origin = fence; checkMod(); }
+
+        @Override public Spliterator<Map.Entry<K, V>> trySplit() {
+            int origin = this.origin, middle = origin + fence >>> 1;
+            if (middle <= origin) return null; sized = false;
+            return new EntrySpliterator(origin, this.origin = middle, estimate >>>= 1, false); }
+
+        @Override public long estimateSize() {
+            return estimate; }
+        @Override public int characteristics() {
+            return (sized ? SIZED : 0) | DISTINCT; }
+
+        /**
+         * Perform the given action for the value of the next entry, if any, without creating the entry.
+         *
+         * @param action the given action
+         * @return {@code false} if no entries remain, {@code true} otherwise
+         */
+        protected boolean tryAdvanceValue(Consumer<Object> action) {
+            Object[] keys = OpenHashMap.this.keys;
+            while (origin < fence) {
+                int slot = origin++;
+                if (keys[slot] != null) {
+                    action.accept(values[slot]); checkMod(); return true; }
+            } return false; }
+
+        /**
+         * Perform the given action for the values of all the remaining entries, without creating the entries.
+         *
+         * @param action the given action
+         */
+        protected void forEachRemainingValue(Consumer<Object> action) {
+            Object[] keys = OpenHashMap.this.keys, values = OpenHashMap.this.values;
+            for (int slot = origin, fence = this.fence; slot < fence; slot++)
+                if (keys[slot] != null) action.accept(values[slot]);
+            origin = fence; checkMod(); }
+
+        /**
+         * Return the total weight of the values of the remaining entries, or {@code -1} if the values are not weighed.
+         *
+         * @return the total weight of the values of the remaining entries, or {@code -1} if the values are not weighed
+         */
+        protected long weigh() {
+            return weigher != null ? weight(origin, fence) : -1; }
+
+        /**
+         * Return {@code true} if the values are weighed, that is if {@link #weigh()} is exact.
+         *
+         * @return {@code true} if the values are weighed
+         */
+        protected boolean weighed() {
+            return weigher != null; }
+
+        void checkMod() {
+            if (modCount != expectedMod) throw new ConcurrentModificationException(); }
+    }
+
+    /**
+     * The {@link Set} view of the entries.
+     */
+    protected class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override public int size() {
+            return size; }
+        @Override public void clear() {
+            OpenHashMap.this.clear(); }
+        @Override public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator(); }
+        @Override public Spliterator<Map.Entry<K, V>> spliterator() {
+            return new EntrySpliterator(0, keys.length, size, true); }
+
+        @Override public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) return false; Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            int slot = slot(mask(entry.getKey())); return slot >= 0 && Objects.equals(values[slot], entry.getValue()); }
+        @Override public boolean remove(Object o) {
+            if (!contains(o)) return false; delete(slot(mask(((Map.Entry<?, ?>) o).getKey())), null); return true; }
+    }
+
+
+    /**
+     * Return the power of two table capacity fitting the given initial capacity.
+     *
+     * @param initialCapacity the given initial capacity
+     * @return the power of two table capacity fitting the given initial capacity
+     */
+    private static int capacity(int initialCapacity) {
+        return initialCapacity >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY
+                : max(highestOneBit(max(initialCapacity - 1, 1)) << 1, 2);
+    }
+
+    /**
+     * Return the spread hash of the given masked key.
+     *
+     * @param key the given masked key
+     * @return the spread hash of the given masked key
+     */
+    private static int hash(Object key) {
+        int hash = key.hashCode() * 0x9E3779B9; return hash ^ hash >>> 16;
+    }
+
+    private static Object mask(Object key) {
+        return key != null ? key : NULL;
+    }
+
+    private static <K> K unmask(Object key) {
+        return key != NULL ? cast(key) : null;
+    }
+}
@@ -11,7 +11,12 @@ import java.util.function.Supplier;
 public class OptionalIterator<E> extends AbstractIterator<E> {
 
     /**
-     * The next element {@link Supplier} field.
+     * The next element holder field, used if the {@link #supplier} is {@code null}.
+     */
+    protected E value;
+
+    /**
+     * The next element {@link Supplier} field, may be {@code null}.
      */
     protected Supplier<? extends E> supplier;
 
@@ -27,7 +32,7 @@ public class OptionalIterator<E> extends AbstractIterator<E> {
      * @param present the given value presence flag
      */
     public OptionalIterator(E value, boolean present) {
-        this(() -> value, present, null);
+        this(value, present, null);
     }
 
     /**
@@ -49,7 +54,7 @@ public class OptionalIterator<E> extends AbstractIterator<E> {
      * @param removal the given {@link Runnable} removal operation
      */
     public OptionalIterator(E value, boolean present, Runnable removal) {
-        this(() -> value, present, removal);
+        super(removal); this.value = value; hasNext = this.present = present;
     }
 
     /**
@@ -81,7 +86,7 @@ public class OptionalIterator<E> extends AbstractIterator<E> {
      */
     @Override
     protected E previousElement() {
-        hasNext = present; return supplier.get();
+        hasNext = present; return element();
     }
 
     /**
@@ -101,7 +106,16 @@ public class OptionalIterator<E> extends AbstractIterator<E> {
      */
     @Override
     protected E nextElement() {
-        hasNext = false; return supplier.get();
+        hasNext = false; return element();
+    }
+
+    /**
+     * Return the element of this iterator.
+     *
+     * @return the element of this iterator
+     */
+    protected E element() {
+        return supplier != null ? supplier.get() : value;
     }
 
 
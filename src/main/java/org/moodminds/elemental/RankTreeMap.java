@@ -0,0 +1,1000 @@
+package org.moodminds.elemental;
+
+import org.moodminds.sneaky.Cast;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Arrays.copyOf;
+import static java.util.Collections.reverseOrder;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * An order-statistic AVL tree implementation of the {@link NavigableMap} interface.
+ * <p>
+ * Every node keeps the number of the entries and the total weight of the values of its subtree,
+ * where the weight of a value is given by a {@link ToIntFunction} weigher, one per entry by default.
+ * So the size and weight of any sub-map view, the weighted rank of a key and the entry at a weighted
+ * index are all found in logarithmic time, see {@link RankedMap}. A value whose weight changes in place
+ * is to be {@link #reweigh(Object) reweighed}. Permit {@code null} values, and {@code null} keys only
+ * if the comparator does. This implementation is not synchronized.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class RankTreeMap<K, V> extends AbstractMap<K, V> implements RankedMap<K, V>, Serializable {
+
+    private static final long serialVersionUID = 2846319561736618357L;
+
+    /**
+     * The keys {@link Comparator} holder field, {@code null} for the natural ordering.
+     */
+    private final Comparator<? super K> comparator;
+
+    /**
+     * The values weigher holder field, {@code null} for the unit weight.
+     */
+    private final ToIntFunction<? super V> weigher;
+
+    /**
+     * Tree root holder field.
+     */
+    private transient Node root;
+
+    /**
+     * Modification count holder field.
+     */
+    protected transient int modCount;
+
+    /**
+     * Entry set view holder field.
+     */
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Construct the object with the natural ordering of keys and the unit weight of values.
+     */
+    public RankTreeMap() {
+        this(null, null);
+    }
+
+    /**
+     * Construct the object with the given keys {@link Comparator} and the unit weight of values.
+     *
+     * @param comparator the given keys {@link Comparator}, or {@code null} for the natural ordering
+     */
+    public RankTreeMap(Comparator<? super K> comparator) {
+        this(comparator, null);
+    }
+
+    /**
+     * Construct the object with the given keys {@link Comparator} and values weigher.
+     * The weigher should be {@link Serializable} for the map to be.
+     *
+     * @param comparator the given keys {@link Comparator}, or {@code null} for the natural ordering
+     * @param weigher the given values weigher, or {@code null} for the unit weight
+     */
+    public RankTreeMap(Comparator<? super K> comparator, ToIntFunction<? super V> weigher) {
+        this.comparator = comparator; this.weigher = weigher;
+    }
+
+    @Override public int size() {
+        return count(root); }
+    @Override public boolean isEmpty() {
+        return root == null; }
+    @Override public boolean containsKey(Object key) {
+        return node(key) != null; }
+    @Override public V get(Object key) {
+        Node node = node(key); return node != null ? node.value : null; }
+
+    @Override public Comparator<? super K> comparator() {
+        return comparator; }
+
+    @Override public K firstKey() {
+        return key(first()); }
+    @Override public K lastKey() {
+        return key(last()); }
+
+    @Override public Map.Entry<K, V> firstEntry() {
+        return export(first()); }
+    @Override public Map.Entry<K, V> lastEntry() {
+        return export(last()); }
+    @Override public Map.Entry<K, V> pollFirstEntry() {
+        return poll(first()); }
+    @Override public Map.Entry<K, V> pollLastEntry() {
+        return poll(last()); }
+
+    @Override public Map.Entry<K, V> lowerEntry(K key) {
+        return export(floor(key, false)); }
+    @Override public K lowerKey(K key) {
+        return keyOrNull(floor(key, false)); }
+    @Override public Map.Entry<K, V> floorEntry(K key) {
+        return export(floor(key, true)); }
+    @Override public K floorKey(K key) {
+        return keyOrNull(floor(key, true)); }
+    @Override public Map.Entry<K, V> ceilingEntry(K key) {
+        return export(ceiling(key, true)); }
+    @Override public K ceilingKey(K key) {
+        return keyOrNull(ceiling(key, true)); }
+    @Override public Map.Entry<K, V> higherEntry(K key) {
+        return export(ceiling(key, false)); }
+    @Override public K higherKey(K key) {
+        return keyOrNull(ceiling(key, false)); }
+
+    @Override public Set<K> keySet() {
+        return navigableKeySet(); }
+    @Override public NavigableSet<K> navigableKeySet() {
+        return new KeySet<>(this); }
+    @Override public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet(); }
+    @Override public NavigableMap<K, V> descendingMap() {
+        return new SubMap<>(this, true, null, true, true, null, true, true); }
+
+    @Override public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return new SubMap<>(this, false, fromKey, fromInclusive, false, toKey, toInclusive, false); }
+    @Override public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return new SubMap<>(this, true, null, true, false, toKey, inclusive, false); }
+    @Override public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return new SubMap<>(this, false, fromKey, inclusive, true, null, true, false); }
+    @Override public NavigableMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false); }
+    @Override public NavigableMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false); }
+    @Override public NavigableMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true); }
+
+    @Override public int weight() {
+        return total(root); }
+    @Override public int rank(Object key) {
+        return weightBefore(key, false); }
+    @Override public Map.Entry<K, V> weightedEntry(int index) {
+        if (index < 0 || index >= weight()) throw new IndexOutOfBoundsException("Index: " + index);
+        return export(weighted(index)); }
+    @Override public void reweigh(Object key) {
+        Node node = node(key); if (node != null) node.reweigh(); }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key {@inheritDoc}
+     * @param value {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public V put(K key, V value) {
+        Node node = root, parent; int comparison;
+        if (node == null) {
+            compare(key, key); root = new Node(key, value, null); modCount++; return null; }
+        do {
+            comparison = compare(key, (parent = node).key);
+            if (comparison < 0) node = node.left;
+            else if (comparison > 0) node = node.right;
+            else return node.setValue(value);
+        } while (node != null);
+        node = new Node(key, value, parent);
+        if (comparison < 0) parent.left = node; else parent.right = node;
+        rebalance(parent); modCount++; return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param key {@inheritDoc}
+     * @return {@inheritDoc}
+     */
+    @Override
+    public V remove(Object key) {
+        Node node = node(key); if (node == null) return null;
+        V previous = node.value; delete(node); return previous;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        root = null; modCount++;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @param action {@inheritDoc}
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        requireNonNull(action); int expectedMod = modCount;
+        for (Node node = first(); node != null; node = successor(node))
+            action.accept(node.key, node.value);
+        if (modCount != expectedMod) throw new ConcurrentModificationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return entrySet != null ? entrySet : (entrySet = new EntrySet(null));
+    }
+
+    /**
+     * Return a {@link Loader} of the entries into this map, which is expected to be empty.
+     *
+     * @return a {@link Loader} of the entries into this map
+     */
+    protected Loader loader() {
+        return new Loader();
+    }
+
+    /**
+     * Replace the entries of this map with the given number of the keys and values of the given arrays,
+     * the keys strictly ascending, building the balanced tree in linear time.
+     *
+     * @param keys the given keys array
+     * @param values the given values array
+     * @param size the given number of the entries
+     */
+    final void build(Object[] keys, Object[] values, int size) {
+        root = build(keys, values, 0, size - 1, null); modCount++;
+    }
+
+    private Node build(Object[] keys, Object[] values, int from, int to, Node parent) {
+        if (from > to) return null; int middle = (from + to) >>> 1;
+        Node node = new Node(cast(keys[middle]), cast(values[middle]), parent);
+        node.left = build(keys, values, from, middle - 1, node);
+        node.right = build(keys, values, middle + 1, to, node);
+        update(node); return node;
+    }
+
+    /**
+     * Compare the given keys by the {@link #comparator}, or naturally if it is {@code null}.
+     *
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return the comparison result
+     */
+    final int compare(Object key1, Object key2) {
+        return comparator == null ? Cast.<Comparable<Object>>cast(requireNonNull(key1)).compareTo(key2)
+                : comparator.compare(cast(key1), cast(key2));
+    }
+
+    /**
+     * Return the weight of the given value.
+     *
+     * @param value the given value
+     * @return the weight of the given value
+     */
+    final int weigh(V value) {
+        return weigher != null ? weigher.applyAsInt(value) : 1;
+    }
+
+    final Node node(Object key) {
+        for (Node node = root; node != null; ) {
+            int comparison = compare(key, node.key);
+            if (comparison < 0) node = node.left;
+            else if (comparison > 0) node = node.right;
+            else return node;
+        } return null;
+    }
+
+    final Node first() {
+        Node node = root; if (node != null) while (node.left != null) node = node.left; return node;
+    }
+
+    final Node last() {
+        Node node = root; if (node != null) while (node.right != null) node = node.right; return node;
+    }
+
+    /**
+     * Return the lowest node with the key greater than, or equal to if inclusive, the given one.
+     *
+     * @param key the given key
+     * @param inclusive whether the equal key matches
+     * @return the matching node, or {@code null} if none
+     */
+    final Node ceiling(Object key, boolean inclusive) {
+        Node found = null;
+        for (Node node = root; node != null; ) {
+            int comparison = compare(key, node.key);
+            if (comparison == 0 && inclusive) return node;
+            if (comparison < 0) {
+                found = node; node = node.left; }
+            else node = node.right;
+        } return found;
+    }
+
+    /**
+     * Return the highest node with the key less than, or equal to if inclusive, the given one.
+     *
+     * @param key the given key
+     * @param inclusive whether the equal key matches
+     * @return the matching node, or {@code null} if none
+     */
+    final Node floor(Object key, boolean inclusive) {
+        Node found = null;
+        for (Node node = root; node != null; ) {
+            int comparison = compare(key, node.key);
+            if (comparison == 0 && inclusive) return node;
+            if (comparison > 0) {
+                found = node; node = node.right; }
+            else node = node.left;
+        } return found;
+    }
+
+    /**
+     * Return the number of the entries with the keys less than, or equal to if inclusive, the given one.
+     *
+     * @param key the given key
+     * @param inclusive whether the equal key is counted
+     * @return the number of the preceding entries
+     */
+    final int countBefore(Object key, boolean inclusive) {
+        int count = 0;
+        for (Node node = root; node != null; ) {
+            int comparison = compare(key, node.key);
+            if (comparison < 0) node = node.left;
+            else if (comparison > 0) {
+                count += count(node.left) + 1; node = node.right; }
+            else return count + count(node.left) + (inclusive ? 1 : 0);
+        } return count;
+    }
+
+    /**
+     * Return the weight of the entries with the keys less than, or equal to if inclusive, the given one.
+     *
+     * @param key the given key
+     * @param inclusive whether the equal key is weighed
+     * @return the weight of the preceding entries
+     */
+    final int weightBefore(Object key, boolean inclusive) {
+        int weight = 0;
+        for (Node node = root; node != null; ) {
+            int comparison = compare(key, node.key);
+            if (comparison < 0) node = node.left;
+            else if (comparison > 0) {
+                weight += total(node.left) + node.weight; node = node.right; }
+            else return weight + total(node.left) + (inclusive ? node.weight : 0);
+        } return weight;
+    }
+
+    /**
+     * Return the node at the given index of the ascending order.
+     *
+     * @param index the given index, within the size
+     * @return the node at the given index
+     */
+    final Node indexed(int index) {
+        for (Node node = root; ; ) {
+            int left = count(node.left);
+            if (index < left) node = node.left;
+            else if (index == left) return node;
+            else {
+                index -= left + 1; node = node.right; }
+        }
+    }
+
+    /**
+     * Return the weight of the given number of the first entries of the ascending order.
+     *
+     * @param index the given number of the first entries, within the size inclusive
+     * @return the weight of the given number of the first entries
+     */
+    final int weightTo(int index) {
+        int weight = 0;
+        for (Node node = root; node != null; ) {
+            int left = count(node.left);
+            if (index < left) node = node.left;
+            else if (index == left) return weight + total(node.left);
+            else {
+                weight += total(node.left) + node.weight; index -= left + 1; node = node.right; }
+        } return weight;
+    }
+
+    /**
+     * Return the node covering the given weighted index of the ascending order.
+     *
+     * @param index the given weighted index, within the weight
+     * @return the node covering the given weighted index
+     */
+    final Node weighted(int index) {
+        for (Node node = root; ; ) {
+            int left = total(node.left);
+            if (index < left) node = node.left;
+            else if ((index -= left) < node.weight) return node;
+            else {
+                index -= node.weight; node = node.right; }
+        }
+    }
+
+    final Node successor(Node node) {
+        if (node.right != null) {
+            node = node.right; while (node.left != null) node = node.left; return node; }
+        Node parent = node.parent;
+        while (parent != null && node == parent.right) {
+            node = parent; parent = parent.parent; }
+        return parent;
+    }
+
+    final Node predecessor(Node node) {
+        if (node.left != null) {
+            node = node.left; while (node.right != null) node = node.right; return node; }
+        Node parent = node.parent;
+        while (parent != null && node == parent.left) {
+            node = parent; parent = parent.parent; }
+        return parent;
+    }
+
+    /**
+     * Remove the given node from the tree. A node with both children takes over the entry of its successor,
+     * which node is unlinked instead, so an ascending iteration is to continue from the given node.
+     *
+     * @param node the given node
+     */
+    final void delete(Node node) {
+        if (node.left != null && node.right != null) {
+            Node successor = successor(node);
+            node.key = successor.key; node.value = successor.value; node.weight = successor.weight;
+            node = successor; }
+        Node child = node.left != null ? node.left : node.right, parent = node.parent;
+        if (child != null) child.parent = parent;
+        if (parent == null) root = child;
+        else if (parent.left == node) parent.left = child;
+        else parent.right = child;
+        node.left = node.right = node.parent = null;
+        rebalance(parent); modCount++;
+    }
+
+    /**
+     * Update the heights and the order statistics from the given node up to the root, rotating the unbalanced nodes.
+     *
+     * @param node the given node, may be {@code null}
+     */
+    private void rebalance(Node node) {
+        for (; node != null; node = node.parent) {
+            update(node); int balance = height(node.left) - height(node.right);
+            if (balance > 1) {
+                if (height(node.left.left) < height(node.left.right)) rotateLeft(node.left);
+                node = rotateRight(node);
+            } else if (balance < -1) {
+                if (height(node.right.right) < height(node.right.left)) rotateRight(node.right);
+                node = rotateLeft(node);
+            }
+        }
+    }
+
+    private Node rotateLeft(Node node) {
+        Node right = node.right; node.right = right.left;
+        if (right.left != null) right.left.parent = node;
+        replace(node, right); right.left = node; node.parent = right;
+        update(node); update(right); return right;
+    }
+
+    private Node rotateRight(Node node) {
+        Node left = node.left; node.left = left.right;
+        if (left.right != null) left.right.parent = node;
+        replace(node, left); left.right = node; node.parent = left;
+        update(node); update(left); return left;
+    }
+
+    private void replace(Node node, Node replacement) {
+        Node parent = replacement.parent = node.parent;
+        if (parent == null) root = replacement;
+        else if (parent.left == node) parent.left = replacement;
+        else parent.right = replacement;
+    }
+
+    private Map.Entry<K, V> poll(Node node) {
+        if (node == null) return null; Map.Entry<K, V> entry = export(node); delete(node); return entry;
+    }
+
+    /**
+     * A node of the tree, holding the height and the order statistics of its subtree.
+     */
+    protected final class Node extends AbstractKeyValue<K, V> {
+
+        K key; V value; Node left, right, parent;
+
+        int height = 1, count = 1, weight, total;
+
+        Node(K key, V value, Node parent) {
+            this.key = key; this.value = value; this.parent = parent; total = weight = weigh(value); }
+
+        @Override public K getKey() {
+            return key; }
+        @Override public V getValue() {
+            return value; }
+        @Override public V setValue(V value) {
+            V previous = this.value; this.value = value; reweigh(); return previous; }
+
+        /**
+         * Recalculate the weight of the value, adjusting the totals up to the root.
+         */
+        void reweigh() {
+            int delta = weigh(value) - weight; if (delta == 0) return; weight += delta;
+            for (Node node = this; node != null; node = node.parent) node.total += delta; }
+    }
+
+    /**
+     * A linear-time loader of the entries into the empty map. While the keys come in ascending order,
+     * the entries are buffered, merging the values of the equal keys, and the tree is built at once on
+     * {@link #flush()}. On the first key out of order the tree is built of the entries buffered so far,
+     * and the loader refuses this and any further entries, which are to be {@link #put put} one by one.
+     */
+    protected class Loader {
+
+        Object[] keys = new Object[16], values = new Object[16]; int size; boolean ascending = root == null;
+
+        /**
+         * Load the given entry if the keys still come in ascending order, merging the value with
+         * the previous one by the given merge function if the key is equal to the previous one.
+         *
+         * @param key the given key
+         * @param value the given value
+         * @param merger the given merge function of the previous and the given values
+         * @return {@code true} if the entry is loaded, {@code false} if it is to be put into the map
+         */
+        public boolean load(K key, V value, BinaryOperator<V> merger) {
+            if (!ascending) return false;
+            int comparison = compare(key, size > 0 ? keys[size - 1] : key);
+            if (comparison < 0) {
+                flush(); return false; }
+            if (comparison == 0 && size > 0)
+                values[size - 1] = merger.apply(cast(values[size - 1]), value);
+            else {
+                if (size == keys.length) {
+                    keys = copyOf(keys, size << 1); values = copyOf(values, size << 1); }
+                keys[size] = key; values[size++] = value;
+            } return true;
+        }
+
+        /**
+         * Build the tree of the entries loaded, if not yet built.
+         */
+        public void flush() {
+            if (ascending) {
+                ascending = false; if (size > 0) build(keys, values, size); keys = values = null; }
+        }
+    }
+
+    /**
+     * An {@link Iterator} of the given number of the entries, starting from the given node.
+     */
+    protected class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        Node next, last; int remaining, expectedMod = modCount; final boolean descending;
+
+        protected EntryIterator(Node next, int remaining, boolean descending) {
+            this.next = next; this.remaining = next != null ? remaining : 0; this.descending = descending; }
+
+        @Override public boolean hasNext() {
+            return remaining > 0; }
+
+        @Override public Map.Entry<K, V> next() {
+            if (remaining == 0) throw new NoSuchElementException(); checkMod(); last = next;
+            next = --remaining > 0 ? descending ? predecessor(last) : successor(last) : null; return last; }
+
+        @Override public void remove() {
+            if (last == null) throw new IllegalStateException(); checkMod();
+            if (!descending && last.left != null && last.right != null) next = last;
+            delete(last); last = null; expectedMod = modCount; }
+
+        void checkMod() {
+            if (modCount != expectedMod) throw new ConcurrentModificationException(); }
+    }
+
+    /**
+     * A {@link Spliterator} of the entries within a range of the ascending indexes,
+     * splitting it in halves exactly by the order statistics.
+     */
+    protected class EntrySpliterator implements Spliterator<Map.Entry<K, V>> {
+
+        int origin, fence; Node current; final boolean descending; final int expectedMod = modCount;
+
+        protected EntrySpliterator(int origin, int fence, Node current, boolean descending) {
+            this.origin = origin; this.fence = fence; this.current = current; this.descending = descending; }
+
+        @Override public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            requireNonNull(action); if (origin >= fence) return false;
+            Node node = current != null ? current : indexed(descending ? fence - 1 : origin);
+            if (descending) {
+                current = --fence > origin ? predecessor(node) : null; }
+            else current = ++origin < fence ? successor(node) : null;
+            action.accept(node); checkMod(); return true; }
+
+        @Override public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            requireNonNull(action); if (origin >= fence) return;
+            Node node = current != null ? current : indexed(descending ? fence - 1 : origin);
+            for (int remaining = fence - origin; remaining > 0; remaining--) {
+                action.accept(node); if (remaining > 1) node = descending ? predecessor(node) : successor(node); }
+            origin = fence; current = null; checkMod(); }
+
+        @Override public Spliterator<Map.Entry<K, V>> trySplit() {
+            int origin = this.origin, middle = origin + fence >>> 1;
+            if (middle <= origin) return null; Node current = this.current; this.current = null;
+            if (descending) {
+                int fence = this.fence; this.fence = middle; return new EntrySpliterator(middle, fence, current, true); }
+            this.origin = middle; return new EntrySpliterator(origin, middle, current, false); }
+
+        @Override public long estimateSize() {
+            return fence - origin; }
+        @Override public int characteristics() {
+            return DISTINCT | ORDERED | SIZED | SUBSIZED | (descending ? 0 : SORTED); }
+
+        @Override public Comparator<? super Map.Entry<K, V>> getComparator() {
+            if (descending) throw new IllegalStateException();
+            return (entry1, entry2) -> compare(entry1.getKey(), entry2.getKey()); }
+
+        /**
+         * Return the total weight of the values of the remaining entries.
+         *
+         * @return the total weight of the values of the remaining entries
+         */
+        protected long weigh() {
+            return origin < fence ? weightTo(fence) - weightTo(origin) : 0; }
+
+        void checkMod() {
+            if (modCount != expectedMod) throw new ConcurrentModificationException(); }
+    }
+
+    /**
+     * The {@link Set} view of the entries of this map, or of the given {@link SubMap} of it.
+     */
+    protected class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        final SubMap<K, V> sub;
+
+        protected EntrySet(SubMap<K, V> sub) {
+            this.sub = sub; }
+
+        @Override public int size() {
+            return sub != null ? sub.size() : RankTreeMap.this.size(); }
+        @Override public boolean isEmpty() {
+            return sub != null ? sub.isEmpty() : root == null; }
+        @Override public void clear() {
+            if (sub != null) super.clear(); else RankTreeMap.this.clear(); }
+
+        @Override public Iterator<Map.Entry<K, V>> iterator() {
+            return sub != null ? new EntryIterator(sub.lowest(), sub.size(), sub.descending)
+                    : new EntryIterator(first(), size(), false); }
+        @Override public Spliterator<Map.Entry<K, V>> spliterator() {
+            return sub != null ? new EntrySpliterator(sub.origin(), max(sub.origin(), sub.fence()), null, sub.descending)
+                    : new EntrySpliterator(0, size(), null, false); }
+
+        @Override public boolean contains(Object o) {
+            return node(o) != null; }
+        @Override public boolean remove(Object o) {
+            Node node = node(o); if (node == null) return false; delete(node); return true; }
+
+        private Node node(Object o) {
+            if (!(o instanceof Map.Entry)) return null; Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o; Object key = entry.getKey();
+            Node node = sub == null || sub.inRange(key) ? RankTreeMap.this.node(key) : null;
+            return node != null && Objects.equals(node.value, entry.getValue()) ? node : null; }
+    }
+
+    /**
+     * A ranged and optionally descending view of a {@link RankTreeMap}.
+     * The bounds are held in the ascending order of the backing map regardless of the direction.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     */
+    protected static class SubMap<K, V> extends AbstractMap<K, V> implements RankedMap<K, V>, Serializable {
+
+        private static final long serialVersionUID = -3158642806426375028L;
+
+        protected final RankTreeMap<K, V> m;
+
+        protected final K lo, hi;
+
+        protected final boolean fromStart, loInclusive, toEnd, hiInclusive, descending;
+
+        private transient Set<Map.Entry<K, V>> entrySet;
+
+        protected SubMap(RankTreeMap<K, V> m, boolean fromStart, K lo, boolean loInclusive,
+                         boolean toEnd, K hi, boolean hiInclusive, boolean descending) {
+            if (!fromStart && !toEnd) {
+                if (m.compare(lo, hi) > 0) throw new IllegalArgumentException("fromKey > toKey"); }
+            else {
+                if (!fromStart) m.compare(lo, lo);
+                if (!toEnd) m.compare(hi, hi); }
+            this.m = m; this.fromStart = fromStart; this.lo = lo; this.loInclusive = loInclusive;
+            this.toEnd = toEnd; this.hi = hi; this.hiInclusive = hiInclusive; this.descending = descending;
+        }
+
+        @Override public int size() {
+            return max(fence() - origin(), 0); }
+        @Override public boolean isEmpty() {
+            return absLowest() == null; }
+        @Override public boolean containsKey(Object key) {
+            return inRange(key) && m.containsKey(key); }
+        @Override public V get(Object key) {
+            return inRange(key) ? m.get(key) : null; }
+        @Override public V put(K key, V value) {
+            if (!inRange(key)) throw new IllegalArgumentException("key out of range"); return m.put(key, value); }
+        @Override public V remove(Object key) {
+            return inRange(key) ? m.remove(key) : null; }
+
+        @Override public Comparator<? super K> comparator() {
+            return descending ? reverseOrder(m.comparator) : m.comparator; }
+
+        @Override public K firstKey() {
+            return key(lowest()); }
+        @Override public K lastKey() {
+            return key(highest()); }
+
+        @Override public Map.Entry<K, V> firstEntry() {
+            return export(lowest()); }
+        @Override public Map.Entry<K, V> lastEntry() {
+            return export(highest()); }
+        @Override public Map.Entry<K, V> pollFirstEntry() {
+            return m.poll(lowest()); }
+        @Override public Map.Entry<K, V> pollLastEntry() {
+            return m.poll(highest()); }
+
+        @Override public Map.Entry<K, V> lowerEntry(K key) {
+            return export(descending ? absHigher(key) : absLower(key)); }
+        @Override public K lowerKey(K key) {
+            return keyOrNull(descending ? absHigher(key) : absLower(key)); }
+        @Override public Map.Entry<K, V> floorEntry(K key) {
+            return export(descending ? absCeiling(key) : absFloor(key)); }
+        @Override public K floorKey(K key) {
+            return keyOrNull(descending ? absCeiling(key) : absFloor(key)); }
+        @Override public Map.Entry<K, V> ceilingEntry(K key) {
+            return export(descending ? absFloor(key) : absCeiling(key)); }
+        @Override public K ceilingKey(K key) {
+            return keyOrNull(descending ? absFloor(key) : absCeiling(key)); }
+        @Override public Map.Entry<K, V> higherEntry(K key) {
+            return export(descending ? absLower(key) : absHigher(key)); }
+        @Override public K higherKey(K key) {
+            return keyOrNull(descending ? absLower(key) : absHigher(key)); }
+
+        @Override public Set<K> keySet() {
+            return navigableKeySet(); }
+        @Override public NavigableSet<K> navigableKeySet() {
+            return new KeySet<>(this); }
+        @Override public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet(); }
+        @Override public NavigableMap<K, V> descendingMap() {
+            return new SubMap<>(m, fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending); }
+
+        @Override public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+            if (!inRange(fromKey, fromInclusive)) throw new IllegalArgumentException("fromKey out of range");
+            if (!inRange(toKey, toInclusive)) throw new IllegalArgumentException("toKey out of range");
+            return descending ? new SubMap<>(m, false, toKey, toInclusive, false, fromKey, fromInclusive, true)
+                    : new SubMap<>(m, false, fromKey, fromInclusive, false, toKey, toInclusive, false); }
+        @Override public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+            if (!inRange(toKey, inclusive)) throw new IllegalArgumentException("toKey out of range");
+            return descending ? new SubMap<>(m, false, toKey, inclusive, toEnd, hi, hiInclusive, true)
+                    : new SubMap<>(m, fromStart, lo, loInclusive, false, toKey, inclusive, false); }
+        @Override public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            if (!inRange(fromKey, inclusive)) throw new IllegalArgumentException("fromKey out of range");
+            return descending ? new SubMap<>(m, fromStart, lo, loInclusive, false, fromKey, inclusive, true)
+                    : new SubMap<>(m, false, fromKey, inclusive, toEnd, hi, hiInclusive, false); }
+        @Override public NavigableMap<K, V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false); }
+        @Override public NavigableMap<K, V> headMap(K toKey) {
+            return headMap(toKey, false); }
+        @Override public NavigableMap<K, V> tailMap(K fromKey) {
+            return tailMap(fromKey, true); }
+
+        @Override public Set<Map.Entry<K, V>> entrySet() {
+            return entrySet != null ? entrySet : (entrySet = m.new EntrySet(this)); }
+
+        @Override public int weight() {
+            return max(fenceWeight() - originWeight(), 0); }
+        @Override public int rank(Object key) {
+            return descending ? max(fenceWeight() - max(originWeight(), m.weightBefore(key, true)), 0)
+                    : max(min(fenceWeight(), m.weightBefore(key, false)) - originWeight(), 0); }
+        @Override public Map.Entry<K, V> weightedEntry(int index) {
+            int origin = originWeight(), fence = fenceWeight();
+            if (index < 0 || index >= fence - origin) throw new IndexOutOfBoundsException("Index: " + index);
+            return export(m.weighted(descending ? fence - 1 - index : origin + index)); }
+        @Override public void reweigh(Object key) {
+            if (inRange(key)) m.reweigh(key); }
+
+        /**
+         * Return the ascending index of the first entry of this view.
+         *
+         * @return the ascending index of the first entry of this view
+         */
+        int origin() {
+            return fromStart ? 0 : m.countBefore(lo, !loInclusive); }
+
+        /**
+         * Return the ascending index following the last entry of this view.
+         *
+         * @return the ascending index following the last entry of this view
+         */
+        int fence() {
+            return toEnd ? m.size() : m.countBefore(hi, hiInclusive); }
+
+        int originWeight() {
+            return fromStart ? 0 : m.weightBefore(lo, !loInclusive); }
+
+        int fenceWeight() {
+            return toEnd ? m.weight() : m.weightBefore(hi, hiInclusive); }
+
+        boolean tooLow(Object key) {
+            if (fromStart) return false; int comparison = m.compare(key, lo);
+            return comparison < 0 || comparison == 0 && !loInclusive; }
+
+        boolean tooHigh(Object key) {
+            if (toEnd) return false; int comparison = m.compare(key, hi);
+            return comparison > 0 || comparison == 0 && !hiInclusive; }
+
+        boolean inRange(Object key) {
+            return !tooLow(key) && !tooHigh(key); }
+
+        boolean inRange(Object key, boolean inclusive) {
+            return inclusive ? inRange(key) : (fromStart || m.compare(key, lo) >= 0) && (toEnd || m.compare(hi, key) >= 0); }
+
+        RankTreeMap<K, V>.Node lowest() {
+            return descending ? absHighest() : absLowest(); }
+
+        RankTreeMap<K, V>.Node highest() {
+            return descending ? absLowest() : absHighest(); }
+
+        RankTreeMap<K, V>.Node absLowest() {
+            return withinHigh(fromStart ? m.first() : m.ceiling(lo, loInclusive)); }
+
+        RankTreeMap<K, V>.Node absHighest() {
+            return withinLow(toEnd ? m.last() : m.floor(hi, hiInclusive)); }
+
+        RankTreeMap<K, V>.Node absCeiling(Object key) {
+            return tooLow(key) ? absLowest() : withinHigh(m.ceiling(key, true)); }
+
+        RankTreeMap<K, V>.Node absHigher(Object key) {
+            return tooLow(key) ? absLowest() : withinHigh(m.ceiling(key, false)); }
+
+        RankTreeMap<K, V>.Node absFloor(Object key) {
+            return tooHigh(key) ? absHighest() : withinLow(m.floor(key, true)); }
+
+        RankTreeMap<K, V>.Node absLower(Object key) {
+            return tooHigh(key) ? absHighest() : withinLow(m.floor(key, false)); }
+
+        private RankTreeMap<K, V>.Node withinHigh(RankTreeMap<K, V>.Node node) {
+            return node == null || tooHigh(node.key) ? null : node; }
+
+        private RankTreeMap<K, V>.Node withinLow(RankTreeMap<K, V>.Node node) {
+            return node == null || tooLow(node.key) ? null : node; }
+    }
+
+    /**
+     * The {@link NavigableSet} view of the keys of the given {@link NavigableMap}.
+     *
+     * @param <K> the type of keys
+     */
+    protected static class KeySet<K> extends AbstractSet<K> implements NavigableSet<K> {
+
+        protected final NavigableMap<K, ?> m;
+
+        protected KeySet(NavigableMap<K, ?> m) {
+            this.m = m; }
+
+        @Override public int size() {
+            return m.size(); }
+        @Override public boolean isEmpty() {
+            return m.isEmpty(); }
+        @Override public boolean contains(Object o) {
+            return m.containsKey(o); }
+        @Override public boolean remove(Object o) {
+            int size = m.size(); m.remove(o); return m.size() != size; }
+        @Override public void clear() {
+            m.clear(); }
+
+        @Override public Iterator<K> iterator() {
+            Iterator<? extends Map.Entry<K, ?>> entries = m.entrySet().iterator();
+            return new Iterator<K>() {
+                @Override public boolean hasNext() { return entries.hasNext(); }
+                @Override public K next() { return entries.next().getKey(); }
+                @Override public void remove() { entries.remove(); }
+            }; }
+        @Override public Iterator<K> descendingIterator() {
+            return descendingSet().iterator(); }
+
+        @Override public Comparator<? super K> comparator() {
+            return m.comparator(); }
+        @Override public K first() {
+            return m.firstKey(); }
+        @Override public K last() {
+            return m.lastKey(); }
+        @Override public K lower(K k) {
+            return m.lowerKey(k); }
+        @Override public K floor(K k) {
+            return m.floorKey(k); }
+        @Override public K ceiling(K k) {
+            return m.ceilingKey(k); }
+        @Override public K higher(K k) {
+            return m.higherKey(k); }
+        @Override public K pollFirst() {
+            Map.Entry<K, ?> entry = m.pollFirstEntry(); return entry != null ? entry.getKey() : null; }
+        @Override public K pollLast() {
+            Map.Entry<K, ?> entry = m.pollLastEntry(); return entry != null ? entry.getKey() : null; }
+
+        @Override public NavigableSet<K> descendingSet() {
+            return new KeySet<>(m.descendingMap()); }
+        @Override public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return new KeySet<>(m.subMap(fromElement, fromInclusive, toElement, toInclusive)); }
+        @Override public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return new KeySet<>(m.headMap(toElement, inclusive)); }
+        @Override public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return new KeySet<>(m.tailMap(fromElement, inclusive)); }
+        @Override public NavigableSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false); }
+        @Override public NavigableSet<K> headSet(K toElement) {
+            return headSet(toElement, false); }
+        @Override public NavigableSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true); }
+    }
+
+
+    private void writeObject(ObjectOutputStream output) throws IOException {
+        output.defaultWriteObject(); output.writeInt(size());
+        for (Node node = first(); node != null; node = successor(node)) {
+            output.writeObject(node.key); output.writeObject(node.value); }
+    }
+
+    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+        input.defaultReadObject(); int size;
+        if ((size = input.readInt()) < 0)
+            throw new InvalidObjectException("Negative size: " + size);
+        Object[] keys = new Object[size], values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = input.readObject(); values[i] = input.readObject(); }
+        build(keys, values, size);
+    }
+
+    private static int height(RankTreeMap<?, ?>.Node node) {
+        return node != null ? node.height : 0;
+    }
+
+    private static int count(RankTreeMap<?, ?>.Node node) {
+        return node != null ? node.count : 0;
+    }
+
+    private static int total(RankTreeMap<?, ?>.Node node) {
+        return node != null ? node.total : 0;
+    }
+
+    private static void update(RankTreeMap<?, ?>.Node node) {
+        node.height = max(height(node.left), height(node.right)) + 1;
+        node.count = count(node.left) + count(node.right) + 1;
+        node.total = total(node.left) + total(node.right) + node.weight;
+    }
+
+    private static <K> K key(RankTreeMap<K, ?>.Node node) {
+        if (node == null) throw new NoSuchElementException(); return node.key;
+    }
+
+    private static <K> K keyOrNull(RankTreeMap<K, ?>.Node node) {
+        return node != null ? node.key : null;
+    }
+
+    private static <K, V> Map.Entry<K, V> export(RankTreeMap<K, V>.Node node) {
+        return node != null ? new SimpleImmutableEntry<>(node.key, node.value) : null;
+    }
+}
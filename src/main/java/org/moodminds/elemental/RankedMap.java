@@ -0,0 +1,47 @@
+package org.moodminds.elemental;
+
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * A {@link NavigableMap} answering the weighted order statistics queries in logarithmic time.
+ * The ranks and indexes are in the order of the map, so they count from the end in a descending view.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public interface RankedMap<K, V> extends NavigableMap<K, V> {
+
+    /**
+     * Return the total weight of the values of this map.
+     *
+     * @return the total weight of the values of this map
+     */
+    int weight();
+
+    /**
+     * Return the total weight of the values of the keys preceding the given one in this map, present or not.
+     *
+     * @param key the given key
+     * @return the total weight of the values of the preceding keys
+     * @throws ClassCastException if the key cannot be compared with the keys of this map
+     */
+    int rank(Object key);
+
+    /**
+     * Return the snapshot of the entry covering the given weighted index, that is the entry
+     * whose {@link #rank(Object) rank} is not greater than the index, while the rank plus the weight is.
+     *
+     * @param index the given weighted index
+     * @return the snapshot of the entry covering the given weighted index
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the {@link #weight()}
+     */
+    Map.Entry<K, V> weightedEntry(int index);
+
+    /**
+     * Recalculate the weight of the value of the given key, which has been changed in place.
+     *
+     * @param key the given key
+     */
+    void reweigh(Object key);
+}
@@ -0,0 +1,456 @@
+package org.moodminds.elemental;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import static java.lang.Math.max;
+import static java.lang.String.format;
+import static java.util.Arrays.binarySearch;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * An immutable implementation of the {@link TailedSequence} interface, representing the concatenations
+ * and the slices of the other immutable {@link Sequence}s as a height-balanced tree over them.
+ * <p>
+ * The concatenation and the {@link #sub(int, int) slicing} take logarithmic time and never copy the elements
+ * except of the adjacent pieces of up to {@link #LEAF} of them, which are merged into arrays to keep the tree small.
+ * The slices of the leaves are their own {@link Sequence#sub(int, int) subsequence} views, so the leaves should
+ * have a fast positional access, like the {@link ArraySequence} and the link sequences do. The whole rope is
+ * copied into a single array only on {@link #flatten()}.
+ *
+ * @param <E> the type of elements
+ */
+public class RopeSequence<E> extends AbstractTailedSequence<E> implements TailedSequence<E>, Serializable {
+
+    private static final long serialVersionUID = 2470190271387602785L;
+
+    /**
+     * The size of the pieces merged into an array on concatenation, at most.
+     */
+    protected static final int LEAF = 32;
+
+    /**
+     * The root {@link Node} holding field.
+     */
+    protected transient Node root;
+
+    /**
+     * The {@link Index} of the leaves holding field, {@code null} until built.
+     */
+    protected transient Index index;
+
+    /**
+     * Construct the object as the concatenation of the given sequences.
+     *
+     * @param sequences the given sequences
+     */
+    @SafeVarargs
+    public RopeSequence(Sequence<? extends E>... sequences) {
+        Node root = leaf(new ArraySequence<>());
+        for (Sequence<? extends E> sequence : sequences)
+            root = concat(root, node(sequence));
+        this.root = root;
+    }
+
+    /**
+     * Construct the object with the given root {@link Node}.
+     *
+     * @param root the given root {@link Node}
+     */
+    protected RopeSequence(Node root) {
+        this.root = root;
+    }
+
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
+    @Override public <R extends E> R get(int index) {
+        return element(root, elementIndex(index, root.size)); }
+    @Override public int size() {
+        return root.size; }
+
+    @Override public Iterator<E> iterator() {
+        return new AbstractIterator<E>() {
+            final Leaf[] leaves = index().leaves; int leaf; Iterator<?> iterator = leaves[0].sequence.iterator();
+            @Override protected boolean hasNextElement() {
+                while (!iterator.hasNext() && leaf < leaves.length - 1) iterator = leaves[++leaf].sequence.iterator();
+                return iterator.hasNext(); }
+            @Override protected E nextElement() {
+                return cast(iterator.next()); }
+        }; }
+    @Override public TailedSequenceIterator<E> iterator(int index) {
+        return new RopeIterator(positionIndex(index, root.size)); }
+    @Override public Spliterator<E> spliterator() {
+        return new RopeSpliterator(root); }
+
+    @Override public void forEach(Consumer<? super E> action) {
+        requireNonNull(action); forEach(root, action); }
+
+    @Override public RopeSequence<E> sub(int fromIndex, int toIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException(format("fromIndex = %d", fromIndex));
+        if (toIndex > root.size)
+            throw new IndexOutOfBoundsException(format("toIndex = %d", toIndex));
+        if (fromIndex > toIndex)
+            throw new IllegalArgumentException(format("fromIndex(%d) > toIndex(%d)", fromIndex, toIndex));
+        return fromIndex == 0 && toIndex == root.size ? this : new RopeSequence<>(sub(root, fromIndex, toIndex)); }
+
+    /**
+     * Return the concatenation of this sequence and the given one, sharing the both.
+     *
+     * @param sequence the given sequence
+     * @return the concatenation of this sequence and the given one
+     */
+    public RopeSequence<E> concat(Sequence<? extends E> sequence) {
+        return new RopeSequence<>(concat(root, node(sequence)));
+    }
+
+    /**
+     * Return an {@link ArraySequence} of the elements of this sequence, copied into a single array.
+     *
+     * @return an {@link ArraySequence} of the elements of this sequence
+     */
+    public ArraySequence<E> flatten() {
+        ArraySequence.Builder<E> builder = ArraySequence.builder(root.size);
+        forEach(root, builder); return builder.build();
+    }
+
+    /**
+     * Return the {@link Index} of the leaves, building it if absent.
+     *
+     * @return the {@link Index} of the leaves
+     */
+    protected Index index() {
+        Index index = this.index;
+        if (index == null) {
+            List<Leaf> leaves = new ArrayList<>(); leaves(root, leaves);
+            this.index = index = new Index(leaves.toArray(new Leaf[0]));
+        } return index;
+    }
+
+    /**
+     * Validate and return the given index within the specified size.
+     *
+     * @param index the index to validate
+     * @param size the upper bound (exclusive) for valid indices
+     * @return the validated index
+     * @throws IndexOutOfBoundsException if {@code index} is negative or not less than {@code size}
+     */
+    protected int elementIndex(int index, int size) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        return index;
+    }
+
+    /**
+     * Validate and return the given position within the specified size.
+     *
+     * @param index the position to validate
+     * @param size the upper bound (inclusive) for valid positions
+     * @return the validated position
+     * @throws IndexOutOfBoundsException if {@code index} is negative or greater than {@code size}
+     */
+    protected int positionIndex(int index, int size) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        return index;
+    }
+
+    private void writeObject(ObjectOutputStream output) throws Exception {
+        output.defaultWriteObject(); output.writeInt(root.size);
+        for (E element : this) output.writeObject(element);
+    }
+
+    private void readObject(ObjectInputStream input) throws Exception {
+        input.defaultReadObject(); int size = input.readInt();
+        if (size < 0)
+            throw new InvalidObjectException("Negative size: " + size);
+        Object[] array = new Object[size]; for (int i = 0; i < size; i++)
+            array[i] = input.readObject();
+        root = leaf(new ArraySequence<>(array));
+    }
+
+
+    /**
+     * A node of the rope tree, of the given number of elements and height.
+     */
+    protected abstract static class Node {
+
+        /**
+         * The number of elements and the height holding fields.
+         */
+        protected final int size, height;
+
+        /**
+         * Construct the object with the given number of elements and height.
+         *
+         * @param size the given number of elements
+         * @param height the given height
+         */
+        protected Node(int size, int height) { this.size = size; this.height = height; }
+    }
+
+    /**
+     * A leaf {@link Node} of a {@link Sequence}.
+     */
+    protected static class Leaf extends Node {
+
+        /**
+         * The {@link Sequence} holding field.
+         */
+        protected final Sequence<?> sequence;
+
+        /**
+         * Construct the object with the given {@link Sequence}.
+         *
+         * @param sequence the given {@link Sequence}
+         */
+        protected Leaf(Sequence<?> sequence) { super(sequence.size(), 0); this.sequence = sequence; }
+    }
+
+    /**
+     * A concatenation {@link Node} of the given left and right ones.
+     */
+    protected static class Concat extends Node {
+
+        /**
+         * The left and right {@link Node} holding fields.
+         */
+        protected final Node left, right;
+
+        /**
+         * Construct the object with the given left and right {@link Node}s.
+         *
+         * @param left the given left {@link Node}
+         * @param right the given right {@link Node}
+         */
+        protected Concat(Node left, Node right) {
+            super(left.size + right.size, max(left.height, right.height) + 1); this.left = left; this.right = right; }
+    }
+
+    /**
+     * The leaves of a rope tree in their order along with the positions of their first elements.
+     */
+    protected static class Index {
+
+        /**
+         * The leaves and their first element positions holding fields.
+         */
+        protected final Leaf[] leaves; protected final int[] starts;
+
+        /**
+         * Construct the object with the given leaves.
+         *
+         * @param leaves the given leaves
+         */
+        protected Index(Leaf[] leaves) {
+            this.leaves = leaves; starts = new int[leaves.length];
+            for (int i = 1; i < leaves.length; i++)
+                starts[i] = starts[i - 1] + leaves[i - 1].size;
+        }
+    }
+
+    /**
+     * The {@link TailedSequenceIterator} moving along the leaves by their positional access.
+     */
+    protected class RopeIterator extends AbstractTailedSequenceIterator<E> {
+
+        protected final Leaf[] leaves;
+
+        protected int leaf, offset;
+
+        protected RopeIterator(int index) {
+            super(index); Index leaves = index(); this.leaves = leaves.leaves;
+            int leaf = binarySearch(leaves.starts, index);
+            this.leaf = leaf >= 0 ? leaf : ~leaf - 1; offset = index - leaves.starts[this.leaf];
+        }
+
+        @Override protected boolean hasPreviousElement() {
+            return index > 0; }
+        @Override protected boolean hasNextElement() {
+            return index < root.size; }
+
+        @Override protected E previousElement() {
+            if (offset == 0) offset = leaves[--leaf].size;
+            index--; return cast(leaves[leaf].sequence.get(--offset)); }
+        @Override protected E nextElement() {
+            if (offset == leaves[leaf].size) { leaf++; offset = 0; }
+            index++; return cast(leaves[leaf].sequence.get(offset++)); }
+    }
+
+    /**
+     * The {@link Spliterator} splitting the rope tree along its concatenations,
+     * and then the leaves by their own spliterators.
+     */
+    protected class RopeSpliterator implements Spliterator<E> {
+
+        protected final Deque<Node> pending = new ArrayDeque<>();
+
+        protected Spliterator<E> current;
+
+        protected RopeSpliterator(Node node) {
+            pending.push(node); }
+
+        @Override public boolean tryAdvance(Consumer<? super E> action) {
+            requireNonNull(action);
+            while (current == null || !current.tryAdvance(action))
+                if (!advance()) return false;
+            return true; }
+
+        @Override public void forEachRemaining(Consumer<? super E> action) {
+            requireNonNull(action); if (current != null) { current.forEachRemaining(action); current = null; }
+            while (!pending.isEmpty()) forEach(pending.pop(), action); }
+
+        @Override public Spliterator<E> trySplit() {
+            Spliterator<E> prefix;
+            if (current != null) {
+                if (pending.isEmpty()) return current.trySplit();
+                prefix = current; current = null; return prefix;
+            } if (pending.size() > 1)
+                return new RopeSpliterator(pending.pop());
+            Node node = pending.peek();
+            if (node instanceof Concat) {
+                pending.pop(); pending.push(((Concat) node).right); return new RopeSpliterator(((Concat) node).left); }
+            if (node != null) {
+                pending.pop(); current = cast(((Leaf) node).sequence.spliterator()); return current.trySplit(); }
+            return null; }
+
+        @Override public long estimateSize() {
+            long size = current != null ? current.estimateSize() : 0;
+            for (Node node : pending) size += node.size; return size; }
+
+        @Override public int characteristics() {
+            return ORDERED | IMMUTABLE | (current == null || current.hasCharacteristics(SIZED) ? SIZED : 0); }
+
+        private boolean advance() {
+            current = null; if (pending.isEmpty()) return false;
+            Node node = pending.pop();
+            for (; node instanceof Concat; node = ((Concat) node).left)
+                pending.push(((Concat) node).right);
+            current = cast(((Leaf) node).sequence.spliterator()); return true; }
+    }
+
+
+    /**
+     * Return a {@link RopeSequence} of the concatenation of the given sequences.
+     *
+     * @param sequences the given sequences
+     * @param <E> the type of elements
+     * @return a {@link RopeSequence} of the concatenation of the given sequences
+     */
+    @SafeVarargs
+    public static <E> RopeSequence<E> sequence(Sequence<? extends E>... sequences) {
+        return new RopeSequence<>(sequences);
+    }
+
+    private static Node node(Sequence<?> sequence) {
+        return sequence instanceof RopeSequence ? ((RopeSequence<?>) sequence).root : leaf(sequence);
+    }
+
+    private static Leaf leaf(Sequence<?> sequence) {
+        return new Leaf(sequence);
+    }
+
+    private static <R> R element(Node node, int index) {
+        while (node instanceof Concat) {
+            Concat concat = (Concat) node;
+            if (index < concat.left.size) node = concat.left;
+            else { index -= concat.left.size; node = concat.right; }
+        } return cast(((Leaf) node).sequence.get(index));
+    }
+
+    private static <E> void forEach(Node node, Consumer<? super E> action) {
+        for (; node instanceof Concat; node = ((Concat) node).right)
+            forEach(((Concat) node).left, action);
+        ((Leaf) node).sequence.forEach(cast(action));
+    }
+
+    private static void leaves(Node node, List<Leaf> leaves) {
+        for (; node instanceof Concat; node = ((Concat) node).right)
+            leaves(((Concat) node).left, leaves);
+        leaves.add((Leaf) node);
+    }
+
+    private static Node sub(Node node, int fromIndex, int toIndex) {
+        if (fromIndex == 0 && toIndex == node.size)
+            return node;
+        if (node instanceof Leaf)
+            return leaf(((Leaf) node).sequence.sub(fromIndex, toIndex));
+        Concat concat = (Concat) node; int middle = concat.left.size;
+        if (toIndex <= middle)
+            return sub(concat.left, fromIndex, toIndex);
+        if (fromIndex >= middle)
+            return sub(concat.right, fromIndex - middle, toIndex - middle);
+        return concat(sub(concat.left, fromIndex, middle), sub(concat.right, 0, toIndex - middle));
+    }
+
+    private static Node concat(Node left, Node right) {
+        if (left.size == 0) return right;
+        if (right.size == 0) return left;
+        if (left.size + right.size <= LEAF) return merge(left, right);
+        if (right.size < LEAF) return append(left, right);
+        if (left.size < LEAF) return prepend(left, right);
+        return join(left, right);
+    }
+
+    private static Node append(Node left, Node right) {
+        if (left instanceof Concat)
+            return join(((Concat) left).left, append(((Concat) left).right, right));
+        return left.size + right.size <= LEAF ? merge(left, right) : join(left, right);
+    }
+
+    private static Node prepend(Node left, Node right) {
+        if (right instanceof Concat)
+            return join(prepend(left, ((Concat) right).left), ((Concat) right).right);
+        return left.size + right.size <= LEAF ? merge(left, right) : join(left, right);
+    }
+
+    private static Node merge(Node left, Node right) {
+        ArraySequence.Builder<Object> builder = ArraySequence.builder(left.size + right.size);
+        forEach(left, builder); forEach(right, builder); return leaf(builder.build());
+    }
+
+    private static Node join(Node left, Node right) {
+        if (left.height > right.height + 1) return joinRight((Concat) left, right);
+        if (right.height > left.height + 1) return joinLeft(left, (Concat) right);
+        return new Concat(left, right);
+    }
+
+    private static Node joinRight(Concat left, Node right) {
+        Node outer = left.left, inner = left.right, joined;
+        if (inner.height <= right.height + 1) {
+            joined = new Concat(inner, right);
+            return joined.height <= outer.height + 1 ? new Concat(outer, joined)
+                    : rotateLeft(new Concat(outer, rotateRight((Concat) joined)));
+        } joined = joinRight((Concat) inner, right);
+        return joined.height <= outer.height + 1 ? new Concat(outer, joined) : rotateLeft(new Concat(outer, joined));
+    }
+
+    private static Node joinLeft(Node left, Concat right) {
+        Node outer = right.right, inner = right.left, joined;
+        if (inner.height <= left.height + 1) {
+            joined = new Concat(left, inner);
+            return joined.height <= outer.height + 1 ? new Concat(joined, outer)
+                    : rotateRight(new Concat(rotateLeft((Concat) joined), outer));
+        } joined = joinLeft(left, (Concat) inner);
+        return joined.height <= outer.height + 1 ? new Concat(joined, outer) : rotateRight(new Concat(joined, outer));
+    }
+
+    private static Node rotateLeft(Concat node) {
+        Concat right = (Concat) node.right; return new Concat(new Concat(node.left, right.left), right.right);
+    }
+
+    private static Node rotateRight(Concat node) {
+        Concat left = (Concat) node.left; return new Concat(left.left, new Concat(left.right, node.right));
+    }
+}
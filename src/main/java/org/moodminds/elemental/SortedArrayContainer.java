@@ -0,0 +1,557 @@
+package org.moodminds.elemental;
+
+import org.moodminds.sneaky.Cast;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Arrays.binarySearch;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.sort;
+import static java.util.Collections.reverseOrder;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * An immutable sorted array implementation of the {@link NavigableContainer} interface, for the read-mostly data
+ * loaded once and looked up many times.
+ * <p>
+ * The elements are kept in a single array, sorted stably so that the equal ones stay in their encounter order,
+ * along with the starting positions of the runs of the equal elements, which are omitted if all the elements
+ * are distinct. The lookups are binary searches over the runs, and the sub-views, including the descending one,
+ * are index ranges over the very same array, created in logarithmic time without copying. The descending view
+ * walks the runs backwards, each of them still in its encounter order, and its spliterator is split at the run
+ * boundary nearest to the middle of the remaining elements. A sub-view keeps its bounds, and the bounds of a further
+ * sub-view beyond them are rejected, as they are by the {@link java.util.TreeMap} views. A serialized view is restored
+ * as a container of a copy of its elements, keeping its bounds and direction.
+ *
+ * @param <E> the element type
+ */
+public class SortedArrayContainer<E> extends AbstractContainer<E> implements NavigableContainer<E>, RandomMatch, Serializable {
+
+    private static final long serialVersionUID = 3409857160932587462L;
+
+    /**
+     * The ascending order {@link Comparator} holder field, {@code null} for the natural ordering.
+     */
+    private final Comparator<? super E> comparator;
+
+    /**
+     * The descending view flag holder field.
+     */
+    private final boolean descending;
+
+    /**
+     * The sorted elements array holder field, shared by all the views.
+     */
+    protected transient Object[] array;
+
+    /**
+     * The starting positions of the runs of the equal elements holder field, followed by the array length,
+     * {@code null} if all the elements are distinct, shared by all the views.
+     */
+    protected transient int[] runs;
+
+    /**
+     * The range of the runs of this view holder fields, the low one inclusive and the high one exclusive.
+     */
+    protected transient int low, high;
+
+    /**
+     * The low and the high bounds of this view, in the ascending order, holder fields.
+     */
+    protected Object lo, hi;
+
+    /**
+     * The bounds of this view flags holder fields, the absence of the low and the high bound
+     * and the inclusiveness of each of them.
+     */
+    protected boolean fromStart, loInclusive, toEnd, hiInclusive;
+
+    /**
+     * Construct the object with the given elements vararg.
+     *
+     * @param elements the given elements vararg
+     */
+    @SafeVarargs
+    public SortedArrayContainer(E... elements) {
+        this(null, elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements array.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements array
+     */
+    @SafeVarargs
+    public SortedArrayContainer(Comparator<? super E> comparator, E... elements) {
+        this(elements.clone(), comparator);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Stream}.
+     *
+     * @param elements the given elements {@link Stream}
+     */
+    public SortedArrayContainer(Stream<? extends E> elements) {
+        this(null, elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Stream}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Stream}
+     */
+    public SortedArrayContainer(Comparator<? super E> comparator, Stream<? extends E> elements) {
+        this(elements.toArray(), comparator);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Container}.
+     *
+     * @param elements the given elements {@link Container}
+     */
+    public SortedArrayContainer(Container<? extends E> elements) {
+        this(null, elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Container}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Container}
+     */
+    public SortedArrayContainer(Comparator<? super E> comparator, Container<? extends E> elements) {
+        this(elements.toArray(), comparator);
+    }
+
+    /**
+     * Construct the object with the given elements {@link java.util.Collection}.
+     *
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public SortedArrayContainer(java.util.Collection<? extends E> elements) {
+        this(null, elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link java.util.Collection}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link java.util.Collection}
+     */
+    public SortedArrayContainer(Comparator<? super E> comparator, java.util.Collection<? extends E> elements) {
+        this(elements.toArray(), comparator);
+    }
+
+    /**
+     * Construct the object with the given elements {@link Collection}.
+     *
+     * @param elements the given elements {@link Collection}
+     */
+    public SortedArrayContainer(Collection<? extends E> elements) {
+        this((java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the given {@link Comparator} and elements {@link Collection}.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param elements the given elements {@link Collection}
+     */
+    public SortedArrayContainer(Comparator<? super E> comparator, Collection<? extends E> elements) {
+        this(comparator, (java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the given elements array, which is owned by this container
+     * from now on and sorted in place, and {@link Comparator}.
+     *
+     * @param array the given elements array
+     * @param comparator the given elements {@link Comparator}
+     */
+    protected SortedArrayContainer(Object[] array, Comparator<? super E> comparator) {
+        this.comparator = comparator; this.descending = false; this.fromStart = this.toEnd = true; init(array);
+    }
+
+    /**
+     * Construct the view of the given container over the given range of its runs.
+     *
+     * @param container the given container
+     * @param low the given low run, inclusive
+     * @param high the given high run, exclusive
+     * @param descending the descending view flag
+     */
+    protected SortedArrayContainer(SortedArrayContainer<E> container, int low, int high, boolean descending) {
+        this(container, low, high, descending, container.fromStart, container.lo, container.loInclusive,
+                container.toEnd, container.hi, container.hiInclusive);
+    }
+
+    /**
+     * Construct the view of the given container over the given range of its runs within the given bounds.
+     *
+     * @param container the given container
+     * @param low the given low run, inclusive
+     * @param high the given high run, exclusive
+     * @param descending the descending view flag
+     * @param fromStart whether the view has no low bound
+     * @param lo the given low bound, in the ascending order
+     * @param loInclusive whether the low bound is inclusive
+     * @param toEnd whether the view has no high bound
+     * @param hi the given high bound, in the ascending order
+     * @param hiInclusive whether the high bound is inclusive
+     */
+    protected SortedArrayContainer(SortedArrayContainer<E> container, int low, int high, boolean descending,
+                                   boolean fromStart, Object lo, boolean loInclusive, boolean toEnd, Object hi, boolean hiInclusive) {
+        this.comparator = container.comparator; this.descending = descending;
+        this.array = container.array; this.runs = container.runs; this.low = low; this.high = high;
+        this.fromStart = fromStart; this.lo = lo; this.loInclusive = loInclusive;
+        this.toEnd = toEnd; this.hi = hi; this.hiInclusive = hiInclusive;
+    }
+
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
+    @Override public int size() {
+        return start(high) - start(low); }
+
+    @Override public boolean contains(Object o) {
+        return match(o) >= 0; }
+    @Override public boolean contains() {
+        return low < high; }
+
+    @Override public Iterator<E> getAll(Object o) {
+        return iterator(match(o)); }
+    @Override public int getCount(Object o) {
+        int run = match(o); return run >= 0 ? start(run + 1) - start(run) : 0; }
+
+    @Override public Comparator<? super E> comparator() {
+        return descending ? reverseOrder(comparator) : comparator; }
+
+    @Override public Iterator<E> firstAll() {
+        return iterator(descending ? high - 1 : low); }
+    @Override public Iterator<E> lastAll() {
+        return iterator(descending ? low : high - 1); }
+
+    @Override public Iterator<E> lowerAll(E e) {
+        return iterator(descending ? run(e, false) : run(e, true) - 1); }
+    @Override public Iterator<E> floorAll(E e) {
+        return iterator(descending ? run(e, true) : run(e, false) - 1); }
+    @Override public Iterator<E> ceilingAll(E e) {
+        return iterator(descending ? run(e, false) - 1 : run(e, true)); }
+    @Override public Iterator<E> higherAll(E e) {
+        return iterator(descending ? run(e, true) - 1 : run(e, false)); }
+
+    @Override public NavigableContainer<E> sub(E fromElement, E toElement) {
+        return sub(fromElement, true, toElement, false); }
+    @Override public NavigableContainer<E> head(E toElement) {
+        return head(toElement, false); }
+    @Override public NavigableContainer<E> tail(E fromElement) {
+        return tail(fromElement, true); }
+
+    @Override public NavigableContainer<E> descending() {
+        return new SortedArrayContainer<>(this, low, high, !descending); }
+
+    @Override public NavigableContainer<E> sub(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        if (descending ? compare(fromElement, toElement) < 0 : compare(fromElement, toElement) > 0)
+            throw new IllegalArgumentException("fromElement > toElement");
+        if (!inRange(fromElement, fromInclusive)) throw new IllegalArgumentException("fromElement out of range");
+        if (!inRange(toElement, toInclusive)) throw new IllegalArgumentException("toElement out of range");
+        return descending ? view(run(toElement, toInclusive), run(fromElement, !fromInclusive),
+                false, toElement, toInclusive, false, fromElement, fromInclusive)
+                : view(run(fromElement, fromInclusive), run(toElement, !toInclusive),
+                false, fromElement, fromInclusive, false, toElement, toInclusive); }
+    @Override public NavigableContainer<E> head(E toElement, boolean inclusive) {
+        if (!inRange(toElement, inclusive)) throw new IllegalArgumentException("toElement out of range");
+        return descending ? view(run(toElement, inclusive), high, false, toElement, inclusive, toEnd, hi, hiInclusive)
+                : view(low, run(toElement, !inclusive), fromStart, lo, loInclusive, false, toElement, inclusive); }
+    @Override public NavigableContainer<E> tail(E fromElement, boolean inclusive) {
+        if (!inRange(fromElement, inclusive)) throw new IllegalArgumentException("fromElement out of range");
+        return descending ? view(low, run(fromElement, !inclusive), fromStart, lo, loInclusive, false, fromElement, inclusive)
+                : view(run(fromElement, inclusive), high, false, fromElement, inclusive, toEnd, hi, hiInclusive); }
+
+    @Override public Iterator<E> iterator() {
+        return iterator(low, high); }
+    @Override public Spliterator<E> spliterator() {
+        return descending ? new DescendingArraySpliterator(low, high, 0, 0) : new ArraySpliterator(start(low), start(high)); }
+
+    @Override public void forEach(Consumer<? super E> action) {
+        requireNonNull(action); Object[] array = this.array;
+        if (descending) for (int run = high; run > low; run--)
+            for (int i = start(run - 1), fence = start(run); i < fence; i++) action.accept(cast(array[i]));
+        else for (int i = start(low), fence = start(high); i < fence; i++)
+            action.accept(cast(array[i])); }
+
+    /**
+     * Return the view of this container over the given range of the runs within the given bounds, in the same direction.
+     *
+     * @param low the given low run, inclusive
+     * @param high the given high run, exclusive
+     * @param fromStart whether the view has no low bound
+     * @param lo the given low bound, in the ascending order
+     * @param loInclusive whether the low bound is inclusive
+     * @param toEnd whether the view has no high bound
+     * @param hi the given high bound, in the ascending order
+     * @param hiInclusive whether the high bound is inclusive
+     * @return the view of this container over the given range of the runs
+     */
+    protected NavigableContainer<E> view(int low, int high, boolean fromStart, Object lo, boolean loInclusive,
+                                         boolean toEnd, Object hi, boolean hiInclusive) {
+        return new SortedArrayContainer<>(this, low, max(low, high), descending,
+                fromStart, lo, loInclusive, toEnd, hi, hiInclusive); }
+
+    /**
+     * Return {@code true} if the given bound of a further view is within the bounds of this view,
+     * either of them being allowed to match the given one if it is not inclusive.
+     *
+     * @param element the given bound element
+     * @param inclusive whether the given bound is inclusive
+     * @return {@code true} if the given bound is within the bounds of this view
+     */
+    protected boolean inRange(Object element, boolean inclusive) {
+        int comparison;
+        if (!fromStart && ((comparison = compare(element, lo)) < 0 || comparison == 0 && inclusive && !loInclusive))
+            return false;
+        return toEnd || (comparison = compare(element, hi)) < 0 || comparison == 0 && (!inclusive || hiInclusive); }
+
+    /**
+     * Return the starting position of the given run in the array.
+     *
+     * @param run the given run
+     * @return the starting position of the given run
+     */
+    protected int start(int run) {
+        return runs != null ? runs[run] : run; }
+
+    /**
+     * Return the first run of this view, in the ascending order, whose elements are greater than
+     * or, if inclusive, equal to the given element, or the high run if there is no such.
+     *
+     * @param element the given element
+     * @param inclusive whether the run of the elements equal to the given one is included
+     * @return the first run greater than or equal to the given element
+     * @throws ClassCastException if the element cannot be compared with the elements of this container
+     */
+    protected int run(Object element, boolean inclusive) {
+        int low = this.low, high = this.high;
+        while (low < high) {
+            int middle = (low + high) >>> 1, comparison = compare(array[start(middle)], element);
+            if (comparison < 0 || comparison == 0 && !inclusive) low = middle + 1; else high = middle;
+        } return low;
+    }
+
+    /**
+     * Return the run of this view of the elements equal to the given one, or {@code -1} if there is no such.
+     *
+     * @param o the given element
+     * @return the run of the elements equal to the given one, or {@code -1}
+     */
+    protected int match(Object o) {
+        int run = run(o, true);
+        return run < high && compare(array[start(run)], o) == 0 ? run : -1; }
+
+    /**
+     * Compare the given elements in the ascending order.
+     *
+     * @param element1 the first element
+     * @param element2 the second element
+     * @return a negative integer, zero, or a positive integer as the first element is less than,
+     * equal to, or greater than the second
+     */
+    protected int compare(Object element1, Object element2) {
+        return comparator != null ? comparator.compare(cast(element1), cast(element2))
+                : Cast.<Comparable<Object>>cast(element1).compareTo(element2); }
+
+    /**
+     * Return an {@link Iterator} over the given run, or an empty one if the run is out of this view.
+     *
+     * @param run the given run
+     * @return an {@link Iterator} over the given run
+     */
+    protected Iterator<E> iterator(int run) {
+        return run >= low && run < high ? iterator(run, run + 1) : EmptyIterator.iterator(); }
+
+    /**
+     * Return an {@link Iterator} over the given range of the runs, in the direction of this view,
+     * the elements of each run in their encounter order.
+     *
+     * @param low the given low run, inclusive
+     * @param high the given high run, exclusive
+     * @return an {@link Iterator} over the given range of the runs
+     */
+    protected Iterator<E> iterator(int low, int high) {
+        if (descending) return new AbstractIterator<E>() {
+            int run = high, index, limit;
+            @Override protected boolean hasNextElement() { return index < limit || run > low; }
+            @Override protected E nextElement() {
+                if (index == limit) { index = start(--run); limit = start(run + 1); }
+                return cast(array[index++]); }
+        };
+        return new AbstractIterator<E>() {
+            int index = start(low); final int fence = start(high);
+            @Override protected boolean hasNextElement() { return index < fence; }
+            @Override protected E nextElement() { return cast(array[index++]); }
+        };
+    }
+
+    /**
+     * Sort the given elements array in place and find the runs of the equal elements.
+     *
+     * @param array the given elements array
+     */
+    private void init(Object[] array) {
+        sort(array, cast(comparator)); int[] runs = new int[array.length + 1]; int count = 0;
+        for (int i = 0; i < array.length; i++)
+            if (i == 0 || compare(array[i - 1], array[i]) != 0) runs[count++] = i;
+        runs[count] = array.length;
+        this.array = array; this.runs = count < array.length ? copyOf(runs, count + 1) : null; low = 0; high = count;
+    }
+
+    private void writeObject(ObjectOutputStream output) throws Exception {
+        output.defaultWriteObject(); int origin = start(low), size = start(high) - origin;
+        output.writeInt(size); for (int i = 0; i < size; i++)
+            output.writeObject(array[origin + i]);
+    }
+
+    private void readObject(ObjectInputStream input) throws Exception {
+        input.defaultReadObject(); int size = input.readInt();
+        if (size < 0)
+            throw new InvalidObjectException("Negative size: " + size);
+        Object[] array = new Object[size]; for (int i = 0; i < size; i++)
+            array[i] = input.readObject();
+        init(array);
+    }
+
+
+    /**
+     * The {@link Spliterator} over a range of the array positions, in the ascending order,
+     * split at the middle of the remaining range.
+     */
+    protected class ArraySpliterator implements Spliterator<E> {
+
+        protected int origin, fence;
+
+        protected ArraySpliterator(int origin, int fence) {
+            this.origin = origin; this.fence = fence; }
+
+        @Override public boolean tryAdvance(Consumer<? super E> action) {
+            requireNonNull(action); if (origin >= fence) return false;
+            action.accept(cast(array[origin++])); return true; }
+
+        @Override public void forEachRemaining(Consumer<? super E> action) {
+            requireNonNull(action); Object[] array = SortedArrayContainer.this.array;
+            while (origin < fence) action.accept(cast(array[origin++])); }
+
+        @Override public Spliterator<E> trySplit() {
+            int middle = (origin + fence) >>> 1; if (middle <= origin) return null;
+            ArraySpliterator prefix = new ArraySpliterator(origin, middle); origin = middle; return prefix; }
+
+        @Override public long estimateSize() {
+            return fence - origin; }
+
+        @Override public int characteristics() {
+            return ORDERED | SORTED | SIZED | SUBSIZED | IMMUTABLE | (high - low == size() ? DISTINCT : 0); }
+
+        @Override public Comparator<? super E> getComparator() {
+            return comparator(); }
+    }
+
+    /**
+     * The {@link Spliterator} over a range of the runs, in the descending order, the elements of each run
+     * in their encounter order, split at the run boundary nearest to the middle of the remaining elements.
+     * The {@link #origin} and the {@link #fence} are the runs not started yet, taken from the fence down,
+     * after the rest of the started run between the {@link #index} and the {@link #limit} positions.
+     */
+    protected class DescendingArraySpliterator extends ArraySpliterator {
+
+        protected int index, limit;
+
+        protected DescendingArraySpliterator(int origin, int fence, int index, int limit) {
+            super(origin, fence); this.index = index; this.limit = limit; }
+
+        @Override public boolean tryAdvance(Consumer<? super E> action) {
+            requireNonNull(action);
+            if (index == limit) { if (fence <= origin) return false; index = start(--fence); limit = start(fence + 1); }
+            action.accept(cast(array[index++])); return true; }
+
+        @Override public void forEachRemaining(Consumer<? super E> action) {
+            requireNonNull(action); Object[] array = SortedArrayContainer.this.array;
+            while (index < limit) action.accept(cast(array[index++]));
+            for (; fence > origin; fence--)
+                for (index = start(fence - 1), limit = start(fence); index < limit; ) action.accept(cast(array[index++])); }
+
+        @Override public Spliterator<E> trySplit() {
+            if (fence - origin < 2) return null; int position = (start(origin) + start(fence)) >>> 1;
+            int middle = runs != null ? binarySearch(runs, origin, fence, position) : position;
+            middle = min(max(middle < 0 ? -middle - 1 : middle, origin + 1), fence - 1);
+            DescendingArraySpliterator prefix = new DescendingArraySpliterator(middle, fence, index, limit);
+            fence = middle; index = limit = 0; return prefix; }
+
+        @Override public long estimateSize() {
+            return limit - index + start(fence) - start(origin); }
+    }
+
+
+    /**
+     * Return a {@link SortedArrayContainer} of the given {@link Comparable} values.
+     *
+     * @param elements the given {@link Comparable} values
+     * @param <E> the element type
+     * @return a {@link SortedArrayContainer} of the given {@link Comparable} values
+     */
+    @SafeVarargs
+    public static <E extends Comparable<E>> SortedArrayContainer<E> container(E... elements) {
+        return new SortedArrayContainer<>(elements);
+    }
+
+    /**
+     * Return a {@link SortedArrayContainer} of the given {@link Comparator} of the given values.
+     *
+     * @param comparator the given values {@link Comparator}
+     * @param elements the given values
+     * @param <E> the element type
+     * @return a {@link SortedArrayContainer} of the given {@link Comparator} of the given values
+     */
+    @SafeVarargs
+    public static <E> SortedArrayContainer<E> container(Comparator<? super E> comparator, E... elements) {
+        return new SortedArrayContainer<>(comparator, elements);
+    }
+
+    /**
+     * Return a {@link Collector} accumulating the {@link Comparable} elements into a new {@link SortedArrayContainer},
+     * which sorts them once at the end.
+     *
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link SortedArrayContainer}
+     */
+    public static <E extends Comparable<E>> Collector<E, ?, SortedArrayContainer<E>> toContainer() {
+        return toContainer(null);
+    }
+
+    /**
+     * Return a {@link Collector} accumulating the elements into a new {@link SortedArrayContainer} of the given
+     * {@link Comparator}, which sorts them once at the end.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link SortedArrayContainer}
+     */
+    public static <E> Collector<E, ?, SortedArrayContainer<E>> toContainer(Comparator<? super E> comparator) {
+        return Collector.<E, List<E>, SortedArrayContainer<E>>of(ArrayList::new, List::add, (list1, list2) -> {
+            list1.addAll(list2); return list1; }, list -> new SortedArrayContainer<>(list.toArray(), comparator));
+    }
+}
@@ -8,7 +8,9 @@ import java.util.stream.Stream;
 import static org.moodminds.elemental.Producer.producer;
 
 /**
- * A {@link TreeMap}-powered implementation of the {@link NavigableAssociation} interface.
+ * A {@link RankTreeMap}-powered implementation of the {@link NavigableAssociation} interface.
+ * <p>
+ * The key-sorted {@link KeyValue} pairs are loaded in linear time.
  *
  * @param <K> the common type of keys
  * @param <V> the common type of values
@@ -46,7 +48,7 @@ public class TreeAssociation<K, V> extends AbstractNavigableAssociation<K, V, Na
      * @throws NullPointerException if {@code kvs} is {@code null}
      */
     public TreeAssociation(Producer<? extends KeyValue<? extends K, ? extends V>> kvs) {
-        this(new TreeMap<>(), kvs);
+        this(new RankTreeMap<>(), kvs);
     }
 
     /**
@@ -58,7 +60,7 @@ public class TreeAssociation<K, V> extends AbstractNavigableAssociation<K, V, Na
      * @throws NullPointerException if {@code kvs} is {@code null}
      */
     public TreeAssociation(Comparator<? super K> comparator, Producer<? extends KeyValue<? extends K, ? extends V>> kvs) {
-        this(new TreeMap<>(comparator), kvs);
+        this(new RankTreeMap<>(comparator), kvs);
     }
 
     /**
@@ -67,7 +69,7 @@ public class TreeAssociation<K, V> extends AbstractNavigableAssociation<K, V, Na
      * @param kvs the given {@link Stream} of {@link KeyValue} pairs
      */
     public TreeAssociation(Stream<? extends KeyValue<? extends K, ? extends V>> kvs) {
-        this(new TreeMap<>(), kvs.sequential()::forEach);
+        this(new RankTreeMap<>(), kvs::forEachOrdered);
     }
 
     /**
@@ -77,7 +79,7 @@ public class TreeAssociation<K, V> extends AbstractNavigableAssociation<K, V, Na
      * @param kvs the given {@link Stream} of {@link KeyValue} pairs
      */
     public TreeAssociation(Comparator<? super K> comparator, Stream<? extends KeyValue<? extends K, ? extends V>> kvs) {
-        this(new TreeMap<>(comparator), kvs.sequential()::forEach);
+        this(new RankTreeMap<>(comparator), kvs::forEachOrdered);
     }
 
     /**
@@ -86,7 +88,7 @@ public class TreeAssociation<K, V> extends AbstractNavigableAssociation<K, V, Na
      * @param kvs the given {@link Container} of {@link KeyValue} pairs
      */
     public TreeAssociation(Container<? extends KeyValue<? extends K, ? extends V>> kvs) {
-        this(new TreeMap<>(), kvs::forEach);
+        this(new RankTreeMap<>(), kvs::forEach);
     }
 
     /**
@@ -96,7 +98,7 @@ public class TreeAssociation<K, V> extends AbstractNavigableAssociation<K, V, Na
      * @param kvs the given {@link Container} of {@link KeyValue} pairs
      */
     public TreeAssociation(Comparator<? super K> comparator, Container<? extends KeyValue<? extends K, ? extends V>> kvs) {
-        this(new TreeMap<>(comparator), kvs::forEach);
+        this(new RankTreeMap<>(comparator), kvs::forEach);
     }
 
     /**
@@ -105,7 +107,7 @@ public class TreeAssociation<K, V> extends AbstractNavigableAssociation<K, V, Na
      * @param kvs the given {@link java.util.Collection} of {@link KeyValue} pairs
      */
     public TreeAssociation(java.util.Collection<? extends KeyValue<? extends K, ? extends V>> kvs) {
-        this(new TreeMap<>(), kvs::forEach);
+        this(new RankTreeMap<>(), kvs::forEach);
     }
 
     /**
@@ -115,7 +117,7 @@ public class TreeAssociation<K, V> extends AbstractNavigableAssociation<K, V, Na
      * @param kvs the given {@link java.util.Collection} of {@link KeyValue} pairs
      */
     public TreeAssociation(Comparator<? super K> comparator, java.util.Collection<? extends KeyValue<? extends K, ? extends V>> kvs) {
-        this(new TreeMap<>(comparator), kvs::forEach);
+        this(new RankTreeMap<>(comparator), kvs::forEach);
     }
 
     /**
@@ -137,13 +139,31 @@ public class TreeAssociation<K, V> extends AbstractNavigableAssociation<K, V, Na
         this(comparator, (java.util.Collection<? extends KeyValue<? extends K,? extends V>>) kvs);
     }
 
+    /**
+     * Construct the Association with the target {@link RankTreeMap}
+     * and sequential single-threaded {@link Producer} of {@link KeyValue} pairs.
+     *
+     * @param map the target {@link RankTreeMap}
+     * @param kvs the specified {@link Producer} of {@link KeyValue} pairs
+     */
+    protected TreeAssociation(RankTreeMap<K, V> map, Producer<? extends KeyValue<? extends K, ? extends V>> kvs) {
+        super(map); RankTreeMap<K, V>.Loader loader = map.loader();
+        kvs.provide(kv -> {
+            if (!loader.load(kv.getKey(), kv.getValue(), (previous, value) -> value))
+                map.put(kv.getKey(), kv.getValue());
+        }); loader.flush();
+    }
+
     /**
      * Construct the Association with the target {@link TreeMap}
      * and sequential single-threaded {@link Producer} of {@link KeyValue} pairs.
      *
      * @param map the target {@link TreeMap}
      * @param kvs the specified {@link Producer} of {@link KeyValue} pairs
+     * @deprecated a {@link TreeMap} loads the key-sorted pairs one by one in linearithmic time;
+     * use {@link #TreeAssociation(RankTreeMap, Producer)} instead
      */
+    @Deprecated
     protected TreeAssociation(TreeMap<K, V> map, Producer<? extends KeyValue<? extends K, ? extends V>> kvs) {
         super(map); kvs.provide(kv -> map.put(kv.getKey(), kv.getValue()));
     }
@@ -157,6 +177,9 @@ public class TreeAssociation<K, V> extends AbstractNavigableAssociation<K, V, Na
         super(map);
     }
 
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
 
     /**
      * Return a {@link TreeAssociation} of the given {@link KeyValue} pairs.
@@ -1,15 +1,20 @@
 package org.moodminds.elemental;
 
 import java.util.Comparator;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
 import static org.moodminds.elemental.Producer.producer;
+import static org.moodminds.sneaky.Cast.cast;
 
 /**
- * A {@link TreeMap}-powered implementation of the {@link NavigableCollection} interface.
+ * A {@link RankTreeMap}-powered implementation of the {@link NavigableCollection} interface.
+ * <p>
+ * The sizes of the sub-views are counted, and the elements are ranked and selected by index, in logarithmic time.
  *
  * @param <E> the element type
  */
@@ -29,7 +34,7 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
      */
     @SafeVarargs
     public TreeCollection(E... elements) {
-        this(new TreeMap<>(), producer(elements));
+        this(new RankTreeMap<>(null, WEIGHER), producer(elements));
     }
 
     /**
@@ -40,7 +45,7 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
      */
     @SafeVarargs
     public TreeCollection(Comparator<? super E> comparator, E... elements) {
-        this(new TreeMap<>(comparator), producer(elements));
+        this(new RankTreeMap<>(comparator, WEIGHER), producer(elements));
     }
 
     /**
@@ -49,7 +54,7 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
      * @param elements the given elements {@link Stream}
      */
     public TreeCollection(Stream<? extends E> elements) {
-        this(new TreeMap<>(), elements.sequential()::forEach);
+        this(new RankTreeMap<>(null, WEIGHER), elements);
     }
 
     /**
@@ -59,7 +64,7 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
      * @param elements the given elements {@link Stream}
      */
     public TreeCollection(Comparator<? super E> comparator, Stream<? extends E> elements) {
-        this(new TreeMap<>(comparator), elements.sequential()::forEach);
+        this(new RankTreeMap<>(comparator, WEIGHER), elements);
     }
 
     /**
@@ -68,7 +73,7 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
      * @param elements the given elements {@link Container}
      */
     public TreeCollection(Container<? extends E> elements) {
-        this(new TreeMap<>(), elements::forEach);
+        this(new RankTreeMap<>(null, WEIGHER), elements::forEach);
     }
 
     /**
@@ -78,7 +83,7 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
      * @param elements the given elements {@link Container}
      */
     public TreeCollection(Comparator<? super E> comparator, Container<? extends E> elements) {
-        this(new TreeMap<>(comparator), elements::forEach);
+        this(new RankTreeMap<>(comparator, WEIGHER), elements::forEach);
     }
 
     /**
@@ -87,7 +92,7 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
      * @param elements the given elements {@link java.util.Collection}
      */
     public TreeCollection(java.util.Collection<? extends E> elements) {
-        this(new TreeMap<>(), elements::forEach);
+        this(new RankTreeMap<>(null, WEIGHER), elements::forEach);
     }
 
     /**
@@ -97,7 +102,7 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
      * @param elements the given elements {@link java.util.Collection}
      */
     public TreeCollection(Comparator<? super E> comparator, java.util.Collection<? extends E> elements) {
-        this(new TreeMap<>(comparator), elements::forEach);
+        this(new RankTreeMap<>(comparator, WEIGHER), elements::forEach);
     }
 
     /**
@@ -119,32 +124,56 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
         this(comparator, (java.util.Collection<? extends E>) elements);
     }
 
+    /**
+     * Construct the object with the given {@link RankTreeMap map}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link RankTreeMap map}
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected TreeCollection(RankTreeMap<E, Object> map, Producer<? extends E> elements) {
+        super(map, elements); }
+
     /**
      * Construct the object with the given {@link TreeMap map}
      * and sequential single-threaded {@link Producer} of elements.
      *
      * @param map the given {@link TreeMap map}
      * @param elements the given sequential single-threaded {@link Producer} of elements
+     * @deprecated a {@link TreeMap} counts the sizes of the sub-views in linear time and cannot rank or select
+     * the elements, so {@link #rank(Object)} and {@link #select(int)} of such a collection fall back to linear time;
+     * use {@link #TreeCollection(RankTreeMap, Producer)} instead
      */
+    @Deprecated
     protected TreeCollection(TreeMap<E, Object> map, Producer<? extends E> elements) {
         super(map, elements); }
 
+    /**
+     * Construct the object with the given {@link RankTreeMap map} and {@link Stream} of elements,
+     * building the partial collections in parallel if the stream is parallel.
+     *
+     * @param map the given {@link RankTreeMap map}
+     * @param elements the given {@link Stream} of elements
+     */
+    protected TreeCollection(RankTreeMap<E, Object> map, Stream<? extends E> elements) {
+        super(map, elements, toCollection(map.comparator())); }
+
     @Override public SortedCollection<E> sub(E fromElement, E toElement) {
-        return new SortedSubCollection<>(this, this, map.subMap(fromElement, toElement), new Range<>(map.comparator(), fromElement, true, toElement, false)); }
+        return new SortedSubCollection<>(this, this, map.subMap(fromElement, toElement)); }
     @Override public SortedCollection<E> head(E toElement) {
-        return new SortedSubCollection<>(this, this, map.headMap(toElement), new Range<>(map.comparator(), null, false, toElement, false)); }
+        return new SortedSubCollection<>(this, this, map.headMap(toElement)); }
     @Override public SortedCollection<E> tail(E fromElement) {
-        return new SortedSubCollection<>(this, this, map.tailMap(fromElement), new Range<>(map.comparator(), fromElement, true, null, false)); }
+        return new SortedSubCollection<>(this, this, map.tailMap(fromElement)); }
 
     @Override public NavigableCollection<E> descending() {
-        return new DescendingNavigableSubCollection<>(this, this, map.descendingMap(), size, new Range<>(map.comparator())); }
+        return new DescendingNavigableSubCollection<>(this, this, map.descendingMap(), size); }
 
     @Override public NavigableCollection<E> sub(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
-        return new NavigableSubCollection<>(this, this, map.subMap(fromElement, fromInclusive, toElement, toInclusive), new Range<>(map.comparator(), fromElement, fromInclusive, toElement, toInclusive)); }
+        return new NavigableSubCollection<>(this, this, map.subMap(fromElement, fromInclusive, toElement, toInclusive)); }
     @Override public NavigableCollection<E> head(E toElement, boolean inclusive) {
-        return new NavigableSubCollection<>(this, this, map.headMap(toElement, inclusive), new Range<>(map.comparator(), null, false, toElement, inclusive)); }
+        return new NavigableSubCollection<>(this, this, map.headMap(toElement, inclusive)); }
     @Override public NavigableCollection<E> tail(E fromElement, boolean inclusive) {
-        return new NavigableSubCollection<>(this, this, map.tailMap(fromElement, inclusive), new Range<>(map.comparator(), fromElement, inclusive, null, false)); }
+        return new NavigableSubCollection<>(this, this, map.tailMap(fromElement, inclusive)); }
 
     @Override protected int totalMod() { return modCount; }
     @Override protected void countMod() { modCount++; }
@@ -152,6 +181,37 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
     @Override protected Optional<Boolean> isDistinct() {
         return getSize().map(size -> size == map.size()); }
 
+    /**
+     * Return the number of the elements of this collection less than the given one, in logarithmic time
+     * (in linear time if the internal map is not a {@link RankedMap}).
+     *
+     * @param element the given element, present or not
+     * @return the number of the elements less than the given one
+     * @throws ClassCastException if the element cannot be compared with the elements of this collection
+     */
+    public int rank(E element) {
+        if (map instanceof RankedMap) return ((RankedMap<E, Object>) map).rank(element);
+        int rank = 0; for (Object value : map.headMap(element, false).values()) rank += WEIGHER.applyAsInt(value);
+        return rank; }
+
+    /**
+     * Return the element at the given index of the ascending order of this collection, in logarithmic time
+     * (in linear time if the internal map is not a {@link RankedMap}).
+     *
+     * @param index the given index
+     * @return the element at the given index
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+     */
+    public E select(int index) {
+        if (map instanceof RankedMap) {
+            Map.Entry<E, Object> entry = ((RankedMap<E, Object>) map).weightedEntry(index);
+            return tryBucket(entry.getValue(), bucket -> bucket.get(index - rank(entry.getKey())), value -> cast(value)); }
+        int offset = index; if (offset >= 0) for (Object value : map.values()) {
+            int position = offset, weight = WEIGHER.applyAsInt(value);
+            if (position < weight) return tryBucket(value, bucket -> bucket.get(position), element -> cast(element));
+            offset -= weight; }
+        throw new IndexOutOfBoundsException("Index: " + index); }
+
 
     /**
      * Return a {@link TreeCollection} of the given {@link Comparable} values.
@@ -177,4 +237,27 @@ public class TreeCollection<E> extends AbstractNavigableCollection<E, NavigableM
     public static <E> TreeCollection<E> collection(Comparator<? super E> comparator, E... elements) {
         return new TreeCollection<>(comparator, elements);
     }
+
+    /**
+     * Return a {@link Collector} accumulating the {@link Comparable} elements into a new {@link TreeCollection},
+     * which merges the partial collections of a parallel stream bucket-wise.
+     *
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link TreeCollection}
+     */
+    public static <E extends Comparable<E>> Collector<E, ?, TreeCollection<E>> toCollection() {
+        return toCollection(null);
+    }
+
+    /**
+     * Return a {@link Collector} accumulating the elements into a new {@link TreeCollection} of the given
+     * {@link Comparator}, which merges the partial collections of a parallel stream bucket-wise.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link TreeCollection}
+     */
+    public static <E> Collector<E, ?, TreeCollection<E>> toCollection(Comparator<? super E> comparator) {
+        return collector(() -> new TreeCollection<>(new RankTreeMap<>(comparator, WEIGHER), producer()), Bucket::put, Bucket::new);
+    }
 }
@@ -1,15 +1,20 @@
 package org.moodminds.elemental;
 
 import java.util.Comparator;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.stream.Collector;
 import java.util.stream.Stream;
 
 import static org.moodminds.elemental.Producer.producer;
+import static org.moodminds.sneaky.Cast.cast;
 
 /**
- * A {@link TreeMap}-powered implementation of the {@link NavigableContainer} interface.
+ * A {@link RankTreeMap}-powered implementation of the {@link NavigableContainer} interface.
+ * <p>
+ * The sizes of the sub-views are counted, and the elements are ranked and selected by index, in logarithmic time.
  *
  * @param <E> the element type
  */
@@ -24,7 +29,7 @@ public class TreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap
      */
     @SafeVarargs
     public TreeContainer(E... elements) {
-        this(new TreeMap<>(), producer(elements));
+        this(new RankTreeMap<>(null, WEIGHER), producer(elements));
     }
 
     /**
@@ -35,7 +40,7 @@ public class TreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap
      */
     @SafeVarargs
     public TreeContainer(Comparator<? super E> comparator, E... elements) {
-        this(new TreeMap<>(comparator), producer(elements));
+        this(new RankTreeMap<>(comparator, WEIGHER), producer(elements));
     }
 
     /**
@@ -44,7 +49,7 @@ public class TreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap
      * @param elements the given elements {@link Stream}
      */
     public TreeContainer(Stream<? extends E> elements) {
-        this(new TreeMap<>(), elements.sequential()::forEach);
+        this(new RankTreeMap<>(null, WEIGHER), elements);
     }
 
     /**
@@ -54,7 +59,7 @@ public class TreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap
      * @param elements the given elements {@link Stream}
      */
     public TreeContainer(Comparator<? super E> comparator, Stream<? extends E> elements) {
-        this(new TreeMap<>(comparator), elements.sequential()::forEach);
+        this(new RankTreeMap<>(comparator, WEIGHER), elements);
     }
 
     /**
@@ -63,7 +68,7 @@ public class TreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap
      * @param elements the given elements {@link Container}
      */
     public TreeContainer(Container<? extends E> elements) {
-        this(new TreeMap<>(), elements::forEach);
+        this(new RankTreeMap<>(null, WEIGHER), elements::forEach);
     }
 
     /**
@@ -73,7 +78,7 @@ public class TreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap
      * @param elements the given elements {@link Container}
      */
     public TreeContainer(Comparator<? super E> comparator, Container<? extends E> elements) {
-        this(new TreeMap<>(comparator), elements::forEach);
+        this(new RankTreeMap<>(comparator, WEIGHER), elements::forEach);
     }
 
     /**
@@ -82,7 +87,7 @@ public class TreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap
      * @param elements the given elements {@link java.util.Collection}
      */
     public TreeContainer(java.util.Collection<? extends E> elements) {
-        this(new TreeMap<>(), elements::forEach);
+        this(new RankTreeMap<>(null, WEIGHER), elements::forEach);
     }
 
     /**
@@ -92,7 +97,7 @@ public class TreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap
      * @param elements the given elements {@link java.util.Collection}
      */
     public TreeContainer(Comparator<? super E> comparator, java.util.Collection<? extends E> elements) {
-        this(new TreeMap<>(comparator), elements::forEach);
+        this(new RankTreeMap<>(comparator, WEIGHER), elements::forEach);
     }
 
     /**
@@ -114,20 +119,80 @@ public class TreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap
         this(comparator, (java.util.Collection<? extends E>) elements);
     }
 
+    /**
+     * Construct the object with the given {@link RankTreeMap map}
+     * and sequential single-threaded {@link Producer} of elements.
+     *
+     * @param map the given {@link RankTreeMap map}
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected TreeContainer(RankTreeMap<E, Object> map, Producer<? extends E> elements) {
+        super(map, elements);
+    }
+
     /**
      * Construct the object with the given {@link TreeMap map}
      * and sequential single-threaded {@link Producer} of elements.
      *
      * @param map the given {@link TreeMap map}
      * @param elements the given sequential single-threaded {@link Producer} of elements
+     * @deprecated a {@link TreeMap} counts the sizes of the sub-views in linear time and cannot rank or select
+     * the elements, so {@link #rank(Object)} and {@link #select(int)} of such a container fall back to linear time;
+     * use {@link #TreeContainer(RankTreeMap, Producer)} instead
      */
+    @Deprecated
     protected TreeContainer(TreeMap<E, Object> map, Producer<? extends E> elements) {
         super(map, elements);
     }
 
+    /**
+     * Construct the object with the given {@link RankTreeMap map} and {@link Stream} of elements,
+     * building the partial containers in parallel if the stream is parallel.
+     *
+     * @param map the given {@link RankTreeMap map}
+     * @param elements the given {@link Stream} of elements
+     */
+    protected TreeContainer(RankTreeMap<E, Object> map, Stream<? extends E> elements) {
+        super(map, elements, toContainer(map.comparator()));
+    }
+
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
     @Override protected Optional<Boolean> isDistinct() {
         return getSize().map(size -> size == map.size()); }
 
+    /**
+     * Return the number of the elements of this container less than the given one, in logarithmic time
+     * (in linear time if the internal map is not a {@link RankedMap}).
+     *
+     * @param element the given element, present or not
+     * @return the number of the elements less than the given one
+     * @throws ClassCastException if the element cannot be compared with the elements of this container
+     */
+    public int rank(E element) {
+        if (map instanceof RankedMap) return ((RankedMap<E, Object>) map).rank(element);
+        int rank = 0; for (Object value : map.headMap(element, false).values()) rank += WEIGHER.applyAsInt(value);
+        return rank; }
+
+    /**
+     * Return the element at the given index of the ascending order of this container, in logarithmic time
+     * (in linear time if the internal map is not a {@link RankedMap}).
+     *
+     * @param index the given index
+     * @return the element at the given index
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the size
+     */
+    public E select(int index) {
+        if (map instanceof RankedMap) {
+            Map.Entry<E, Object> entry = ((RankedMap<E, Object>) map).weightedEntry(index);
+            return tryBucket(entry.getValue(), bucket -> bucket.get(index - rank(entry.getKey())), value -> cast(value)); }
+        int offset = index; if (offset >= 0) for (Object value : map.values()) {
+            int position = offset, weight = WEIGHER.applyAsInt(value);
+            if (position < weight) return tryBucket(value, bucket -> bucket.get(position), element -> cast(element));
+            offset -= weight; }
+        throw new IndexOutOfBoundsException("Index: " + index); }
+
 
     /**
      * Return a {@link TreeContainer} of the given {@link Comparable} values.
@@ -153,4 +218,27 @@ public class TreeContainer<E> extends AbstractNavigableContainer<E, NavigableMap
     public static <E> TreeContainer<E> container(Comparator<? super E> comparator, E... elements) {
         return new TreeContainer<>(comparator, elements);
     }
+
+    /**
+     * Return a {@link Collector} accumulating the {@link Comparable} elements into a new {@link TreeContainer},
+     * which merges the partial containers of a parallel stream bucket-wise.
+     *
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link TreeContainer}
+     */
+    public static <E extends Comparable<E>> Collector<E, ?, TreeContainer<E>> toContainer() {
+        return toContainer(null);
+    }
+
+    /**
+     * Return a {@link Collector} accumulating the elements into a new {@link TreeContainer} of the given
+     * {@link Comparator}, which merges the partial containers of a parallel stream bucket-wise.
+     *
+     * @param comparator the given elements {@link Comparator}
+     * @param <E> the element type
+     * @return a {@link Collector} accumulating the elements into a new {@link TreeContainer}
+     */
+    public static <E> Collector<E, ?, TreeContainer<E>> toContainer(Comparator<? super E> comparator) {
+        return collector(() -> new TreeContainer<>(new RankTreeMap<>(comparator, WEIGHER), producer()), Bucket::put, Bucket::new);
+    }
 }
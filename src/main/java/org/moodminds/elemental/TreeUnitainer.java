@@ -133,6 +133,9 @@ public class TreeUnitainer<E> extends AbstractNavigableUnitainer<E, NavigableMap
         super(map, elements);
     }
 
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
 
     /**
      * Return a {@link TreeUnitainer} of the given {@link Comparable} values.
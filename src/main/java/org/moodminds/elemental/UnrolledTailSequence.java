@@ -0,0 +1,137 @@
+package org.moodminds.elemental;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.stream.Stream;
+
+import static org.moodminds.elemental.Producer.producer;
+import static org.moodminds.sneaky.Cast.cast;
+import static org.moodminds.sneaky.Sneak.sneak;
+
+/**
+ * An unrolled linked implementation of the {@link TailedSequence} interface,
+ * holding the elements in the linked arrays of up to {@link #CAPACITY} of them.
+ *
+ * @param <E> the type of elements
+ */
+public class UnrolledTailSequence<E> extends AbstractUnrolledSequence<E> {
+
+    private static final long serialVersionUID = -5702318939186730117L;
+
+    /**
+     * Construct the object with the specified elements array.
+     *
+     * @param elements the specified elements array
+     */
+    @SafeVarargs
+    public UnrolledTailSequence(E... elements) {
+        this(producer(elements));
+    }
+
+    /**
+     * Construct the object with the specified elements {@link Container}.
+     *
+     * @param elements the specified elements {@link Container}
+     */
+    public UnrolledTailSequence(Container<? extends E> elements) {
+        this(elements.stream());
+    }
+
+    /**
+     * Construct the object with the specified elements {@link java.util.Collection}.
+     *
+     * @param elements the specified elements {@link java.util.Collection}
+     */
+    public UnrolledTailSequence(java.util.Collection<? extends E> elements) {
+        this(elements.stream());
+    }
+
+    /**
+     * Construct the object with the specified elements {@link Collection}.
+     *
+     * @param elements the specified elements {@link Collection}
+     */
+    public UnrolledTailSequence(Collection<? extends E> elements) {
+        this((java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the specified elements {@link Stream}.
+     *
+     * @param elements the specified elements {@link Stream}
+     */
+    public UnrolledTailSequence(Stream<? extends E> elements) {
+        this(elements.sequential()::forEach);
+    }
+
+    /**
+     * Construct the object with the given sequential single-threaded {@link Producer} of elements.
+     *
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected UnrolledTailSequence(Producer<? extends E> elements) {
+        init(elements);
+    }
+
+    /**
+     * Initialize the object with the given sequential single-threaded {@link Producer} of elements.
+     *
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected void init(Producer<? extends E> elements) {
+        elements.provide(this::put);
+    }
+
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
+    @Override public TailedSequence<E> sub(int fromIndex, int toIndex) {
+        return new UnrolledSubSequence(0, size, fromIndex, toIndex); }
+
+    @Override
+    protected void serialize(ObjectOutputStream output) throws Exception {
+        output.writeInt(size); for (E element : this)
+            output.writeObject(element);
+    }
+
+    @Override
+    protected void deserialize(ObjectInputStream input) throws Exception {
+        int size; if ((size = input.readInt()) < 0)
+            throw new InvalidObjectException("Negative size: " + size);
+        init(consumer -> {
+            try {
+                while (this.size < size) {
+                    consumer.accept(cast(input.readObject())); }
+            } catch (Exception e) { sneak(e); }
+        });
+    }
+
+
+    /**
+     * A subsequence view of an unrolled linked sequence.
+     */
+    protected class UnrolledSubSequence extends AbstractUnrolledSubSequence {
+
+        private static final long serialVersionUID = 4310871549920384196L;
+
+        protected UnrolledSubSequence(int offset, int size, int fromIndex, int toIndex) {
+            super(offset, size, fromIndex, toIndex); }
+
+        @Override public TailedSequence<E> sub(int fromIndex, int toIndex) {
+            return new UnrolledSubSequence(offset, size, fromIndex, toIndex); }
+    }
+
+
+    /**
+     * Return an {@link UnrolledTailSequence} of the given elements values.
+     *
+     * @param elements the given element values
+     * @param <E> the type of elements
+     * @return an {@link UnrolledTailSequence} of the given element values
+     */
+    @SafeVarargs
+    public static <E> UnrolledTailSequence<E> sequence(E... elements) {
+        return new UnrolledTailSequence<>(elements);
+    }
+}
@@ -0,0 +1,412 @@
+package org.moodminds.elemental;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static org.moodminds.elemental.Producer.producer;
+import static org.moodminds.sneaky.Cast.cast;
+
+/**
+ * A persistent implementation of the {@link TailedSequence} interface, holding the elements
+ * in a bit-partitioned trie of the arrays of {@link #WIDTH} of them, with the last array kept aside as the tail.
+ * <p>
+ * The {@link #withAppended(Object) appending}, the {@link #withSet(int, Object) replacing} and the
+ * {@link #withSub(int, int) slicing} leave this sequence intact and return a new one sharing all of its arrays
+ * but the ones on the path to the affected position, so each of them takes time and memory proportional
+ * to the trie depth, that is the logarithm of the size to the base of {@link #WIDTH}, while the appending
+ * to a non-full tail copies the tail only. A slice keeps referencing the whole trie of the original sequence.
+ *
+ * @param <E> the type of elements
+ */
+public class VectorSequence<E> extends AbstractTailedSequence<E> implements TailedSequence<E>, Serializable {
+
+    private static final long serialVersionUID = -1306483527905417286L;
+
+    /**
+     * The number of the bits of a position per trie level.
+     */
+    protected static final int BITS = 5;
+
+    /**
+     * The number of the children of a trie node, as well as of the elements of a leaf array.
+     */
+    protected static final int WIDTH = 1 << BITS;
+
+    /**
+     * The mask of a position within a trie node.
+     */
+    protected static final int MASK = WIDTH - 1;
+
+    /**
+     * The root trie node and the tail array holding fields.
+     */
+    protected transient Object[] root, tail;
+
+    /**
+     * The bit shift of the root trie node holding field.
+     */
+    protected transient int shift;
+
+    /**
+     * The position of the first element and the position following the last one holding fields.
+     */
+    protected transient int origin, count;
+
+    /**
+     * Construct the object with the specified elements array.
+     *
+     * @param elements the specified elements array
+     */
+    @SafeVarargs
+    public VectorSequence(E... elements) {
+        this(producer(elements));
+    }
+
+    /**
+     * Construct the object with the specified elements {@link Container}.
+     *
+     * @param elements the specified elements {@link Container}
+     */
+    public VectorSequence(Container<? extends E> elements) {
+        this(elements.stream());
+    }
+
+    /**
+     * Construct the object with the specified elements {@link java.util.Collection}.
+     *
+     * @param elements the specified elements {@link java.util.Collection}
+     */
+    public VectorSequence(java.util.Collection<? extends E> elements) {
+        this(elements.stream());
+    }
+
+    /**
+     * Construct the object with the specified elements {@link Collection}.
+     *
+     * @param elements the specified elements {@link Collection}
+     */
+    public VectorSequence(Collection<? extends E> elements) {
+        this((java.util.Collection<? extends E>) elements);
+    }
+
+    /**
+     * Construct the object with the specified elements {@link Stream}.
+     *
+     * @param elements the specified elements {@link Stream}
+     */
+    public VectorSequence(Stream<? extends E> elements) {
+        this(elements.sequential()::forEach);
+    }
+
+    /**
+     * Construct the object with the given sequential single-threaded {@link Producer} of elements.
+     *
+     * @param elements the given sequential single-threaded {@link Producer} of elements
+     */
+    protected VectorSequence(Producer<? extends E> elements) {
+        init(); elements.provide(this::put);
+    }
+
+    /**
+     * Construct the object with the given trie state.
+     *
+     * @param root the given root trie node
+     * @param tail the given tail array
+     * @param shift the given bit shift of the root trie node
+     * @param origin the given position of the first element
+     * @param count the given position following the last element
+     */
+    protected VectorSequence(Object[] root, Object[] tail, int shift, int origin, int count) {
+        this.root = root; this.tail = tail; this.shift = shift; this.origin = origin; this.count = count;
+    }
+
+    @Override protected boolean hashCodeCached() {
+        return true; }
+
+    @Override public <R extends E> R get(int index) {
+        int position = origin + elementIndex(index, count - origin);
+        return cast(array(position)[position & MASK]); }
+    @Override public int size() {
+        return count - origin; }
+
+    @Override public Iterator<E> iterator() {
+        return new VectorIterator(0); }
+    @Override public TailedSequenceIterator<E> iterator(int index) {
+        return new VectorIterator(positionIndex(index, count - origin)); }
+    @Override public Spliterator<E> spliterator() {
+        return new VectorSpliterator(origin, count); }
+
+    @Override public void forEach(Consumer<? super E> action) {
+        requireNonNull(action); forEach(origin, count, action); }
+
+    @Override public VectorSequence<E> sub(int fromIndex, int toIndex) {
+        return withSub(fromIndex, toIndex); }
+
+    /**
+     * Return a sequence of the elements of this one followed by the given element, sharing this sequence.
+     *
+     * @param element the given element
+     * @return a sequence of the elements of this one followed by the given element
+     */
+    public VectorSequence<E> withAppended(E element) {
+        int offset = count - tailOffset();
+        if (offset < WIDTH) {
+            Object[] tail = this.tail.clone(); tail[offset] = element;
+            return new VectorSequence<>(root, tail, shift, origin, count + 1);
+        } Object[] root; int shift = this.shift;
+        if (count >>> BITS > 1 << shift) {
+            root = new Object[WIDTH]; root[0] = this.root; root[1] = path(shift, this.tail); shift += BITS;
+        } else root = push(shift, this.root, this.tail);
+        Object[] tail = new Object[WIDTH]; tail[0] = element;
+        return new VectorSequence<>(root, tail, shift, origin, count + 1);
+    }
+
+    /**
+     * Return a sequence of the elements of this one with the element at the given index replaced
+     * by the given element, sharing this sequence.
+     *
+     * @param index the given index
+     * @param element the given element
+     * @return a sequence of the elements of this one with the element at the given index replaced
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public VectorSequence<E> withSet(int index, E element) {
+        int position = origin + elementIndex(index, count - origin);
+        if (position >= tailOffset()) {
+            Object[] tail = this.tail.clone(); tail[position & MASK] = element;
+            return new VectorSequence<>(root, tail, shift, origin, count);
+        } return new VectorSequence<>(set(shift, root, position, element), tail, shift, origin, count);
+    }
+
+    /**
+     * Return a sequence of the elements of this one between the given indexes, sharing this sequence.
+     *
+     * @param fromIndex the starting index of the subsequence (inclusive)
+     * @param toIndex the ending index of the subsequence (exclusive)
+     * @return a sequence of the elements of this one between the given indexes
+     * @throws IndexOutOfBoundsException if {@code fromIndex} is negative or {@code toIndex} exceeds the size
+     * @throws IllegalArgumentException if {@code fromIndex} is greater than {@code toIndex}
+     */
+    public VectorSequence<E> withSub(int fromIndex, int toIndex) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException(format("fromIndex = %d", fromIndex));
+        if (toIndex > count - origin)
+            throw new IndexOutOfBoundsException(format("toIndex = %d", toIndex));
+        if (fromIndex > toIndex)
+            throw new IllegalArgumentException(format("fromIndex(%d) > toIndex(%d)", fromIndex, toIndex));
+        if (fromIndex == 0 && toIndex == count - origin) return this;
+        int count = origin + toIndex;
+        return new VectorSequence<>(root, array(count == 0 ? 0 : count - 1), shift, origin + fromIndex, count);
+    }
+
+    /**
+     * Initialize the object as an empty sequence.
+     */
+    protected void init() {
+        root = new Object[WIDTH]; tail = new Object[WIDTH]; shift = BITS; origin = count = 0;
+    }
+
+    /**
+     * Append the given element in place, for the construction of this sequence only.
+     *
+     * @param element the given element
+     */
+    protected void put(E element) {
+        if (count - tailOffset() == WIDTH) {
+            if (count >>> BITS > 1 << shift) {
+                Object[] root = new Object[WIDTH]; root[0] = this.root; root[1] = path(shift, tail);
+                this.root = root; shift += BITS;
+            } else root = push(shift, root, tail);
+            tail = new Object[WIDTH];
+        } tail[count++ & MASK] = element; resetHashCode();
+    }
+
+    /**
+     * Return the position of the first element of the tail array.
+     *
+     * @return the position of the first element of the tail array
+     */
+    protected int tailOffset() {
+        return count == 0 ? 0 : count - 1 & ~MASK;
+    }
+
+    /**
+     * Return the leaf array holding the element at the given valid position.
+     *
+     * @param position the given position
+     * @return the leaf array holding the element at the given position
+     */
+    protected Object[] array(int position) {
+        if (position >= tailOffset()) return tail;
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS)
+            node = (Object[]) node[position >>> level & MASK];
+        return node;
+    }
+
+    /**
+     * Perform the given action for each element between the given positions, along the leaf arrays.
+     *
+     * @param from the given position of the first element (inclusive)
+     * @param to the given position of the last element (exclusive)
+     * @param action the given action
+     */
+    protected void forEach(int from, int to, Consumer<? super E> action) {
+        while (from < to) {
+            Object[] array = array(from); int end = min(to, (from | MASK) + 1);
+            for (int i = from & MASK, length = i + end - from; i < length; i++)
+                action.accept(cast(array[i]));
+            from = end;
+        }
+    }
+
+    /**
+     * Return a copy of the path of the given trie node at the given level
+     * with the given leaf array put as the last one of the trie.
+     *
+     * @param level the given level
+     * @param node the given trie node
+     * @param array the given leaf array
+     * @return a copy of the path with the given leaf array put
+     */
+    protected Object[] push(int level, Object[] node, Object[] array) {
+        Object[] copy = node.clone(); int index = count - 1 >>> level & MASK;
+        Object[] child = (Object[]) node[index];
+        copy[index] = level == BITS ? array
+                : child != null ? push(level - BITS, child, array) : path(level - BITS, array);
+        return copy;
+    }
+
+    /**
+     * Validate and return the given index within the specified size.
+     *
+     * @param index the index to validate
+     * @param size the upper bound (exclusive) for valid indices
+     * @return the validated index
+     * @throws IndexOutOfBoundsException if {@code index} is negative or not less than {@code size}
+     */
+    protected int elementIndex(int index, int size) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        return index;
+    }
+
+    /**
+     * Validate and return the given position within the specified size.
+     *
+     * @param index the position to validate
+     * @param size the upper bound (inclusive) for valid positions
+     * @return the validated position
+     * @throws IndexOutOfBoundsException if {@code index} is negative or greater than {@code size}
+     */
+    protected int positionIndex(int index, int size) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index out of range: " + index);
+        return index;
+    }
+
+    private void writeObject(ObjectOutputStream output) throws Exception {
+        output.defaultWriteObject(); output.writeInt(count - origin);
+        for (E element : this) output.writeObject(element);
+    }
+
+    private void readObject(ObjectInputStream input) throws Exception {
+        input.defaultReadObject(); int size = input.readInt();
+        if (size < 0)
+            throw new InvalidObjectException("Negative size: " + size);
+        init(); for (int i = 0; i < size; i++)
+            put(cast(input.readObject()));
+    }
+
+
+    /**
+     * The {@link TailedSequenceIterator} moving along the leaf arrays.
+     */
+    protected class VectorIterator extends AbstractTailedSequenceIterator<E> {
+
+        protected Object[] array;
+
+        protected int base = -WIDTH;
+
+        protected VectorIterator(int index) {
+            super(index); }
+
+        @Override protected boolean hasPreviousElement() {
+            return index > 0; }
+        @Override protected boolean hasNextElement() {
+            return index < count - origin; }
+
+        @Override protected E previousElement() {
+            return element(origin + --index); }
+        @Override protected E nextElement() {
+            return element(origin + index++); }
+
+        private E element(int position) {
+            if (position < base || position >= base + WIDTH) {
+                array = array(position); base = position & ~MASK; }
+            return cast(array[position - base]); }
+    }
+
+    /**
+     * The {@link Spliterator} over the given range of positions, splitting it in halves.
+     */
+    protected class VectorSpliterator implements Spliterator<E> {
+
+        protected int from; protected final int to;
+
+        protected VectorSpliterator(int from, int to) {
+            this.from = from; this.to = to; }
+
+        @Override public boolean tryAdvance(Consumer<? super E> action) {
+            requireNonNull(action); if (from >= to) return false;
+            action.accept(cast(array(from)[from++ & MASK])); return true; }
+
+        @Override public void forEachRemaining(Consumer<? super E> action) {
+            requireNonNull(action); int from = this.from; this.from = to; forEach(from, to, action); }
+
+        @Override public Spliterator<E> trySplit() {
+            int middle = from + to >>> 1; if (middle - from < WIDTH) return null;
+            int from = this.from; this.from = middle &= ~MASK; return new VectorSpliterator(from, middle); }
+
+        @Override public long estimateSize() {
+            return to - from; }
+
+        @Override public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | IMMUTABLE; }
+    }
+
+
+    /**
+     * Return a {@link VectorSequence} of the given elements values.
+     *
+     * @param elements the given element values
+     * @param <E> the type of elements
+     * @return a {@link VectorSequence} of the given element values
+     */
+    @SafeVarargs
+    public static <E> VectorSequence<E> sequence(E... elements) {
+        return new VectorSequence<>(elements);
+    }
+
+    private static Object[] path(int level, Object[] array) {
+        if (level == 0) return array;
+        Object[] node = new Object[WIDTH]; node[0] = path(level - BITS, array); return node;
+    }
+
+    private static Object[] set(int level, Object[] node, int position, Object element) {
+        Object[] copy = node.clone();
+        if (level == 0) copy[position & MASK] = element;
+        else { int index = position >>> level & MASK;
+            copy[index] = set(level - BITS, (Object[]) node[index], position, element); }
+        return copy;
+    }
+}
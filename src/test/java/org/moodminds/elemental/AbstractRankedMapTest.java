@@ -0,0 +1,126 @@
+package org.moodminds.elemental;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
+
+import static java.util.Spliterator.SIZED;
+import static java.util.Spliterator.SUBSIZED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The behaviour tests of the {@link RankedMap} implementations, checked against a {@link TreeMap}.
+ */
+abstract class AbstractRankedMapTest {
+
+    private static final ToIntFunction<int[]> WEIGHER = value -> value[0];
+
+    protected abstract <K> RankedMap<K, int[]> map(Comparator<? super K> comparator, ToIntFunction<? super int[]> weigher);
+
+    protected abstract long weigh(Spliterator<?> entries);
+
+    @Test
+    void testRankAndSelect() {
+        Random random = new Random(1);
+        RankedMap<Integer, int[]> map = map(null, WEIGHER); TreeMap<Integer, int[]> expected = new TreeMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(1_000);
+            if (random.nextInt(4) == 0) { map.remove(key); expected.remove(key); }
+            else { int[] value = {1 + random.nextInt(3)}; map.put(key, value); expected.put(key, value); }
+            if (i % 500 == 0) assertRanked(expected, map);
+        }
+        assertRanked(expected, map);
+    }
+
+    @Test
+    void testRankAndSelectOfViews() {
+        Random random = new Random(2);
+        RankedMap<Integer, int[]> map = map(Comparator.reverseOrder(), WEIGHER); TreeMap<Integer, int[]> expected = new TreeMap<>(Comparator.reverseOrder());
+        for (int i = 0; i < 2_000; i++) {
+            int[] value = {1 + random.nextInt(3)}; int key = random.nextInt(3_000); map.put(key, value); expected.put(key, value); }
+
+        for (int i = 0; i < 50; i++) {
+            int from = random.nextInt(3_000), to = random.nextInt(3_000); if (from < to) { int swap = from; from = to; to = swap; }
+            boolean fromInclusive = random.nextBoolean(), toInclusive = random.nextBoolean();
+            assertRanked(expected.subMap(from, fromInclusive, to, toInclusive), (RankedMap<Integer, int[]>) map.subMap(from, fromInclusive, to, toInclusive));
+            assertRanked(expected.headMap(to, toInclusive), (RankedMap<Integer, int[]>) map.headMap(to, toInclusive));
+            assertRanked(expected.tailMap(from, fromInclusive), (RankedMap<Integer, int[]>) map.tailMap(from, fromInclusive));
+            assertRanked(expected.subMap(from, fromInclusive, to, toInclusive).descendingMap(),
+                    (RankedMap<Integer, int[]>) map.subMap(from, fromInclusive, to, toInclusive).descendingMap());
+        }
+        assertRanked(expected.descendingMap(), (RankedMap<Integer, int[]>) map.descendingMap());
+    }
+
+    @Test
+    void testReweigh() {
+        RankedMap<String, int[]> map = map(null, WEIGHER); int[] value = {2};
+        map.put("a", new int[]{1}); map.put("b", value); map.put("c", new int[]{3});
+
+        value[0] = 5; map.reweigh("b");
+
+        assertEquals(9, map.weight()); assertEquals(6, map.rank("c"));
+        assertEquals("b", map.weightedEntry(5).getKey()); assertEquals("c", map.weightedEntry(6).getKey());
+    }
+
+    @Test
+    void testWeightedEntryOutOfBounds() {
+        RankedMap<String, int[]> map = map(null, WEIGHER); map.put("a", new int[]{2});
+
+        assertThrows(IndexOutOfBoundsException.class, () -> map.weightedEntry(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> map.weightedEntry(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> ((RankedMap<String, int[]>) map.tailMap("b", true)).weightedEntry(0));
+    }
+
+    @Test
+    void testSplitSizesAndWeights() {
+        Random random = new Random(3);
+        for (int n : new int[]{0, 1, 2, 3, 100, 10_000}) {
+            RankedMap<Integer, int[]> map = map(null, WEIGHER);
+            for (int i = 0; i < n; i++) map.put(i, new int[]{random.nextInt(4)});
+
+            List<Integer> keys = new ArrayList<>(); assertSplit(map.entrySet().spliterator(), keys, random);
+            assertEquals(new ArrayList<>(map.keySet()), keys);
+
+            keys.clear(); assertSplit(map.descendingMap().entrySet().spliterator(), keys, random);
+            assertEquals(new ArrayList<>(map.descendingMap().keySet()), keys);
+        }
+    }
+
+    private void assertSplit(Spliterator<Map.Entry<Integer, int[]>> entries, List<Integer> keys, Random random) {
+        assertTrue(entries.hasCharacteristics(SIZED | SUBSIZED));
+        long size = entries.estimateSize(), weight = weigh(entries); int before = keys.size(); long weighed = 0;
+        Spliterator<Map.Entry<Integer, int[]>> prefix = random.nextInt(4) > 0 ? entries.trySplit() : null;
+        if (prefix != null) {
+            assertEquals(size, prefix.estimateSize() + entries.estimateSize());
+            assertEquals(weight, weigh(prefix) + weigh(entries));
+            assertSplit(prefix, keys, random); assertSplit(entries, keys, random);
+        } else while (true) {
+            long[] entryWeight = new long[1];
+            if (!entries.tryAdvance(entry -> { keys.add(entry.getKey()); entryWeight[0] = entry.getValue()[0]; })) break;
+            weighed += entryWeight[0]; assertEquals(weight - weighed, weigh(entries));
+        }
+        assertEquals(size, keys.size() - before);
+    }
+
+    private static <K> void assertRanked(NavigableMap<K, int[]> expected, RankedMap<K, int[]> map) {
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(map.keySet()));
+        int rank = 0;
+        for (Map.Entry<K, int[]> entry : expected.entrySet()) {
+            assertEquals(rank, map.rank(entry.getKey()));
+            for (int i = rank; i < rank + entry.getValue()[0]; i++)
+                assertEquals(entry.getKey(), map.weightedEntry(i).getKey());
+            rank += entry.getValue()[0];
+        }
+        assertEquals(rank, map.weight());
+    }
+}
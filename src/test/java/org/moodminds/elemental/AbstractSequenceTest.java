@@ -0,0 +1,84 @@
+package org.moodminds.elemental;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The common assertions of the {@link Sequence} implementation tests, checked against a {@link List}.
+ */
+abstract class AbstractSequenceTest {
+
+    protected static void assertSequence(List<Integer> expected, Sequence<Integer> sequence, Random random) {
+        assertEquals(expected.size(), sequence.size()); assertEquals(!expected.isEmpty(), sequence.contains());
+        for (int i = 0; i < 20 && !expected.isEmpty(); i++) {
+            int index = random.nextInt(expected.size()); assertEquals(expected.get(index), sequence.get(index)); }
+        assertThrows(IndexOutOfBoundsException.class, () -> sequence.get(expected.size()));
+
+        List<Integer> actual = new ArrayList<>(); sequence.forEach(actual::add); assertEquals(expected, actual);
+        actual.clear(); for (Integer element : sequence) actual.add(element); assertEquals(expected, actual);
+        assertEquals(expected, sequence.stream().collect(Collectors.toList()));
+        assertEquals(expected, sequence.stream().parallel().collect(Collectors.toList()));
+        assertEquals(expected, split(sequence.spliterator(), random, 6));
+
+        int index = random.nextInt(expected.size() + 1); SequenceIterator<Integer> iterator = sequence.iterator(index);
+        assertEquals(index, iterator.nextIndex());
+        actual.clear(); iterator.forEachRemaining(actual::add); assertEquals(expected.subList(index, expected.size()), actual);
+        assertFalse(iterator.hasNext());
+
+        Sequence<Integer> array = new ArraySequence<>(expected.toArray(new Integer[0]));
+        assertEquals(array, sequence); assertEquals(array.hashCode(), sequence.hashCode());
+    }
+
+    protected static void assertTailed(List<Integer> expected, TailedSequence<Integer> sequence, Random random) {
+        assertSequence(expected, sequence, random);
+
+        List<Integer> actual = new ArrayList<>(); sequence.descendingIterator().forEachRemaining(actual::add);
+        Collections.reverse(actual); assertEquals(expected, actual);
+
+        int index = random.nextInt(expected.size() + 1); TailedSequenceIterator<Integer> iterator = sequence.iterator(index);
+        for (int step = 0; step < 100; step++) {
+            if (random.nextBoolean()) {
+                assertEquals(index < expected.size(), iterator.hasNext());
+                if (index < expected.size()) assertEquals(expected.get(index++), iterator.next()); }
+            else {
+                assertEquals(index > 0, iterator.hasPrevious());
+                if (index > 0) assertEquals(expected.get(--index), iterator.previous()); }
+            assertEquals(index, iterator.nextIndex());
+        }
+    }
+
+    protected static List<Integer> split(Spliterator<Integer> spliterator, Random random, int depth) {
+        List<Integer> elements = new ArrayList<>();
+        if (depth > 0 && random.nextBoolean()) {
+            Spliterator<Integer> prefix = spliterator.trySplit(); if (prefix != null) elements.addAll(split(prefix, random, depth - 1)); }
+        if (random.nextBoolean()) {
+            spliterator.tryAdvance(elements::add);
+            if (depth > 0 && random.nextBoolean()) {
+                Spliterator<Integer> prefix = spliterator.trySplit(); if (prefix != null) elements.addAll(split(prefix, random, depth - 1)); } }
+        spliterator.forEachRemaining(elements::add); return elements;
+    }
+
+    protected static List<Integer> range(int from, int to) {
+        List<Integer> range = new ArrayList<>(); for (int i = from; i < to; i++) range.add(i); return range;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected static <T> T copy(T object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) { output.writeObject(object); }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) input.readObject(); }
+    }
+}
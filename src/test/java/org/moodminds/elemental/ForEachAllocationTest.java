@@ -0,0 +1,79 @@
+package org.moodminds.elemental;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that the traversal of the containers allocates nothing per element, comparing
+ * the bytes allocated by the current thread traversing a small and a large container.
+ */
+class ForEachAllocationTest {
+
+    private static final int SMALL = 100, LARGE = 100_000, TOLERANCE = 1_024;
+
+    private static long sink;
+
+    private static final Consumer<Object> CONSUMER = element -> sink += element != null ? 1 : 0;
+
+    @Test
+    void testForEach() {
+        for (Function<List<Integer>, Container<Integer>> container : Arrays.<Function<List<Integer>, Container<Integer>>>asList(
+                HashContainer::new, HashCollection::new, CountingHashContainer::new, CountingHashCollection::new,
+                TreeContainer::new, TreeCollection::new, BTreeContainer::new, BTreeCollection::new,
+                LinkHashContainer::new, LinkHashCollection::new))
+            assertConstant(container, c -> c.forEach(CONSUMER));
+    }
+
+    @Test
+    void testSpliteratorForEachRemaining() {
+        for (Function<List<Integer>, Container<Integer>> container : Arrays.<Function<List<Integer>, Container<Integer>>>asList(
+                HashContainer::new, HashCollection::new, CountingHashContainer::new, CountingHashCollection::new,
+                TreeContainer::new, TreeCollection::new, LinkHashContainer::new, LinkHashCollection::new))
+            assertConstant(container, c -> c.spliterator().forEachRemaining(CONSUMER));
+    }
+
+    @Test
+    void testSpliteratorTryAdvance() {
+        for (Function<List<Integer>, Container<Integer>> container : Arrays.<Function<List<Integer>, Container<Integer>>>asList(
+                HashContainer::new, HashCollection::new, TreeContainer::new, TreeCollection::new,
+                LinkHashContainer::new, LinkHashCollection::new))
+            assertConstant(container, c -> { Spliterator<Integer> spliterator = c.spliterator(); while (spliterator.tryAdvance(CONSUMER)); });
+    }
+
+    private static void assertConstant(Function<List<Integer>, Container<Integer>> factory, Consumer<Container<Integer>> traversal) {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof ThreadMXBean && ((ThreadMXBean) threads).isThreadAllocatedMemorySupported());
+        ThreadMXBean bean = (ThreadMXBean) threads; bean.setThreadAllocatedMemoryEnabled(true);
+
+        Container<Integer> small = factory.apply(elements(SMALL)), large = factory.apply(elements(LARGE));
+        for (int i = 0; i < 5; i++) { traversal.accept(small); traversal.accept(large); }
+
+        long smallBytes = allocated(bean, small, traversal), largeBytes = allocated(bean, large, traversal);
+        assertTrue(largeBytes - smallBytes < TOLERANCE, () -> small.getClass().getSimpleName()
+                + " allocated " + smallBytes + " bytes for " + SMALL + " and " + largeBytes + " bytes for " + LARGE + " elements");
+    }
+
+    private static long allocated(ThreadMXBean bean, Container<Integer> container, Consumer<Container<Integer>> traversal) {
+        long thread = Thread.currentThread().getId(); bean.getThreadAllocatedBytes(thread);
+        long before = bean.getThreadAllocatedBytes(thread); traversal.accept(container);
+        return bean.getThreadAllocatedBytes(thread) - before;
+    }
+
+    private static List<Integer> elements(int size) {
+        Random random = new Random(size); List<Integer> elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) elements.add(random.nextInt(size / 3 + 1));
+        return elements;
+    }
+}
@@ -0,0 +1,80 @@
+package org.moodminds.elemental;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LazySequenceTest extends AbstractSequenceTest {
+
+    @Test
+    void testPullsOnDemandAndOnce() throws Exception {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            int size = random.nextInt(random.nextBoolean() ? 70 : 1_000); List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < size; i++) expected.add(random.nextInt());
+            int[] pulled = new int[1]; LazySequence<Integer> sequence = new LazySequence<>(counting(expected, pulled));
+
+            if (size > 10) {
+                int index = random.nextInt(size); sequence.get(index);
+                assertEquals(index + 1, pulled[0]);
+
+                int from = random.nextInt(size), to = from + random.nextInt(size - from + 1);
+                Sequence<Integer> sub = sequence.sub(from, to);
+                assertEquals(Math.max(index + 1, to), pulled[0]);
+                assertSequence(expected.subList(from, to), sub, random);
+                assertThrows(IndexOutOfBoundsException.class, () -> sub.sub(0, to - from + 1));
+            }
+            assertSequence(expected, sequence, random);
+            assertEquals(size, pulled[0]);
+
+            assertThrows(IndexOutOfBoundsException.class, () -> new LazySequence<>(expected.iterator()).sub(0, size + 1));
+            assertSequence(expected, copy(new LazySequence<>(expected.stream())), random);
+        }
+    }
+
+    @Test
+    void testInfiniteSource() {
+        LazySequence<Integer> sequence = new LazySequence<>(Stream.iterate(0, i -> i + 1));
+
+        assertEquals(500, sequence.get(500)); assertEquals(13, sequence.sub(10, 20).get(3));
+    }
+
+    @Test
+    void testConcurrentReaders() throws Exception {
+        int size = 200_000; LazySequence<Integer> sequence = new LazySequence<>(range(0, size).iterator());
+        ExecutorService executor = newFixedThreadPool(8);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int reader = 0; reader < 8; reader++) {
+                Random random = new Random(reader);
+                readers.add(executor.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) { int index = random.nextInt(size); assertEquals(index, sequence.get(index)); }
+                    long sum = 0; for (Integer element : sequence) sum += element;
+                    assertEquals((long) size * (size - 1) / 2, sum);
+                }));
+            }
+            for (Future<?> reader : readers) reader.get();
+        } finally {
+            executor.shutdown(); }
+    }
+
+    private static Iterator<Integer> counting(List<Integer> elements, int[] pulled) {
+        Iterator<Integer> iterator = elements.iterator();
+        return new Iterator<Integer>() {
+            @Override public boolean hasNext() {
+                return iterator.hasNext(); }
+            @Override public Integer next() {
+                pulled[0]++; return iterator.next(); }
+        };
+    }
+}
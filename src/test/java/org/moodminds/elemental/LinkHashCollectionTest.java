@@ -0,0 +1,138 @@
+package org.moodminds.elemental;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LinkHashCollectionTest {
+
+    @Test
+    void testMatchesInsertionOrderedList() throws Exception {
+        Random random = new Random(1);
+        for (int round = 0; round < 300; round++) {
+            int range = 1 + random.nextInt(40);
+            LinkHashCollection<Integer> collection = new LinkHashCollection<>(); List<Integer> expected = new ArrayList<>();
+            for (int operation = 0; operation < 300; operation++) {
+                Integer value = random.nextInt(20) == 0 ? null : random.nextInt(range);
+                switch (random.nextInt(8)) {
+                    case 0: case 1: case 2: case 3:
+                        collection.add(value); expected.add(value); break;
+                    case 4:
+                        Iterator<Integer> iterator = collection.iterator(); ListIterator<Integer> expectedIterator = expected.listIterator();
+                        while (iterator.hasNext()) {
+                            assertEquals(expectedIterator.next(), iterator.next());
+                            if (random.nextInt(3) == 0) { iterator.remove(); expectedIterator.remove(); } } break;
+                    case 5:
+                        List<Integer> positions = positions(expected, value), removed = new ArrayList<>(); int count = 0;
+                        for (Iterator<Integer> run = collection.getAll(value); run.hasNext(); count++) {
+                            run.next(); if (random.nextBoolean()) { run.remove(); removed.add(positions.get(count)); } }
+                        assertEquals(positions.size(), count);
+                        for (int i = removed.size() - 1; i >= 0; i--) expected.remove((int) removed.get(i)); break;
+                    case 6:
+                        assertEquals(positions(expected, value).size(), collection.getCount(value));
+                        assertEquals(expected.contains(value), collection.contains(value)); break;
+                    default:
+                        if (random.nextInt(10) == 0) collection = copy(collection);
+                }
+                assertEquals(expected.size(), collection.size()); assertEquals(expected, list(collection.iterator()));
+            }
+            assertIndexed(collection, expected);
+        }
+    }
+
+    @Test
+    void testTraversal() {
+        List<Integer> expected = new ArrayList<>(); Random random = new Random(2);
+        for (int i = 0; i < 10_000; i++) expected.add(random.nextInt(1_000));
+        LinkHashCollection<Integer> collection = new LinkHashCollection<>(expected);
+        for (Iterator<Integer> iterator = collection.iterator(); iterator.hasNext(); )
+            if (iterator.next() % 3 == 0) iterator.remove();
+        expected.removeIf(value -> value % 3 == 0);
+
+        List<Integer> forEach = new ArrayList<>(); collection.forEach(forEach::add);
+        assertEquals(expected, forEach);
+        assertEquals(expected, StreamSupport.stream(collection.spliterator(), false).collect(Collectors.toList()));
+        assertEquals(expected, StreamSupport.stream(collection.spliterator(), true).collect(Collectors.toList()));
+        assertEquals(expected.size(), StreamSupport.stream(collection.spliterator(), true).count());
+        assertEquals(expected, Stream.of(expected.toArray(new Integer[0])).parallel().collect(LinkHashCollection.toCollection()).stream().collect(Collectors.toList()));
+    }
+
+    @Test
+    void testCompaction() {
+        LinkHashCollection<Integer> collection = new LinkHashCollection<>(); List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            collection.add(i % 97); expected.add(i % 97);
+            if (i % 2 == 0) { Iterator<Integer> iterator = collection.iterator(); iterator.next(); iterator.remove(); expected.remove(0); }
+        }
+        assertTrue(collection.elements.length <= 4 * collection.size());
+        assertIndexed(collection, expected);
+    }
+
+    @Test
+    void testIteratorFailures() {
+        LinkHashCollection<Integer> collection = new LinkHashCollection<>(1, 2, 3);
+        Iterator<Integer> iterator = collection.iterator(); iterator.next(); collection.add(4);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+
+        Iterator<Integer> removing = collection.iterator();
+        assertThrows(IllegalStateException.class, removing::remove);
+        removing.next(); removing.remove();
+        assertThrows(IllegalStateException.class, removing::remove);
+    }
+
+    @Test
+    void testContainerRuns() {
+        LinkHashContainer<Integer> container = new LinkHashContainer<>(3, 1, 3, 2, 3);
+
+        assertEquals(asList(3, 3, 3), list(container.getAll(3))); assertEquals(3, container.getCount(3));
+        assertEquals(asList(3, 1, 3, 2, 3), list(container.iterator()));
+
+        Iterator<Integer> iterator = container.iterator(); iterator.next();
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+    }
+
+    private static void assertIndexed(LinkHashCollection<Integer> collection, List<Integer> expected) {
+        assertEquals(new HashSet<>(expected).size(), collection.distinct);
+        for (Integer value : new HashSet<>(expected)) {
+            assertEquals(positions(expected, value).size(), collection.getCount(value));
+            assertEquals(expected.stream().filter(element -> Objects.equals(element, value)).collect(Collectors.toList()), list(collection.getAll(value)));
+        }
+    }
+
+    private static List<Integer> positions(List<Integer> list, Object value) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < list.size(); i++) if (Objects.equals(list.get(i), value)) positions.add(i);
+        return positions;
+    }
+
+    private static List<Integer> list(Iterator<Integer> iterator) {
+        List<Integer> list = new ArrayList<>(); iterator.forEachRemaining(list::add); return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static LinkHashCollection<Integer> copy(LinkHashCollection<Integer> collection) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) { output.writeObject(collection); }
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (LinkHashCollection<Integer>) input.readObject(); }
+    }
+}
@@ -0,0 +1,111 @@
+package org.moodminds.elemental;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenHashMapTest {
+
+    @Test
+    void testRemoveShiftsCollidingKeysBack() {
+        OpenHashMap<Collider, Integer> map = new OpenHashMap<>();
+        for (int i = 0; i < 12; i++) map.put(new Collider(i), i);
+
+        for (int i = 0; i < 12; i += 3) assertEquals(i, map.remove(new Collider(i)));
+
+        assertEquals(8, map.size()); assertEquals(8, occupied(map));
+        for (int i = 0; i < 12; i++)
+            if (i % 3 == 0) assertFalse(map.containsKey(new Collider(i)));
+            else assertEquals(i, map.get(new Collider(i)));
+    }
+
+    @Test
+    void testRemoveThroughIteratorVisitsEveryEntryOnce() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            OpenHashMap<Integer, Integer> map = new OpenHashMap<>(); Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0, n = random.nextInt(100); i < n; i++) {
+                int key = random.nextInt(64); map.put(key, i); expected.put(key, i); }
+
+            Map<Integer, Integer> original = new HashMap<>(expected), visited = new HashMap<>();
+            for (Iterator<Map.Entry<Integer, Integer>> iterator = map.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<Integer, Integer> entry = iterator.next();
+                assertNull(visited.put(entry.getKey(), entry.getValue()));
+                if (random.nextBoolean()) { iterator.remove(); expected.remove(entry.getKey()); }
+            }
+
+            assertEquals(original, visited); assertEquals(expected, map); assertEquals(expected.size(), occupied(map));
+        }
+    }
+
+    @Test
+    void testResizeKeepsAllEntries() {
+        OpenHashMap<Integer, String> map = new OpenHashMap<>(2); Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 31, "v" + i); expected.put(i * 31, "v" + i); }
+
+        assertEquals(expected, map); assertEquals(expected.size(), occupied(map));
+        assertEquals(0, map.keys.length & map.keys.length - 1);
+        assertTrue(map.keys.length * .75 >= map.size());
+    }
+
+    @Test
+    void testNullKeysAndValues() {
+        OpenHashMap<String, String> map = new OpenHashMap<>();
+
+        assertNull(map.put(null, "a")); assertNull(map.put("b", null));
+
+        assertTrue(map.containsKey(null)); assertEquals("a", map.get(null));
+        assertTrue(map.containsKey("b")); assertNull(map.get("b"));
+        assertEquals("c", map.getOrDefault("c", "c")); assertNull(map.getOrDefault("b", "c"));
+
+        Map<String, String> expected = new HashMap<>(); expected.put(null, "a"); expected.put("b", null);
+        assertEquals(expected, map); assertEquals(expected, new HashMap<>(map));
+
+        assertEquals("a", map.remove(null));
+        assertFalse(map.containsKey(null)); assertEquals(1, map.size());
+    }
+
+    @Test
+    void testMatchesHashMap() {
+        Random random = new Random(3);
+        OpenHashMap<Integer, Integer> map = new OpenHashMap<>(); Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            Integer key = random.nextInt(20) == 0 ? null : random.nextInt(2_000);
+            if (random.nextInt(3) == 0) assertEquals(expected.remove(key), map.remove(key));
+            else assertEquals(expected.put(key, i), map.put(key, i));
+            if (i % 10_000 == 0) assertEquals(expected, map);
+        }
+        assertEquals(expected, map); assertEquals(expected.size(), occupied(map));
+
+        List<Integer> keys = new ArrayList<>(); map.forEach((key, value) -> keys.add(key));
+        assertEquals(expected.size(), keys.size()); assertTrue(expected.keySet().containsAll(keys));
+    }
+
+    private static int occupied(OpenHashMap<?, ?> map) {
+        int occupied = 0; for (Object key : map.keys) if (key != null) occupied++; return occupied;
+    }
+
+    private static final class Collider {
+
+        private final int id;
+
+        Collider(int id) {
+            this.id = id; }
+
+        @Override public boolean equals(Object obj) {
+            return obj instanceof Collider && ((Collider) obj).id == id; }
+        @Override public int hashCode() {
+            return 42; }
+    }
+}
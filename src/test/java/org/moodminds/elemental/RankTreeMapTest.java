@@ -0,0 +1,18 @@
+package org.moodminds.elemental;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.ToIntFunction;
+
+class RankTreeMapTest extends AbstractRankedMapTest {
+
+    @Override
+    protected <K> RankedMap<K, int[]> map(Comparator<? super K> comparator, ToIntFunction<? super int[]> weigher) {
+        return new RankTreeMap<>(comparator, weigher);
+    }
+
+    @Override
+    protected long weigh(Spliterator<?> entries) {
+        return ((RankTreeMap<?, ?>.EntrySpliterator) entries).weigh();
+    }
+}
@@ -0,0 +1,72 @@
+package org.moodminds.elemental;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RopeSequenceTest extends AbstractSequenceTest {
+
+    @Test
+    void testConcatAndSub() throws Exception {
+        Random random = new Random(11); int next = 0;
+        for (int round = 0; round < 60; round++) {
+            RopeSequence<Integer> sequence = new RopeSequence<>(); List<Integer> expected = new ArrayList<>();
+            for (int operation = 0; operation < 30; operation++) {
+                int kind = random.nextInt(6);
+                if (kind < 3) {
+                    List<Integer> elements = range(next, next += random.nextInt(random.nextBoolean() ? 10 : 200));
+                    if (random.nextBoolean()) {
+                        sequence = sequence.concat(leaf(elements, random)); expected.addAll(elements); }
+                    else {
+                        sequence = new RopeSequence<>(leaf(elements, random), sequence); expected.addAll(0, elements); } }
+                else if (kind == 3) {
+                    int from = random.nextInt(expected.size() + 1), to = from + random.nextInt(expected.size() - from + 1);
+                    sequence = sequence.sub(from, to); expected = new ArrayList<>(expected.subList(from, to)); }
+                else if (kind == 4 && expected.size() < 50_000) {
+                    sequence = sequence.concat(sequence); expected.addAll(new ArrayList<>(expected)); }
+                else {
+                    int middle = random.nextInt(expected.size() + 1);
+                    sequence = sequence.sub(middle, expected.size()).concat(sequence.sub(0, middle));
+                    List<Integer> rotated = new ArrayList<>(expected.subList(middle, expected.size()));
+                    rotated.addAll(expected.subList(0, middle)); expected = rotated; }
+
+                assertTailed(expected, sequence, random); assertBalanced(sequence.root);
+                assertEquals(expected.size(), sequence.spliterator().estimateSize());
+                assertEquals(new ArraySequence<>(expected.toArray(new Integer[0])), sequence.flatten());
+            }
+            assertTailed(expected, copy(sequence), random);
+        }
+    }
+
+    @Test
+    void testHeightOfSingleElementLeaves() {
+        RopeSequence<Integer> sequence = new RopeSequence<>();
+        for (int i = 0; i < 100_000; i++) sequence = sequence.concat(new ArraySequence<>(i));
+
+        assertBalanced(sequence.root); assertTrue(sequence.root.height <= 1.45 * 17 + 1);
+        assertEquals(range(0, 100_000), sequence.stream().collect(Collectors.toList()));
+    }
+
+    private static void assertBalanced(RopeSequence.Node node) {
+        if (node instanceof RopeSequence.Concat) {
+            RopeSequence.Concat concat = (RopeSequence.Concat) node;
+            assertTrue(Math.abs(concat.left.height - concat.right.height) <= 1);
+            assertBalanced(concat.left); assertBalanced(concat.right);
+        }
+    }
+
+    private static Sequence<Integer> leaf(List<Integer> elements, Random random) {
+        switch (random.nextInt(4)) {
+            case 0: return new ArraySequence<>(elements.toArray(new Integer[0]));
+            case 1: return new LinkSequence<>(elements);
+            case 2: return new LinkTailSequence<>(elements);
+            default: return new UnrolledTailSequence<>(elements);
+        }
+    }
+}
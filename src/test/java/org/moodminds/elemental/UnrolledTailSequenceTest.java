@@ -0,0 +1,74 @@
+package org.moodminds.elemental;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UnrolledTailSequenceTest extends AbstractSequenceTest {
+
+    @Test
+    void testSubSequences() throws Exception {
+        Random random = new Random(3);
+        for (int round = 0; round < 200; round++) {
+            int size = random.nextInt(400); List<Integer> expected = range(0, size);
+            UnrolledTailSequence<Integer> sequence = new UnrolledTailSequence<>(expected);
+            assertTailed(expected, sequence, random);
+
+            for (int i = 0; i < 5; i++) {
+                int from = random.nextInt(size + 1), to = from + random.nextInt(size - from + 1);
+                TailedSequence<Integer> sub = sequence.sub(from, to); assertTailed(expected.subList(from, to), sub, random);
+                int subFrom = random.nextInt(to - from + 1), subTo = subFrom + random.nextInt(to - from - subFrom + 1);
+                assertTailed(expected.subList(from + subFrom, from + subTo), sub.sub(subFrom, subTo), random);
+            }
+            assertTailed(expected, copy(sequence), random);
+            assertThrows(UnsupportedOperationException.class, () -> sequence.iterator().remove());
+        }
+    }
+
+    @Test
+    void testRemoveThroughIterator() {
+        Random random = new Random(4);
+        for (int round = 0; round < 200; round++) {
+            List<Integer> expected = range(0, random.nextInt(400)); Removable<Integer> sequence = new Removable<>(expected);
+            for (int pass = 0; pass < 6; pass++) {
+                int index = random.nextInt(expected.size() + 1);
+                TailedSequenceIterator<Integer> iterator = sequence.removing(index); ListIterator<Integer> expectedIterator = expected.listIterator(index);
+                for (int step = 0; step < 200; step++) {
+                    int kind = random.nextInt(5);
+                    if (kind < 2 && iterator.hasNext()) {
+                        assertEquals(expectedIterator.next(), iterator.next());
+                        if (random.nextInt(3) > 0) { iterator.remove(); expectedIterator.remove(); } }
+                    else if (kind < 4 && iterator.hasPrevious()) {
+                        assertEquals(expectedIterator.previous(), iterator.previous());
+                        if (random.nextInt(3) > 0) { iterator.remove(); expectedIterator.remove(); } }
+                    else if (kind == 4) {
+                        sequence.add(-step); expected.add(-step); break; }
+                    assertEquals(expectedIterator.nextIndex(), iterator.nextIndex());
+                }
+                assertTailed(new ArrayList<>(expected), sequence, random);
+            }
+        }
+    }
+
+    private static class Removable<E> extends UnrolledTailSequence<E> {
+
+        Removable(List<E> elements) {
+            super(elements); }
+
+        void add(E element) {
+            put(element); }
+
+        TailedSequenceIterator<E> removing(int index) {
+            return new ChunkIterator(this, 0, index) {
+                @Override protected void removeElement() {
+                    delete(); }
+            };
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.moodminds.elemental;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VectorSequenceTest extends AbstractSequenceTest {
+
+    @Test
+    void testPersistentUpdates() throws Exception {
+        Random random = new Random(5); int next = 0;
+        for (int round = 0; round < 30; round++) {
+            List<VectorSequence<Integer>> versions = new ArrayList<>(); List<List<Integer>> expectations = new ArrayList<>();
+            List<Integer> expected = range(next, next += random.nextInt(random.nextBoolean() ? 40 : 3_000));
+            VectorSequence<Integer> sequence = new VectorSequence<>(expected); versions.add(sequence); expectations.add(expected);
+
+            for (int operation = 0; operation < 100; operation++) {
+                int version = random.nextInt(versions.size());
+                sequence = versions.get(version); expected = new ArrayList<>(expectations.get(version));
+                int kind = random.nextInt(10);
+                if (kind < 5)
+                    for (int i = 0, n = random.nextInt(random.nextBoolean() ? 3 : 1_200); i < n; i++) {
+                        sequence = sequence.withAppended(next); expected.add(next++); }
+                else if (kind < 8) {
+                    for (int i = 0; i < 5 && !expected.isEmpty(); i++) {
+                        int index = random.nextInt(expected.size()); sequence = sequence.withSet(index, next); expected.set(index, next++); } }
+                else {
+                    int from = random.nextInt(expected.size() + 1), to = from + random.nextInt(expected.size() - from + 1);
+                    sequence = random.nextBoolean() ? sequence.withSub(from, to) : sequence.sub(from, to);
+                    expected = new ArrayList<>(expected.subList(from, to)); }
+                versions.add(sequence); expectations.add(expected);
+            }
+
+            for (int version = 0; version < versions.size(); version++)
+                assertTailed(expectations.get(version), versions.get(version), random);
+            assertTailed(expected, copy(sequence), random);
+        }
+    }
+
+    @Test
+    void testDeepTree() {
+        VectorSequence<Integer> sequence = new VectorSequence<>();
+        for (int i = 0; i < 1_000_000; i++) sequence = sequence.withAppended(i);
+
+        assertEquals(1_000_000, sequence.size());
+        for (int i = 0; i < 1_000_000; i += 997) assertEquals(i, sequence.get(i));
+    }
+}